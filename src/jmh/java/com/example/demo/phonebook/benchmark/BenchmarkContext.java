@@ -0,0 +1,74 @@
+package com.example.demo.phonebook.benchmark;
+
+import com.example.demo.phonebook.PhonebookApplication;
+import com.example.demo.phonebook.model.Contact;
+import com.example.demo.phonebook.service.ContactService;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Boots the application against an in-memory H2 database standing in for MySQL
+ * and seeds it with a deterministic contact fixture.
+ */
+final class BenchmarkContext {
+    static final String[] FIRST_NAMES = {"Alice", "Bob", "Carol", "Dave", "Erin", "Frank", "Grace", "Heidi",
+            "Ivan", "Judy", "Mallory", "Niaj", "Olivia", "Peggy", "Rupert", "Sybil", "Trent", "Uma", "Victor", "Wendy"};
+    static final String[] LAST_NAMES = {"Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller",
+            "Davis", "Rodriguez", "Martinez", "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas",
+            "Taylor", "Moore", "Jackson", "Martin"};
+    private static final int SEED_CHUNK = 1000;
+
+    private BenchmarkContext() {
+    }
+
+    /** Starts the app without a web server. Extra args override the defaults below. */
+    static ConfigurableApplicationContext start(int fixtureSize, String... extraArgs) {
+        String[] defaults = {
+                "--spring.profiles.active=bench",
+                "--spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.main.web-application-type=none",
+                "--spring.main.banner-mode=off",
+                "--debug=false",
+                "--logging.level.root=WARN",
+                "--phonebook.logging.default-sample-rate=0"
+        };
+        String[] args = Stream.concat(Arrays.stream(defaults), Arrays.stream(extraArgs)).toArray(String[]::new);
+        ConfigurableApplicationContext context = SpringApplication.run(PhonebookApplication.class, args);
+        seed(context.getBean(ContactService.class), fixtureSize);
+        return context;
+    }
+
+    static void seed(ContactService contactService, int fixtureSize) {
+        List<Contact> chunk = new ArrayList<>(SEED_CHUNK);
+        for (int i = 0; i < fixtureSize; i++) {
+            chunk.add(fixtureContact(i));
+            if (chunk.size() == SEED_CHUNK) {
+                contactService.saveContacts(chunk);
+                chunk = new ArrayList<>(SEED_CHUNK);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            contactService.saveContacts(chunk);
+        }
+    }
+
+    /** Fixture row i; ids come out of the sequence as i + 1. */
+    static Contact fixtureContact(int i) {
+        String name = FIRST_NAMES[i % FIRST_NAMES.length] + " "
+                + LAST_NAMES[(i / FIRST_NAMES.length) % LAST_NAMES.length];
+        return new Contact(null, name, phoneNumber(i), "user" + i + "@example.com");
+    }
+
+    static String phoneNumber(long i) {
+        return String.format("%03d-%03d-%04d", (i / 10_000_000) % 1000, (i / 10_000) % 1000, i % 10_000);
+    }
+}
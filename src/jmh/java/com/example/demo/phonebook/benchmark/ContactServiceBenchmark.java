@@ -0,0 +1,87 @@
+package com.example.demo.phonebook.benchmark;
+
+import com.example.demo.phonebook.model.Contact;
+import com.example.demo.phonebook.model.ContactMatch;
+import com.example.demo.phonebook.service.ContactService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ContactService hot paths through the real Spring proxies and H2.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContactServiceBenchmark {
+    @Param({"10000"})
+    public int fixtureSize;
+
+    private ConfigurableApplicationContext context;
+    private ContactService contactService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(fixtureSize);
+        contactService = context.getBean(ContactService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private int randomRow() {
+        return ThreadLocalRandom.current().nextInt(fixtureSize);
+    }
+
+    @Benchmark
+    public Optional<Contact> getContactById() {
+        return contactService.getContactById((long) randomRow() + 1);
+    }
+
+    @Benchmark
+    public Contact getContactByPhoneNumber() {
+        return contactService.getContactByPhoneNumber(BenchmarkContext.phoneNumber(randomRow()));
+    }
+
+    @Benchmark
+    public List<Contact> getContactsByName() {
+        return contactService.getContactsByName(BenchmarkContext.fixtureContact(randomRow()).getName());
+    }
+
+    @Benchmark
+    public List<ContactMatch> getFuzzyMatches() {
+        // A fixture name with two neighbouring letters swapped in each word
+        String name = BenchmarkContext.fixtureContact(randomRow()).getName();
+        StringBuilder typo = new StringBuilder(name);
+        for (int i = 1; i + 1 < typo.length(); i++) {
+            if (typo.charAt(i - 1) == ' ' || i == 1) {
+                char c = typo.charAt(i);
+                typo.setCharAt(i, typo.charAt(i + 1));
+                typo.setCharAt(i + 1, c);
+            }
+        }
+        return contactService.getFuzzyMatches(typo.toString(), 2, 10);
+    }
+
+    @Benchmark
+    public Contact saveContact() {
+        return contactService.saveContact(BenchmarkContext.fixtureContact(randomRow()));
+    }
+
+    @Benchmark
+    public Contact updateContact() {
+        int row = randomRow();
+        Contact changed = BenchmarkContext.fixtureContact(row);
+        changed.setName(changed.getName() + " Jr");
+        return contactService.updateContact((long) row + 1, changed);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.demo.phonebook.benchmark;
+
+import com.example.demo.phonebook.index.DuplicateFinder;
+import com.example.demo.phonebook.model.Contact;
+import com.example.demo.phonebook.model.DuplicateCluster;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Both passes of the duplicate-detection job over generated rows, without the database.
+ * About 5% of the rows are re-entered copies with another phone format, email case or a typo.
+ * Compare parallelism=1 with the core count to see the fork-join speedup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class DuplicateFinderBenchmark {
+    private static final String[] FIRST = {"Alice", "Bob", "Carol", "Dave", "Erin", "Frank", "Grace", "Heidi"};
+    private static final String[] LAST = {"Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller"};
+
+    @Param({"1000000"})
+    public int rows;
+
+    @Param({"1", "0"})
+    public int parallelism;
+
+    private List<Contact> contacts;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        Random random = new Random(42);
+        contacts = new ArrayList<>(rows);
+        for (long id = 1; id <= rows; id++) {
+            if (id > 1 && random.nextInt(20) == 0) {
+                Contact original = contacts.get(random.nextInt(contacts.size()));
+                contacts.add(new Contact(id, typo(original.getName(), random),
+                        original.getPhoneNumber().replace("-", ""), original.getEmail().toUpperCase()));
+                continue;
+            }
+            String name = FIRST[random.nextInt(FIRST.length)] + " " + LAST[random.nextInt(LAST.length)] + " " + id;
+            String phone = String.format("%03d-%03d-%04d", random.nextInt(1000), random.nextInt(1000),
+                    random.nextInt(10000));
+            contacts.add(new Contact(id, name, phone, "user" + id + "@example.com"));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Benchmark
+    public List<DuplicateCluster> findDuplicates() {
+        DuplicateFinder finder = new DuplicateFinder(0.8, 1000);
+        for (Contact contact : contacts) {
+            finder.addKeys(contact.getId(), contact.getPhoneNumber(), contact.getEmail());
+        }
+        finder.selectCandidates(pool);
+        for (Contact contact : contacts) {
+            finder.addCandidate(contact);
+        }
+        return finder.clusters(pool);
+    }
+
+    // Swaps two neighbouring letters
+    private static String typo(String name, Random random) {
+        char[] chars = name.toCharArray();
+        int i = random.nextInt(chars.length - 1);
+        char c = chars[i];
+        chars[i] = chars[i + 1];
+        chars[i + 1] = c;
+        return new String(chars);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.demo.phonebook.benchmark;
+
+import com.example.demo.phonebook.model.ContactSuggestion;
+import com.example.demo.phonebook.service.ContactService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.util.AopTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead LoggingAspect adds to a cheap, in-memory service call:
+ * the same call through the Spring proxy and on the raw target.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggingAspectBenchmark {
+    /** Fraction of calls that also enqueue log lines, on top of the latency timer. */
+    @Param({"0", "1"})
+    public String sampleRate;
+
+    private ConfigurableApplicationContext context;
+    private ContactService proxied;
+    private ContactService target;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(1000, "--phonebook.logging.default-sample-rate=" + sampleRate);
+        proxied = context.getBean(ContactService.class);
+        target = AopTestUtils.getUltimateTargetObject(proxied);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ContactSuggestion> withAspect() {
+        return proxied.getSuggestions("alice", 10);
+    }
+
+    @Benchmark
+    public List<ContactSuggestion> withoutAspect() {
+        return target.getSuggestions("alice", 10);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.demo.phonebook.benchmark;
+
+import com.example.demo.phonebook.trace.RequestFlightRecorder;
+import com.example.demo.phonebook.trace.RequestPhase;
+import com.example.demo.phonebook.trace.RequestTrace;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recording cost of request tracing: the phase changes of a typical traced request, i.e.
+ * controller, body read, validation, aspect, service, repository and two statements, plus
+ * handing it to the flight recorder; and the same hooks with no trace active, which is all
+ * that background work pays. LoggingAspectBenchmark covers the hooks inside the aspect.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestTraceBenchmark {
+    private final RequestFlightRecorder recorder = new RequestFlightRecorder(1024);
+
+    @Benchmark
+    public long tracedRequest() {
+        RequestTrace trace = RequestTrace.begin();
+        phases();
+        long total = trace.end();
+        recorder.record(new RequestFlightRecorder.TracedRequest("GET", "/api/phonebook/search/name/alice",
+                "/api/phonebook/search/name/{name}", 200, 0, total, trace.getPhaseNanos()));
+        return total;
+    }
+
+    /** Threads writing to the recorder's ring at once. */
+    @Benchmark
+    @Threads(4)
+    public long tracedRequestContended() {
+        return tracedRequest();
+    }
+
+    @Benchmark
+    public void untracedHooks() {
+        phases();
+    }
+
+    private static void phases() {
+        RequestTrace.enter(RequestPhase.CONTROLLER);
+        RequestTrace.enter(RequestPhase.SERIALIZATION);
+        RequestTrace.exit();
+        RequestTrace.enter(RequestPhase.VALIDATION);
+        RequestTrace.exit();
+        RequestTrace.enter(RequestPhase.ASPECT);
+        RequestTrace.enter(RequestPhase.SERVICE);
+        RequestTrace.enter(RequestPhase.REPOSITORY);
+        for (int i = 0; i < 2; i++) {
+            RequestTrace.enter(RequestPhase.DATABASE);
+            RequestTrace.exit();
+        }
+        RequestTrace.exit();
+        RequestTrace.exit();
+        RequestTrace.exit();
+        RequestTrace.enter(RequestPhase.SERIALIZATION);
+        RequestTrace.unwind();
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.demo.phonebook.benchmark;
+
+import com.example.demo.phonebook.model.Contact;
+import com.example.demo.phonebook.service.ContactService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A read-heavy mix of id, phone and name lookups with writePercent updates, with Hibernate's
+ * second-level and query cache on or off. ContactLookupCache is sized to zero so every lookup
+ * reaches the repository. The roundTripsPerOp secondary result counts JDBC statements per operation.
+ * Every update drops the cached contact region, so the gap narrows as writePercent grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SecondLevelCacheBenchmark {
+    @Param({"10000"})
+    public int fixtureSize;
+
+    @Param({"false", "true"})
+    public boolean secondLevelCache;
+
+    @Param({"0", "1"})
+    public int writePercent;
+
+    private ConfigurableApplicationContext context;
+    private ContactService contactService;
+    private Statistics statistics;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RoundTrips {
+        public long statements;
+        public long operations;
+
+        public double roundTripsPerOp() {
+            return operations == 0 ? 0 : (double) statements / operations;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(fixtureSize,
+                "--spring.jpa.properties.hibernate.cache.use_second_level_cache=" + secondLevelCache,
+                "--spring.jpa.properties.hibernate.cache.use_query_cache=" + secondLevelCache,
+                "--spring.jpa.properties.hibernate.generate_statistics=true",
+                "--phonebook.cache.maximum-size=0");
+        contactService = context.getBean(ContactService.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object readMostly(RoundTrips roundTrips) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int row = random.nextInt(fixtureSize);
+        long before = statistics.getPrepareStatementCount();
+        Object result;
+        if (random.nextInt(100) < writePercent) {
+            Contact changed = BenchmarkContext.fixtureContact(row);
+            changed.setEmail("changed" + random.nextInt() + "@example.com");
+            result = contactService.updateContact((long) row + 1, changed);
+        } else {
+            result = switch (random.nextInt(3)) {
+                case 0 -> contactService.getContactById((long) row + 1);
+                case 1 -> contactService.getContactByPhoneNumber(BenchmarkContext.phoneNumber(row));
+                default -> contactService.getContactsByName(BenchmarkContext.fixtureContact(row).getName());
+            };
+        }
+        roundTrips.statements += statistics.getPrepareStatementCount() - before;
+        roundTrips.operations++;
+        return result;
+    }
+}
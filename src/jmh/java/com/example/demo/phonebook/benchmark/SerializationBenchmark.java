@@ -0,0 +1,42 @@
+package com.example.demo.phonebook.benchmark;
+
+import com.example.demo.phonebook.model.Contact;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of Contact lists, as written by the list and search endpoints.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+    @Param({"10", "1000", "100000"})
+    public int listSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private List<Contact> contacts;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        contacts = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            Contact contact = BenchmarkContext.fixtureContact(i);
+            contact.setId((long) i + 1);
+            contacts.add(contact);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(contacts);
+    }
+}
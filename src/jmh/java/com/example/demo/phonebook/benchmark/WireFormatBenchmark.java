@@ -0,0 +1,85 @@
+package com.example.demo.phonebook.benchmark;
+
+import com.example.demo.phonebook.controller.ContactProtobuf;
+import com.example.demo.phonebook.model.Contact;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encode cost and bytes on the wire of a search/list response in each negotiable format,
+ * with and without the gzip the server applies above server.compression.min-response-size.
+ * The wireBytes secondary result is the encoded size of one response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int listSize;
+
+    @Param({"json", "cbor", "smile", "protobuf"})
+    public String format;
+
+    @Param({"none", "gzip"})
+    public String compression;
+
+    private ObjectMapper objectMapper;
+    private List<Contact> contacts;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class WireSize {
+        public long wireBytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = switch (format) {
+            case "cbor" -> new ObjectMapper(new CBORFactory());
+            case "smile" -> new ObjectMapper(new SmileFactory());
+            default -> new ObjectMapper();
+        };
+        // Matches the application's mapper: ISO-8601 timestamps
+        objectMapper.registerModule(new JavaTimeModule()).disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        Instant updatedAt = Instant.parse("2026-01-01T00:00:00Z");
+        contacts = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            Contact contact = BenchmarkContext.fixtureContact(i);
+            contact.setId((long) i + 1);
+            contact.setVersion(0L);
+            contact.setUpdatedAt(updatedAt);
+            contacts.add(contact);
+        }
+    }
+
+    @Benchmark
+    public byte[] encode(WireSize size) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        OutputStream out = compression.equals("gzip") ? new GZIPOutputStream(bytes) : bytes;
+        if (format.equals("protobuf")) {
+            ContactProtobuf.write(contacts, null, out);
+        } else {
+            objectMapper.writeValue(out, contacts);
+        }
+        out.close();
+        // Assigned, not summed: the counter reports the size of one response
+        size.wireBytes = bytes.size();
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.demo.phonebook.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and outcomes for one operation. Response time is measured from the moment the
+ * schedule intended to send the request, so time spent queued behind a slow server counts
+ * against it (coordinated-omission correction); service time is measured from the actual send
+ * and is kept alongside for comparison.
+ */
+final class EndpointStats {
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    private final Recorder responseTime = new Recorder(HIGHEST_TRACKABLE_NANOS, 3);
+    private final Recorder serviceTime = new Recorder(HIGHEST_TRACKABLE_NANOS, 3);
+    private final LongAdder notFound = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    void record(long intendedStartNanos, long actualStartNanos, long endNanos, int status) {
+        responseTime.recordValue(clamp(endNanos - intendedStartNanos));
+        serviceTime.recordValue(clamp(endNanos - actualStartNanos));
+        if (status == 404) {
+            notFound.increment();
+        } else if (status < 200 || status >= 300) {
+            errors.increment();
+        }
+    }
+
+    void recordFailure(long intendedStartNanos, long actualStartNanos, long endNanos) {
+        record(intendedStartNanos, actualStartNanos, endNanos, -1);
+    }
+
+    /** Discards everything recorded so far, e.g. at the end of warmup. */
+    void reset() {
+        responseTime.reset();
+        serviceTime.reset();
+        notFound.reset();
+        errors.reset();
+    }
+
+    Snapshot snapshot() {
+        return new Snapshot(responseTime.getIntervalHistogram(), serviceTime.getIntervalHistogram(),
+                notFound.sum(), errors.sum());
+    }
+
+    private static long clamp(long nanos) {
+        return Math.min(Math.max(nanos, 0), HIGHEST_TRACKABLE_NANOS);
+    }
+
+    record Snapshot(Histogram responseTime, Histogram serviceTime, long notFound, long errors) {
+        long count() {
+            return responseTime.getTotalCount();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.phonebook.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Plain-text latency report. Carries no timestamps so reports from two builds diff cleanly:
+ * only the configuration and the numbers change.
+ */
+final class LoadReport {
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+    private static final String ROW = "%-8s %9s %8s %8s %9s %9s %9s %9s %9s %9s %9s %11s%n";
+
+    private LoadReport() {
+    }
+
+    static String render(LoadTest.Config config, long elapsedNanos, int unfinished,
+                         Map<Operation, EndpointStats.Snapshot> snapshots) {
+        StringBuilder out = new StringBuilder();
+        out.append("# Phonebook REST load test\n");
+        out.append(String.format(Locale.ROOT, "contacts=%d rate=%d/s duration=%ds warmup=%ds users=%d%n",
+                config.contacts(), config.rate(), config.durationSeconds(), config.warmupSeconds(), config.users()));
+        out.append("mix=").append(config.mix()).append('\n');
+        out.append("java=").append(System.getProperty("java.version")).append('\n');
+        out.append('\n');
+        out.append("# Latency in ms, measured from the scheduled send time (corrected for coordinated omission).\n");
+        out.append("# svc-p99 is the uncorrected p99 from the actual send, for comparison.\n");
+        out.append(String.format(Locale.ROOT, ROW, "endpoint", "count", "404", "errors", "req/s",
+                "p50", "p90", "p99", "p99.9", "p99.99", "max", "svc-p99"));
+
+        double elapsedSeconds = elapsedNanos / 1e9;
+        Histogram allResponses = new Histogram(3);
+        Histogram allService = new Histogram(3);
+        long allNotFound = 0;
+        long allErrors = 0;
+        for (Map.Entry<Operation, EndpointStats.Snapshot> entry : snapshots.entrySet()) {
+            EndpointStats.Snapshot snapshot = entry.getValue();
+            appendRow(out, entry.getKey().name().toLowerCase(Locale.ROOT), snapshot.responseTime(),
+                    snapshot.serviceTime(), snapshot.notFound(), snapshot.errors(), elapsedSeconds);
+            allResponses.add(snapshot.responseTime());
+            allService.add(snapshot.serviceTime());
+            allNotFound += snapshot.notFound();
+            allErrors += snapshot.errors();
+        }
+        appendRow(out, "all", allResponses, allService, allNotFound, allErrors, elapsedSeconds);
+        out.append('\n');
+        out.append("unfinished=").append(unfinished).append('\n');
+        return out.toString();
+    }
+
+    static void write(Path report, String content) throws IOException {
+        Path parent = report.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.writeString(report, content);
+    }
+
+    private static void appendRow(StringBuilder out, String endpoint, Histogram response, Histogram service,
+                                  long notFound, long errors, double elapsedSeconds) {
+        Object[] columns = new Object[12];
+        columns[0] = endpoint;
+        columns[1] = Long.toString(response.getTotalCount());
+        columns[2] = Long.toString(notFound);
+        columns[3] = Long.toString(errors);
+        columns[4] = String.format(Locale.ROOT, "%.1f", response.getTotalCount() / elapsedSeconds);
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            columns[5 + i] = millis(response.getValueAtPercentile(PERCENTILES[i]));
+        }
+        columns[10] = millis(response.getMaxValue());
+        columns[11] = millis(service.getValueAtPercentile(99));
+        out.append(String.format(Locale.ROOT, ROW, columns));
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+}
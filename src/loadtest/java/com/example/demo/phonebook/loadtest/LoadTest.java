@@ -0,0 +1,198 @@
+package com.example.demo.phonebook.loadtest;
+
+import com.example.demo.phonebook.PhonebookApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end load test for ContactController: boots the full application (Tomcat, validation,
+ * JPA, Jackson, LoggingAspect) on an in-memory H2 database, seeds it over HTTP and drives an
+ * open-loop request mix against it.
+ * <p>
+ * Requests are sent on a fixed schedule of {@code rate} per second regardless of how fast the
+ * server answers; {@code users} worker threads bound the concurrency, and requests that wait for
+ * a free worker are still timed from their scheduled send time. The percentile report is written
+ * to {@code report} (default target/loadtest-report.txt).
+ * <p>
+ * Options are {@code --name=value}: contacts, rate, duration, warmup (seconds), users, mix, report
+ * and drain-timeout (seconds). Any other {@code --} argument is passed to Spring, e.g.
+ * {@code --phonebook.phone-index.enabled=true}.
+ */
+public final class LoadTest {
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "contacts", "10000",
+            "rate", "500",
+            "duration", "60",
+            "warmup", "15",
+            "users", "64",
+            "mix", "create:5,get:35,phone:25,search:15,update:15,delete:5",
+            "report", "target/loadtest-report.txt",
+            "drain-timeout", "60");
+
+    private final Config config;
+    private final LoadTestFixture fixture;
+    private final HttpClient client;
+    private final Map<Operation, EndpointStats> stats = new EnumMap<>(Operation.class);
+
+    private LoadTest(Config config, URI baseUri) {
+        this.config = config;
+        this.fixture = new LoadTestFixture(baseUri, config.contacts());
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        for (Operation operation : config.mix().operations()) {
+            stats.put(operation, new EndpointStats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> springArgs = new ArrayList<>(List.of(
+                "--spring.profiles.active=loadtest",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--debug=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework.web=WARN",
+                // The aspect still times every call; only the stdout lines are sampled down
+                "--phonebook.logging.default-sample-rate=0.01"));
+        Config config = Config.parse(args, springArgs);
+
+        try (ConfigurableApplicationContext context =
+                     SpringApplication.run(PhonebookApplication.class, springArgs.toArray(String[]::new))) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadTest loadTest = new LoadTest(config, URI.create("http://localhost:" + port));
+            System.out.printf("Seeding %d contacts%n", config.contacts());
+            loadTest.fixture.seed(loadTest.client);
+
+            if (config.warmupSeconds() > 0) {
+                System.out.printf("Warming up for %ds at %d req/s%n", config.warmupSeconds(), config.rate());
+                loadTest.runPhase(config.warmupSeconds());
+                loadTest.stats.values().forEach(EndpointStats::reset);
+            }
+            System.out.printf("Measuring for %ds at %d req/s%n", config.durationSeconds(), config.rate());
+            PhaseResult result = loadTest.runPhase(config.durationSeconds());
+
+            Map<Operation, EndpointStats.Snapshot> snapshots = new EnumMap<>(Operation.class);
+            loadTest.stats.forEach((operation, endpointStats) -> snapshots.put(operation, endpointStats.snapshot()));
+            String report = LoadReport.render(config, result.elapsedNanos(), result.unfinished(), snapshots);
+            LoadReport.write(config.report(), report);
+            System.out.print(report);
+            System.out.println("Report written to " + config.report().toAbsolutePath());
+        }
+    }
+
+    /**
+     * Sends requests on the open-loop schedule for the given number of seconds, then waits for
+     * the queued and in-flight ones to finish.
+     */
+    private PhaseResult runPhase(int seconds) throws InterruptedException {
+        ExecutorService users = Executors.newFixedThreadPool(config.users(), virtualUserThreads());
+        long durationNanos = TimeUnit.SECONDS.toNanos(seconds);
+        long start = System.nanoTime();
+        for (long k = 0; ; k++) {
+            // Derive each send time from the start so sleep overshoot never shifts the schedule
+            long intended = start + k * 1_000_000_000L / config.rate();
+            if (intended - start >= durationNanos) {
+                break;
+            }
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = config.mix().next();
+            users.execute(() -> call(operation, intended));
+        }
+        users.shutdown();
+        int unfinished = 0;
+        if (!users.awaitTermination(config.drainTimeoutSeconds(), TimeUnit.SECONDS)) {
+            unfinished = users.shutdownNow().size();
+        }
+        return new PhaseResult(System.nanoTime() - start, unfinished);
+    }
+
+    private void call(Operation operation, long intendedStartNanos) {
+        HttpRequest request = operation.request(fixture);
+        EndpointStats endpointStats = stats.get(operation);
+        long actualStart = System.nanoTime();
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            endpointStats.record(intendedStartNanos, actualStart, System.nanoTime(), response.statusCode());
+        } catch (IOException e) {
+            endpointStats.recordFailure(intendedStartNanos, actualStart, System.nanoTime());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ThreadFactory virtualUserThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "loadtest-user-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record PhaseResult(long elapsedNanos, int unfinished) {
+    }
+
+    record Config(int contacts, int rate, int durationSeconds, int warmupSeconds, int users,
+                  Operation.Mix mix, Path report, int drainTimeoutSeconds) {
+
+        /** Splits args into load test options and Spring arguments, which are appended to springArgs. */
+        static Config parse(String[] args, List<String> springArgs) {
+            Map<String, String> options = new HashMap<>(DEFAULTS);
+            for (String arg : args) {
+                if (!arg.startsWith("--") || !arg.contains("=")) {
+                    throw new IllegalArgumentException("Expected --name=value, got " + arg);
+                }
+                String name = arg.substring(2, arg.indexOf('='));
+                if (DEFAULTS.containsKey(name)) {
+                    options.put(name, arg.substring(arg.indexOf('=') + 1));
+                } else {
+                    springArgs.add(arg);
+                }
+            }
+            Config config = new Config(
+                    Integer.parseInt(options.get("contacts")),
+                    Integer.parseInt(options.get("rate")),
+                    Integer.parseInt(options.get("duration")),
+                    Integer.parseInt(options.get("warmup")),
+                    Integer.parseInt(options.get("users")),
+                    Operation.Mix.parse(options.get("mix")),
+                    Path.of(options.get("report")),
+                    Integer.parseInt(options.get("drain-timeout")));
+            if (config.contacts() < 1 || config.rate() < 1 || config.durationSeconds() < 1 || config.users() < 1) {
+                throw new IllegalArgumentException("contacts, rate, duration and users must be positive");
+            }
+            return config;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.demo.phonebook.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deterministic contact rows and the id bookkeeping the operations draw from. Row i is seeded
+ * with id i + 1; rows created during the run continue after the fixture, deletes walk down
+ * from the top so each one hits a live row.
+ */
+final class LoadTestFixture {
+    private static final String[] FIRST_NAMES = {"Ada", "Alan", "Barbara", "Brian", "Claude", "Dennis", "Donald",
+            "Edsger", "Frances", "Grace", "Guido", "James", "John", "Ken", "Leslie", "Linus", "Margaret", "Niklaus",
+            "Radia", "Robin", "Sophie", "Tony", "Whitfield", "Yukihiro"};
+    private static final String[] LAST_NAMES = {"Lovelace", "Turing", "Liskov", "Kernighan", "Shannon", "Ritchie",
+            "Knuth", "Dijkstra", "Allen", "Hopper", "Rossum", "Gosling", "Backus", "Thompson", "Lamport", "Torvalds",
+            "Hamilton", "Wirth", "Perlman", "Milner", "Wilson", "Hoare", "Diffie", "Matsumoto"};
+    private static final int SEED_REQUEST_ROWS = 20_000;
+
+    private final URI baseUri;
+    private final int contacts;
+    private final AtomicLong nextNewRow;
+    private final AtomicLong nextDeletedId;
+
+    LoadTestFixture(URI baseUri, int contacts) {
+        this.baseUri = baseUri;
+        this.contacts = contacts;
+        this.nextNewRow = new AtomicLong(contacts);
+        this.nextDeletedId = new AtomicLong(contacts);
+    }
+
+    /** Seeds the fixture through POST /bulk so the load test needs nothing but the HTTP API. */
+    void seed(HttpClient client) throws IOException, InterruptedException {
+        for (int from = 0; from < contacts; from += SEED_REQUEST_ROWS) {
+            int to = Math.min(contacts, from + SEED_REQUEST_ROWS);
+            StringBuilder body = new StringBuilder((to - from) * 96);
+            for (int row = from; row < to; row++) {
+                body.append(contactJson(row)).append('\n');
+            }
+            HttpRequest request = HttpRequest.newBuilder(uri("/bulk"))
+                    .header("Content-Type", "application/x-ndjson")
+                    .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200 || !response.body().contains("\"rejected\":0")) {
+                throw new IllegalStateException("Seeding rows " + from + ".." + to + " failed: "
+                        + response.statusCode() + " " + response.body());
+            }
+        }
+    }
+
+    URI uri(String path) {
+        return baseUri.resolve("/api/phonebook" + path);
+    }
+
+    long randomRow() {
+        return ThreadLocalRandom.current().nextInt(contacts);
+    }
+
+    long randomId() {
+        return randomRow() + 1;
+    }
+
+    long nextNewRow() {
+        return nextNewRow.getAndIncrement();
+    }
+
+    long nextDeletedId() {
+        long id = nextDeletedId.getAndDecrement();
+        return id > 0 ? id : randomId();
+    }
+
+    String contactJson(long row) {
+        return "{\"name\":\"" + name(row) + "\",\"phoneNumber\":\"" + phoneNumber(row)
+                + "\",\"email\":\"user" + row + "@example.com\"}";
+    }
+
+    static String name(long row) {
+        return FIRST_NAMES[(int) (row % FIRST_NAMES.length)] + " "
+                + LAST_NAMES[(int) ((row / FIRST_NAMES.length) % LAST_NAMES.length)];
+    }
+
+    static String phoneNumber(long row) {
+        return String.format("%03d-%03d-%04d", (row / 10_000_000) % 1000, (row / 10_000) % 1000, row % 10_000);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.demo.phonebook.loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * One ContactController call in the load mix. Each operation builds its own request against
+ * the seeded fixture; the weights of the mix decide how often each one is picked.
+ */
+enum Operation {
+    CREATE {
+        @Override
+        HttpRequest request(LoadTestFixture fixture) {
+            long row = fixture.nextNewRow();
+            return json(fixture.uri(""), "POST", fixture.contactJson(row));
+        }
+    },
+    GET {
+        @Override
+        HttpRequest request(LoadTestFixture fixture) {
+            return HttpRequest.newBuilder(fixture.uri("/" + fixture.randomId())).GET().build();
+        }
+    },
+    PHONE {
+        @Override
+        HttpRequest request(LoadTestFixture fixture) {
+            return HttpRequest.newBuilder(fixture.uri("/phone/" + LoadTestFixture.phoneNumber(fixture.randomRow())))
+                    .GET().build();
+        }
+    },
+    SEARCH {
+        @Override
+        HttpRequest request(LoadTestFixture fixture) {
+            String name = LoadTestFixture.name(fixture.randomRow());
+            return HttpRequest.newBuilder(fixture.uri("/search/name/"
+                    + URLEncoder.encode(name, StandardCharsets.UTF_8).replace("+", "%20"))).GET().build();
+        }
+    },
+    UPDATE {
+        @Override
+        HttpRequest request(LoadTestFixture fixture) {
+            long row = fixture.randomRow();
+            return json(fixture.uri("/" + (row + 1)), "PUT", fixture.contactJson(row));
+        }
+    },
+    DELETE {
+        @Override
+        HttpRequest request(LoadTestFixture fixture) {
+            return HttpRequest.newBuilder(fixture.uri("/" + fixture.nextDeletedId())).DELETE().build();
+        }
+    };
+
+    abstract HttpRequest request(LoadTestFixture fixture);
+
+    private static HttpRequest json(URI uri, String method, String body) {
+        return HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    /**
+     * Weighted operation picker parsed from "create:5,get:35,...". Operations left out of the
+     * spec are never issued.
+     */
+    static final class Mix {
+        private final Operation[] operations;
+        private final int[] cumulativeWeights;
+        private final Map<Operation, Integer> weights;
+
+        private Mix(Map<Operation, Integer> weights) {
+            this.weights = weights;
+            this.operations = weights.keySet().toArray(new Operation[0]);
+            this.cumulativeWeights = new int[operations.length];
+            int total = 0;
+            for (int i = 0; i < operations.length; i++) {
+                total += weights.get(operations[i]);
+                cumulativeWeights[i] = total;
+            }
+        }
+
+        static Mix parse(String spec) {
+            Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+            for (String part : spec.split(",")) {
+                String[] entry = part.trim().split(":");
+                if (entry.length != 2) {
+                    throw new IllegalArgumentException("Mix entries must be operation:weight, got " + part);
+                }
+                int weight = Integer.parseInt(entry[1].trim());
+                if (weight < 0) {
+                    throw new IllegalArgumentException("Negative weight for " + entry[0]);
+                }
+                if (weight > 0) {
+                    weights.put(Operation.valueOf(entry[0].trim().toUpperCase(Locale.ROOT)), weight);
+                }
+            }
+            if (weights.isEmpty()) {
+                throw new IllegalArgumentException("Mix has no operations: " + spec);
+            }
+            return new Mix(weights);
+        }
+
+        Operation next() {
+            int pick = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            for (int i = 0; i < cumulativeWeights.length; i++) {
+                if (pick < cumulativeWeights[i]) {
+                    return operations[i];
+                }
+            }
+            throw new IllegalStateException("unreachable");
+        }
+
+        Iterable<Operation> operations() {
+            return weights.keySet();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder();
+            weights.forEach((operation, weight) -> out.append(out.length() == 0 ? "" : ",")
+                    .append(operation.name().toLowerCase(Locale.ROOT)).append(':').append(weight));
+            return out.toString();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.demo.phonebook.admission;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for /api/phonebook, ahead of everything that could touch the database.
+ * <p>
+ * A client over its token bucket gets 429; a request
+ * beyond its priority's share of the adaptive concurrency limit gets 503. Both carry
+ * Retry-After and are written here, so a rejection costs no exception, no handler and no
+ * connection. The limit learns from the latency of the requests it admits, which is mostly
+ * their ContactService call: when MySQL slows down it shrinks and the surplus is turned away
+ * instead of piling up in front of the pool. Only calls of bounded size teach it: list, bulk,
+ * batch and dedup calls and NDJSON responses take as long as their input, page or reader
+ * does, so they hold a slot and count their 5xx, but their latency is left out.
+ * <p>
+ * Clients are keyed by remote address. X-Client-Id is not used here, since any caller could
+ * send a fresh one with every request to get a fresh bucket. Behind a reverse proxy, set
+ * server.forward-headers-strategy so the remote address is the one the proxy saw.
+ * <p>
+ * The change feed is not limited: a subscriber holds no connection while it waits.
+ */
+@Profile("!reactive")
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class AdmissionControlFilter extends OncePerRequestFilter {
+    public static final String BASE_PATH = "/api/phonebook";
+    private static final String EXEMPT_PATH = BASE_PATH + "/changes";
+    // What a 503 asks the client to wait; the limit has usually moved by then
+    private static final String OVERLOADED_RETRY_AFTER = "1";
+
+    private final boolean enabled;
+    private final ClientRateLimiter rateLimiter;
+    private final AimdConcurrencyLimit concurrencyLimit;
+
+    public AdmissionControlFilter(@Value("${phonebook.admission.enabled:true}") boolean enabled,
+                                  @Value("${phonebook.admission.client-rate:100}") double clientRate,
+                                  @Value("${phonebook.admission.client-burst:200}") int clientBurst,
+                                  @Value("${phonebook.admission.max-clients:10000}") int maxClients,
+                                  @Value("${phonebook.admission.initial-limit:20}") int initialLimit,
+                                  @Value("${phonebook.admission.min-limit:2}") int minLimit,
+                                  @Value("${phonebook.admission.max-limit:200}") int maxLimit,
+                                  @Value("${phonebook.admission.latency-target:250ms}") Duration latencyTarget,
+                                  @Value("${phonebook.admission.backoff-ratio:0.9}") double backoffRatio) {
+        this.enabled = enabled;
+        this.rateLimiter = new ClientRateLimiter(clientRate, clientBurst, maxClients);
+        this.concurrencyLimit = new AimdConcurrencyLimit(initialLimit, minLimit, maxLimit,
+                latencyTarget.toNanos(), backoffRatio);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !enabled || !path.startsWith(BASE_PATH) || path.startsWith(EXEMPT_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        long wait = rateLimiter.tryAcquire(request.getRemoteAddr(), start);
+        if (wait > 0) {
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, Long.toString(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(
+                    wait + TimeUnit.SECONDS.toNanos(1) - 1))));
+            return;
+        }
+        RequestPriority priority = RequestPriority.of(request, BASE_PATH);
+        if (!concurrencyLimit.tryAcquire(priority)) {
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, OVERLOADED_RETRY_AFTER);
+            return;
+        }
+        boolean async = false;
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = response.getStatus() >= 500;
+            if (request.isAsyncStarted()) {
+                // Streams keep their slot until they finish; their length says nothing about load
+                request.getAsyncContext().addListener(new ReleaseOnComplete());
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                concurrencyLimit.release(sizedByLoad(priority, response) ? System.nanoTime() - start : -1, failed);
+            }
+        }
+    }
+
+    private static boolean sizedByLoad(RequestPriority priority, HttpServletResponse response) {
+        String contentType = response.getContentType();
+        return priority != RequestPriority.LOW
+                && (contentType == null || !contentType.startsWith(MediaType.APPLICATION_NDJSON_VALUE));
+    }
+
+    public int getLimit() {
+        return concurrencyLimit.getLimit();
+    }
+
+    public int getInFlight() {
+        return concurrencyLimit.getInFlight();
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, String retryAfter) {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+    }
+
+    private final class ReleaseOnComplete implements AsyncListener {
+        @Override
+        public void onComplete(AsyncEvent event) {
+            concurrencyLimit.release(-1, false);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.phonebook.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Concurrency limit that adapts to latency by additive increase, multiplicative decrease.
+ * Every finished request reports its latency: one slower than the target, or one that failed
+ * with a server error, cuts the limit by backoffRatio; a fast one while the limit is at least
+ * half used raises it by one. So when the database slows down the limit shrinks towards
+ * minLimit within a few requests, and the callers it turns away never queue for a connection.
+ * <p>
+ * A priority is admitted while fewer than its share of the limit are in flight, which keeps
+ * the rest of the limit free for higher priorities.
+ * <p>
+ * Both counters are updated by compare-and-set, never under a lock, so a request thread never
+ * blocks here, and a virtual thread is never pinned.
+ */
+public class AimdConcurrencyLimit {
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+    private final double backoffRatio;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // The limit as Double bits, so it can be updated by compare-and-set
+    private final AtomicLong limitBits = new AtomicLong();
+
+    public AimdConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long latencyTargetNanos,
+                                double backoffRatio) {
+        if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("limits must satisfy 1 <= min <= initial <= max");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("backoffRatio must be between 0 and 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTargetNanos = latencyTargetNanos;
+        this.backoffRatio = backoffRatio;
+        this.limitBits.set(Double.doubleToRawLongBits(initialLimit));
+    }
+
+    /** Takes a slot if fewer than the priority's share of the limit are in flight. Pair with release. */
+    public boolean tryAcquire(RequestPriority priority) {
+        int allowed = Math.max(1, (int) (limit() * priority.share()));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /** Gives the slot back; latencyNanos is negative when the request's time says nothing about load. */
+    public void release(long latencyNanos, boolean failed) {
+        int current = inFlight.getAndDecrement();
+        if (failed || latencyNanos > latencyTargetNanos) {
+            updateLimit(limit -> Math.max(minLimit, limit * backoffRatio));
+        } else if (latencyNanos >= 0 && current * 2 >= limit()) {
+            updateLimit(limit -> Math.min(maxLimit, limit + 1));
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit();
+    }
+
+    private double limit() {
+        return Double.longBitsToDouble(limitBits.get());
+    }
+
+    private void updateLimit(DoubleUnaryOperator update) {
+        limitBits.updateAndGet(bits -> Double.doubleToRawLongBits(update.applyAsDouble(Double.longBitsToDouble(bits))));
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.demo.phonebook.admission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket per client: each holds up to burst tokens and refills at rate per second, and a
+ * request takes one. Buckets are created on first use and dropped once idle for as long as an
+ * empty one takes to refill, since a full bucket is the same as no bucket. At most maxClients
+ * are kept; past that Caffeine evicts the least used, so a flood of new clients costs neither
+ * memory nor a scan.
+ * <p>
+ * A bucket is kept as the time it is full again, one AtomicLong updated by compare-and-set
+ * (the generic cell rate algorithm), so no request ever blocks on a lock, which would pin a
+ * virtual thread.
+ */
+public class ClientRateLimiter {
+    // What one token is worth in time, and how far ahead of now a full burst may push a bucket
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    // Per client, when its bucket is full again; now or earlier means it is full
+    private final Cache<String, AtomicLong> buckets;
+
+    public ClientRateLimiter(double ratePerSecond, int burst, int maxClients) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("rate and burst must be positive");
+        }
+        this.intervalNanos = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / ratePerSecond));
+        this.toleranceNanos = (burst - 1) * intervalNanos;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(Duration.ofNanos(burst * intervalNanos))
+                // Eviction work on the caller, so the count is exact right after it
+                .executor(Runnable::run)
+                .build();
+    }
+
+    /** Takes a token from the client's bucket: 0 when there was one, else the nanos until there is. */
+    public long tryAcquire(String client, long nowNanos) {
+        AtomicLong bucket = buckets.get(client, key -> new AtomicLong(nowNanos));
+        while (true) {
+            long fullAt = bucket.get();
+            long from = fullAt - nowNanos > 0 ? fullAt : nowNanos;
+            long ahead = from - nowNanos;
+            if (ahead > toleranceNanos) {
+                return ahead - toleranceNanos;
+            }
+            if (bucket.compareAndSet(fullAt, from + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    public long getClientCount() {
+        buckets.cleanUp();
+        return buckets.estimatedSize();
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.phonebook.admission;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * How much of the concurrency limit a request may use. Lookups by id or phone and suggestions
+ * are cheap and what interactive callers wait on, so they may use all of it; listing all
+ * contacts, bulk, batch and deduplication calls hold a connection for long and only get half.
+ * Single-contact writes, creates included, get the share in between.
+ */
+public enum RequestPriority {
+    HIGH(1.0),
+    NORMAL(0.8),
+    LOW(0.5);
+
+    private final double share;
+
+    RequestPriority(double share) {
+        this.share = share;
+    }
+
+    public double share() {
+        return share;
+    }
+
+    /** Priority of a request under the base path, e.g. /api/phonebook. */
+    public static RequestPriority of(HttpServletRequest request, String basePath) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String rest = path.length() > basePath.length() ? path.substring(basePath.length()) : "";
+        boolean get = "GET".equals(request.getMethod());
+        boolean collection = rest.isEmpty() || rest.equals("/");
+        if ((get && collection) || rest.equals("/bulk") || rest.startsWith("/batch-") || rest.startsWith("/dedup")) {
+            return LOW;
+        }
+        if (get && (rest.startsWith("/phone/") || rest.indexOf('/', 1) < 0)) {
+            return HIGH;
+        }
+        return NORMAL;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.demo.phonebook.aspect;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Moves log lines off request threads: callers enqueue into a LogEventRingBuffer
+ * and a background thread writes them to stdout in batches. When the buffer is
+ * full the line is dropped and counted (phonebook.logging.dropped) rather than
+ * making the caller wait.
+ */
+@Component
+public class AsyncLogWriter implements InitializingBean, DisposableBean {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int MAX_BATCH = 256;
+
+    private final LogEventRingBuffer buffer;
+    private final AtomicLong dropped = new AtomicLong();
+    // Guards the single-consumer side so flush() can run alongside the writer thread
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public AsyncLogWriter(LoggingProperties properties, MeterRegistry meterRegistry) {
+        this.buffer = new LogEventRingBuffer(properties.getBufferSize());
+        FunctionCounter.builder("phonebook.logging.dropped", dropped, AtomicLong::get)
+                .description("Service log lines dropped because the log buffer was full")
+                .register(meterRegistry);
+    }
+
+    public void log(String line) {
+        if (!buffer.offer(line)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /** Writes everything buffered so far on the calling thread. */
+    public void flush() {
+        drainLock.lock();
+        try {
+            while (drainBatch() > 0) {
+                // keep going until the buffer is empty
+            }
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        running = true;
+        writerThread = new Thread(this::run, "contact-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        if (writerThread != null) {
+            LockSupport.unpark(writerThread);
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        flush();
+    }
+
+    private void run() {
+        while (running) {
+            int written;
+            drainLock.lock();
+            try {
+                written = drainBatch();
+            } finally {
+                drainLock.unlock();
+            }
+            if (written == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private int drainBatch() {
+        StringBuilder batch = null;
+        int count = 0;
+        String line;
+        while (count < MAX_BATCH && (line = buffer.poll()) != null) {
+            if (batch == null) {
+                batch = new StringBuilder(line.length() * 2);
+            }
+            batch.append(line).append('\n');
+            count++;
+        }
+        if (batch != null) {
+            // One write per batch instead of one stdout lock acquisition per line
+            System.out.print(batch);
+            System.out.flush();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.demo.phonebook.aspect;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Size-capped toString for log arguments and results.
+ * Arrays and collections are walked element by element and rendering stops at
+ * the cap, so logging a large result never builds the full string first.
+ */
+final class LogRenderer {
+    static final String TRUNCATED = "...(truncated)";
+
+    private LogRenderer() {
+    }
+
+    static String render(Object value, int maxLength) {
+        StringBuilder out = new StringBuilder(Math.min(maxLength, 64));
+        append(out, value, maxLength);
+        if (out.length() > maxLength) {
+            out.setLength(maxLength);
+            out.append(TRUNCATED);
+        }
+        return out.toString();
+    }
+
+    private static void append(StringBuilder out, Object value, int maxLength) {
+        if (value instanceof Object[] array) {
+            appendAll(out, Arrays.asList(array), maxLength);
+        } else if (value instanceof Collection<?> collection) {
+            appendAll(out, collection, maxLength);
+        } else {
+            out.append(value);
+        }
+    }
+
+    private static void appendAll(StringBuilder out, Collection<?> values, int maxLength) {
+        out.append('[');
+        boolean first = true;
+        for (Object element : values) {
+            if (out.length() > maxLength) {
+                return;
+            }
+            if (!first) {
+                out.append(", ");
+            }
+            append(out, element, maxLength);
+            first = false;
+        }
+        out.append(']');
+    }
+}
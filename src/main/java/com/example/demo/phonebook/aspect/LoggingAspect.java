@@ -1,54 +1,86 @@
 package com.example.demo.phonebook.aspect;
 
-import org.aspectj.lang.JoinPoint;
+import com.example.demo.phonebook.trace.RequestPhase;
+import com.example.demo.phonebook.trace.RequestTrace;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.*;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.ThreadLocalRandom;
+
 @Aspect
 @Component
 public class LoggingAspect {
+    private final AsyncLogWriter logWriter;
+    private final LoggingProperties properties;
+    private final ServiceMetrics serviceMetrics;
 
-    // Pointcut for all methods in ContactService
-    @Pointcut("execution(* com.example.demo.phonebook.service.*.*(..))")
-    public void contactServiceMethods() {}
-
-    // Before advice: Log method entry
-    @Before("contactServiceMethods()")
-    public void logBefore(JoinPoint joinPoint) {
-        String methodName = joinPoint.getSignature().getName();
-        Object[] args = joinPoint.getArgs();
-        System.out.println("Entering " + methodName + " with args: " + java.util.Arrays.toString(args));
-    }
-
-    // AfterReturning advice: Log successful return
-    @AfterReturning(pointcut = "contactServiceMethods()", returning = "result")
-    public void logAfterReturning(JoinPoint joinPoint, Object result) {
-        String methodName = joinPoint.getSignature().getName();
-        System.out.println("Exiting " + methodName + " with result: " + result);
+    public LoggingAspect(AsyncLogWriter logWriter, LoggingProperties properties, ServiceMetrics serviceMetrics) {
+        this.logWriter = logWriter;
+        this.properties = properties;
+        this.serviceMetrics = serviceMetrics;
     }
 
-    // AfterThrowing advice: Log exceptions
-    @AfterThrowing(pointcut = "contactServiceMethods()", throwing = "exception")
-    public void logAfterThrowing(JoinPoint joinPoint, Throwable exception) {
-        String methodName = joinPoint.getSignature().getName();
-        System.out.println(methodName + " threw exception: " + exception.getMessage());
-    }
+    // Pointcut for all methods of the services package: ContactService, ContactImportService and
+    // ContactDeduplicationService, told apart in ServiceMetrics by the class tag
+    @Pointcut("execution(* com.example.demo.phonebook.service.*.*(..))")
+    public void contactServiceMethods() {}
 
-    // Around advice: Measure execution time
+    // Around advice: log entry, exit or failure and execution time in one interception.
+    // Lines are rendered with a size cap and handed to AsyncLogWriter, never written inline.
+    // Every call's time is recorded in ServiceMetrics, sampled or not.
+    // The advice's own time is charged to the ASPECT phase of the request trace, the call to SERVICE.
     @Around("contactServiceMethods()")
     public Object logAround(ProceedingJoinPoint joinPoint) throws Throwable {
+        RequestTrace.enter(RequestPhase.ASPECT);
+        try {
+            return log(joinPoint);
+        } finally {
+            RequestTrace.exit();
+        }
+    }
+
+    private Object log(ProceedingJoinPoint joinPoint) throws Throwable {
+        String className = joinPoint.getSignature().getDeclaringType().getSimpleName();
         String methodName = joinPoint.getSignature().getName();
+        boolean sampled = isSampled(methodName);
+        if (sampled) {
+            logWriter.log("Entering " + methodName + " with args: "
+                    + LogRenderer.render(joinPoint.getArgs(), properties.getMaxRenderLength()));
+        }
         long start = System.nanoTime();
         try {
-            Object result = joinPoint.proceed(); // Execute the method
+            Object result = proceed(joinPoint); // Execute the method
             long end = System.nanoTime();
-            System.out.println(methodName + " executed in " + (end - start) + " ns");
+            serviceMetrics.record(className, methodName, true, end - start);
+            if (sampled) {
+                logWriter.log("Exiting " + methodName + " with result: "
+                        + LogRenderer.render(result, properties.getMaxRenderLength()) + "\n"
+                        + methodName + " executed in " + (end - start) + " ns");
+            }
             return result;
         } catch (Throwable t) {
             long end = System.nanoTime();
-            System.out.println(methodName + " failed in " + (end - start) + " ns");
+            serviceMetrics.record(className, methodName, false, end - start);
+            if (sampled) {
+                logWriter.log(methodName + " threw exception: " + t.getMessage() + "\n"
+                        + methodName + " failed in " + (end - start) + " ns");
+            }
             throw t;
         }
     }
-}
\ No newline at end of file
+
+    private static Object proceed(ProceedingJoinPoint joinPoint) throws Throwable {
+        RequestTrace.enter(RequestPhase.SERVICE);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            RequestTrace.exit();
+        }
+    }
+
+    private boolean isSampled(String methodName) {
+        double rate = properties.sampleRate(methodName);
+        return rate >= 1.0 || (rate > 0.0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+}
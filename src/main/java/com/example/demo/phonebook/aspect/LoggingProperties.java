@@ -0,0 +1,32 @@
+package com.example.demo.phonebook.aspect;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Settings for the service call logging done by LoggingAspect (phonebook.logging.*).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "phonebook.logging")
+public class LoggingProperties {
+    /** Capacity of the log ring buffer, rounded up to a power of two. */
+    private int bufferSize = 8192;
+
+    /** Longest rendering of an argument list or result before it is cut off. */
+    private int maxRenderLength = 256;
+
+    /** Fraction of calls logged for methods without their own rate. */
+    private double defaultSampleRate = 1.0;
+
+    /** Per-method sampling rates keyed by method name, e.g. getContactByPhoneNumber=0.01. */
+    private Map<String, Double> sampleRates = new HashMap<>();
+
+    public double sampleRate(String methodName) {
+        return sampleRates.getOrDefault(methodName, defaultSampleRate);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.demo.phonebook.aspect;
+
+import com.example.demo.phonebook.trace.RequestPhase;
+import com.example.demo.phonebook.trace.RequestTrace;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Charges Spring Data repository calls to the REPOSITORY phase of the request trace,
+ * inherited methods such as findById included.
+ */
+@Profile("!reactive")
+@Aspect
+@Component
+public class RepositoryTraceAspect {
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object traceRepositoryCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        RequestTrace.enter(RequestPhase.REPOSITORY);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            RequestTrace.exit();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.demo.phonebook.aspect;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency histograms for service methods, fed by LoggingAspect.
+ * One phonebook.service.calls timer per service class, method and outcome (success/failure),
+ * publishing p50/p95/p99, max and Prometheus histogram buckets. Timers are
+ * looked up once per method and recording is lock-free.
+ */
+@Component
+public class ServiceMetrics {
+    public static final String TIMER_NAME = "phonebook.service.calls";
+
+    private final MeterRegistry meterRegistry;
+    // class simple name -> method name -> {success timer, failure timer}
+    private final Map<String, Map<String, Timer[]>> timers = new ConcurrentHashMap<>();
+
+    public ServiceMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void record(String className, String methodName, boolean success, long nanos) {
+        Timer[] pair = timers.computeIfAbsent(className, name -> new ConcurrentHashMap<>())
+                .computeIfAbsent(methodName, name -> register(className, name));
+        pair[success ? 0 : 1].record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer[] register(String className, String methodName) {
+        return new Timer[]{timer(className, methodName, "success"), timer(className, methodName, "failure")};
+    }
+
+    private Timer timer(String className, String methodName, String outcome) {
+        return Timer.builder(TIMER_NAME)
+                .description("Service method latency")
+                .tag("class", className)
+                .tag("method", methodName)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
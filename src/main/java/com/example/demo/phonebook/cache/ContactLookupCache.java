@@ -0,0 +1,164 @@
+package com.example.demo.phonebook.cache;
+
+import com.example.demo.phonebook.index.ContactIndex;
+import com.example.demo.phonebook.model.Contact;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Read-through cache for the id and phone number lookups.
+ * Caffeine's W-TinyLFU policy bounds both caches by size; misses are cached as
+ * Optional.empty() with their own, shorter TTL. Invalidation hooks into the same
+ * ContactService write path as the in-memory indexes. Hit, miss and eviction
+ * counters are published as cache.* meters under the actuator metrics endpoint.
+ * <p>
+ * Entries are futures so the database load runs outside Caffeine's map lock: a
+ * synchronous loader would hold a ConcurrentHashMap bin monitor for the whole query,
+ * pinning the carrier of a virtual thread and blocking invalidations of unrelated keys
+ * that share the bin. Concurrent lookups of the same key still share one load.
+ */
+@Component
+public class ContactLookupCache implements ContactIndex {
+    private final AsyncCache<Long, Optional<Contact>> byId;
+    private final AsyncCache<String, Optional<Contact>> byPhone;
+    // id -> phone key currently cached for that contact, so a number change can evict the old key
+    private final Map<Long, String> phoneKeys = new ConcurrentHashMap<>();
+
+    public ContactLookupCache(MeterRegistry meterRegistry,
+                              @Value("${phonebook.cache.maximum-size:100000}") long maximumSize,
+                              @Value("${phonebook.cache.ttl:10m}") Duration ttl,
+                              @Value("${phonebook.cache.negative-ttl:30s}") Duration negativeTtl) {
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new HitOrMissExpiry<Long>(ttl, negativeTtl))
+                .recordStats()
+                .buildAsync();
+        this.byPhone = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new HitOrMissExpiry<String>(ttl, negativeTtl))
+                // Runs inside the eviction, so it cannot race a reload of the same number
+                .evictionListener((String phone, Optional<Contact> value, RemovalCause cause) -> {
+                    if (phone != null && value != null) {
+                        value.ifPresent(contact -> phoneKeys.remove(contact.getId(), phone));
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "contacts.byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, byPhone, "contacts.byPhone");
+    }
+
+    public Optional<Contact> getById(Long id, Function<Long, Optional<Contact>> loader) {
+        return get(byId, id, loader);
+    }
+
+    public Contact getByPhone(String phoneNumber, Function<String, Contact> loader) {
+        return get(byPhone, phoneNumber, phone -> {
+            Contact contact = loader.apply(phone);
+            if (contact != null) {
+                phoneKeys.put(contact.getId(), phone);
+            }
+            return Optional.ofNullable(contact);
+        }).orElse(null);
+    }
+
+    /**
+     * Installs an empty future under the key and, if this caller won, runs the loader on the
+     * calling thread after the map lock is released. A key invalidated while its load is in
+     * flight loses the future, so the possibly stale result is never served from the cache.
+     */
+    private static <K> Optional<Contact> get(AsyncCache<K, Optional<Contact>> cache, K key,
+                                             Function<K, Optional<Contact>> loader) {
+        CompletableFuture<Optional<Contact>> created = new CompletableFuture<>();
+        CompletableFuture<Optional<Contact>> future = cache.get(key, (k, executor) -> created);
+        if (future == created) {
+            try {
+                created.complete(loader.apply(key));
+            } catch (RuntimeException | Error e) {
+                // Caffeine drops failed futures, the next lookup retries
+                created.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void index(Contact contact) {
+        evict(contact.getId());
+        // Drops a cached miss for the new number as well as any entry it replaced
+        byPhone.synchronous().invalidate(contact.getPhoneNumber());
+    }
+
+    @Override
+    public void remove(Long id) {
+        evict(id);
+    }
+
+    @Override
+    public void load(Contact contact) {
+        // Filled on demand, not from the startup scan
+    }
+
+    @Override
+    public void loaded() {
+    }
+
+    @Override
+    public void loadFailed() {
+    }
+
+    private void evict(Long id) {
+        byId.synchronous().invalidate(id);
+        String oldPhone = phoneKeys.remove(id);
+        if (oldPhone != null) {
+            byPhone.synchronous().invalidate(oldPhone);
+        }
+    }
+
+    private static final class HitOrMissExpiry<K> implements Expiry<K, Optional<Contact>> {
+        private final long hitNanos;
+        private final long missNanos;
+
+        HitOrMissExpiry(Duration ttl, Duration negativeTtl) {
+            this.hitNanos = ttl.toNanos();
+            this.missNanos = negativeTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(K key, Optional<Contact> value, long currentTime) {
+            return value.isPresent() ? hitNanos : missNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(K key, Optional<Contact> value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(K key, Optional<Contact> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
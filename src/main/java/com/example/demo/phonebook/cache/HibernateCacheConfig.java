@@ -0,0 +1,68 @@
+package com.example.demo.phonebook.cache;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Caffeine-backed JCache regions for Hibernate's second-level and query cache
+ * (phonebook.hibernate-cache.*). Every region is created here with its bounds and Hibernate
+ * fails on any other, so no region ends up unbounded by accident.
+ * <p>
+ * The JPQL updates and deletes in ContactRepository make Hibernate drop the whole contact
+ * region and mark the contact table stale for the query cache, under a region lock, so no
+ * write path can leave an old row behind.
+ */
+@Profile("!reactive")
+@Configuration
+public class HibernateCacheConfig implements HibernatePropertiesCustomizer, DisposableBean {
+    public static final String CONTACT_REGION = "contact";
+    public static final String CONTACT_QUERY_REGION = "contact-queries";
+
+    private final CacheManager cacheManager;
+
+    public HibernateCacheConfig(@Value("${phonebook.hibernate-cache.maximum-size:100000}") long maximumSize,
+                                @Value("${phonebook.hibernate-cache.query-maximum-size:10000}") long queryMaximumSize,
+                                @Value("${phonebook.hibernate-cache.ttl:10m}") Duration ttl) {
+        // The provider hands out one manager per URI, so a fixed URI would share regions between contexts
+        this.cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("phonebook-hibernate-" + UUID.randomUUID()), getClass().getClassLoader());
+        cacheManager.createCache(CONTACT_REGION, bounded(maximumSize, ttl));
+        cacheManager.createCache(CONTACT_QUERY_REGION, bounded(queryMaximumSize, ttl));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                bounded(queryMaximumSize, ttl));
+        // One entry per table; losing one would let stale query results through, so it never evicts
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                new CaffeineConfiguration<>());
+    }
+
+    private static CaffeineConfiguration<Object, Object> bounded(long maximumSize, Duration ttl) {
+        return new CaffeineConfiguration<>()
+                .setMaximumSize(OptionalLong.of(maximumSize))
+                .setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+    }
+
+    @Override
+    public void destroy() {
+        cacheManager.close();
+    }
+}
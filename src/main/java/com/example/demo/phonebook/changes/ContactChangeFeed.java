@@ -0,0 +1,412 @@
+package com.example.demo.phonebook.changes;
+
+import com.example.demo.phonebook.datasource.ReadWriteRoutingDataSource;
+import com.example.demo.phonebook.exception.InvalidRequestException;
+import com.example.demo.phonebook.exception.ServiceUnavailableException;
+import com.example.demo.phonebook.model.ContactChange;
+import com.example.demo.phonebook.repository.ContactChangeRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Streams the ContactChange outbox to subscribers of GET /api/phonebook/changes.
+ * <p>
+ * Once a tick, a dispatcher thread reads the rows that appeared since the last tick in pages of
+ * batch-size, keeps the last change per contact within a page and hands each page to every live
+ * subscriber, so memory stays bounded however many rows a tick finds. Each
+ * subscriber has a bounded queue drained by its own send task, one write and flush per drain;
+ * a subscriber whose queue overflows is disconnected and resumes from the outbox, so a slow
+ * client costs at most subscriber-buffer events of memory.
+ * <p>
+ * At most max-subscribers streams are open at once, and the send pool has as many threads, so
+ * every subscriber's one running task gets a thread; the next subscriber gets 503 with
+ * Retry-After. The threads are platform threads: ResponseBodyEmitter.send is synchronized, so
+ * a virtual thread blocked on a slow client would pin its carrier.
+ * <p>
+ * Rows are streamed in position order. seq is no safe keyset: its values are handed out in
+ * pooled blocks and transactions commit out of order, so a row with a lower seq can become
+ * visible after the feed has moved past it. occurredAt is no better, since it is taken before
+ * the commit. So each tick starts by sequencing the committed rows that have no position yet:
+ * they get the next positions in one transaction. A row therefore only gets a position after
+ * it committed, and sequencing transactions take their positions after the last committed
+ * one; a concurrent sequencer, e.g. of another instance, collides on the unique position and
+ * rolls back. Positions are then gap-free and committed in order, so a reader that moves past
+ * position p never misses a row that is later given a position at or below p.
+ */
+@Profile("!reactive")
+@Component
+public class ContactChangeFeed implements InitializingBean, DisposableBean {
+    public enum Format { SSE, NDJSON }
+
+    private static final Logger logger = LoggerFactory.getLogger(ContactChangeFeed.class);
+    // What ResponseBodyEmitter writes a String with; the response's own Content-Type is set by the controller
+    private static final MediaType TEXT_PLAIN_UTF8 = new MediaType("text", "plain", StandardCharsets.UTF_8);
+    private static final Duration PRUNE_INTERVAL = Duration.ofHours(1);
+    // What a rejected subscriber is asked to wait; streams last minutes, so a slot rarely frees sooner
+    private static final Duration FULL_RETRY_AFTER = Duration.ofSeconds(30);
+
+    private final ContactChangeRepository changeRepository;
+    private final TransactionTemplate transactions;
+    private final ObjectWriter changeWriter;
+    private final Duration flushInterval;
+    private final Duration retention;
+    private final int bufferSize;
+    private final int batchSize;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    // One per open stream, taken before it queries anything and given back when it closes
+    private final Semaphore slots;
+    private final ExecutorService senders;
+    // Everything up to here has been handed to the live subscribers. Guarded by this
+    private long position;
+    private volatile boolean running;
+    private Thread dispatcher;
+
+    public ContactChangeFeed(ContactChangeRepository changeRepository, PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper,
+                             @Value("${phonebook.changes.flush-interval:100ms}") Duration flushInterval,
+                             @Value("${phonebook.changes.retention:7d}") Duration retention,
+                             @Value("${phonebook.changes.subscriber-buffer:1000}") int bufferSize,
+                             @Value("${phonebook.changes.batch-size:1000}") int batchSize,
+                             @Value("${phonebook.changes.max-subscribers:200}") int maxSubscribers) {
+        this.changeRepository = changeRepository;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.changeWriter = objectMapper.writerFor(ContactChange.class);
+        this.flushInterval = flushInterval;
+        this.retention = retention;
+        this.bufferSize = bufferSize;
+        this.batchSize = batchSize;
+        this.slots = new Semaphore(maxSubscribers);
+        // A subscriber has one send task at a time, so the queue only holds the odd task at a hand-over
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(maxSubscribers, maxSubscribers, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), task -> {
+                    Thread thread = new Thread(task, "contact-changes-send");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        this.senders = pool;
+    }
+
+    /**
+     * Streams changes after since into the emitter: the stored ones first, then live ones.
+     * A null since starts at the live edge, 0 at the oldest retained change; any other value
+     * must be the position of a retained change.
+     */
+    public void subscribe(Long since, Format format, ResponseBodyEmitter emitter) {
+        if (!slots.tryAcquire()) {
+            throw new ServiceUnavailableException("Too many change feed subscribers", FULL_RETRY_AFTER);
+        }
+        Subscriber subscriber = new Subscriber(format, emitter);
+        emitter.onCompletion(() -> subscriber.close(false));
+        emitter.onTimeout(() -> subscriber.close(false));
+        emitter.onError(e -> subscriber.close(false));
+        try {
+            if (since == null) {
+                long edge = fromPrimary(changeRepository::findMaxPosition);
+                synchronized (this) {
+                    join(subscriber, edge);
+                }
+                return;
+            }
+            if (since != 0 && fromPrimary(() -> changeRepository.findByPosition(since)).isEmpty()) {
+                throw new InvalidRequestException(
+                        "Unknown change " + since + "; it may have been pruned, resume with since=0");
+            }
+        } catch (RuntimeException e) {
+            subscriber.close(false);
+            throw e;
+        }
+        subscriber.position = since;
+        senders.execute(subscriber::catchUp);
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        running = true;
+        dispatcher = new Thread(this::dispatchLoop, "contact-changes-dispatch");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        if (dispatcher != null) {
+            LockSupport.unpark(dispatcher);
+            dispatcher.join(5_000);
+        }
+        subscribers.forEach(subscriber -> subscriber.close(true));
+        senders.shutdownNow();
+    }
+
+    private void dispatchLoop() {
+        Instant nextPrune = Instant.now();
+        while (running) {
+            LockSupport.parkNanos(flushInterval.toNanos());
+            try {
+                dispatch();
+                if (Instant.now().isAfter(nextPrune)) {
+                    nextPrune = Instant.now().plus(PRUNE_INTERVAL);
+                    int pruned = changeRepository.deleteOlderThan(Instant.now().minus(retention),
+                            fromPrimary(changeRepository::findMaxPosition));
+                    if (pruned > 0) {
+                        logger.info("Pruned {} contact changes older than {}", pruned, retention);
+                    }
+                }
+            } catch (RuntimeException e) {
+                // The same rows are read again next tick
+                logger.warn("Contact change dispatch failed", e);
+            }
+        }
+    }
+
+    // One tick: sequence what committed since the last one, then hand it, coalesced per page, to every live subscriber
+    void dispatch() {
+        // Also while nobody listens, so the first subscriber after a quiet spell finds no backlog to sequence
+        sequence();
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        long from = currentPosition();
+        List<ContactChange> page;
+        do {
+            long after = from;
+            page = fromPrimary(() -> changeRepository.findAfter(after, Limit.of(batchSize)));
+            if (page.isEmpty()) {
+                return;
+            }
+            Map<Long, ContactChange> latest = new LinkedHashMap<>();
+            for (ContactChange change : page) {
+                // A later change of the same contact supersedes the earlier one
+                latest.remove(change.getContactId());
+                latest.put(change.getContactId(), change);
+            }
+            List<ContactChange> batch = new ArrayList<>(latest.values());
+            from = page.get(page.size() - 1).getPosition();
+            synchronized (this) {
+                for (Subscriber subscriber : subscribers) {
+                    subscriber.offer(batch);
+                }
+                position = Math.max(position, from);
+            }
+        } while (page.size() == batchSize);
+    }
+
+    /** Gives the committed rows without a position the next ones, a batch per transaction; the last given or -1. */
+    long sequence() {
+        long last = -1;
+        List<ContactChange> pending;
+        do {
+            pending = fromPrimary(() -> changeRepository.findUnpositioned(Limit.of(batchSize)));
+            if (pending.isEmpty()) {
+                return last;
+            }
+            List<ContactChange> batch = pending;
+            Long assigned;
+            try {
+                assigned = transactions.execute(status -> {
+                    long next = changeRepository.findMaxPosition();
+                    for (ContactChange change : batch) {
+                        if (changeRepository.assignPosition(change.getSeq(), ++next) == 0) {
+                            status.setRollbackOnly();
+                            return null;
+                        }
+                    }
+                    return next;
+                });
+            } catch (DataIntegrityViolationException e) {
+                assigned = null;
+            }
+            if (assigned == null) {
+                // Another sequencer took these rows or positions first; whatever is left is picked up next tick
+                logger.debug("Contact changes sequenced concurrently");
+                return last;
+            }
+            last = assigned;
+        } while (pending.size() == batchSize);
+        return last;
+    }
+
+    // Called with the feed locked. The dispatcher only idles at a stale position while nobody listens
+    private void join(Subscriber subscriber, long from) {
+        if (subscribers.isEmpty()) {
+            position = from;
+        }
+        subscriber.position = position;
+        subscribers.add(subscriber);
+    }
+
+    private synchronized long currentPosition() {
+        return position;
+    }
+
+    // A lagging replica would let the feed skip rows, or sequence them twice
+    private static <T> T fromPrimary(Supplier<T> reads) {
+        return ReadWriteRoutingDataSource.readFromPrimary(reads);
+    }
+
+    private String render(ContactChange change, Format format) {
+        String json;
+        try {
+            json = changeWriter.writeValueAsString(change);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        // The SSE id is what browsers send back as Last-Event-ID when they reconnect
+        return format == Format.SSE
+                ? "id:" + change.getPosition() + "\nevent:change\ndata:" + json + "\n\n"
+                : json + "\n";
+    }
+
+    private final class Subscriber {
+        private final Format format;
+        private final ResponseBodyEmitter emitter;
+        private final ArrayBlockingQueue<ContactChange> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        // Last change queued for this subscriber; written by the catch-up task, then by the dispatcher
+        private long position;
+        private volatile boolean overflowed;
+
+        Subscriber(Format format, ResponseBodyEmitter emitter) {
+            this.format = format;
+            this.emitter = emitter;
+        }
+
+        // Pages through the outbox on a send thread until it reaches the dispatcher, then goes live
+        void catchUp() {
+            try {
+                while (!closed.get()) {
+                    long after = position;
+                    List<ContactChange> page = fromPrimary(
+                            () -> changeRepository.findAfter(after, Limit.of(batchSize)));
+                    if (!page.isEmpty()) {
+                        write(page);
+                        position = page.get(page.size() - 1).getPosition();
+                    }
+                    if (page.size() == batchSize) {
+                        continue;
+                    }
+                    synchronized (ContactChangeFeed.this) {
+                        // Seen every sequenced row; live batches start after the dispatcher's position
+                        if (subscribers.isEmpty() || position >= ContactChangeFeed.this.position) {
+                            join(this, position);
+                            return;
+                        }
+                    }
+                }
+            } catch (RuntimeException e) {
+                logger.debug("Change subscriber dropped during catch-up", e);
+                close(true);
+            }
+        }
+
+        // Called by the dispatcher with the feed locked
+        void offer(List<ContactChange> batch) {
+            for (ContactChange change : batch) {
+                if (change.getPosition() <= position) {
+                    continue;
+                }
+                if (!queue.offer(change)) {
+                    // Dropped rather than buffered without bound; the client resumes from its last id
+                    overflowed = true;
+                    subscribers.remove(this);
+                    break;
+                }
+                position = change.getPosition();
+            }
+            if (!queue.isEmpty() || overflowed) {
+                scheduleSend();
+            }
+        }
+
+        private void scheduleSend() {
+            if (sending.compareAndSet(false, true)) {
+                senders.execute(this::send);
+            }
+        }
+
+        private void send() {
+            try {
+                List<ContactChange> drained = new ArrayList<>(queue.size());
+                while (queue.drainTo(drained) > 0) {
+                    write(drained);
+                    drained.clear();
+                }
+                if (overflowed) {
+                    close(true);
+                }
+            } catch (RuntimeException e) {
+                logger.debug("Change subscriber dropped", e);
+                close(true);
+            } finally {
+                sending.set(false);
+            }
+            if (!queue.isEmpty() && !closed.get()) {
+                scheduleSend();
+            }
+        }
+
+        // One write and one flush for the whole batch
+        private void write(List<ContactChange> changes) {
+            StringBuilder chunk = new StringBuilder();
+            for (ContactChange change : changes) {
+                chunk.append(render(change, format));
+            }
+            try {
+                emitter.send(chunk.toString(), TEXT_PLAIN_UTF8);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void close(boolean complete) {
+            if (closed.compareAndSet(false, true)) {
+                subscribers.remove(this);
+                slots.release();
+                queue.clear();
+                if (complete) {
+                    emitter.complete();
+                }
+            }
+        }
+    }
+}
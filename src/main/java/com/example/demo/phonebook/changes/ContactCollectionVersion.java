@@ -0,0 +1,30 @@
+package com.example.demo.phonebook.changes;
+
+import com.example.demo.phonebook.datasource.ReadWriteRoutingDataSource;
+import com.example.demo.phonebook.repository.ContactChangeRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Version of the whole contact collection, used as the ETag of list and search responses
+ * instead of hashing their bodies. It is derived from the contact_change outbox (see
+ * ContactChangeRepository.COLLECTION_VERSION_SQL), so it moves with writes made by any
+ * instance and every instance hands out the same tag for the same data.
+ * <p>
+ * Read from the primary, like the feed. Callers must read the token before running their
+ * query: a write landing in between then yields a fresh tag on the next poll rather than an
+ * old body stored under the new tag.
+ */
+@Profile("!reactive")
+@Component
+public class ContactCollectionVersion {
+    private final ContactChangeRepository changeRepository;
+
+    public ContactCollectionVersion(ContactChangeRepository changeRepository) {
+        this.changeRepository = changeRepository;
+    }
+
+    public String current() {
+        return Long.toString(ReadWriteRoutingDataSource.readFromPrimary(changeRepository::findCollectionVersion));
+    }
+}
@@ -1,73 +1,350 @@
 package com.example.demo.phonebook.controller;
 
+import com.example.demo.phonebook.changes.ContactChangeFeed;
+import com.example.demo.phonebook.changes.ContactCollectionVersion;
+import com.example.demo.phonebook.exception.ContactVersionConflictException;
+import com.example.demo.phonebook.exception.PreconditionFailedException;
+import com.example.demo.phonebook.model.BulkImportResult;
 import com.example.demo.phonebook.model.Contact;
+import com.example.demo.phonebook.model.ContactBatchItem;
+import com.example.demo.phonebook.model.ContactMatch;
+import com.example.demo.phonebook.model.ContactPage;
+import com.example.demo.phonebook.model.ContactPatch;
+import com.example.demo.phonebook.model.ContactSuggestion;
+import com.example.demo.phonebook.model.DeduplicationJob;
+import com.example.demo.phonebook.model.DuplicateCluster;
+import com.example.demo.phonebook.service.ContactDeduplicationService;
+import com.example.demo.phonebook.service.ContactImportService;
 import com.example.demo.phonebook.service.ContactService;
+import com.example.demo.phonebook.writebehind.ContactWriteBuffer;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
+@Profile("!reactive")
 @RestController
 @RequestMapping("/api/phonebook")
 public class ContactController {
     private static final Logger logger = LoggerFactory.getLogger(ContactController.class);
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    public static final String TEXT_CSV_VALUE = "text/csv";
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final String LAST_EVENT_ID = "Last-Event-ID";
+    // RFC 7240: with write-behind on, "Prefer: respond-async" acknowledges an update once it is queued
+    public static final String PREFER = "Prefer";
+    public static final String PREFERENCE_APPLIED = "Preference-Applied";
+    public static final String RESPOND_ASYNC = "respond-async";
+    // Rows written between explicit flushes of the NDJSON stream
+    private static final int STREAM_FLUSH_INTERVAL = 500;
+
     private final ContactService contactService;
+    private final ContactImportService contactImportService;
+    private final ContactDeduplicationService contactDeduplicationService;
+    private final ContactChangeFeed contactChangeFeed;
+    private final ContactCollectionVersion collectionVersion;
+    private final ObjectWriter contactWriter;
+    private final Duration changeStreamTimeout;
 
-    public ContactController(ContactService contactService) {
+    public ContactController(ContactService contactService, ContactImportService contactImportService,
+                             ContactDeduplicationService contactDeduplicationService,
+                             ContactChangeFeed contactChangeFeed,
+                             ContactCollectionVersion collectionVersion, ObjectMapper objectMapper,
+                             @Value("${phonebook.changes.stream-timeout:30m}") Duration changeStreamTimeout) {
         this.contactService = contactService;
+        this.contactImportService = contactImportService;
+        this.contactDeduplicationService = contactDeduplicationService;
+        this.contactChangeFeed = contactChangeFeed;
+        this.changeStreamTimeout = changeStreamTimeout;
+        this.collectionVersion = collectionVersion;
+        this.contactWriter = objectMapper.writerFor(Contact.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     @PostMapping
     public ResponseEntity<Contact> createContact(@Valid @RequestBody Contact contact) {
-        Contact savedContact = contactService.saveContact(contact);
+        // A create always waits for its commit, since the insert assigns the id
+        Contact savedContact = contactService.isWriteBehindEnabled()
+                ? contactService.queueContact(contact) : contactService.saveContact(contact);
         return new ResponseEntity<>(savedContact, HttpStatus.CREATED);
     }
 
-    @GetMapping
-    public ResponseEntity<List<Contact>> getAllContacts() {
-        List<Contact> contacts = contactService.getAllContacts();
-        return new ResponseEntity<>(contacts, HttpStatus.OK);
+    @PostMapping(value = "/bulk", consumes = {TEXT_CSV_VALUE, APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BulkImportResult> importContacts(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                           InputStream body) throws IOException {
+        ContactImportService.Format format = MediaType.parseMediaType(contentType)
+                .isCompatibleWith(MediaType.parseMediaType(TEXT_CSV_VALUE))
+                ? ContactImportService.Format.CSV : ContactImportService.Format.NDJSON;
+        BulkImportResult result = contactImportService.importContacts(body, format);
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    // JSON first, so it stays the default for wildcard Accept headers
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            APPLICATION_SMILE_VALUE, ContactProtobuf.APPLICATION_PROTOBUF_VALUE})
+    public ResponseEntity<ContactPage> getAllContacts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            ServletWebRequest request) {
+        // Read before the query, see ContactCollectionVersion
+        String etag = ContactETags.ofCollection("page", collectionVersion.current(), accept);
+        if (notModified(request, etag)) {
+            return null;
+        }
+        ContactPage page = contactService.getContactsPage(cursor, limit);
+        return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(page);
+    }
+
+    @GetMapping(produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllContacts() {
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = contactWriter.getFactory().createGenerator(out);
+            generator.setRootValueSeparator(null);
+            long[] written = {0};
+            contactService.streamAllContacts(contact -> {
+                try {
+                    contactWriter.writeValue(generator, contact);
+                    generator.writeRaw('\n');
+                    // Flush the first row right away so the client sees bytes before the scan finishes
+                    if (written[0]++ % STREAM_FLUSH_INTERVAL == 0) {
+                        generator.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE)).body(body);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Contact> getContactById(@PathVariable Long id) {
+    public ResponseEntity<Contact> getContactById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         Optional<Contact> contact = contactService.getContactById(id);
-        return contact.map(value -> new ResponseEntity<>(value, HttpStatus.OK))
+        return contact.map(value -> ContactETags.ok(value, accept))
                 .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
 
     @GetMapping("/phone/{phoneNumber}")
-    public ResponseEntity<Contact> getContactByPhoneNumber(@PathVariable String phoneNumber) {
+    public ResponseEntity<Contact> getContactByPhoneNumber(
+            @PathVariable String phoneNumber,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         Contact contact = contactService.getContactByPhoneNumber(phoneNumber);
         if (contact != null) {
-            return new ResponseEntity<>(contact, HttpStatus.OK);
+            return ContactETags.ok(contact, accept);
         }
         return new ResponseEntity<>(HttpStatus.NOT_FOUND);
     }
 
-    @GetMapping("/search/name/{name}")
-    public ResponseEntity<List<Contact>> searchByName(@PathVariable String name) {
+    @GetMapping(value = "/search/name/{name}", produces = {MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE, ContactProtobuf.APPLICATION_PROTOBUF_VALUE})
+    public ResponseEntity<List<Contact>> searchByName(
+            @PathVariable String name,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            ServletWebRequest request) {
+        String etag = ContactETags.ofCollection("search", collectionVersion.current(), accept);
+        if (notModified(request, etag)) {
+            return null;
+        }
         List<Contact> contacts = contactService.getContactsByName(name);
-        return new ResponseEntity<>(contacts, HttpStatus.OK);
+        return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(contacts);
+    }
+
+    // Typo-tolerant: "Jonh Smtih" finds John Smith
+    @GetMapping("/search/fuzzy")
+    public ResponseEntity<List<ContactMatch>> searchFuzzy(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "2") int maxDistance,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            ServletWebRequest request) {
+        String etag = ContactETags.ofCollection("fuzzy", collectionVersion.current(), accept);
+        if (notModified(request, etag)) {
+            return null;
+        }
+        List<ContactMatch> matches = contactService.getFuzzyMatches(q, maxDistance, limit);
+        return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(matches);
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ContactSuggestion>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            ServletWebRequest request) {
+        String etag = ContactETags.ofCollection("suggest", collectionVersion.current(), accept);
+        if (notModified(request, etag)) {
+            return null;
+        }
+        List<ContactSuggestion> suggestions = contactService.getSuggestions(prefix, limit);
+        return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(suggestions);
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Contact> updateContact(@PathVariable Long id, @Valid @RequestBody Contact contact) {
-        Contact updatedContact = contactService.updateContact(id, contact);
+    public ResponseEntity<Contact> updateContact(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(value = PREFER, required = false) String prefer,
+            @Valid @RequestBody Contact contact) {
+        if (ifMatch != null) {
+            contact.setVersion(ContactETags.ifMatchVersion(id, ifMatch));
+        }
+        if (contactService.isWriteBehindEnabled()) {
+            boolean async = prefer != null && prefer.contains(RESPOND_ASYNC);
+            Contact queued = ifMatch(ifMatch, id, () -> contactService.queueUpdate(id, contact,
+                    async ? ContactWriteBuffer.Ack.ENQUEUE : ContactWriteBuffer.Ack.COMMIT));
+            if (async) {
+                // Queued, not yet written: the version is only known when the request named one
+                return ResponseEntity.accepted().header(PREFERENCE_APPLIED, RESPOND_ASYNC).body(queued);
+            }
+            return queued != null ? ContactETags.ok(queued) : new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        Contact updatedContact = ifMatch(ifMatch, id, () -> contactService.updateContact(id, contact));
         if (updatedContact != null) {
-            return new ResponseEntity<>(updatedContact, HttpStatus.OK);
+            return ContactETags.ok(updatedContact);
+        }
+        return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+
+    @PatchMapping("/{id}")
+    public ResponseEntity<Contact> patchContact(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Valid @RequestBody ContactPatch patch) {
+        if (ifMatch != null) {
+            patch.setVersion(ContactETags.ifMatchVersion(id, ifMatch));
+        }
+        // Outside the write's transaction, so no connection is held while queued writes commit
+        contactService.awaitQueuedWrites(List.of(id));
+        Contact patchedContact = ifMatch(ifMatch, id, () -> contactService.patchContact(id, patch));
+        if (patchedContact != null) {
+            return ContactETags.ok(patchedContact);
         }
         return new ResponseEntity<>(HttpStatus.NOT_FOUND);
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteContact(@PathVariable Long id) {
-        contactService.deleteContact(id);
+    public ResponseEntity<Void> deleteContact(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        contactService.awaitQueuedWrites(List.of(id));
+        if (ifMatch == null) {
+            contactService.deleteContact(id);
+        } else {
+            Long version = ContactETags.ifMatchVersion(id, ifMatch);
+            ifMatch(ifMatch, id, () -> contactService.deleteContact(id, version) ? id : null);
+        }
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
+
+    // A matching If-None-Match is answered with 304 before the query runs; the handler then returns null
+    private static boolean notModified(ServletWebRequest request, String etag) {
+        if (!request.checkNotModified(etag)) {
+            return false;
+        }
+        // A 304 carries the Vary the 200 would have
+        request.getResponse().setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        return true;
+    }
+
+    // Under If-Match a stale version or a missing contact fails the precondition (412) instead of 409/404
+    private static <T> T ifMatch(String ifMatch, Long id, Supplier<T> write) {
+        if (ifMatch == null) {
+            return write.get();
+        }
+        T result;
+        try {
+            result = write.get();
+        } catch (ContactVersionConflictException e) {
+            throw new PreconditionFailedException(e.getMessage());
+        }
+        if (result == null) {
+            throw new PreconditionFailedException("Contact " + id + " does not exist");
+        }
+        return result;
+    }
+
+    // Body is a JSON array of ids; the response has one item per distinct id, in request order
+    @PostMapping("/batch-get")
+    public ResponseEntity<List<ContactBatchItem>> batchGet(@RequestBody List<Long> ids) {
+        List<ContactBatchItem> items = contactService.getContactsByIds(ids);
+        return new ResponseEntity<>(items, HttpStatus.OK);
+    }
+
+    @PostMapping("/batch-delete")
+    public ResponseEntity<List<ContactBatchItem>> batchDelete(@RequestBody List<Long> ids) {
+        contactService.awaitQueuedWrites(ids);
+        List<ContactBatchItem> items = contactService.deleteContacts(ids);
+        return new ResponseEntity<>(items, HttpStatus.OK);
+    }
+
+    // Starts a background run, or reports the one already running
+    @PostMapping("/dedup")
+    public ResponseEntity<DeduplicationJob> startDeduplication() {
+        DeduplicationJob job = contactDeduplicationService.start();
+        return ResponseEntity.accepted().location(URI.create("/api/phonebook/dedup")).body(job);
+    }
+
+    @GetMapping("/dedup")
+    public ResponseEntity<DeduplicationJob> getDeduplicationStatus() {
+        return contactDeduplicationService.status()
+                .map(job -> new ResponseEntity<>(job, HttpStatus.OK))
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    // Clusters of the last completed run; 404 until one has completed
+    @GetMapping("/dedup/clusters")
+    public ResponseEntity<List<DuplicateCluster>> getDuplicateClusters(@RequestParam(defaultValue = "0") int offset,
+                                                                       @RequestParam(defaultValue = "100") int limit) {
+        return contactDeduplicationService.getClusters(offset, limit)
+                .map(clusters -> new ResponseEntity<>(clusters, HttpStatus.OK))
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * Contact changes as Server-Sent Events (the default) or NDJSON, stored ones after since first,
+     * then live. SSE clients reconnect with Last-Event-ID and pick up where they left off.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<ResponseBodyEmitter> streamChanges(
+            @RequestParam(required = false) Long since,
+            @RequestHeader(value = LAST_EVENT_ID, required = false) Long lastEventId,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        ContactChangeFeed.Format format = accept != null && accept.contains(APPLICATION_NDJSON_VALUE)
+                && !accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE)
+                ? ContactChangeFeed.Format.NDJSON : ContactChangeFeed.Format.SSE;
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(changeStreamTimeout.toMillis());
+        contactChangeFeed.subscribe(since != null ? since : lastEventId, format, emitter);
+        return ResponseEntity.ok()
+                .contentType(format == ContactChangeFeed.Format.SSE
+                        ? MediaType.TEXT_EVENT_STREAM : MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .cacheControl(CacheControl.noStore())
+                .body(emitter);
+    }
 }
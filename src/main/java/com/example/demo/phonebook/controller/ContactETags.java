@@ -0,0 +1,133 @@
+package com.example.demo.phonebook.controller;
+
+import com.example.demo.phonebook.exception.PreconditionFailedException;
+import com.example.demo.phonebook.model.Contact;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Strong entity tags shared by the servlet and reactive controllers. A contact's tag is
+ * "id-version", so it is known without serializing the contact; collections are tagged
+ * with ContactCollectionVersion plus a prefix telling the resource kinds apart.
+ * <p>
+ * Binary representations of the same state get their own tag ("1-2-cbor"), picked from the
+ * Accept header the same way content negotiation picks the converter.
+ */
+public final class ContactETags {
+    // In converter order: JSON wins ties and wildcards
+    private static final Map<MediaType, String> VARIANTS = new LinkedHashMap<>();
+
+    static {
+        VARIANTS.put(MediaType.APPLICATION_JSON, "");
+        VARIANTS.put(MediaType.APPLICATION_CBOR, "-cbor");
+        VARIANTS.put(MediaType.parseMediaType(ContactController.APPLICATION_SMILE_VALUE), "-smile");
+        VARIANTS.put(ContactProtobuf.APPLICATION_PROTOBUF, "-pb");
+        // Streamed search results of the reactive profile
+        VARIANTS.put(MediaType.APPLICATION_NDJSON, "-ndjson");
+    }
+
+    private ContactETags() {
+    }
+
+    public static String of(Contact contact) {
+        return of(contact, null);
+    }
+
+    public static String of(Contact contact, @Nullable String accept) {
+        long version = contact.getVersion() == null ? 0 : contact.getVersion();
+        return "\"" + contact.getId() + "-" + version + variant(accept) + "\"";
+    }
+
+    public static ResponseEntity<Contact> ok(Contact contact) {
+        return ok(contact, null);
+    }
+
+    /**
+     * 200 with the contact's ETag and Last-Modified. Spring answers a matching If-None-Match or
+     * If-Modified-Since with 304 from these headers, before the body is serialized.
+     * <p>
+     * A contact without a version, i.e. the write-behind preview of a queued update that named
+     * none, gets neither: its version is only known once written, and any tag or date would
+     * match some other state of the contact.
+     */
+    public static ResponseEntity<Contact> ok(Contact contact, @Nullable String accept) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (contact.getVersion() == null) {
+            return response.body(contact);
+        }
+        response.eTag(of(contact, accept));
+        if (accept != null) {
+            response.varyBy(HttpHeaders.ACCEPT);
+        }
+        if (contact.getUpdatedAt() != null) {
+            response.lastModified(contact.getUpdatedAt());
+        }
+        return response.body(contact);
+    }
+
+    public static String ofCollection(String kind, String collectionVersion) {
+        return ofCollection(kind, collectionVersion, null);
+    }
+
+    public static String ofCollection(String kind, String collectionVersion, @Nullable String accept) {
+        return "\"" + kind + "-" + collectionVersion + variant(accept) + "\"";
+    }
+
+    /**
+     * Version required by an If-Match header on contact id, or null for "*".
+     * Only a single strong tag of this contact can be turned into a conditional write.
+     */
+    public static Long ifMatchVersion(Long id, String ifMatch) {
+        String tag = ifMatch.trim();
+        if (tag.equals("*")) {
+            return null;
+        }
+        String prefix = "\"" + id + "-";
+        if (!tag.startsWith(prefix) || !tag.endsWith("\"") || tag.length() <= prefix.length() + 1) {
+            throw new PreconditionFailedException("If-Match " + tag + " does not match contact " + id);
+        }
+        String version = tag.substring(prefix.length(), tag.length() - 1);
+        // Any representation's tag names the same version
+        int variant = version.indexOf('-');
+        try {
+            return Long.parseLong(variant < 0 ? version : version.substring(0, variant));
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException("If-Match " + tag + " does not match contact " + id);
+        }
+    }
+
+    private static String variant(@Nullable String accept) {
+        if (accept == null || accept.isBlank()) {
+            return "";
+        }
+        List<MediaType> acceptable;
+        try {
+            acceptable = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return "";
+        }
+        // Higher quality first, then concrete types before wildcards, as content negotiation ranks them
+        acceptable.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed()
+                .thenComparing(MediaType::isWildcardType)
+                .thenComparing(MediaType::isWildcardSubtype));
+        for (MediaType type : acceptable) {
+            if (type.getQualityValue() == 0) {
+                continue;
+            }
+            for (Map.Entry<MediaType, String> variant : VARIANTS.entrySet()) {
+                if (type.includes(variant.getKey())) {
+                    return variant.getValue();
+                }
+            }
+        }
+        return "";
+    }
+}
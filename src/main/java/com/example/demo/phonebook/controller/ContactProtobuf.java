@@ -0,0 +1,112 @@
+package com.example.demo.phonebook.controller;
+
+import com.example.demo.phonebook.model.Contact;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Protocol Buffers encoding of contacts following resources/proto/contact.proto, written
+ * straight from the model with CodedOutputStream: no generated classes and no copy into them.
+ * Field numbers replace JSON's repeated property names, and unset fields take no bytes at all.
+ */
+public final class ContactProtobuf {
+    public static final String APPLICATION_PROTOBUF_VALUE = "application/x-protobuf";
+    public static final MediaType APPLICATION_PROTOBUF = MediaType.parseMediaType(APPLICATION_PROTOBUF_VALUE);
+
+    private static final int CONTACT_ID = 1;
+    private static final int CONTACT_NAME = 2;
+    private static final int CONTACT_PHONE_NUMBER = 3;
+    private static final int CONTACT_EMAIL = 4;
+    private static final int CONTACT_VERSION = 5;
+    private static final int CONTACT_UPDATED_AT = 6;
+    // Same number in ContactPage and ContactList
+    private static final int LIST_CONTACTS = 1;
+    private static final int PAGE_NEXT = 2;
+
+    private ContactProtobuf() {
+    }
+
+    /** Encoded size of a Contact message. */
+    public static int size(Contact contact) {
+        int size = 0;
+        if (contact.getId() != null) {
+            size += CodedOutputStream.computeInt64Size(CONTACT_ID, contact.getId());
+        }
+        if (contact.getName() != null) {
+            size += CodedOutputStream.computeStringSize(CONTACT_NAME, contact.getName());
+        }
+        if (contact.getPhoneNumber() != null) {
+            size += CodedOutputStream.computeStringSize(CONTACT_PHONE_NUMBER, contact.getPhoneNumber());
+        }
+        if (contact.getEmail() != null) {
+            size += CodedOutputStream.computeStringSize(CONTACT_EMAIL, contact.getEmail());
+        }
+        if (contact.getVersion() != null) {
+            size += CodedOutputStream.computeInt64Size(CONTACT_VERSION, contact.getVersion());
+        }
+        if (contact.getUpdatedAt() != null) {
+            size += CodedOutputStream.computeInt64Size(CONTACT_UPDATED_AT, contact.getUpdatedAt().toEpochMilli());
+        }
+        return size;
+    }
+
+    /** Encoded size of a ContactPage, or a ContactList when next is null. */
+    public static int size(List<Contact> contacts, String next) {
+        int size = 0;
+        for (Contact contact : contacts) {
+            int contactSize = size(contact);
+            size += CodedOutputStream.computeTagSize(LIST_CONTACTS)
+                    + CodedOutputStream.computeUInt32SizeNoTag(contactSize) + contactSize;
+        }
+        if (next != null) {
+            size += CodedOutputStream.computeStringSize(PAGE_NEXT, next);
+        }
+        return size;
+    }
+
+    public static void write(Contact contact, OutputStream out) throws IOException {
+        CodedOutputStream coded = CodedOutputStream.newInstance(out);
+        writeFields(contact, coded);
+        coded.flush();
+    }
+
+    /** Writes a ContactPage, or a ContactList when next is null. */
+    public static void write(List<Contact> contacts, String next, OutputStream out) throws IOException {
+        CodedOutputStream coded = CodedOutputStream.newInstance(out);
+        for (Contact contact : contacts) {
+            coded.writeTag(LIST_CONTACTS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            coded.writeUInt32NoTag(size(contact));
+            writeFields(contact, coded);
+        }
+        if (next != null) {
+            coded.writeString(PAGE_NEXT, next);
+        }
+        coded.flush();
+    }
+
+    private static void writeFields(Contact contact, CodedOutputStream coded) throws IOException {
+        if (contact.getId() != null) {
+            coded.writeInt64(CONTACT_ID, contact.getId());
+        }
+        if (contact.getName() != null) {
+            coded.writeString(CONTACT_NAME, contact.getName());
+        }
+        if (contact.getPhoneNumber() != null) {
+            coded.writeString(CONTACT_PHONE_NUMBER, contact.getPhoneNumber());
+        }
+        if (contact.getEmail() != null) {
+            coded.writeString(CONTACT_EMAIL, contact.getEmail());
+        }
+        if (contact.getVersion() != null) {
+            coded.writeInt64(CONTACT_VERSION, contact.getVersion());
+        }
+        if (contact.getUpdatedAt() != null) {
+            coded.writeInt64(CONTACT_UPDATED_AT, contact.getUpdatedAt().toEpochMilli());
+        }
+    }
+}
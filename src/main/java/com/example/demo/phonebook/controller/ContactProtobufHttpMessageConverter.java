@@ -0,0 +1,88 @@
+package com.example.demo.phonebook.controller;
+
+import com.example.demo.phonebook.model.Contact;
+import com.example.demo.phonebook.model.ContactPage;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Writes Contact, ContactPage and List&lt;Contact&gt; as application/x-protobuf (see ContactProtobuf).
+ * Response only: request bodies stay JSON. The message size is known up front, so responses
+ * carry a Content-Length instead of being chunked.
+ */
+public class ContactProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public ContactProtobufHttpMessageConverter() {
+        super(ContactProtobuf.APPLICATION_PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Contact.class == clazz || ContactPage.class == clazz;
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        return (supports(clazz) || isContactList(type)) && canWrite(mediaType);
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected boolean canRead(@Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object value, @Nullable Type type, HttpOutputMessage outputMessage)
+            throws IOException {
+        if (value instanceof Contact contact) {
+            ContactProtobuf.write(contact, outputMessage.getBody());
+        } else if (value instanceof ContactPage page) {
+            ContactProtobuf.write(page.getContacts(), page.getNext(), outputMessage.getBody());
+        } else {
+            ContactProtobuf.write((List<Contact>) value, null, outputMessage.getBody());
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected Long getContentLength(Object value, @Nullable MediaType contentType) {
+        if (value instanceof Contact contact) {
+            return (long) ContactProtobuf.size(contact);
+        }
+        if (value instanceof ContactPage page) {
+            return (long) ContactProtobuf.size(page.getContacts(), page.getNext());
+        }
+        return (long) ContactProtobuf.size((List<Contact>) value, null);
+    }
+
+    @Override
+    public Object read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+
+    private static boolean isContactList(@Nullable Type type) {
+        return type instanceof ParameterizedType parameterized
+                && parameterized.getRawType() instanceof Class<?> raw && List.class.isAssignableFrom(raw)
+                && parameterized.getActualTypeArguments()[0] == Contact.class;
+    }
+}
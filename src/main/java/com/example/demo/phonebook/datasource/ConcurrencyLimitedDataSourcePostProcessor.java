@@ -0,0 +1,41 @@
+package com.example.demo.phonebook.datasource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Puts a ConcurrencyLimitedDataSource in front of the auto-configured pool.
+ * phonebook.datasource.max-concurrency defaults to the Hikari pool size; 0 turns the cap off.
+ */
+@Component
+public class ConcurrencyLimitedDataSourcePostProcessor implements BeanPostProcessor, Ordered {
+    private final int maxConcurrency;
+    private final Duration acquireTimeout;
+
+    public ConcurrencyLimitedDataSourcePostProcessor(
+            @Value("${phonebook.datasource.max-concurrency:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrency,
+            @Value("${phonebook.datasource.acquire-timeout:30s}") Duration acquireTimeout) {
+        this.maxConcurrency = maxConcurrency;
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (maxConcurrency > 0 && bean instanceof DataSource dataSource
+                && !(bean instanceof ConcurrencyLimitedDataSource)) {
+            return new ConcurrencyLimitedDataSource(dataSource, maxConcurrency, acquireTimeout);
+        }
+        return bean;
+    }
+
+    // Ahead of ReadWriteRoutingDataSourcePostProcessor, which has to see the capped primary
+    @Override
+    public int getOrder() {
+        return 0;
+    }
+}
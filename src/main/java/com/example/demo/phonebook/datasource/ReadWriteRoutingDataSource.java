@@ -0,0 +1,250 @@
+package com.example.demo.phonebook.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Sends connections of read-only transactions to a replica and everything else to the primary.
+ * <p>
+ * The route is decided when the connection is fetched, so this has to sit behind a
+ * LazyConnectionDataSourceProxy: the transaction manager opens its connection before the
+ * read-only flag of the transaction is visible, the proxy only fetches one at the first statement.
+ * <p>
+ * Replicas lag behind the primary. A client that wrote in a read-write transaction keeps reading
+ * from the primary for stickyWindow afterwards, so it sees its own writes. Clients are told apart
+ * by the key set with setCurrentClient; work without a client is never pinned.
+ * <p>
+ * Stickiness only covers the writer, but a write also invalidates caches every client shares:
+ * the lookup cache, Hibernate's second-level and query caches, and the collection ETag. The
+ * next reader to miss them would refill them from a replica that has not seen the write yet,
+ * and the stale rows would be served for the caches' whole TTL. So for replicaLag after any
+ * read-write transaction of this process started or ended, every read goes to the primary.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    static final String PRIMARY = "primary";
+
+    private static final ThreadLocal<String> currentClient = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> primaryReads = new ThreadLocal<>();
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final ReadWriteRoutingProperties.Selection selection;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    // Present while the client is within its sticky window
+    private final Cache<String, Boolean> recentWriters;
+    private final Ticker ticker;
+    private final long replicaLagNanos;
+    // Ticker time of the latest write of this process, valid once written is set
+    private final AtomicLong lastWriteAt = new AtomicLong();
+    private volatile boolean written;
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicaDataSources,
+                                      ReadWriteRoutingProperties.Selection selection, Duration stickyWindow,
+                                      long maxStickyClients, Duration replicaLag) {
+        this(primary, replicaDataSources, selection, stickyWindow, maxStickyClients, replicaLag,
+                Ticker.systemTicker());
+    }
+
+    ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicaDataSources,
+                               ReadWriteRoutingProperties.Selection selection, Duration stickyWindow,
+                               long maxStickyClients, Duration replicaLag, Ticker ticker) {
+        if (replicaDataSources.isEmpty()) {
+            throw new IllegalArgumentException("at least one replica is required");
+        }
+        this.selection = selection;
+        this.ticker = ticker;
+        this.replicaLagNanos = replicaLag.toNanos();
+        this.recentWriters = stickyWindow.isZero() ? null : Caffeine.newBuilder()
+                .expireAfterWrite(stickyWindow)
+                .maximumSize(maxStickyClients)
+                .ticker(ticker)
+                .build();
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicaDataSources.size(); i++) {
+            Replica replica = new Replica(replicaDataSources.get(i));
+            replicas.add(replica);
+            targets.put(i, replica);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    /** Binds the current thread's work to a client, e.g. for the duration of a request. */
+    public static void setCurrentClient(String client) {
+        currentClient.set(client);
+    }
+
+    public static void clearCurrentClient() {
+        currentClient.remove();
+    }
+
+    /**
+     * Runs reads with their read-only transactions on the primary, for readers that must never
+     * see a lagging replica. Unlike a read-write transaction it does not count as a write.
+     */
+    public static <T> T readFromPrimary(Supplier<T> reads) {
+        boolean nested = primaryReads.get() != null;
+        primaryReads.set(Boolean.TRUE);
+        try {
+            return reads.get();
+        } finally {
+            if (!nested) {
+                primaryReads.remove();
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String client = currentClient.get();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                if (client != null && recentWriters != null) {
+                    recentWriters.put(client, Boolean.TRUE);
+                }
+                recordWrite();
+            }
+            return PRIMARY;
+        }
+        if (primaryReads.get() != null) {
+            return PRIMARY;
+        }
+        if (client != null && recentWriters != null && recentWriters.getIfPresent(client) != null) {
+            return PRIMARY;
+        }
+        if (written && ticker.read() - lastWriteAt.get() < replicaLagNanos) {
+            return PRIMARY;
+        }
+        return selectReplica();
+    }
+
+    // The lag window runs from when the write starts until replicaLag after it commits or rolls back
+    private void recordWrite() {
+        markWritten();
+        if (replicaLagNanos > 0 && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    markWritten();
+                }
+            });
+        }
+    }
+
+    private void markWritten() {
+        long now = ticker.read();
+        lastWriteAt.accumulateAndGet(now, (last, current) -> written && current - last < 0 ? last : current);
+        written = true;
+    }
+
+    private int selectReplica() {
+        int start = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+        if (selection == ReadWriteRoutingProperties.Selection.ROUND_ROBIN) {
+            return start;
+        }
+        // Fewest connections out; scanning from the round-robin position spreads ties
+        int best = start;
+        int fewest = Integer.MAX_VALUE;
+        for (int i = 0; i < replicas.size(); i++) {
+            int candidate = (start + i) % replicas.size();
+            int pending = replicas.get(candidate).getPending();
+            if (pending < fewest) {
+                best = candidate;
+                fewest = pending;
+            }
+        }
+        return best;
+    }
+
+    /** Connections currently out on each replica, in configuration order. */
+    public int[] getPendingPerReplica() {
+        return replicas.stream().mapToInt(Replica::getPending).toArray();
+    }
+
+    // Counts the connections handed out and not yet closed
+    private static final class Replica extends DelegatingDataSource {
+        private final AtomicInteger pending = new AtomicInteger();
+
+        Replica(DataSource targetDataSource) {
+            super(targetDataSource);
+        }
+
+        int getPending() {
+            return pending.get();
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            pending.incrementAndGet();
+            try {
+                return decrementOnClose(super.getConnection());
+            } catch (SQLException | RuntimeException | Error e) {
+                pending.decrementAndGet();
+                throw e;
+            }
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            pending.incrementAndGet();
+            try {
+                return decrementOnClose(super.getConnection(username, password));
+            } catch (SQLException | RuntimeException | Error e) {
+                pending.decrementAndGet();
+                throw e;
+            }
+        }
+
+        private Connection decrementOnClose(Connection connection) {
+            AtomicBoolean closed = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "close":
+                                try {
+                                    connection.close();
+                                } finally {
+                                    if (closed.compareAndSet(false, true)) {
+                                        pending.decrementAndGet();
+                                    }
+                                }
+                                return null;
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            case "toString":
+                                return "Replica connection [" + connection + "]";
+                            default:
+                                try {
+                                    return method.invoke(connection, args);
+                                } catch (InvocationTargetException e) {
+                                    throw e.getTargetException();
+                                }
+                        }
+                    });
+        }
+    }
+}
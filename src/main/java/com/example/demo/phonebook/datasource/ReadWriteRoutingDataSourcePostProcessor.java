@@ -0,0 +1,84 @@
+package com.example.demo.phonebook.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Puts a LazyConnectionDataSourceProxy in front of the primary pool, and a ReadWriteRoutingDataSource
+ * between the two when phonebook.datasource.routing.replicas is set, with one pool per replica.
+ * The lazy proxy is there with or without replicas: a read-only transaction answered from the lookup
+ * cache or an index runs no statement, so it never checks out a connection or takes a concurrency permit.
+ * Runs after ConcurrencyLimitedDataSourcePostProcessor, so the primary keeps its own cap
+ * and each replica gets one sized to its pool.
+ */
+@Component
+public class ReadWriteRoutingDataSourcePostProcessor implements BeanPostProcessor, Ordered, DisposableBean {
+    private final ReadWriteRoutingProperties properties;
+    private final int maxConcurrency;
+    private final Duration acquireTimeout;
+    private final List<HikariDataSource> replicaPools = new ArrayList<>();
+
+    public ReadWriteRoutingDataSourcePostProcessor(
+            Environment environment,
+            @Value("${phonebook.datasource.max-concurrency:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrency,
+            @Value("${phonebook.datasource.acquire-timeout:30s}") Duration acquireTimeout) {
+        // Bound by hand: a BeanPostProcessor is created before @ConfigurationProperties beans can be
+        this.properties = Binder.get(environment)
+                .bind("phonebook.datasource.routing", ReadWriteRoutingProperties.class)
+                .orElseGet(ReadWriteRoutingProperties::new);
+        this.maxConcurrency = maxConcurrency;
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource primary) || bean instanceof LazyConnectionDataSourceProxy) {
+            return bean;
+        }
+        if (properties.getReplicas().isEmpty()) {
+            return new LazyConnectionDataSourceProxy(primary);
+        }
+        List<DataSource> replicas = new ArrayList<>();
+        for (ReadWriteRoutingProperties.Replica replica : properties.getReplicas()) {
+            HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(replica.getUrl())
+                    .username(replica.getUsername())
+                    .password(replica.getPassword())
+                    .build();
+            pool.setPoolName(beanName + "-replica-" + replicaPools.size());
+            pool.setMaximumPoolSize(replica.getMaximumPoolSize());
+            replicaPools.add(pool);
+            replicas.add(maxConcurrency > 0
+                    ? new ConcurrencyLimitedDataSource(pool, replica.getMaximumPoolSize(), acquireTimeout)
+                    : pool);
+        }
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replicas,
+                properties.getSelection(), properties.getStickyWindow(), properties.getMaxStickyClients(),
+                properties.getReplicaLag()));
+    }
+
+    // Ahead of StatementStatisticsDataSourcePostProcessor, so replica statements are measured too
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE - 1;
+    }
+
+    @Override
+    public void destroy() {
+        replicaPools.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.demo.phonebook.datasource;
+
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas behind the primary datasource (phonebook.datasource.routing.*).
+ * Routing is off while no replica is configured.
+ */
+@Data
+public class ReadWriteRoutingProperties {
+    /** Replica pools; read-only transactions are spread over them. */
+    private List<Replica> replicas = new ArrayList<>();
+
+    /** How a replica is picked for each read-only connection. */
+    private Selection selection = Selection.ROUND_ROBIN;
+
+    /** How long a client's reads stay on the primary after it wrote; 0 turns stickiness off. */
+    private Duration stickyWindow = Duration.ofSeconds(5);
+
+    /**
+     * Longest a replica trails the primary. For this long after any write of this process, every
+     * read goes to the primary, so shared caches and collection ETags are never filled from a
+     * replica that has not seen the write; 0 turns it off.
+     */
+    private Duration replicaLag = Duration.ofSeconds(5);
+
+    /** Most clients remembered as recent writers at a time. */
+    private long maxStickyClients = 100_000;
+
+    public enum Selection {
+        ROUND_ROBIN,
+        LEAST_PENDING
+    }
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.demo.phonebook.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Tells ReadWriteRoutingDataSource which client a request comes from: the X-Client-Id header,
+ * or the remote address without one. Behind a proxy every client shares the proxy's address,
+ * so callers there should send the header.
+ */
+@Profile("!reactive")
+@Component
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    public static final String CLIENT_HEADER = "X-Client-Id";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String client = request.getHeader(CLIENT_HEADER);
+        ReadWriteRoutingDataSource.setCurrentClient(client != null && !client.isBlank()
+                ? client : request.getRemoteAddr());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadWriteRoutingDataSource.clearCurrentClient();
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.example.demo.phonebook.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Statement counters filled by StatementStatisticsDataSource: per normalized statement the
+ * executions, failures, rows and a latency histogram, and per endpoint the statements a
+ * request ran. A request that runs the same statement at least nPlusOneThreshold times is
+ * reported as an N+1 suspect, and logged the first time.
+ * <p>
+ * Statements are normalized once per distinct SQL text: literals become ?, IN lists of any
+ * length one in (?...), whitespace one space. Beyond maxStatements distinct statements the rest
+ * are counted together under OTHER, so ad hoc SQL cannot grow the maps without bound.
+ */
+@Profile("!reactive")
+@Component
+public class SqlStatistics {
+    static final String OTHER = "<other>";
+    static final String UNMATCHED = "<unmatched>";
+    // Upper bounds of the latency buckets; the last bucket holds everything slower
+    private static final long[] BUCKET_BOUNDS_NANOS = {
+            TimeUnit.MICROSECONDS.toNanos(100), TimeUnit.MILLISECONDS.toNanos(1), TimeUnit.MILLISECONDS.toNanos(10),
+            TimeUnit.MILLISECONDS.toNanos(100), TimeUnit.SECONDS.toNanos(1)};
+    private static final String[] BUCKET_LABELS = {"100us", "1ms", "10ms", "100ms", "1s", "+Inf"};
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin ?\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatistics.class);
+
+    private final int maxStatements;
+    private final int nPlusOneThreshold;
+    private final Map<String, Statistic> byNormalized = new ConcurrentHashMap<>();
+    // Raw SQL text -> its statistic, so a statement is only normalized the first time it is seen
+    private final Map<String, Statistic> bySql = new ConcurrentHashMap<>();
+    private final Map<String, EndpointStatistic> byEndpoint = new ConcurrentHashMap<>();
+    private final Map<String, Suspect> suspects = new ConcurrentHashMap<>();
+    private final ThreadLocal<RequestStatements> currentRequest = new ThreadLocal<>();
+
+    public SqlStatistics(@Value("${phonebook.sql-stats.max-statements:1000}") int maxStatements,
+                         @Value("${phonebook.sql-stats.n-plus-one-threshold:10}") int nPlusOneThreshold) {
+        if (maxStatements < 1 || nPlusOneThreshold < 2) {
+            throw new IllegalArgumentException("maxStatements must be positive and nPlusOneThreshold at least 2");
+        }
+        this.maxStatements = maxStatements;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+
+    /** The statistic the SQL text is counted under. */
+    public Statistic statistic(String sql) {
+        Statistic statistic = bySql.get(sql);
+        if (statistic != null) {
+            return statistic;
+        }
+        String normalized = normalize(sql);
+        statistic = byNormalized.get(normalized);
+        if (statistic == null) {
+            statistic = byNormalized.size() < maxStatements
+                    ? byNormalized.computeIfAbsent(normalized, Statistic::new)
+                    : byNormalized.computeIfAbsent(OTHER, Statistic::new);
+        }
+        // IN lists of every length map to one statistic; only remember a bounded number of texts
+        if (bySql.size() < maxStatements * 4) {
+            bySql.put(sql, statistic);
+        }
+        return statistic;
+    }
+
+    /** Counts one execution; rows are the update count, result set rows are added as they are read. */
+    public void record(Statistic statistic, long nanos, boolean failed, long rows) {
+        statistic.record(nanos, failed, rows);
+        RequestStatements request = currentRequest.get();
+        if (request != null) {
+            request.count(statistic);
+        }
+    }
+
+    /** Starts counting the statements of the current thread's request. */
+    public void beginRequest() {
+        currentRequest.set(new RequestStatements());
+    }
+
+    /** Stops counting and books the request's statements under endpoint, e.g. "GET /api/phonebook/{id}". */
+    public void endRequest(String endpoint) {
+        RequestStatements request = currentRequest.get();
+        if (request == null) {
+            return;
+        }
+        currentRequest.remove();
+        String key = endpoint != null ? endpoint : UNMATCHED;
+        byEndpoint.computeIfAbsent(key, EndpointStatistic::new).record(request.total);
+        request.repeats.forEach((statistic, repeats) -> {
+            if (repeats[0] >= nPlusOneThreshold) {
+                suspect(key, statistic, repeats[0]);
+            }
+        });
+    }
+
+    public Report report(int limit) {
+        List<StatementSummary> statements = byNormalized.values().stream()
+                .sorted(Comparator.comparingLong((Statistic statistic) -> statistic.totalNanos.sum()).reversed())
+                .limit(limit)
+                .map(Statistic::summary)
+                .toList();
+        List<EndpointSummary> endpoints = byEndpoint.values().stream()
+                .map(EndpointStatistic::summary)
+                .sorted(Comparator.comparingDouble(EndpointSummary::meanStatements).reversed())
+                .toList();
+        List<NPlusOneSuspect> nPlusOne = suspects.values().stream()
+                .map(Suspect::summary)
+                .sorted(Comparator.comparingLong(NPlusOneSuspect::maxRepeats).reversed())
+                .toList();
+        return new Report(statements, endpoints, nPlusOne);
+    }
+
+    /** Drops all counters. Statements prepared before keep counting into their old statistic until closed. */
+    public void reset() {
+        bySql.clear();
+        byNormalized.clear();
+        byEndpoint.clear();
+        suspects.clear();
+    }
+
+    static String normalize(String sql) {
+        StringBuilder normalized = new StringBuilder(sql.length());
+        int i = 0;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                // String literal, '' is an escaped quote
+                i++;
+                while (i < sql.length()) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < sql.length() && sql.charAt(i + 1) == '\'') {
+                            i++;
+                        } else {
+                            break;
+                        }
+                    }
+                    i++;
+                }
+                normalized.append('?');
+                i++;
+            } else if (Character.isDigit(c) && !partOfIdentifier(normalized)) {
+                while (i < sql.length() && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                normalized.append('?');
+            } else if (Character.isWhitespace(c)) {
+                while (i < sql.length() && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                if (!normalized.isEmpty()) {
+                    normalized.append(' ');
+                }
+            } else {
+                normalized.append(c);
+                i++;
+            }
+        }
+        String collapsed = normalized.toString().strip();
+        return collapsed.indexOf(',') < 0 ? collapsed : IN_LIST.matcher(collapsed).replaceAll("in (?...)");
+    }
+
+    private static boolean partOfIdentifier(StringBuilder normalized) {
+        if (normalized.isEmpty()) {
+            return false;
+        }
+        char previous = normalized.charAt(normalized.length() - 1);
+        return Character.isLetterOrDigit(previous) || previous == '_' || previous == '$';
+    }
+
+    private void suspect(String endpoint, Statistic statistic, int repeats) {
+        Suspect suspect = suspects.get(endpoint + '\n' + statistic.sql);
+        if (suspect == null) {
+            if (suspects.size() >= maxStatements) {
+                return;
+            }
+            suspect = suspects.computeIfAbsent(endpoint + '\n' + statistic.sql, key -> {
+                logger.warn("Possible N+1: {} ran [{}] {} times in one request", endpoint, statistic.sql, repeats);
+                return new Suspect(endpoint, statistic.sql);
+            });
+        }
+        suspect.record(repeats);
+    }
+
+    public static final class Statistic {
+        private final String sql;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder[] buckets = new LongAdder[BUCKET_LABELS.length];
+
+        Statistic(String sql) {
+            this.sql = sql;
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        /** One row read from a result set of this statement. */
+        public void addRow() {
+            rows.increment();
+        }
+
+        private void record(long nanos, boolean failed, long updated) {
+            count.increment();
+            if (failed) {
+                errors.increment();
+            }
+            if (updated > 0) {
+                rows.add(updated);
+            }
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS_NANOS.length && nanos > BUCKET_BOUNDS_NANOS[bucket]) {
+                bucket++;
+            }
+            buckets[bucket].increment();
+        }
+
+        private StatementSummary summary() {
+            long executions = count.sum();
+            long total = totalNanos.sum();
+            Map<String, Long> latency = new LinkedHashMap<>();
+            for (int i = 0; i < buckets.length; i++) {
+                latency.put(BUCKET_LABELS[i], buckets[i].sum());
+            }
+            return new StatementSummary(sql, executions, errors.sum(), rows.sum(), millis(total),
+                    executions == 0 ? 0 : millis(total / executions), millis(maxNanos.get()), latency);
+        }
+    }
+
+    private static final class EndpointStatistic {
+        private final String endpoint;
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final LongAccumulator maxStatements = new LongAccumulator(Math::max, 0);
+
+        EndpointStatistic(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        void record(int count) {
+            requests.increment();
+            statements.add(count);
+            maxStatements.accumulate(count);
+        }
+
+        EndpointSummary summary() {
+            long total = requests.sum();
+            long executed = statements.sum();
+            return new EndpointSummary(endpoint, total, executed, total == 0 ? 0 : (double) executed / total,
+                    maxStatements.get());
+        }
+    }
+
+    private static final class Suspect {
+        private final String endpoint;
+        private final String sql;
+        private final LongAdder requests = new LongAdder();
+        private final LongAccumulator maxRepeats = new LongAccumulator(Math::max, 0);
+        private volatile Instant lastSeen;
+
+        Suspect(String endpoint, String sql) {
+            this.endpoint = endpoint;
+            this.sql = sql;
+        }
+
+        void record(int repeats) {
+            requests.increment();
+            maxRepeats.accumulate(repeats);
+            lastSeen = Instant.now();
+        }
+
+        NPlusOneSuspect summary() {
+            return new NPlusOneSuspect(endpoint, sql, requests.sum(), maxRepeats.get(), String.valueOf(lastSeen));
+        }
+    }
+
+    // Only touched by the request's own thread
+    private static final class RequestStatements {
+        private final Map<Statistic, int[]> repeats = new IdentityHashMap<>();
+        private int total;
+
+        void count(Statistic statistic) {
+            total++;
+            repeats.computeIfAbsent(statistic, key -> new int[1])[0]++;
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    public record Report(List<StatementSummary> statements, List<EndpointSummary> endpoints,
+                         List<NPlusOneSuspect> nPlusOneSuspects) {
+    }
+
+    public record StatementSummary(String sql, long count, long errors, long rows, double totalMillis,
+                                   double meanMillis, double maxMillis, Map<String, Long> latency) {
+    }
+
+    public record EndpointSummary(String endpoint, long requests, long statements, double meanStatements,
+                                  long maxStatements) {
+    }
+
+    public record NPlusOneSuspect(String endpoint, String sql, long requests, long maxRepeats, String lastSeen) {
+    }
+}
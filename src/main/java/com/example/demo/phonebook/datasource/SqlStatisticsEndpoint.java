@@ -0,0 +1,36 @@
+package com.example.demo.phonebook.datasource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * /actuator/sqlstats: the statements with the most total time, statements per request by
+ * endpoint, and N+1 suspects. DELETE starts the counters over.
+ */
+@Profile("!reactive")
+@Component
+@Endpoint(id = "sqlstats")
+public class SqlStatisticsEndpoint {
+    private final SqlStatistics statistics;
+    private final int topStatements;
+
+    public SqlStatisticsEndpoint(SqlStatistics statistics,
+                                 @Value("${phonebook.sql-stats.top-statements:50}") int topStatements) {
+        this.statistics = statistics;
+        this.topStatements = topStatements;
+    }
+
+    @ReadOperation
+    public SqlStatistics.Report sqlStats() {
+        return statistics.report(topStatements);
+    }
+
+    @DeleteOperation
+    public void reset() {
+        statistics.reset();
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.demo.phonebook.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Counts the statements each request runs on its own thread and books them under its method and
+ * handler pattern, e.g. "GET /api/phonebook/{id}", in SqlStatistics. Requests no handler matched
+ * are booked together, so probing URLs cannot grow the endpoint table.
+ */
+@Profile("!reactive")
+@Component
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+    private final SqlStatistics statistics;
+
+    public SqlStatisticsFilter(SqlStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        statistics.beginRequest();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            statistics.endRequest(pattern != null ? request.getMethod() + " " + pattern : null);
+        }
+    }
+}
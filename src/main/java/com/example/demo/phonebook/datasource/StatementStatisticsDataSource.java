@@ -0,0 +1,149 @@
+package com.example.demo.phonebook.datasource;
+
+import com.example.demo.phonebook.trace.RequestPhase;
+import com.example.demo.phonebook.trace.RequestTrace;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Times every statement run on a connection of the wrapped pool and counts the rows it
+ * returned or changed, into SqlStatistics. The latency is that of the execute call, which is
+ * also the DATABASE phase of the request trace; rows are counted as the caller reads them,
+ * whenever that is.
+ * <p>
+ * It costs two nanoTime calls, a map lookup by SQL text and a few LongAdder increments per
+ * statement, plus a proxy hop per JDBC call, where show-sql formats and writes every
+ * statement to stdout.
+ */
+public class StatementStatisticsDataSource extends DelegatingDataSource {
+    private final SqlStatistics statistics;
+
+    public StatementStatisticsDataSource(DataSource targetDataSource, SqlStatistics statistics) {
+        super(targetDataSource);
+        this.statistics = statistics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return measure(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return measure(super.getConnection(username, password));
+    }
+
+    private Connection measure(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "prepareStatement", "prepareCall" -> measure((Statement) invoke(connection, method, args),
+                            method.getReturnType(), (Connection) proxy, statistics.statistic((String) args[0]));
+                    case "createStatement" -> measure((Statement) invoke(connection, method, args),
+                            Statement.class, (Connection) proxy, null);
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "toString" -> "Statement-measuring proxy for [" + connection + "]";
+                    default -> invoke(connection, method, args);
+                });
+    }
+
+    /** prepared is the statistic of a prepared statement's SQL, null for a plain Statement. */
+    private Statement measure(Statement statement, Class<?> type, Connection connection,
+                              SqlStatistics.Statistic prepared) {
+        // The SQL of the last execute(sql) or addBatch(sql), for getResultSet and executeBatch
+        SqlStatistics.Statistic[] current = {prepared};
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.startsWith("execute")) {
+                        if (args != null && args.length > 0 && args[0] instanceof String sql) {
+                            current[0] = statistics.statistic(sql);
+                        }
+                        return current[0] != null ? execute(statement, method, args, current[0])
+                                : invoke(statement, method, args);
+                    }
+                    return switch (name) {
+                        case "getResultSet" -> countRows((ResultSet) invoke(statement, method, args), current[0]);
+                        case "addBatch" -> {
+                            if (args != null && args.length == 1) {
+                                current[0] = statistics.statistic((String) args[0]);
+                            }
+                            yield invoke(statement, method, args);
+                        }
+                        case "getConnection" -> connection;
+                        case "equals" -> proxy == args[0];
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "toString" -> "Statement-measuring proxy for [" + statement + "]";
+                        default -> invoke(statement, method, args);
+                    };
+                });
+    }
+
+    private Object execute(Statement statement, Method method, Object[] args, SqlStatistics.Statistic statistic)
+            throws Throwable {
+        RequestTrace.enter(RequestPhase.DATABASE);
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = invoke(statement, method, args);
+        } catch (Throwable e) {
+            statistics.record(statistic, System.nanoTime() - start, true, 0);
+            throw e;
+        } finally {
+            RequestTrace.exit();
+        }
+        long nanos = System.nanoTime() - start;
+        long rows = 0;
+        if (result instanceof Number count) {
+            rows = count.longValue();
+        } else if (result instanceof int[] counts) {
+            for (int count : counts) {
+                rows += Math.max(0, count);
+            }
+        } else if (result instanceof long[] counts) {
+            for (long count : counts) {
+                rows += Math.max(0, count);
+            }
+        } else if (result instanceof ResultSet resultSet) {
+            result = countRows(resultSet, statistic);
+        }
+        statistics.record(statistic, nanos, false, rows);
+        return result;
+    }
+
+    private static ResultSet countRows(ResultSet resultSet, SqlStatistics.Statistic statistic) {
+        if (resultSet == null || statistic == null) {
+            return resultSet;
+        }
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "next" -> {
+                        Object hasRow = invoke(resultSet, method, args);
+                        if (Boolean.TRUE.equals(hasRow)) {
+                            statistic.addRow();
+                        }
+                        yield hasRow;
+                    }
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "toString" -> "Row-counting proxy for [" + resultSet + "]";
+                    default -> invoke(resultSet, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
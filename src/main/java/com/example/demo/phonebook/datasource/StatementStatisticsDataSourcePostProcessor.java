@@ -0,0 +1,40 @@
+package com.example.demo.phonebook.datasource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Puts a StatementStatisticsDataSource in front of the DataSource, outside the concurrency cap
+ * and the replica routing so every statement is seen. phonebook.sql-stats.enabled=false turns it off.
+ */
+@Component
+public class StatementStatisticsDataSourcePostProcessor implements BeanPostProcessor, Ordered {
+    private final boolean enabled;
+    // Looked up when the DataSource is created, so SqlStatistics is not created early with the post processors
+    private final ObjectProvider<SqlStatistics> statistics;
+
+    public StatementStatisticsDataSourcePostProcessor(@Value("${phonebook.sql-stats.enabled:true}") boolean enabled,
+                                                      ObjectProvider<SqlStatistics> statistics) {
+        this.enabled = enabled;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!enabled || !(bean instanceof DataSource dataSource) || bean instanceof StatementStatisticsDataSource) {
+            return bean;
+        }
+        SqlStatistics sqlStatistics = statistics.getIfAvailable();
+        return sqlStatistics != null ? new StatementStatisticsDataSource(dataSource, sqlStatistics) : bean;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.demo.phonebook.exception;
+
+/**
+ * Thrown when a conditional update names a version the contact has already moved past.
+ */
+public class ContactVersionConflictException extends RuntimeException {
+    public ContactVersionConflictException(Long id, Long version) {
+        super("Contact " + id + " is no longer at version " + version);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.demo.phonebook.exception;
+
+/**
+ * Thrown for a request parameter the client got wrong: a malformed cursor, an out-of-range limit,
+ * an oversized batch. The only IllegalArgumentException answered with 400; any other is a bug.
+ */
+public class InvalidRequestException extends IllegalArgumentException {
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.demo.phonebook.exception;
+
+/**
+ * An If-Match precondition did not hold: the contact is gone or has moved to another version.
+ */
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.demo.phonebook.exception;
+
+import java.time.Duration;
+
+/**
+ * The server is at a capacity limit for this kind of request; the client should retry after retryAfter.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public ServiceUnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.demo.phonebook.index;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Burkhard-Keller tree over strings under Damerau-Levenshtein distance.
+ * Each child hangs off its parent at their distance, so by the triangle inequality a search
+ * of radius r only descends into children at d - r .. d + r and skips the rest of the tree.
+ * Add-only and not thread-safe: the owning index guards it and rebuilds it to drop terms.
+ */
+final class BkTree {
+    private static final class Node {
+        final String term;
+        Node[] children = new Node[0];
+
+        Node(String term) {
+            this.term = term;
+        }
+    }
+
+    interface Visitor {
+        void accept(String term, int distance);
+    }
+
+    private Node root;
+    private int size;
+
+    /** Adds the term unless it is already present. */
+    void add(String term) {
+        if (root == null) {
+            root = new Node(term);
+            size++;
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int d = distance(term, node.term);
+            if (d == 0) {
+                return;
+            }
+            if (d >= node.children.length) {
+                node.children = Arrays.copyOf(node.children, d + 1);
+            }
+            Node child = node.children[d];
+            if (child == null) {
+                node.children[d] = new Node(term);
+                size++;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    /** Calls the visitor for every term within radius of the query. */
+    void search(String query, int radius, Visitor visitor) {
+        if (root == null) {
+            return;
+        }
+        ArrayDeque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            int d = distance(query, node.term);
+            if (d <= radius) {
+                visitor.accept(node.term, d);
+            }
+            int to = Math.min(d + radius, node.children.length - 1);
+            for (int k = Math.max(1, d - radius); k <= to; k++) {
+                if (node.children[k] != null) {
+                    pending.push(node.children[k]);
+                }
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Damerau-Levenshtein distance: insertions, deletions, substitutions and transpositions of
+     * adjacent characters, each costing one. Unlike the restricted (optimal string alignment)
+     * variant it is a metric, which the tree relies on.
+     */
+    static int distance(String a, String b) {
+        int n = a.length();
+        int m = b.length();
+        if (n == 0 || m == 0) {
+            return n + m;
+        }
+        int infinity = n + m;
+        int width = m + 2;
+        // (n + 2) x (m + 2) matrix, shifted by one so row and column 0 hold the sentinel
+        int[] d = new int[(n + 2) * width];
+        d[0] = infinity;
+        for (int i = 0; i <= n; i++) {
+            d[(i + 1) * width] = infinity;
+            d[(i + 1) * width + 1] = i;
+        }
+        for (int j = 0; j <= m; j++) {
+            d[j + 1] = infinity;
+            d[width + j + 1] = j;
+        }
+        // Last row of a in which each character occurred; names are short, so a scan beats hashing
+        char[] seen = new char[n];
+        int[] seenRow = new int[n];
+        int seenCount = 0;
+        for (int i = 1; i <= n; i++) {
+            char ai = a.charAt(i - 1);
+            int lastMatchColumn = 0;
+            for (int j = 1; j <= m; j++) {
+                char bj = b.charAt(j - 1);
+                int lastRow = 0;
+                for (int s = 0; s < seenCount; s++) {
+                    if (seen[s] == bj) {
+                        lastRow = seenRow[s];
+                        break;
+                    }
+                }
+                int lastColumn = lastMatchColumn;
+                int cost = 1;
+                if (ai == bj) {
+                    cost = 0;
+                    lastMatchColumn = j;
+                }
+                int substitution = d[i * width + j] + cost;
+                int insertion = d[(i + 1) * width + j] + 1;
+                int deletion = d[i * width + j + 1] + 1;
+                int transposition = d[lastRow * width + lastColumn]
+                        + (i - lastRow - 1) + 1 + (j - lastColumn - 1);
+                d[(i + 1) * width + j + 1] = Math.min(Math.min(substitution, insertion),
+                        Math.min(deletion, transposition));
+            }
+            int s = 0;
+            while (s < seenCount && seen[s] != ai) {
+                s++;
+            }
+            if (s == seenCount) {
+                seen[seenCount++] = ai;
+            }
+            seenRow[s] = i;
+        }
+        return d[(n + 1) * width + m + 1];
+    }
+}
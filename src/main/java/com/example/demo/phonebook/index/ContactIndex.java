@@ -0,0 +1,24 @@
+package com.example.demo.phonebook.index;
+
+import com.example.demo.phonebook.model.Contact;
+
+/**
+ * In-memory lookup structure over the contact table.
+ * Built once at startup by ContactIndexLoader, then kept current by ContactService writes.
+ */
+public interface ContactIndex {
+    /** Adds or replaces the entry for a contact after a committed write. */
+    void index(Contact contact);
+
+    /** Drops the entry for a deleted contact. */
+    void remove(Long id);
+
+    /** Adds a row read by the startup scan; must not override writes indexed while the scan runs. */
+    void load(Contact contact);
+
+    /** Called once the startup scan has finished; lookups may use the index from then on. */
+    void loaded();
+
+    /** Called instead of loaded() when the startup scan fails; the index is never used, so it drops its entries. */
+    void loadFailed();
+}
@@ -0,0 +1,49 @@
+package com.example.demo.phonebook.index;
+
+import com.example.demo.phonebook.service.ContactService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Fills every ContactIndex with one streaming pass over the table once the app is up.
+ * Until it finishes, lookups fall back to the database.
+ */
+@Profile("!reactive")
+@Component
+public class ContactIndexLoader {
+    private static final Logger logger = LoggerFactory.getLogger(ContactIndexLoader.class);
+    private final ContactService contactService;
+    private final List<ContactIndex> contactIndexes;
+
+    public ContactIndexLoader(ContactService contactService, List<ContactIndex> contactIndexes) {
+        this.contactService = contactService;
+        this.contactIndexes = contactIndexes;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadIndexes() {
+        long start = System.nanoTime();
+        long[] rows = {0};
+        try {
+            contactService.streamAllContacts(contact -> {
+                rows[0]++;
+                for (ContactIndex index : contactIndexes) {
+                    index.load(contact);
+                }
+            });
+        } catch (RuntimeException e) {
+            logger.error("Contact index load failed after {} rows, lookups stay on the database", rows[0], e);
+            contactIndexes.forEach(ContactIndex::loadFailed);
+            return;
+        }
+        contactIndexes.forEach(ContactIndex::loaded);
+        logger.info("Loaded {} contacts into {} indexes in {} ms",
+                rows[0], contactIndexes.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+}
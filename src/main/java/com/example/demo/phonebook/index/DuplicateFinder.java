@@ -0,0 +1,292 @@
+package com.example.demo.phonebook.index;
+
+import com.example.demo.phonebook.model.Contact;
+import com.example.demo.phonebook.model.DuplicateCluster;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Finds likely duplicate contacts in two streaming passes over the table, so millions of rows
+ * never have to be held as Contact objects.
+ * <p>
+ * The first pass keeps only a 32-bit hash of each row's normalized phone and email, about 24
+ * bytes a row. Sorting those in parallel shows which keys occur more than once, and only rows
+ * holding one are candidates. The second pass keeps just the candidates, blocks them by their
+ * exact keys and compares names pairwise inside each block in a fork-join task. Contacts linked
+ * by similar names in a shared block end up in one cluster.
+ * Single-use and not thread-safe: one job owns an instance.
+ */
+public final class DuplicateFinder {
+    public static final String PHONE = "phone";
+    public static final String EMAIL = "email";
+    // Blocks compared by one fork-join leaf
+    private static final int BLOCKS_PER_TASK = 64;
+
+    private final double minNameSimilarity;
+    private final int maxBlockSize;
+    // First pass: ids by row, and hash << 32 | row for every key of every row
+    private LongArrayList ids = new LongArrayList(1024);
+    private LongArrayList keyHashes = new LongArrayList(2048);
+    // Sorted ids of the rows sharing a key hash with another row
+    private long[] candidateIds;
+    // Second pass
+    private final List<Row> rows = new ArrayList<>();
+    private final LongAdder pairsCompared = new LongAdder();
+    private long skippedBlocks;
+
+    private record Row(long id, String name, String phone, String email) {
+    }
+
+    public DuplicateFinder(double minNameSimilarity, int maxBlockSize) {
+        this.minNameSimilarity = minNameSimilarity;
+        this.maxBlockSize = maxBlockSize;
+    }
+
+    /** First pass: records the row's blocking keys. */
+    public void addKeys(long id, String phoneNumber, String email) {
+        int row = ids.size();
+        ids.add(id);
+        String phone = phoneKey(phoneNumber);
+        if (phone != null) {
+            keyHashes.add((long) hash(PHONE, phone) << 32 | row);
+        }
+        String mail = emailKey(email);
+        if (mail != null) {
+            keyHashes.add((long) hash(EMAIL, mail) << 32 | row);
+        }
+    }
+
+    /**
+     * Ends the first pass and returns the number of candidate rows. Hash collisions only add
+     * candidates; the second pass blocks on the exact keys.
+     */
+    public int selectCandidates(ForkJoinPool pool) {
+        long[] sorted = keyHashes.toArray();
+        keyHashes = null;
+        // parallelSort forks into the pool it is called from rather than the common pool
+        pool.submit(() -> Arrays.parallelSort(sorted)).join();
+        BitSet candidates = new BitSet(ids.size());
+        for (int start = 0; start < sorted.length; ) {
+            int end = start + 1;
+            while (end < sorted.length && (sorted[end] >>> 32) == (sorted[start] >>> 32)) {
+                end++;
+            }
+            if (end - start > 1) {
+                for (int i = start; i < end; i++) {
+                    candidates.set((int) sorted[i]);
+                }
+            }
+            start = end;
+        }
+        candidateIds = new long[candidates.cardinality()];
+        int n = 0;
+        for (int row = candidates.nextSetBit(0); row >= 0; row = candidates.nextSetBit(row + 1)) {
+            candidateIds[n++] = ids.get(row);
+        }
+        ids = null;
+        Arrays.sort(candidateIds);
+        return candidateIds.length;
+    }
+
+    /** Second pass: keeps the contact if the first pass made it a candidate. */
+    public boolean addCandidate(Contact contact) {
+        if (contact.getId() == null || Arrays.binarySearch(candidateIds, contact.getId()) < 0) {
+            return false;
+        }
+        rows.add(new Row(contact.getId(), nameKey(contact.getName()),
+                phoneKey(contact.getPhoneNumber()), emailKey(contact.getEmail())));
+        return true;
+    }
+
+    /** Ends the second pass: compares the blocks on the pool and returns clusters ordered by lowest id. */
+    public List<DuplicateCluster> clusters(ForkJoinPool pool) {
+        Map<String, List<Integer>> byKey = new HashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            if (row.phone() != null) {
+                byKey.computeIfAbsent(PHONE + ':' + row.phone(), k -> new ArrayList<>(2)).add(i);
+            }
+            if (row.email() != null) {
+                byKey.computeIfAbsent(EMAIL + ':' + row.email(), k -> new ArrayList<>(2)).add(i);
+            }
+        }
+        List<int[]> blocks = new ArrayList<>();
+        for (List<Integer> block : byKey.values()) {
+            if (block.size() < 2) {
+                continue;
+            }
+            // A shared switchboard number or a placeholder address would cost size^2 comparisons
+            if (block.size() > maxBlockSize) {
+                skippedBlocks++;
+                continue;
+            }
+            blocks.add(block.stream().mapToInt(Integer::intValue).toArray());
+        }
+        LongArrayList pairs = pool.invoke(new CompareBlocks(blocks, 0, blocks.size()));
+
+        int[] parent = new int[rows.size()];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        for (int i = 0; i < pairs.size(); i++) {
+            int a = root(parent, (int) (pairs.get(i) >>> 32));
+            int b = root(parent, (int) pairs.get(i));
+            parent[Math.max(a, b)] = Math.min(a, b);
+        }
+        Map<Integer, List<Row>> members = new HashMap<>();
+        for (int i = 0; i < parent.length; i++) {
+            members.computeIfAbsent(root(parent, i), k -> new ArrayList<>(2)).add(rows.get(i));
+        }
+        List<DuplicateCluster> clusters = new ArrayList<>();
+        for (List<Row> group : members.values()) {
+            if (group.size() > 1) {
+                group.sort(Comparator.comparingLong(Row::id));
+                clusters.add(new DuplicateCluster(group.stream().map(Row::id).toList(), matchedOn(group)));
+            }
+        }
+        clusters.sort(Comparator.comparing(cluster -> cluster.getContactIds().get(0)));
+        return clusters;
+    }
+
+    public long pairsCompared() {
+        return pairsCompared.sum();
+    }
+
+    public long skippedBlocks() {
+        return skippedBlocks;
+    }
+
+    /** Digits of the phone number, or null when it has none: "555-123-4567" and "(555) 1234567" share a key. */
+    public static String phoneKey(String phoneNumber) {
+        if (phoneNumber == null) {
+            return null;
+        }
+        StringBuilder digits = new StringBuilder(phoneNumber.length());
+        for (int i = 0; i < phoneNumber.length(); i++) {
+            char c = phoneNumber.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.isEmpty() ? null : digits.toString();
+    }
+
+    /** Trimmed lowercase email, or null when blank. */
+    public static String emailKey(String email) {
+        if (email == null || email.isBlank()) {
+            return null;
+        }
+        return NameNgramIndex.normalize(email.trim());
+    }
+
+    /** Lowercase name tokens in sorted order, so case, spacing and word order do not matter. */
+    public static String nameKey(String name) {
+        if (name == null) {
+            return "";
+        }
+        List<String> tokens = FuzzyNameIndex.tokenize(name);
+        Collections.sort(tokens);
+        return String.join(" ", tokens);
+    }
+
+    /** 1 minus the Damerau-Levenshtein distance over the longer length; 1 for equal names. */
+    public static double nameSimilarity(String a, String b) {
+        int longer = Math.max(a.length(), b.length());
+        return longer == 0 ? 1.0 : 1.0 - (double) BkTree.distance(a, b) / longer;
+    }
+
+    private boolean similar(String a, String b) {
+        // The length difference is a lower bound on the distance, so most mismatches stop here
+        int longer = Math.max(a.length(), b.length());
+        if (Math.abs(a.length() - b.length()) > (1 - minNameSimilarity) * longer) {
+            return false;
+        }
+        return nameSimilarity(a, b) >= minNameSimilarity;
+    }
+
+    private static List<String> matchedOn(List<Row> group) {
+        List<String> keys = new ArrayList<>(2);
+        if (group.stream().map(Row::phone).filter(phone -> phone != null).distinct().count()
+                < group.stream().filter(row -> row.phone() != null).count()) {
+            keys.add(PHONE);
+        }
+        if (group.stream().map(Row::email).filter(email -> email != null).distinct().count()
+                < group.stream().filter(row -> row.email() != null).count()) {
+            keys.add(EMAIL);
+        }
+        return keys;
+    }
+
+    private static int root(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    // 64-bit FNV-1a over the key kind and value, folded to 32 bits
+    private static int hash(String kind, String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < kind.length(); i++) {
+            h = (h ^ kind.charAt(i)) * 0x100000001b3L;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // Similar-name pairs inside the blocks, packed as row << 32 | row
+    private final class CompareBlocks extends RecursiveTask<LongArrayList> {
+        private final List<int[]> blocks;
+        private final int from;
+        private final int to;
+
+        CompareBlocks(List<int[]> blocks, int from, int to) {
+            this.blocks = blocks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected LongArrayList compute() {
+            if (to - from > BLOCKS_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                CompareBlocks left = new CompareBlocks(blocks, from, mid);
+                left.fork();
+                LongArrayList right = new CompareBlocks(blocks, mid, to).compute();
+                LongArrayList pairs = left.join();
+                for (int i = 0; i < right.size(); i++) {
+                    pairs.add(right.get(i));
+                }
+                return pairs;
+            }
+            LongArrayList pairs = new LongArrayList();
+            long compared = 0;
+            for (int b = from; b < to; b++) {
+                int[] block = blocks.get(b);
+                for (int i = 0; i < block.length; i++) {
+                    for (int j = i + 1; j < block.length; j++) {
+                        compared++;
+                        if (similar(rows.get(block[i]).name(), rows.get(block[j]).name())) {
+                            pairs.add((long) block[i] << 32 | block[j]);
+                        }
+                    }
+                }
+            }
+            pairsCompared.add(compared);
+            return pairs;
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package com.example.demo.phonebook.index;
+
+import com.example.demo.phonebook.model.Contact;
+import org.apache.commons.codec.language.DoubleMetaphone;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typo-tolerant name search. Names are split into lowercase tokens; every distinct token goes
+ * into a BK-tree for edit-distance lookups and under its Double Metaphone codes for sound-alike
+ * lookups ("Kathryn" finds "Catherine"). Both map a query token to name tokens, whose postings
+ * give the contacts, so a search never walks the contacts themselves.
+ * <p>
+ * Postings are append-only like NameNgramIndex's: stale ids are skipped by checking the
+ * contact's current tokens, and everything is rebuilt once they outnumber the live ones.
+ */
+@Component
+public class FuzzyNameIndex implements ContactIndex {
+    // Longer queries are cut here; each token costs a tree search
+    public static final int MAX_QUERY_TOKENS = 8;
+    private static final int MIN_PHONETIC_LENGTH = 3;
+
+    public record Match(long id, int matchedTokens, int distance) {
+    }
+
+    private final DoubleMetaphone doubleMetaphone = new DoubleMetaphone();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // id -> distinct tokens of the current name
+    private final Map<Long, String[]> tokensById = new HashMap<>();
+    // token -> ids whose name had it at indexing time
+    private final Map<String, LongArrayList> postings = new HashMap<>();
+    // Double Metaphone code -> tokens with that primary or alternate code
+    private final Map<String, List<String>> tokensByCode = new HashMap<>();
+    // ids written while the startup scan runs; the scan must not override them
+    private final Set<Long> writtenDuringLoad = new HashSet<>();
+    private BkTree tokens = new BkTree();
+    private long livePostings;
+    private long stalePostings;
+    private boolean loadFailed;
+    private volatile boolean ready;
+
+    @Override
+    public void index(Contact contact) {
+        if (contact.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                if (loadFailed) {
+                    return;
+                }
+                writtenDuringLoad.add(contact.getId());
+            }
+            put(contact.getId(), contact.getName());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                if (loadFailed) {
+                    return;
+                }
+                writtenDuringLoad.add(id);
+            }
+            String[] old = tokensById.remove(id);
+            if (old != null) {
+                retire(old.length);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void load(Contact contact) {
+        lock.writeLock().lock();
+        try {
+            if (!writtenDuringLoad.contains(contact.getId())) {
+                put(contact.getId(), contact.getName());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void loaded() {
+        lock.writeLock().lock();
+        try {
+            writtenDuringLoad.clear();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void loadFailed() {
+        lock.writeLock().lock();
+        try {
+            loadFailed = true;
+            writtenDuringLoad.clear();
+            tokensById.clear();
+            postings.clear();
+            tokensByCode.clear();
+            tokens = new BkTree();
+            livePostings = 0;
+            stalePostings = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Best matches for a free-text name query, or null while the index is still loading.
+     * A query token matches a name token within its edit budget (see maxEdits) or with a shared
+     * Double Metaphone code, which counts as maxDistance + 1 edits. Contacts matching more query
+     * tokens rank first, then fewer edits in total, then lower ids.
+     */
+    public List<Match> search(String query, int maxDistance, int limit) {
+        if (!ready) {
+            return null;
+        }
+        List<String> queryTokens = tokenize(query);
+        if (queryTokens.size() > MAX_QUERY_TOKENS) {
+            queryTokens = queryTokens.subList(0, MAX_QUERY_TOKENS);
+        }
+        lock.readLock().lock();
+        LongLongHashMap scores;
+        try {
+            List<Map<String, Integer>> candidatesPerToken = new ArrayList<>(queryTokens.size());
+            int[] postingCounts = new int[queryTokens.size()];
+            int totalPostings = 0;
+            for (int t = 0; t < queryTokens.size(); t++) {
+                Map<String, Integer> candidates = candidateTokens(queryTokens.get(t), maxDistance);
+                candidatesPerToken.add(candidates);
+                for (String token : candidates.keySet()) {
+                    postingCounts[t] += postings.get(token).size();
+                }
+                totalPostings += postingCounts[t];
+            }
+            // id -> matched tokens << 32 | total edits. Both maps are sized up front: copying a
+            // table in slot order into a smaller one that still has to grow clusters its keys
+            scores = new LongLongHashMap(totalPostings);
+            for (int t = 0; t < queryTokens.size(); t++) {
+                LongLongHashMap best = new LongLongHashMap(postingCounts[t]);
+                for (Map.Entry<String, Integer> candidate : candidatesPerToken.get(t).entrySet()) {
+                    LongArrayList ids = postings.get(candidate.getKey());
+                    for (int i = 0; i < ids.size(); i++) {
+                        long id = ids.get(i);
+                        long current = best.get(id);
+                        if ((current == LongLongHashMap.NO_VALUE || candidate.getValue() < current)
+                                && hasToken(id, candidate.getKey())) {
+                            best.put(id, candidate.getValue());
+                        }
+                    }
+                }
+                LongLongHashMap merged = scores;
+                best.forEach((id, edits) -> {
+                    long score = merged.get(id);
+                    merged.put(id, score == LongLongHashMap.NO_VALUE
+                            ? (1L << 32) | edits : score + (1L << 32) + edits);
+                });
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return top(scores, limit);
+    }
+
+    /** Lowercase letter/digit runs of a name, distinct and in order. */
+    public static List<String> tokenize(String name) {
+        Set<String> tokens = new LinkedHashSet<>();
+        String normalized = NameNgramIndex.normalize(name);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean inToken = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (inToken && start < 0) {
+                start = i;
+            } else if (!inToken && start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    /**
+     * Edits allowed for a query token: none up to 2 characters, one up to 5, then two,
+     * and never more than maxDistance. A short token with a generous budget would match
+     * most of the vocabulary.
+     */
+    static int maxEdits(String token, int maxDistance) {
+        int byLength = token.length() <= 2 ? 0 : token.length() <= 5 ? 1 : 2;
+        return Math.min(byLength, maxDistance);
+    }
+
+    // Name token -> edits charged for matching it, the lower of edit distance and phonetic cost
+    private Map<String, Integer> candidateTokens(String queryToken, int maxDistance) {
+        Map<String, Integer> candidates = new HashMap<>();
+        tokens.search(queryToken, maxEdits(queryToken, maxDistance), candidates::put);
+        if (queryToken.length() >= MIN_PHONETIC_LENGTH) {
+            int phoneticCost = maxDistance + 1;
+            for (String code : codes(queryToken)) {
+                for (String token : tokensByCode.getOrDefault(code, List.of())) {
+                    candidates.merge(token, phoneticCost, Math::min);
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private boolean hasToken(long id, String token) {
+        String[] current = tokensById.get(id);
+        if (current != null) {
+            for (String t : current) {
+                if (t.equals(token)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static List<Match> top(LongLongHashMap scores, int limit) {
+        // Worst of the kept matches on top, so it is the one replaced
+        PriorityQueue<Match> kept = new PriorityQueue<>(limit + 1, (a, b) -> compare(b, a));
+        scores.forEach((id, score) -> {
+            Match match = new Match(id, (int) (score >>> 32), (int) score);
+            if (kept.size() < limit) {
+                kept.add(match);
+            } else if (compare(match, kept.peek()) < 0) {
+                kept.poll();
+                kept.add(match);
+            }
+        });
+        List<Match> ranked = new ArrayList<>(kept);
+        ranked.sort(FuzzyNameIndex::compare);
+        return ranked;
+    }
+
+    private static int compare(Match a, Match b) {
+        if (a.matchedTokens() != b.matchedTokens()) {
+            return Integer.compare(b.matchedTokens(), a.matchedTokens());
+        }
+        if (a.distance() != b.distance()) {
+            return Integer.compare(a.distance(), b.distance());
+        }
+        return Long.compare(a.id(), b.id());
+    }
+
+    private void put(Long id, String name) {
+        if (name == null) {
+            remove(id);
+            return;
+        }
+        String[] current = tokenize(name).toArray(String[]::new);
+        String[] old = tokensById.put(id, current);
+        if (Arrays.equals(old, current)) {
+            return;
+        }
+        if (old != null) {
+            retire(old.length);
+        }
+        for (String token : current) {
+            addPosting(token, id);
+        }
+        livePostings += current.length;
+    }
+
+    private void addPosting(String token, long id) {
+        LongArrayList ids = postings.get(token);
+        if (ids == null) {
+            ids = new LongArrayList();
+            postings.put(token, ids);
+            tokens.add(token);
+            if (token.length() >= MIN_PHONETIC_LENGTH) {
+                for (String code : codes(token)) {
+                    tokensByCode.computeIfAbsent(code, k -> new ArrayList<>()).add(token);
+                }
+            }
+        }
+        ids.add(id);
+    }
+
+    private Set<String> codes(String token) {
+        Set<String> codes = new HashSet<>(2);
+        String primary = doubleMetaphone.doubleMetaphone(token);
+        if (primary != null && !primary.isEmpty()) {
+            codes.add(primary);
+        }
+        String alternate = doubleMetaphone.doubleMetaphone(token, true);
+        if (alternate != null && !alternate.isEmpty()) {
+            codes.add(alternate);
+        }
+        return codes;
+    }
+
+    private void retire(int count) {
+        livePostings -= count;
+        stalePostings += count;
+        if (stalePostings > livePostings) {
+            compact();
+        }
+    }
+
+    // Also drops tokens no contact has any more from the tree and the phonetic map
+    private void compact() {
+        postings.clear();
+        tokensByCode.clear();
+        tokens = new BkTree();
+        livePostings = 0;
+        stalePostings = 0;
+        for (Map.Entry<Long, String[]> entry : tokensById.entrySet()) {
+            for (String token : entry.getValue()) {
+                addPosting(token, entry.getKey());
+            }
+            livePostings += entry.getValue().length;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.demo.phonebook.index;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive longs, used for postings lists so ids are never boxed.
+ */
+final class LongArrayList {
+    private long[] values;
+    private int size;
+
+    LongArrayList() {
+        this(4);
+    }
+
+    LongArrayList(int initialCapacity) {
+        values = new long[Math.max(1, initialCapacity)];
+    }
+
+    void add(long value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size + (size >> 1) + 1);
+        }
+        values[size++] = value;
+    }
+
+    long get(int i) {
+        return values[i];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    long[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    /** Sorted copy with duplicates removed. */
+    long[] toSortedUniqueArray() {
+        long[] copy = Arrays.copyOf(values, size);
+        Arrays.sort(copy);
+        int unique = 0;
+        for (int i = 0; i < copy.length; i++) {
+            if (unique == 0 || copy[i] != copy[unique - 1]) {
+                copy[unique++] = copy[i];
+            }
+        }
+        return unique == copy.length ? copy : Arrays.copyOf(copy, unique);
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.demo.phonebook.index;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing long -> long hash map over two primitive arrays.
+ * Linear probing with backward-shift deletion, so there are no tombstones and
+ * a slot costs exactly 16 bytes. Keys must be non-negative; -1 marks an empty slot.
+ * Not thread-safe: callers guard it with their own lock.
+ */
+final class LongLongHashMap {
+    static final long NO_VALUE = Long.MIN_VALUE;
+    private static final long EMPTY = -1L;
+    private static final double MAX_LOAD = 0.8;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int shift;
+    private int size;
+    private int resizeAt;
+
+    LongLongHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / MAX_LOAD)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    long get(long key) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long k = keys[slot];
+            if (k == key) {
+                return values[slot];
+            }
+            if (k == EMPTY) {
+                return NO_VALUE;
+            }
+        }
+    }
+
+    /** Returns the previous value, or NO_VALUE. */
+    long put(long key, long value) {
+        if (key < 0) {
+            throw new IllegalArgumentException("negative key " + key);
+        }
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long k = keys[slot];
+            if (k == key) {
+                long old = values[slot];
+                values[slot] = value;
+                return old;
+            }
+            if (k == EMPTY) {
+                keys[slot] = key;
+                values[slot] = value;
+                if (++size > resizeAt) {
+                    rehash(keys.length << 1);
+                }
+                return NO_VALUE;
+            }
+        }
+    }
+
+    void forEach(EntryConsumer action) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                action.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    interface EntryConsumer {
+        void accept(long key, long value);
+    }
+
+    /** Returns the removed value, or NO_VALUE. */
+    long remove(long key) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long k = keys[slot];
+            if (k == EMPTY) {
+                return NO_VALUE;
+            }
+            if (k == key) {
+                long old = values[slot];
+                shiftBack(slot);
+                size--;
+                return old;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    private void shiftBack(int hole) {
+        for (int slot = (hole + 1) & mask; keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            int home = slot(keys[slot]);
+            // Move the entry into the hole unless its home lies cyclically in (hole, slot]
+            boolean stays = hole <= slot ? (hole < home && home <= slot) : (hole < home || home <= slot);
+            if (!stays) {
+                keys[hole] = keys[slot];
+                values[hole] = values[slot];
+                hole = slot;
+            }
+        }
+        keys[hole] = EMPTY;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        resizeAt = (int) (capacity * MAX_LOAD);
+    }
+
+    private int slot(long key) {
+        // Fibonacci hashing spreads sequential ids and phone numbers across the table
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+}
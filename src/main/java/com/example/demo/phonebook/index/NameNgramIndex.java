@@ -0,0 +1,377 @@
+package com.example.demo.phonebook.index;
+
+import com.example.demo.phonebook.model.Contact;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.text.Normalizer;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Trigram index over contact names for substring search that ignores case and accents, as
+ * MySQL's utf8mb4_0900_ai_ci does for the SQL fallback: "jose" finds "José".
+ * Postings lists are append-only: a rename or delete leaves stale ids behind,
+ * which are filtered out by re-checking the current name and purged by
+ * compaction once they outnumber the live entries.
+ * <p>
+ * Names are indexed with two END chars appended, so every one or two char substring is the
+ * prefix of some trigram and a short query is a range of the sorted postings keys rather than
+ * a scan of all names. Compaction reads the names on another thread without the lock and
+ * rebuilds the postings from them. Every id written or moved to another slot in the meantime is
+ * replayed under the write lock at the swap, and postings the unlocked read got wrong are
+ * filtered out by the name re-check like any stale entry.
+ */
+@Component
+public class NameNgramIndex implements ContactIndex {
+    private static final int GRAM = 3;
+    private static final char END = '\0';
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Executor compactor;
+    // packed trigram -> ids whose name contained it at indexing time
+    private NavigableMap<Long, LongArrayList> postings = new TreeMap<>();
+    // id -> slot in ids and names; slots are dense, a removal moves the last one into the hole
+    private LongLongHashMap slotById = new LongLongHashMap(1024);
+    private long[] ids = new long[1024];
+    // folded current names, by slot
+    private String[] names = new String[1024];
+    private int size;
+    // ids written while the startup scan runs; the scan must not override them
+    private final Set<Long> writtenDuringLoad = new HashSet<>();
+    // ids written or moved while a compaction rebuilds the postings, null when none runs
+    private LongArrayList writtenDuringCompaction;
+    private long livePostings;
+    private long stalePostings;
+    private boolean loadFailed;
+    private volatile boolean ready;
+
+    public NameNgramIndex() {
+        this(task -> Thread.ofVirtual().name("name-ngram-compaction").start(task));
+    }
+
+    NameNgramIndex(Executor compactor) {
+        this.compactor = compactor;
+    }
+
+    @Override
+    public void index(Contact contact) {
+        if (contact.getId() == null) {
+            return;
+        }
+        Runnable compaction;
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                if (loadFailed) {
+                    return;
+                }
+                writtenDuringLoad.add(contact.getId());
+            }
+            put(contact.getId(), contact.getName());
+            compaction = startCompaction();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        compact(compaction);
+    }
+
+    @Override
+    public void remove(Long id) {
+        Runnable compaction;
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                if (loadFailed) {
+                    return;
+                }
+                writtenDuringLoad.add(id);
+            }
+            unlink(id);
+            compaction = startCompaction();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        compact(compaction);
+    }
+
+    @Override
+    public void load(Contact contact) {
+        Runnable compaction;
+        lock.writeLock().lock();
+        try {
+            if (writtenDuringLoad.contains(contact.getId())) {
+                return;
+            }
+            put(contact.getId(), contact.getName());
+            compaction = startCompaction();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        compact(compaction);
+    }
+
+    @Override
+    public void loaded() {
+        lock.writeLock().lock();
+        try {
+            writtenDuringLoad.clear();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void loadFailed() {
+        lock.writeLock().lock();
+        try {
+            // Never used from here on, so keep nothing
+            loadFailed = true;
+            writtenDuringLoad.clear();
+            postings = new TreeMap<>();
+            slotById = new LongLongHashMap(16);
+            ids = new long[16];
+            names = new String[16];
+            size = 0;
+            livePostings = 0;
+            stalePostings = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of contacts whose name contains the query, ignoring case and accents, in ascending order.
+     * Returns null while the index is still loading.
+     */
+    public long[] findIdsContaining(String query) {
+        if (!ready) {
+            return null;
+        }
+        String needle = fold(query);
+        LongArrayList matches = new LongArrayList();
+        lock.readLock().lock();
+        try {
+            if (needle.isEmpty()) {
+                for (int slot = 0; slot < size; slot++) {
+                    matches.add(ids[slot]);
+                }
+            } else if (needle.length() < GRAM) {
+                // Every occurrence starts a trigram, so the candidates are the keys with this prefix
+                long from = needle.length() == 1
+                        ? (long) needle.charAt(0) << 32
+                        : ((long) needle.charAt(0) << 32) | ((long) needle.charAt(1) << 16);
+                long to = from | (needle.length() == 1 ? 0xFFFFFFFFL : 0xFFFFL);
+                for (LongArrayList candidates : postings.subMap(from, true, to, true).values()) {
+                    addMatches(candidates, needle, matches);
+                }
+            } else {
+                LongArrayList candidates = smallestPostings(needle);
+                if (candidates != null) {
+                    addMatches(candidates, needle, matches);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return matches.toSortedUniqueArray();
+    }
+
+    /** Same case folding on both sides, one char at a time, so lengths never change. */
+    public static String normalize(String value) {
+        char[] chars = value.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    /** Case folding plus accent stripping (NFD, combining marks dropped); lengths may change. */
+    public static String fold(String value) {
+        String lower = normalize(value);
+        for (int i = 0; i < lower.length(); i++) {
+            if (lower.charAt(i) >= 0x80) {
+                return COMBINING_MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+            }
+        }
+        return lower;
+    }
+
+    private void addMatches(LongArrayList candidates, String needle, LongArrayList matches) {
+        for (int i = 0; i < candidates.size(); i++) {
+            long id = candidates.get(i);
+            long slot = slotById.get(id);
+            if (slot != LongLongHashMap.NO_VALUE && names[(int) slot].contains(needle)) {
+                matches.add(id);
+            }
+        }
+    }
+
+    private LongArrayList smallestPostings(String needle) {
+        LongArrayList smallest = null;
+        for (int i = 0; i + GRAM <= needle.length(); i++) {
+            LongArrayList list = postings.get(trigram(needle, i));
+            if (list == null) {
+                return null;
+            }
+            if (smallest == null || list.size() < smallest.size()) {
+                smallest = list;
+            }
+        }
+        return smallest;
+    }
+
+    private void put(long id, String name) {
+        if (name == null) {
+            unlink(id);
+            return;
+        }
+        String normalized = fold(name);
+        long slot = slotById.get(id);
+        if (slot == LongLongHashMap.NO_VALUE) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1));
+                names = Arrays.copyOf(names, ids.length);
+            }
+            slot = size++;
+            slotById.put(id, slot);
+            ids[(int) slot] = id;
+        } else if (normalized.equals(names[(int) slot])) {
+            return;
+        } else {
+            retire(names[(int) slot]);
+        }
+        names[(int) slot] = normalized;
+        livePostings += addPostings(postings, id, normalized);
+        if (writtenDuringCompaction != null) {
+            writtenDuringCompaction.add(id);
+        }
+    }
+
+    private void unlink(long id) {
+        long slot = slotById.remove(id);
+        if (slot == LongLongHashMap.NO_VALUE) {
+            return;
+        }
+        retire(names[(int) slot]);
+        int last = --size;
+        if (slot != last) {
+            ids[(int) slot] = ids[last];
+            names[(int) slot] = names[last];
+            slotById.put(ids[last], slot);
+            if (writtenDuringCompaction != null) {
+                // A rebuild reading the slots may already have passed this one
+                writtenDuringCompaction.add(ids[last]);
+            }
+        }
+        names[last] = null;
+    }
+
+    private void retire(String oldName) {
+        int count = trigrams(oldName).size();
+        livePostings -= count;
+        stalePostings += count;
+    }
+
+    /** A rebuild of the slots as they are now, once stale postings outnumber live ones; null if none is due. */
+    private Runnable startCompaction() {
+        if (writtenDuringCompaction != null || stalePostings <= livePostings) {
+            return null;
+        }
+        writtenDuringCompaction = new LongArrayList();
+        // No copy: writes from here on are replayed at the swap, and a grown array leaves these untouched
+        long[] slotIds = ids;
+        String[] slotNames = names;
+        int slots = size;
+        return () -> rebuild(slotIds, slotNames, slots);
+    }
+
+    private void compact(Runnable compaction) {
+        if (compaction != null) {
+            compactor.execute(compaction);
+        }
+    }
+
+    // Runs without the lock, so a slot may be read mid-write; see the class comment
+    private void rebuild(long[] slotIds, String[] slotNames, int slots) {
+        NavigableMap<Long, LongArrayList> rebuilt = new TreeMap<>();
+        long live = 0;
+        boolean built = false;
+        try {
+            for (int i = 0; i < slots; i++) {
+                String name = slotNames[i];
+                if (name != null) {
+                    live += addPostings(rebuilt, slotIds[i], name);
+                }
+            }
+            built = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (built && !loadFailed) {
+                    swap(rebuilt, live);
+                }
+                writtenDuringCompaction = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void swap(NavigableMap<Long, LongArrayList> rebuilt, long live) {
+        // The rebuilt postings of ids written or moved since may be stale; add their current name's on top
+        long replayed = 0;
+        for (int i = 0; i < writtenDuringCompaction.size(); i++) {
+            long id = writtenDuringCompaction.get(i);
+            long slot = slotById.get(id);
+            if (slot != LongLongHashMap.NO_VALUE) {
+                replayed += addPostings(rebuilt, id, names[(int) slot]);
+            }
+        }
+        postings = rebuilt;
+        livePostings = live;
+        stalePostings = replayed;
+    }
+
+    private static long addPostings(Map<Long, LongArrayList> target, long id, String normalized) {
+        Set<Long> grams = trigrams(normalized);
+        for (Long gram : grams) {
+            target.computeIfAbsent(gram, k -> new LongArrayList()).add(id);
+        }
+        return grams.size();
+    }
+
+    private static Set<Long> trigrams(String normalized) {
+        String padded = normalized + END + END;
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= padded.length(); i++) {
+            grams.add(trigram(padded, i));
+        }
+        return grams;
+    }
+
+    private static long trigram(String s, int from) {
+        return ((long) s.charAt(from) << 32) | ((long) s.charAt(from + 1) << 16) | s.charAt(from + 2);
+    }
+}
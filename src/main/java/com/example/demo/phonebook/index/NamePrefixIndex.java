@@ -0,0 +1,313 @@
+package com.example.demo.phonebook.index;
+
+import com.example.demo.phonebook.model.Contact;
+import com.example.demo.phonebook.model.ContactSuggestion;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Case-insensitive name prefix index for autocomplete.
+ * Entries are kept sorted by (normalized name, id), so the first k entries at or
+ * after the prefix are exactly the top-k answer: a lookup is one O(log n) seek
+ * plus k steps, with no per-prefix result cache to keep in sync.
+ * <p>
+ * Most entries live in a packed base: the names in one char array, sorted, with their offsets
+ * and ids alongside, about 12 bytes per contact plus the name's chars. Writes since the base was
+ * built go to a small sorted delta layer that also masks the base entries they replace. Once the
+ * delta reaches a sixteenth of the base it is frozen and merged into a new base on another
+ * thread, while a fresh delta takes the writes.
+ * Readers never lock; writers take a single lock so the layers move together.
+ */
+@Component
+public class NamePrefixIndex implements ContactIndex {
+    private static final int MIN_MERGE_SIZE = 1024;
+    private static final Base EMPTY = new Base(new char[0], new int[1], new long[0]);
+
+    private record Entry(String key, long id, String name) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry other) {
+            int byKey = key.compareTo(other.key);
+            return byKey != 0 ? byKey : Long.compare(id, other.id);
+        }
+    }
+
+    /** Names sorted by (normalized name, id); name i is chars[offsets[i], offsets[i + 1]). */
+    private record Base(char[] chars, int[] offsets, long[] ids) {
+        int size() {
+            return ids.length;
+        }
+
+        String name(int i) {
+            return new String(chars, offsets[i], offsets[i + 1] - offsets[i]);
+        }
+
+        /** Name i normalized, compared with key; the same order as Entry keys. */
+        int compare(int i, String key) {
+            int from = offsets[i];
+            int length = offsets[i + 1] - from;
+            for (int j = 0; j < Math.min(length, key.length()); j++) {
+                int byChar = Character.toLowerCase(chars[from + j]) - key.charAt(j);
+                if (byChar != 0) {
+                    return byChar;
+                }
+            }
+            return length - key.length();
+        }
+
+        boolean startsWith(int i, String key) {
+            int from = offsets[i];
+            if (offsets[i + 1] - from < key.length()) {
+                return false;
+            }
+            for (int j = 0; j < key.length(); j++) {
+                if (Character.toLowerCase(chars[from + j]) != key.charAt(j)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /** First entry whose name is at or after key. */
+        int seek(String key) {
+            int low = 0;
+            int high = size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compare(mid, key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    /** Writes on top of the layers below: their current entries, and every id they replace below. */
+    private static final class Layer {
+        private final ConcurrentSkipListSet<Entry> entries = new ConcurrentSkipListSet<>();
+        private final Set<Long> written = ConcurrentHashMap.newKeySet();
+        // Only touched by writers, under the lock
+        private final Map<Long, Entry> entriesById = new HashMap<>();
+    }
+
+    /** merging is the delta being folded into a new base, null when no merge runs. */
+    private record State(Base base, Layer merging, Layer delta) {
+    }
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Executor merger;
+    private final int minMergeSize;
+    // Before loaded(), the delta's written ids are the ones the startup scan must not override
+    private volatile State state = new State(EMPTY, null, new Layer());
+    // Rows of the startup scan, packed into the first base by loaded()
+    private List<Entry> loading = new ArrayList<>();
+    private boolean loadFailed;
+    private volatile boolean ready;
+
+    public NamePrefixIndex() {
+        this(task -> Thread.ofVirtual().name("name-prefix-merge").start(task), MIN_MERGE_SIZE);
+    }
+
+    NamePrefixIndex(Executor merger, int minMergeSize) {
+        this.merger = merger;
+        this.minMergeSize = minMergeSize;
+    }
+
+    @Override
+    public void index(Contact contact) {
+        if (contact.getId() == null) {
+            return;
+        }
+        write(contact.getId(), contact.getName());
+    }
+
+    @Override
+    public void remove(Long id) {
+        write(id, null);
+    }
+
+    @Override
+    public void load(Contact contact) {
+        writeLock.lock();
+        try {
+            if (!loadFailed && contact.getName() != null && !state.delta().written.contains(contact.getId())) {
+                loading.add(new Entry(NameNgramIndex.normalize(contact.getName()), contact.getId(),
+                        contact.getName()));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void loaded() {
+        writeLock.lock();
+        try {
+            loading.sort(null);
+            state = new State(pack(loading), null, state.delta());
+            loading = null;
+            ready = true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void loadFailed() {
+        writeLock.lock();
+        try {
+            loadFailed = true;
+            loading = new ArrayList<>();
+            state = new State(EMPTY, null, new Layer());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** Up to limit contacts whose name starts with prefix, ignoring case, ordered by name. */
+    public List<ContactSuggestion> suggest(String prefix, int limit) {
+        String key = NameNgramIndex.normalize(prefix);
+        State current = state;
+        // Up to limit live candidates from each layer, then the best limit of them all
+        List<Entry> candidates = new ArrayList<>();
+        Base base = current.base();
+        for (int i = base.seek(key), found = 0; i < base.size() && found < limit && base.startsWith(i, key); i++) {
+            long id = base.ids()[i];
+            if (!current.delta().written.contains(id)
+                    && (current.merging() == null || !current.merging().written.contains(id))) {
+                String name = base.name(i);
+                candidates.add(new Entry(NameNgramIndex.normalize(name), id, name));
+                found++;
+            }
+        }
+        if (current.merging() != null) {
+            addCandidates(current.merging(), current.delta(), key, limit, candidates);
+        }
+        addCandidates(current.delta(), null, key, limit, candidates);
+        candidates.sort(null);
+        List<ContactSuggestion> suggestions = new ArrayList<>(Math.min(limit, candidates.size()));
+        for (Entry entry : candidates.subList(0, Math.min(limit, candidates.size()))) {
+            suggestions.add(new ContactSuggestion(entry.id(), entry.name()));
+        }
+        return suggestions;
+    }
+
+    private static void addCandidates(Layer layer, Layer above, String key, int limit, List<Entry> candidates) {
+        int found = 0;
+        for (Entry entry : layer.entries.tailSet(new Entry(key, Long.MIN_VALUE, null))) {
+            if (found == limit || !entry.key().startsWith(key)) {
+                break;
+            }
+            if (above == null || !above.written.contains(entry.id())) {
+                candidates.add(entry);
+                found++;
+            }
+        }
+    }
+
+    private void write(long id, String name) {
+        Runnable merge;
+        writeLock.lock();
+        try {
+            if (!ready && loadFailed) {
+                return;
+            }
+            Layer delta = state.delta();
+            // Mask the entries below before adding the new one, like a remove then an add
+            delta.written.add(id);
+            Entry old = delta.entriesById.remove(id);
+            if (old != null) {
+                delta.entries.remove(old);
+            }
+            if (name != null) {
+                Entry entry = new Entry(NameNgramIndex.normalize(name), id, name);
+                delta.entriesById.put(id, entry);
+                delta.entries.add(entry);
+            }
+            merge = startMerge();
+        } finally {
+            writeLock.unlock();
+        }
+        if (merge != null) {
+            merger.execute(merge);
+        }
+    }
+
+    /** Freezes the delta for a merge once it is large enough; null if none is due. */
+    private Runnable startMerge() {
+        State current = state;
+        if (!ready || current.merging() != null
+                || current.delta().written.size() < Math.max(minMergeSize, current.base().size() / 16)) {
+            return null;
+        }
+        state = new State(current.base(), current.delta(), new Layer());
+        return () -> merge(current.base(), current.delta());
+    }
+
+    private void merge(Base base, Layer frozen) {
+        Base merged = merge(base, frozen.written, new ArrayList<>(frozen.entries));
+        writeLock.lock();
+        try {
+            state = new State(merged, null, state.delta());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /** The base without the replaced ids, merged with the sorted entries. */
+    private static Base merge(Base base, Set<Long> replaced, List<Entry> entries) {
+        int chars = base.chars().length;
+        for (Entry entry : entries) {
+            chars += entry.name().length();
+        }
+        char[] mergedChars = new char[chars];
+        int[] offsets = new int[base.size() + entries.size() + 1];
+        long[] ids = new long[base.size() + entries.size()];
+        int size = 0;
+        int i = 0;
+        int e = 0;
+        while (i < base.size() || e < entries.size()) {
+            if (i < base.size() && replaced.contains(base.ids()[i])) {
+                i++;
+                continue;
+            }
+            if (e == entries.size() || i < base.size() && compare(base, i, entries.get(e)) < 0) {
+                int length = base.offsets()[i + 1] - base.offsets()[i];
+                System.arraycopy(base.chars(), base.offsets()[i], mergedChars, offsets[size], length);
+                offsets[size + 1] = offsets[size] + length;
+                ids[size++] = base.ids()[i++];
+            } else {
+                Entry entry = entries.get(e++);
+                entry.name().getChars(0, entry.name().length(), mergedChars, offsets[size]);
+                offsets[size + 1] = offsets[size] + entry.name().length();
+                ids[size++] = entry.id();
+            }
+        }
+        return new Base(Arrays.copyOf(mergedChars, offsets[size]), Arrays.copyOf(offsets, size + 1),
+                Arrays.copyOf(ids, size));
+    }
+
+    private static int compare(Base base, int i, Entry entry) {
+        int byKey = base.compare(i, entry.key());
+        return byKey != 0 ? byKey : Long.compare(base.ids()[i], entry.id());
+    }
+
+    private static Base pack(List<Entry> sorted) {
+        return merge(EMPTY, Set.of(), sorted);
+    }
+}
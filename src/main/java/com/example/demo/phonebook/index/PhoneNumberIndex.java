@@ -0,0 +1,201 @@
+package com.example.demo.phonebook.index;
+
+import com.example.demo.phonebook.model.Contact;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Phone number -> contact id index over packed primitive keys.
+ * An XXX-XXX-XXXX number is exactly ten digits, so it packs into a long and the
+ * whole index is one LongLongHashMap: 16 bytes per slot, no String keys and no boxing.
+ * A number shared by several contacts is marked ambiguous and left to the database.
+ * <p>
+ * Updates and deletes don't read the row, so the number a contact leaves is unknown and its
+ * entry stays behind. A hit is therefore only a hint the caller checks against the contact;
+ * ABSENT stays exact, since entries are only dropped by evict once the database agrees.
+ * Enabled with phonebook.phone-index.enabled=true.
+ */
+@Component
+@ConditionalOnProperty(name = "phonebook.phone-index.enabled", havingValue = "true")
+public class PhoneNumberIndex implements ContactIndex {
+    /** No contact has this number. */
+    public static final long ABSENT = -1L;
+    /** The index can't answer: still loading, unpackable number or a shared number. */
+    public static final long UNKNOWN = -2L;
+
+    private static final long AMBIGUOUS = -3L;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private LongLongHashMap idsByPhone;
+    // ids written while the startup scan runs; the scan must not override them
+    private LongLongHashMap writtenDuringLoad = new LongLongHashMap(16);
+    private boolean loadFailed;
+    // Bumped by every write, so evict can tell an entry was not written again since its lookup
+    private volatile long stamp;
+    private volatile boolean ready;
+
+    public PhoneNumberIndex(@Value("${phonebook.phone-index.expected-size:1000000}") int expectedSize) {
+        this.idsByPhone = new LongLongHashMap(expectedSize);
+    }
+
+    /**
+     * Packs an XXX-XXX-XXXX number into its ten-digit value, or returns -1 if the
+     * string isn't in that format. Reads chars in place without allocating.
+     */
+    public static long pack(String phoneNumber) {
+        if (phoneNumber == null || phoneNumber.length() != 12
+                || phoneNumber.charAt(3) != '-' || phoneNumber.charAt(7) != '-') {
+            return -1L;
+        }
+        long packed = 0;
+        for (int i = 0; i < 12; i++) {
+            if (i == 3 || i == 7) {
+                continue;
+            }
+            char c = phoneNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1L;
+            }
+            packed = packed * 10 + (c - '0');
+        }
+        return packed;
+    }
+
+    /**
+     * The contact id last indexed for this number, ABSENT, or UNKNOWN when the caller must ask the
+     * database. The id may no longer have the number; see evict.
+     */
+    public long findId(String phoneNumber) {
+        long packed = pack(phoneNumber);
+        if (!ready || packed < 0) {
+            return UNKNOWN;
+        }
+        lock.readLock().lock();
+        try {
+            long id = idsByPhone.get(packed);
+            if (id == LongLongHashMap.NO_VALUE) {
+                return ABSENT;
+            }
+            return id == AMBIGUOUS ? UNKNOWN : id;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** To pass to evict; take it before the findId whose answer may turn out stale. */
+    public long stamp() {
+        return stamp;
+    }
+
+    /**
+     * Drops number -> id after the caller found that the contact no longer has the number and
+     * the database gave it to no one else, unless the index was written since stamp was taken.
+     */
+    public void evict(String phoneNumber, long id, long stamp) {
+        long packed = pack(phoneNumber);
+        if (packed < 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (this.stamp == stamp && idsByPhone.get(packed) == id) {
+                idsByPhone.remove(packed);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Indexed numbers, including those whose contact has moved off them since. */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return idsByPhone.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(Contact contact) {
+        if (contact.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                if (loadFailed) {
+                    return;
+                }
+                writtenDuringLoad.put(contact.getId(), 0L);
+            }
+            put(contact.getId(), contact.getPhoneNumber());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** The deleted contact's number is unknown here; its entry goes once a lookup finds it stale. */
+    @Override
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            if (!ready && !loadFailed) {
+                writtenDuringLoad.put(id, 0L);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void load(Contact contact) {
+        lock.writeLock().lock();
+        try {
+            if (writtenDuringLoad.get(contact.getId()) == LongLongHashMap.NO_VALUE) {
+                put(contact.getId(), contact.getPhoneNumber());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void loaded() {
+        lock.writeLock().lock();
+        try {
+            writtenDuringLoad = new LongLongHashMap(16);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void loadFailed() {
+        lock.writeLock().lock();
+        try {
+            loadFailed = true;
+            writtenDuringLoad = new LongLongHashMap(16);
+            idsByPhone = new LongLongHashMap(16);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(long id, String phoneNumber) {
+        stamp++;
+        long packed = pack(phoneNumber);
+        if (packed < 0) {
+            return;
+        }
+        long owner = idsByPhone.put(packed, id);
+        if (owner != LongLongHashMap.NO_VALUE && owner != id) {
+            // Shared numbers stay ambiguous even after one owner leaves; the database decides
+            idsByPhone.put(packed, AMBIGUOUS);
+        }
+    }
+}
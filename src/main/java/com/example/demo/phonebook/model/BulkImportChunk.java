@@ -0,0 +1,25 @@
+package com.example.demo.phonebook.model;
+
+/**
+ * Outcome of one committed chunk of a bulk import.
+ * errors holds the first few rejected rows as "line N: reason".
+ */
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportChunk {
+    private int chunk;
+
+    private int accepted;
+
+    private int rejected;
+
+    private List<String> errors;
+}
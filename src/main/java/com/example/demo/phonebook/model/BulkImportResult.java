@@ -0,0 +1,22 @@
+package com.example.demo.phonebook.model;
+
+/**
+ * Summary of a bulk import: totals plus the per-chunk breakdown.
+ */
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportResult {
+    private long accepted;
+
+    private long rejected;
+
+    private List<BulkImportChunk> chunks;
+}
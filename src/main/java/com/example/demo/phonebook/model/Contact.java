@@ -5,25 +5,44 @@ package com.example.demo.phonebook.model;
  * Represents a phonebook contact:
  */
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+// Second-level cached; see HibernateCacheConfig. READ_WRITE soft-locks an entry while it is being written
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "contact")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Contact {
+    // Pooled sequence instead of IDENTITY so Hibernate can batch inserts;
+    // ids are handed out in blocks of allocationSize per sequence round trip.
+    // The Spring Data @Id marks the same column for the R2DBC mapping of the reactive profile
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @org.springframework.data.annotation.Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "contact_seq")
+    @SequenceGenerator(name = "contact_seq", sequenceName = "contact_seq", allocationSize = 100)
     private Long id;
 
     @NotNull(message = "Name cannot be null")
@@ -34,4 +53,35 @@ public class Contact {
     private String phoneNumber;
 
     private String email;
+
+    // Bumped by every update; a request that sends a stale version gets 409 instead of overwriting.
+    // JPA only: Spring Data JPA refuses the Spring Data @Version, so the reactive side sets it by hand
+    @Version
+    private Long version;
+
+    // Last-Modified of the contact; set by the server on every write. Left out of equals
+    // because the version already tells two states of a contact apart
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @EqualsAndHashCode.Exclude
+    private Instant updatedAt;
+
+    public Contact(Long id, String name, String phoneNumber, String email) {
+        this(id, name, phoneNumber, email, null, null);
+    }
+
+    public Contact(Long id, String name, String phoneNumber, String email, Long version) {
+        this(id, name, phoneNumber, email, version, null);
+    }
+
+    // Millisecond precision round-trips unchanged through every supported column type
+    public static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    @PrePersist
+    void onPersist() {
+        if (updatedAt == null) {
+            updatedAt = now();
+        }
+    }
 }
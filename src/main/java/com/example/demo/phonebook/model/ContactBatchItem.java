@@ -0,0 +1,25 @@
+package com.example.demo.phonebook.model;
+
+/**
+ * Per-id outcome of a batch-get or batch-delete, in request order.
+ * contact is only set for FOUND.
+ */
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContactBatchItem {
+    public enum Status { FOUND, NOT_FOUND, DELETED }
+
+    private Long id;
+
+    private Status status;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Contact contact;
+}
@@ -0,0 +1,55 @@
+package com.example.demo.phonebook.model;
+
+/**
+ * Outbox row written in the same transaction as the contact write it describes, and the event
+ * streamed by GET /api/phonebook/changes. position is the feed's order and the resume point a
+ * client sends back; it is null until the feed sequences the row after its transaction committed.
+ */
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "contact_change", indexes = {
+        @Index(name = "contact_change_position", columnList = "feed_position", unique = true),
+        @Index(name = "contact_change_occurred_at", columnList = "occurredAt")})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContactChange {
+    public enum Type { UPSERT, DELETE }
+
+    // Pooled like contact_seq, so the outbox rows of a bulk import are batched too
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "contact_change_seq")
+    @SequenceGenerator(name = "contact_change_seq", sequenceName = "contact_change_seq", allocationSize = 100)
+    private Long seq;
+
+    private Long contactId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_type")
+    private Type type;
+
+    // Version of the contact after the write; null for deletes
+    private Long version;
+
+    private Instant occurredAt;
+
+    // Handed out in commit order by ContactChangeFeed, unlike seq
+    @Column(name = "feed_position")
+    private Long position;
+}
@@ -0,0 +1,20 @@
+package com.example.demo.phonebook.model;
+
+/**
+ * A fuzzy search hit: the contact, how many query words it matched and the edits it took.
+ */
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContactMatch {
+    private Contact contact;
+
+    private int matchedTokens;
+
+    private int distance;
+}
@@ -0,0 +1,21 @@
+package com.example.demo.phonebook.model;
+
+/**
+ * One keyset page of contacts.
+ * next is an opaque cursor for the following page, null on the last page.
+ */
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContactPage {
+    private List<Contact> contacts;
+
+    private String next;
+}
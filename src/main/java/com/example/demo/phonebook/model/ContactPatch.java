@@ -0,0 +1,24 @@
+package com.example.demo.phonebook.model;
+
+import jakarta.validation.constraints.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Body of a PATCH: only the non-null fields are written. A non-null version makes the
+ * update conditional on the row still being at that version.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContactPatch {
+    private String name;
+
+    @Pattern(regexp = "\\d{3}-\\d{3}-\\d{4}", message = "Phone number must be in format XXX-XXX-XXXX")
+    private String phoneNumber;
+
+    private String email;
+
+    private Long version;
+}
@@ -0,0 +1,18 @@
+package com.example.demo.phonebook.model;
+
+/**
+ * Lightweight {id, name} projection returned by the autocomplete endpoint.
+ */
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContactSuggestion {
+    private Long id;
+
+    private String name;
+}
@@ -0,0 +1,40 @@
+package com.example.demo.phonebook.model;
+
+/**
+ * Progress and outcome of a duplicate-contact detection run.
+ */
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeduplicationJob {
+    public enum Status { SCANNING_KEYS, LOADING_CANDIDATES, COMPARING, COMPLETED, FAILED }
+
+    private long id;
+
+    private Status status;
+
+    private Instant startedAt;
+
+    private Instant finishedAt;
+
+    private long rowsScanned;
+
+    // Rows sharing a phone or email key with another row; only these are compared
+    private long candidateRows;
+
+    private long pairsCompared;
+
+    // Blocks above phonebook.dedup.max-block-size, left out of the comparison
+    private long skippedBlocks;
+
+    private long clusters;
+
+    private String error;
+}
@@ -0,0 +1,21 @@
+package com.example.demo.phonebook.model;
+
+/**
+ * Contacts the deduplication job thinks are the same person, to be reviewed and merged.
+ * matchedOn lists the keys ("phone", "email") that members of the cluster share.
+ */
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DuplicateCluster {
+    private List<Long> contactIds;
+
+    private List<String> matchedOn;
+}
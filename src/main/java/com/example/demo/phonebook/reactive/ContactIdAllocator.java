@@ -0,0 +1,106 @@
+package com.example.demo.phonebook.reactive;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands out contact ids from contact_seq the way Hibernate's pooled optimizer does for
+ * the JPA side (allocationSize 100 on Contact): each value v drawn from the sequence
+ * reserves the block v - 99 .. v. Both stacks can therefore insert into the same table.
+ * forSequence gives an allocator over another sequence of the same size, such as the
+ * outbox's contact_change_seq.
+ * <p>
+ * On MySQL, which has no sequences, Hibernate keeps contact_seq as a one-row table whose
+ * next_val is bumped by the allocation size; LAST_INSERT_ID(expr) makes that bump atomic.
+ */
+@Profile("reactive")
+@Component
+public class ContactIdAllocator {
+    // Must match @SequenceGenerator(allocationSize) on Contact and ContactChange
+    static final int ALLOCATION_SIZE = 100;
+
+    private final DatabaseClient databaseClient;
+    private final boolean mysql;
+    private final String sequence;
+    private final AtomicReference<Block> block = new AtomicReference<>();
+
+    @Autowired
+    public ContactIdAllocator(DatabaseClient databaseClient, ConnectionFactory connectionFactory) {
+        this(databaseClient, connectionFactory.getMetadata().getName().toLowerCase(Locale.ROOT).contains("mysql"),
+                "contact_seq");
+    }
+
+    private ContactIdAllocator(DatabaseClient databaseClient, boolean mysql, String sequence) {
+        this.databaseClient = databaseClient;
+        this.mysql = mysql;
+        this.sequence = sequence;
+    }
+
+    /** An allocator with its own blocks over another Hibernate sequence with the same allocation size. */
+    public ContactIdAllocator forSequence(String sequence) {
+        return new ContactIdAllocator(databaseClient, mysql, sequence);
+    }
+
+    public Mono<Long> nextId() {
+        return Mono.defer(() -> {
+            Block current = block.get();
+            if (current != null) {
+                long id = current.next.getAndIncrement();
+                if (id <= current.hi) {
+                    return Mono.just(id);
+                }
+            }
+            // Concurrent callers may each fetch a block; the one that loses the race leaves a gap
+            return nextBlockHi().map(hi -> {
+                Block fresh = new Block(hi - ALLOCATION_SIZE + 1, hi);
+                long id = fresh.next.getAndIncrement();
+                block.set(fresh);
+                return id;
+            });
+        });
+    }
+
+    private Mono<Long> nextBlockHi() {
+        return nextValue()
+                // Values below one block are the sequence's initial value, which Hibernate treats
+                // as the start of its own first block; skip past it
+                .flatMap(value -> value < ALLOCATION_SIZE ? nextValue() : Mono.just(value));
+    }
+
+    private Mono<Long> nextValue() {
+        if (!mysql) {
+            return databaseClient.sql("select next value for " + sequence)
+                    .map(row -> row.get(0, Long.class))
+                    .one();
+        }
+        // Both statements have to run on the same connection for LAST_INSERT_ID() to see the bump
+        return databaseClient.inConnection(connection ->
+                Mono.from(connection.createStatement(
+                                "update " + sequence + " set next_val = last_insert_id(next_val + " + ALLOCATION_SIZE
+                                        + ")")
+                                .execute())
+                        .flatMap(result -> Mono.from(result.getRowsUpdated()))
+                        .then(Mono.from(connection.createStatement("select last_insert_id()").execute()))
+                        .flatMap(result -> Mono.from(result.map((row, metadata) -> row.get(0, Long.class))))
+                        // Hibernate's table generator works with the value read before the bump
+                        .map(bumped -> bumped - ALLOCATION_SIZE));
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long hi;
+
+        private Block(long first, long hi) {
+            this.next = new AtomicLong(first);
+            this.hi = hi;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.demo.phonebook.reactive;
+
+import com.example.demo.phonebook.repository.ContactChangeRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive ContactCollectionVersion: the same outbox-derived version, read over R2DBC. This
+ * profile writes outbox rows but does not sequence them, which leaves the version rising by
+ * one per write all the same.
+ */
+@Profile("reactive")
+@Component
+public class ReactiveContactCollectionVersion {
+    private final DatabaseClient databaseClient;
+
+    public ReactiveContactCollectionVersion(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<String> current() {
+        return databaseClient.sql(ContactChangeRepository.COLLECTION_VERSION_SQL)
+                .map(row -> Long.toString(row.get(0, Number.class).longValue()))
+                .one();
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.demo.phonebook.reactive;
+
+import com.example.demo.phonebook.controller.ContactController;
+import com.example.demo.phonebook.controller.ContactETags;
+import com.example.demo.phonebook.exception.ContactVersionConflictException;
+import com.example.demo.phonebook.exception.PreconditionFailedException;
+import com.example.demo.phonebook.model.BulkImportResult;
+import com.example.demo.phonebook.model.Contact;
+import com.example.demo.phonebook.model.ContactBatchItem;
+import com.example.demo.phonebook.model.ContactPage;
+import com.example.demo.phonebook.model.ContactPatch;
+import com.example.demo.phonebook.model.ContactSuggestion;
+import com.example.demo.phonebook.service.ContactImportService;
+import jakarta.validation.Valid;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * WebFlux mirror of ContactController for the reactive profile: same paths, parameters,
+ * status codes and JSON bodies. Lists and search results are Flux, so NDJSON clients get
+ * them streamed with backpressure all the way down to the R2DBC driver.
+ * <p>
+ * Fuzzy search, duplicate detection and the change feed are not mirrored: they run on the
+ * in-memory indexes and the outbox dispatcher of the servlet stack, which this profile does not
+ * load. Their paths answer 501 rather than falling through to /{id}.
+ */
+@Profile("reactive")
+@RestController
+@RequestMapping("/api/phonebook")
+public class ReactiveContactController {
+    private final ReactiveContactService contactService;
+    private final ReactiveContactImportService contactImportService;
+    private final ReactiveContactCollectionVersion collectionVersion;
+
+    public ReactiveContactController(ReactiveContactService contactService,
+                                     ReactiveContactImportService contactImportService,
+                                     ReactiveContactCollectionVersion collectionVersion) {
+        this.contactService = contactService;
+        this.contactImportService = contactImportService;
+        this.collectionVersion = collectionVersion;
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<Contact>> createContact(@Valid @RequestBody Contact contact) {
+        return contactService.saveContact(contact)
+                .map(savedContact -> new ResponseEntity<>(savedContact, HttpStatus.CREATED));
+    }
+
+    @PostMapping(value = "/bulk",
+            consumes = {ContactController.TEXT_CSV_VALUE, ContactController.APPLICATION_NDJSON_VALUE})
+    public Mono<ResponseEntity<BulkImportResult>> importContacts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, @RequestBody Flux<String> lines) {
+        ContactImportService.Format format = MediaType.parseMediaType(contentType)
+                .isCompatibleWith(MediaType.parseMediaType(ContactController.TEXT_CSV_VALUE))
+                ? ContactImportService.Format.CSV : ContactImportService.Format.NDJSON;
+        return contactImportService.importContacts(lines, format)
+                .map(result -> new ResponseEntity<>(result, HttpStatus.OK));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<ContactPage>> getAllContacts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            ServerWebExchange exchange) {
+        // Read before the query subscribes; see ContactCollectionVersion
+        return collectionVersion.current().flatMap(version -> {
+            String etag = ContactETags.ofCollection("page", version, accept);
+            if (exchange.checkNotModified(etag)) {
+                // Already a 304; the page query never runs
+                return Mono.empty();
+            }
+            return contactService.getContactsPage(cursor, limit)
+                    .map(page -> ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(page));
+        });
+    }
+
+    @GetMapping(produces = ContactController.APPLICATION_NDJSON_VALUE)
+    public Flux<Contact> streamAllContacts() {
+        return contactService.streamAllContacts();
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Contact>> getContactById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return contactService.getContactById(id)
+                .map(contact -> ContactETags.ok(contact, accept))
+                .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    @GetMapping("/phone/{phoneNumber}")
+    public Mono<ResponseEntity<Contact>> getContactByPhoneNumber(
+            @PathVariable String phoneNumber,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return contactService.getContactByPhoneNumber(phoneNumber)
+                .map(contact -> ContactETags.ok(contact, accept))
+                .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    // A JSON array for application/json, one contact per line for application/x-ndjson, each with its own tag
+    @GetMapping(value = "/search/name/{name}",
+            produces = {MediaType.APPLICATION_JSON_VALUE, ContactController.APPLICATION_NDJSON_VALUE})
+    public Mono<ResponseEntity<Flux<Contact>>> searchByName(
+            @PathVariable String name,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return collectionVersion.current().map(version -> ResponseEntity.ok()
+                .eTag(ContactETags.ofCollection("search", version, accept)).varyBy(HttpHeaders.ACCEPT)
+                .body(contactService.getContactsByName(name)));
+    }
+
+    @GetMapping("/suggest")
+    public Mono<ResponseEntity<Flux<ContactSuggestion>>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return collectionVersion.current().map(version -> ResponseEntity.ok()
+                .eTag(ContactETags.ofCollection("suggest", version, accept)).varyBy(HttpHeaders.ACCEPT)
+                .body(contactService.getSuggestions(prefix, limit)));
+    }
+
+    @RequestMapping({"/search/fuzzy", "/dedup", "/dedup/clusters", "/changes"})
+    public ResponseEntity<String> notMirrored(ServerWebExchange exchange) {
+        return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED)
+                .body(exchange.getRequest().getPath().value() + " is not available with the reactive profile");
+    }
+
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<Contact>> updateContact(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Valid @RequestBody Contact contact) {
+        if (ifMatch != null) {
+            contact.setVersion(ContactETags.ifMatchVersion(id, ifMatch));
+        }
+        return ifMatch(ifMatch, id, contactService.updateContact(id, contact))
+                .map(ContactETags::ok)
+                .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    @PatchMapping("/{id}")
+    public Mono<ResponseEntity<Contact>> patchContact(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Valid @RequestBody ContactPatch patch) {
+        if (ifMatch != null) {
+            patch.setVersion(ContactETags.ifMatchVersion(id, ifMatch));
+        }
+        return ifMatch(ifMatch, id, contactService.patchContact(id, patch))
+                .map(ContactETags::ok)
+                .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteContact(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (ifMatch == null) {
+            return contactService.deleteContact(id)
+                    .thenReturn(new ResponseEntity<>(HttpStatus.NO_CONTENT));
+        }
+        Long version = ContactETags.ifMatchVersion(id, ifMatch);
+        return ifMatch(ifMatch, id, contactService.deleteContact(id, version).filter(deleted -> deleted))
+                .thenReturn(new ResponseEntity<>(HttpStatus.NO_CONTENT));
+    }
+
+    // Under If-Match a stale version or a missing contact fails the precondition (412) instead of 409/404
+    private static <T> Mono<T> ifMatch(String ifMatch, Long id, Mono<T> write) {
+        if (ifMatch == null) {
+            return write;
+        }
+        return write
+                .onErrorMap(ContactVersionConflictException.class, e -> new PreconditionFailedException(e.getMessage()))
+                .switchIfEmpty(Mono.error(() -> new PreconditionFailedException("Contact " + id + " does not exist")));
+    }
+
+    @PostMapping("/batch-get")
+    public Flux<ContactBatchItem> batchGet(@RequestBody List<Long> ids) {
+        return contactService.getContactsByIds(ids);
+    }
+
+    @PostMapping("/batch-delete")
+    public Flux<ContactBatchItem> batchDelete(@RequestBody List<Long> ids) {
+        return contactService.deleteContacts(ids);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.demo.phonebook.reactive;
+
+import com.example.demo.phonebook.model.BulkImportChunk;
+import com.example.demo.phonebook.model.BulkImportResult;
+import com.example.demo.phonebook.model.Contact;
+import com.example.demo.phonebook.service.ContactImportService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reactive ContactImportService: same row format, validation, chunking and result, with the
+ * request body consumed line by line as it arrives. Each chunk commits in its own transaction.
+ */
+@Profile("reactive")
+@Service
+public class ReactiveContactImportService {
+    private final ReactiveContactService contactService;
+    private final TransactionalOperator transactionalOperator;
+    private final Validator validator;
+    private final ObjectReader contactReader;
+    private final int chunkSize;
+
+    public ReactiveContactImportService(ReactiveContactService contactService,
+                                        TransactionalOperator transactionalOperator, Validator validator,
+                                        ObjectMapper objectMapper,
+                                        @Value("${phonebook.bulk.chunk-size:1000}") int chunkSize) {
+        this.contactService = contactService;
+        this.transactionalOperator = transactionalOperator;
+        this.validator = validator;
+        this.contactReader = objectMapper.readerFor(Contact.class);
+        this.chunkSize = chunkSize;
+    }
+
+    public Mono<BulkImportResult> importContacts(Flux<String> lines, ContactImportService.Format format) {
+        return lines.index()
+                .filter(line -> !line.getT2().isBlank() && !(line.getT1() == 0
+                        && format == ContactImportService.Format.CSV
+                        && ContactImportService.isCsvHeader(line.getT2())))
+                .map(line -> parse(line.getT1() + 1, line.getT2(), format))
+                .buffer(chunkSize)
+                .index()
+                // concatMap keeps one chunk in flight, so the body is only read as fast as rows are written
+                .concatMap(chunk -> writeChunk(chunk.getT1().intValue() + 1, chunk.getT2()))
+                .collectList()
+                .map(chunks -> new BulkImportResult(
+                        chunks.stream().mapToLong(BulkImportChunk::getAccepted).sum(),
+                        chunks.stream().mapToLong(BulkImportChunk::getRejected).sum(),
+                        chunks));
+    }
+
+    private Mono<BulkImportChunk> writeChunk(int number, List<Row> rows) {
+        List<Contact> batch = new ArrayList<>(rows.size());
+        List<String> errors = new ArrayList<>();
+        int rejected = 0;
+        for (Row row : rows) {
+            if (row.error() == null) {
+                batch.add(row.contact());
+            } else {
+                rejected++;
+                if (errors.size() < ContactImportService.MAX_ERRORS_PER_CHUNK) {
+                    errors.add(row.error());
+                }
+            }
+        }
+        int rejectedRows = rejected;
+        if (batch.isEmpty()) {
+            return Mono.just(new BulkImportChunk(number, 0, rejectedRows, errors));
+        }
+        return Flux.fromIterable(batch)
+                .concatMap(contactService::saveContact)
+                .then()
+                .as(transactionalOperator::transactional)
+                .thenReturn(new BulkImportChunk(number, batch.size(), rejectedRows, errors))
+                .onErrorResume(DataAccessException.class, e -> {
+                    // The chunk's transaction rolled back, so none of its rows were written
+                    errors.add("chunk failed: " + e.getMostSpecificCause().getMessage());
+                    return Mono.just(new BulkImportChunk(number, 0, rejectedRows + batch.size(), errors));
+                });
+    }
+
+    private Row parse(long lineNumber, String line, ContactImportService.Format format) {
+        String error;
+        try {
+            Contact contact = format == ContactImportService.Format.CSV
+                    ? ContactImportService.parseCsv(line) : contactReader.readValue(line);
+            // Ids always come from the sequence, never from the import file
+            contact.setId(null);
+            error = validate(contact);
+            if (error == null) {
+                return new Row(contact, null);
+            }
+        } catch (JsonProcessingException e) {
+            error = "malformed JSON";
+        } catch (IllegalArgumentException e) {
+            error = e.getMessage();
+        }
+        return new Row(null, "line " + lineNumber + ": " + error);
+    }
+
+    private String validate(Contact contact) {
+        Set<ConstraintViolation<Contact>> violations = validator.validate(contact);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.iterator().next().getMessage();
+    }
+
+    private record Row(Contact contact, String error) {
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.demo.phonebook.reactive;
+
+import com.example.demo.phonebook.model.Contact;
+import com.example.demo.phonebook.model.ContactSuggestion;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * R2DBC counterpart of ContactRepository over the same contact table.
+ */
+public interface ReactiveContactRepository extends R2dbcRepository<Contact, Long> {
+    Mono<Contact> findFirstByPhoneNumber(String phoneNumber);
+
+    Flux<Contact> findByNameContainingIgnoreCaseOrderByIdAsc(String name);
+
+    // Derived LIKE queries escape % and _ in the prefix
+    Flux<ContactSuggestion> findByNameStartingWithIgnoreCaseOrderByNameAscIdAsc(String prefix, Limit limit);
+
+    Flux<Contact> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    Flux<Contact> findAllByOrderByIdAsc();
+
+    @Query("select id from contact where id in (:ids)")
+    Flux<Long> findExistingIds(Collection<Long> ids);
+
+    @Modifying
+    @Query("delete from contact where id in (:ids)")
+    Mono<Long> deleteByIdIn(Collection<Long> ids);
+
+    @Modifying
+    @Query("delete from contact where id = :id and version = :version")
+    Mono<Long> deleteByIdAndVersion(Long id, Long version);
+}
@@ -0,0 +1,255 @@
+package com.example.demo.phonebook.reactive;
+
+import com.example.demo.phonebook.exception.ContactVersionConflictException;
+import com.example.demo.phonebook.exception.InvalidRequestException;
+import com.example.demo.phonebook.model.Contact;
+import com.example.demo.phonebook.model.ContactBatchItem;
+import com.example.demo.phonebook.model.ContactChange;
+import com.example.demo.phonebook.model.ContactPage;
+import com.example.demo.phonebook.model.ContactPatch;
+import com.example.demo.phonebook.model.ContactSuggestion;
+import com.example.demo.phonebook.service.ContactService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking counterpart of ContactService for the reactive profile. Same operations and
+ * limits, backed by R2DBC; nothing here blocks the event loop.
+ * Writes insert their contact_change outbox rows in the same transaction, like ContactService,
+ * so the change feed of a servlet instance on the same schema streams them too.
+ * Lives outside the service package so LoggingAspect, which would only time the assembly of
+ * the publishers, does not advise it.
+ */
+@Profile("reactive")
+@Service
+public class ReactiveContactService {
+    private final ReactiveContactRepository contactRepository;
+    private final R2dbcEntityTemplate template;
+    private final ContactIdAllocator idAllocator;
+    private final ContactIdAllocator changeIdAllocator;
+    private final TransactionalOperator transactionalOperator;
+    private final int maxBatchSize;
+
+    public ReactiveContactService(ReactiveContactRepository contactRepository, R2dbcEntityTemplate template,
+                                  ContactIdAllocator idAllocator, TransactionalOperator transactionalOperator,
+                                  @Value("${phonebook.batch.max-size:1000}") int maxBatchSize) {
+        this.contactRepository = contactRepository;
+        this.template = template;
+        this.idAllocator = idAllocator;
+        this.changeIdAllocator = idAllocator.forSequence("contact_change_seq");
+        this.transactionalOperator = transactionalOperator;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public Mono<Contact> saveContact(Contact contact) {
+        // Ids are assigned up front, so this is always an insert; versions start at 0 as with Hibernate
+        return idAllocator.nextId().flatMap(id -> {
+            contact.setId(id);
+            contact.setVersion(0L);
+            contact.setUpdatedAt(Contact.now());
+            return template.insert(contact)
+                    .flatMap(saved -> recordChange(ContactChange.Type.UPSERT, id, saved.getVersion()).thenReturn(saved))
+                    .as(transactionalOperator::transactional);
+        });
+    }
+
+    public Mono<ContactPage> getContactsPage(String cursor, int limit) {
+        if (limit < 1 || limit > ContactService.MAX_PAGE_SIZE) {
+            return Mono.error(new InvalidRequestException(
+                    "limit must be between 1 and " + ContactService.MAX_PAGE_SIZE));
+        }
+        long afterId;
+        try {
+            afterId = cursor == null || cursor.isEmpty() ? 0L : ContactService.decodeCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            return Mono.error(e);
+        }
+        // One extra row tells whether there is a next page
+        return contactRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit + 1))
+                .collectList()
+                .map(contacts -> {
+                    if (contacts.size() <= limit) {
+                        return new ContactPage(contacts, null);
+                    }
+                    List<Contact> page = contacts.subList(0, limit);
+                    return new ContactPage(page, ContactService.encodeCursor(page.get(limit - 1).getId()));
+                });
+    }
+
+    public Flux<Contact> streamAllContacts() {
+        return contactRepository.findAllByOrderByIdAsc();
+    }
+
+    public Mono<Contact> getContactById(Long id) {
+        return contactRepository.findById(id);
+    }
+
+    public Mono<Contact> getContactByPhoneNumber(String phoneNumber) {
+        return contactRepository.findFirstByPhoneNumber(phoneNumber);
+    }
+
+    public Flux<Contact> getContactsByName(String name) {
+        return contactRepository.findByNameContainingIgnoreCaseOrderByIdAsc(name);
+    }
+
+    public Flux<ContactSuggestion> getSuggestions(String prefix, int limit) {
+        if (limit < 1) {
+            return Flux.error(new InvalidRequestException("limit must be positive"));
+        }
+        int capped = Math.min(limit, ContactService.MAX_SUGGESTIONS);
+        return contactRepository.findByNameStartingWithIgnoreCaseOrderByNameAscIdAsc(prefix, Limit.of(capped));
+    }
+
+    public Mono<Contact> updateContact(Long id, Contact updatedContact) {
+        Map<String, String> columns = new LinkedHashMap<>();
+        columns.put("name", updatedContact.getName());
+        columns.put("phone_number", updatedContact.getPhoneNumber());
+        columns.put("email", updatedContact.getEmail());
+        Long version = updatedContact.getVersion();
+        Instant updatedAt = Contact.now();
+        return update(id, columns, version, updatedAt).flatMap(updated -> version != null
+                        ? Mono.just(new Contact(id, updatedContact.getName(), updatedContact.getPhoneNumber(),
+                                updatedContact.getEmail(), version + 1, updatedAt))
+                        : contactRepository.findById(id))
+                .flatMap(saved -> recordChange(ContactChange.Type.UPSERT, id, saved.getVersion()).thenReturn(saved))
+                .as(transactionalOperator::transactional);
+    }
+
+    public Mono<Contact> patchContact(Long id, ContactPatch patch) {
+        // Only the fields present in the patch end up in the SET clause
+        Map<String, String> columns = new LinkedHashMap<>();
+        if (patch.getName() != null) {
+            columns.put("name", patch.getName());
+        }
+        if (patch.getPhoneNumber() != null) {
+            columns.put("phone_number", patch.getPhoneNumber());
+        }
+        if (patch.getEmail() != null) {
+            columns.put("email", patch.getEmail());
+        }
+        return update(id, columns, patch.getVersion(), Contact.now())
+                .flatMap(updated -> contactRepository.findById(id))
+                .flatMap(saved -> recordChange(ContactChange.Type.UPSERT, id, saved.getVersion()).thenReturn(saved))
+                .as(transactionalOperator::transactional);
+    }
+
+    /**
+     * One UPDATE, guarded by the version when one is given. Emits the id on success, completes
+     * empty when there is no such contact and errors with a conflict when the version is stale.
+     */
+    private Mono<Long> update(Long id, Map<String, String> columns, Long version, Instant updatedAt) {
+        StringBuilder sql = new StringBuilder("update contact set ");
+        columns.keySet().forEach(column -> sql.append(column).append(" = :").append(column).append(", "));
+        sql.append("version = coalesce(version, 0) + 1, updated_at = :updated_at where id = :id");
+        if (version != null) {
+            sql.append(" and version = :version");
+        }
+        DatabaseClient.GenericExecuteSpec spec = template.getDatabaseClient().sql(sql.toString())
+                .bind("id", id)
+                .bind("updated_at", updatedAt);
+        for (Map.Entry<String, String> column : columns.entrySet()) {
+            spec = column.getValue() == null
+                    ? spec.bindNull(column.getKey(), String.class)
+                    : spec.bind(column.getKey(), column.getValue());
+        }
+        if (version != null) {
+            spec = spec.bind("version", version);
+        }
+        return spec.fetch().rowsUpdated().flatMap(rows -> {
+            if (rows > 0) {
+                return Mono.just(id);
+            }
+            if (version == null) {
+                return Mono.empty();
+            }
+            return contactRepository.existsById(id).flatMap(exists -> exists
+                    ? Mono.error(new ContactVersionConflictException(id, version))
+                    : Mono.empty());
+        });
+    }
+
+    public Mono<Void> deleteContact(Long id) {
+        return deleteContact(id, null).then();
+    }
+
+    /**
+     * Deletes the contact if it is still at the given version. Emits whether a row was deleted
+     * and errors with a conflict when the contact exists at another version.
+     */
+    public Mono<Boolean> deleteContact(Long id, Long version) {
+        Mono<Long> delete = version == null
+                ? contactRepository.deleteByIdIn(List.of(id))
+                : contactRepository.deleteByIdAndVersion(id, version);
+        return delete.flatMap(rows -> {
+            if (rows > 0) {
+                return recordChange(ContactChange.Type.DELETE, id, null).thenReturn(true);
+            }
+            if (version == null) {
+                return Mono.just(false);
+            }
+            return contactRepository.existsById(id).flatMap(exists -> exists
+                    ? Mono.error(new ContactVersionConflictException(id, version))
+                    : Mono.just(false));
+        }).as(transactionalOperator::transactional);
+    }
+
+    public Flux<ContactBatchItem> getContactsByIds(List<Long> ids) {
+        return Mono.fromCallable(() -> ContactService.checkBatch(ids, maxBatchSize)).flatMapMany(batch ->
+                Flux.fromIterable(batch)
+                        .buffer(ContactService.MULTI_GET_CHUNK_SIZE)
+                        .concatMap(contactRepository::findAllById)
+                        .collectMap(Contact::getId)
+                        .flatMapIterable(found -> batch.stream()
+                                .map(id -> found.containsKey(id)
+                                        ? new ContactBatchItem(id, ContactBatchItem.Status.FOUND, found.get(id))
+                                        : new ContactBatchItem(id, ContactBatchItem.Status.NOT_FOUND, null))
+                                .toList()));
+    }
+
+    public Flux<ContactBatchItem> deleteContacts(List<Long> ids) {
+        return Mono.fromCallable(() -> ContactService.checkBatch(ids, maxBatchSize)).flatMapMany(batch ->
+                Flux.fromIterable(batch)
+                        .buffer(ContactService.MULTI_GET_CHUNK_SIZE)
+                        .concatMap(chunk -> contactRepository.findExistingIds(chunk).collectList()
+                                .filter(existing -> !existing.isEmpty())
+                                .flatMapMany(existing -> contactRepository.deleteByIdIn(existing)
+                                        .thenMany(Flux.fromIterable(existing)
+                                                .concatMap(id -> recordChange(ContactChange.Type.DELETE, id, null)
+                                                        .thenReturn(id)))))
+                        .collect(Collectors.toSet())
+                        // All chunks commit together with their outbox rows, as in ContactService
+                        .as(transactionalOperator::transactional)
+                        .flatMapIterable(deleted -> batch.stream()
+                                .map(id -> new ContactBatchItem(id, deleted.contains(id)
+                                        ? ContactBatchItem.Status.DELETED : ContactBatchItem.Status.NOT_FOUND, null))
+                                .toList()));
+    }
+
+    // The outbox row ContactChangeFeed streams; must run in the transaction of the write it records
+    private Mono<Void> recordChange(ContactChange.Type type, Long contactId, Long version) {
+        return changeIdAllocator.nextId().flatMap(seq -> {
+            DatabaseClient.GenericExecuteSpec spec = template.getDatabaseClient()
+                    .sql("insert into contact_change (seq, contact_id, change_type, version, occurred_at)"
+                            + " values (:seq, :contact_id, :change_type, :version, :occurred_at)")
+                    .bind("seq", seq)
+                    .bind("contact_id", contactId)
+                    .bind("change_type", type.name())
+                    .bind("occurred_at", Contact.now());
+            spec = version == null ? spec.bindNull("version", Long.class) : spec.bind("version", version);
+            return spec.fetch().rowsUpdated();
+        }).then();
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.demo.phonebook.reactive;
+
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Serves the reactive profile from Netty. With Tomcat also on the classpath for the servlet
+ * stack, Boot would otherwise run WebFlux on Tomcat through the servlet adapter.
+ */
+@Profile("reactive")
+@Configuration
+public class ReactiveServerConfig {
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.demo.phonebook.repository;
+
+import com.example.demo.phonebook.model.ContactChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+// ContactChangeFeed runs the reads with ReadWriteRoutingDataSource.readFromPrimary: a lagging
+// replica would let it miss rows, or sequence them twice
+public interface ContactChangeRepository extends JpaRepository<ContactChange, Long> {
+    // Goes up by one per contact write: each adds an unsequenced row, and sequencing moves rows to
+    // the positions right after the highest. Both reads are single index lookups
+    String COLLECTION_VERSION_SQL = "select (select coalesce(max(feed_position), 0) from contact_change)"
+            + " + (select count(*) from contact_change where feed_position is null)";
+
+    // Keyset over position, the order ContactChangeFeed streams in
+    @Transactional(readOnly = true)
+    @Query("select c from ContactChange c where c.position > :position order by c.position")
+    List<ContactChange> findAfter(@Param("position") long position, Limit limit);
+
+    @Transactional(readOnly = true)
+    @Query("select c from ContactChange c where c.position = :position")
+    Optional<ContactChange> findByPosition(@Param("position") long position);
+
+    // Committed rows the feed has not sequenced yet, roughly in the order they were written
+    @Transactional(readOnly = true)
+    @Query("select c from ContactChange c where c.position is null order by c.occurredAt, c.seq")
+    List<ContactChange> findUnpositioned(Limit limit);
+
+    @Transactional(readOnly = true)
+    @Query("select coalesce(max(c.position), 0) from ContactChange c")
+    long findMaxPosition();
+
+    @Transactional(readOnly = true)
+    @Query(value = COLLECTION_VERSION_SQL, nativeQuery = true)
+    long findCollectionVersion();
+
+    // 0 when another sequencer got to the row first
+    @Transactional
+    @Modifying
+    @Query("update ContactChange c set c.position = :position where c.seq = :seq and c.position is null")
+    int assignPosition(@Param("seq") long seq, @Param("position") long position);
+
+    // Unsequenced rows are kept however old, so they are never lost to the feed, and so is the newest
+    // sequenced one, so positions and the collection version never go back
+    @Transactional
+    @Modifying
+    @Query("delete from ContactChange c where c.occurredAt < :before and c.position < :newest")
+    int deleteOlderThan(@Param("before") Instant before, @Param("newest") long newest);
+}
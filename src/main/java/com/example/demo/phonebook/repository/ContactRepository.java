@@ -1,12 +1,102 @@
 package com.example.demo.phonebook.repository;
 
+import com.example.demo.phonebook.cache.HibernateCacheConfig;
 import com.example.demo.phonebook.model.Contact;
+import com.example.demo.phonebook.model.ContactSuggestion;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface ContactRepository extends JpaRepository<Contact, Long> {
+public interface ContactRepository extends JpaRepository<Contact, Long>, ContactRepositoryCustom {
+    // Rows pulled per round trip while streaming; MySQL needs useCursorFetch=true to honour it
+    String STREAM_FETCH_SIZE = "500";
+
+    // Query cache: results stay valid until the next write to the contact table
+    @QueryHints({@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = HibernateCacheConfig.CONTACT_QUERY_REGION)})
     Contact findByPhoneNumber(String phoneNumber);
 
+    @QueryHints({@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = HibernateCacheConfig.CONTACT_QUERY_REGION)})
     List<Contact> findByNameContainingIgnoreCase(String name);
+
+    // Fallback for autocomplete while the in-memory prefix index is loading. Ordered like the index:
+    // by the lowercased name's code points, not the column collation, which may ignore case and accents
+    @Query("select new com.example.demo.phonebook.model.ContactSuggestion(c.id, c.name) from Contact c "
+            + "where lower(c.name) like lower(concat(:#{escape(#prefix)}, '%')) escape :#{escapeCharacter()} "
+            + "order by cast(lower(c.name) as Binary), c.id")
+    List<ContactSuggestion> findSuggestionsByNamePrefix(@Param("prefix") String prefix, Limit limit);
+
+    // Keyset pagination: next page starts strictly after the last id seen
+    List<Contact> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // Constructor projection keeps the rows out of the persistence context, so memory stays flat
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query("select new com.example.demo.phonebook.model.Contact(c.id, c.name, c.phoneNumber, c.email, c.version, c.updatedAt) "
+            + "from Contact c order by c.id")
+    Stream<Contact> streamAllOrderById();
+
+    // Reads the row back inside the transaction that wrote it. A bulk update only evicts the
+    // second-level cache when the transaction completes, so findById could return the old state
+    @Query("select new com.example.demo.phonebook.model.Contact(c.id, c.name, c.phoneNumber, c.email, c.version, c.updatedAt) "
+            + "from Contact c where c.id = :id")
+    Optional<Contact> findWrittenById(@Param("id") Long id);
+
+    // Single-statement writes: no read before the update, and the version check happens in the
+    // WHERE clause. A null version skips the check. Both return the number of rows written (0 or 1)
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update Contact c set c.name = :name, c.phoneNumber = :phoneNumber, c.email = :email, "
+            + "c.version = coalesce(c.version, 0) + 1, c.updatedAt = :updatedAt "
+            + "where c.id = :id and (:version is null or c.version = :version)")
+    int updateById(@Param("id") Long id, @Param("name") String name, @Param("phoneNumber") String phoneNumber,
+                   @Param("email") String email, @Param("version") Long version,
+                   @Param("updatedAt") Instant updatedAt);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update Contact c set c.name = coalesce(:name, c.name), "
+            + "c.phoneNumber = coalesce(:phoneNumber, c.phoneNumber), c.email = coalesce(:email, c.email), "
+            + "c.version = coalesce(c.version, 0) + 1, c.updatedAt = :updatedAt "
+            + "where c.id = :id and (:version is null or c.version = :version)")
+    int patchById(@Param("id") Long id, @Param("name") String name, @Param("phoneNumber") String phoneNumber,
+                  @Param("email") String email, @Param("version") Long version,
+                  @Param("updatedAt") Instant updatedAt);
+
+    // Several buffered updates of one contact (ContactWriteBuffer) in one statement; the version moves past all of them
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update Contact c set c.name = :name, c.phoneNumber = :phoneNumber, c.email = :email, "
+            + "c.version = coalesce(c.version, 0) + :writes, c.updatedAt = :updatedAt "
+            + "where c.id = :id and (:version is null or c.version = :version)")
+    int updateMergedById(@Param("id") Long id, @Param("name") String name, @Param("phoneNumber") String phoneNumber,
+                         @Param("email") String email, @Param("version") Long version, @Param("writes") int writes,
+                         @Param("updatedAt") Instant updatedAt);
+
+    // Ids only, so nothing is loaded into the persistence context
+    @Query("select c.id from Contact c where c.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // Set-based delete; unlike deleteById it does not load each entity first
+    @Transactional
+    @Modifying
+    @Query("delete from Contact c where c.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query("delete from Contact c where c.id = :id and c.version = :version")
+    int deleteByIdAndVersion(@Param("id") Long id, @Param("version") Long version);
 }
@@ -0,0 +1,13 @@
+package com.example.demo.phonebook.repository;
+
+import com.example.demo.phonebook.model.Contact;
+
+import java.util.List;
+
+public interface ContactRepositoryCustom {
+    /**
+     * Contacts with the given ids, in the order given; ids without a row are left out.
+     * Unlike findAllById, contacts held by the second-level cache are not queried again.
+     */
+    List<Contact> findAllCachedById(List<Long> ids);
+}
@@ -0,0 +1,33 @@
+package com.example.demo.phonebook.repository;
+
+import com.example.demo.phonebook.model.Contact;
+import jakarta.persistence.EntityManager;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Objects;
+
+class ContactRepositoryCustomImpl implements ContactRepositoryCustom {
+    private final EntityManager entityManager;
+
+    ContactRepositoryCustomImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    // Needs a session that outlives the unwrap, so it joins or opens a transaction
+    @Override
+    @Transactional(readOnly = true)
+    public List<Contact> findAllCachedById(List<Long> ids) {
+        // Checks the persistence context, then the second-level cache, and fetches only the misses.
+        // The cache check is skipped unless a cache mode is set
+        return entityManager.unwrap(Session.class).byMultipleIds(Contact.class)
+                .with(CacheMode.NORMAL)
+                .withBatchSize(ids.size())
+                .multiLoad(ids)
+                .stream()
+                .filter(Objects::nonNull)
+                .toList();
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.demo.phonebook.repository;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+/**
+ * Limits JPA repository scanning to this package. Contact is a JPA entity, so the default scan
+ * would also claim ReactiveContactRepository and fail on its reactive return types.
+ */
+@Profile("!reactive")
+@Configuration
+@EnableJpaRepositories(basePackageClasses = ContactRepository.class)
+public class JpaRepositoryConfig {
+}
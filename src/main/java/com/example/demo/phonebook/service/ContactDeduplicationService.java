@@ -0,0 +1,172 @@
+package com.example.demo.phonebook.service;
+
+import com.example.demo.phonebook.exception.InvalidRequestException;
+import com.example.demo.phonebook.index.DuplicateFinder;
+import com.example.demo.phonebook.model.DeduplicationJob;
+import com.example.demo.phonebook.model.DuplicateCluster;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Runs DuplicateFinder over the whole table in the background, one job at a time. Both passes
+ * stream the table through ContactService in read-only transactions, so they go to a replica
+ * when one is configured; name comparison runs on a dedicated fork-join pool.
+ * Only the last job's status and clusters are kept.
+ */
+@Profile("!reactive")
+@Service
+public class ContactDeduplicationService implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(ContactDeduplicationService.class);
+    // Rows between interruption checks while streaming
+    private static final int CHECK_INTERVAL = 10_000;
+
+    private final ContactService contactService;
+    private final double minNameSimilarity;
+    private final int maxBlockSize;
+    private final ForkJoinPool pool;
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "contact-dedup");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private long lastJobId;
+    // Guarded by this; the job's counters are written by the runner thread and read by status()
+    private DeduplicationJob current;
+    private List<DuplicateCluster> clusters;
+
+    public ContactDeduplicationService(ContactService contactService,
+                                       @Value("${phonebook.dedup.min-name-similarity:0.8}") double minNameSimilarity,
+                                       @Value("${phonebook.dedup.max-block-size:1000}") int maxBlockSize,
+                                       @Value("${phonebook.dedup.parallelism:0}") int parallelism) {
+        if (minNameSimilarity < 0 || minNameSimilarity > 1) {
+            throw new IllegalArgumentException("phonebook.dedup.min-name-similarity must be between 0 and 1");
+        }
+        this.contactService = contactService;
+        this.minNameSimilarity = minNameSimilarity;
+        this.maxBlockSize = maxBlockSize;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /** Starts a job unless one is running, and returns the status of the job that is. */
+    public synchronized DeduplicationJob start() {
+        if (current != null && isRunning(current)) {
+            return copy(current);
+        }
+        DeduplicationJob job = new DeduplicationJob();
+        job.setId(++lastJobId);
+        job.setStatus(DeduplicationJob.Status.SCANNING_KEYS);
+        job.setStartedAt(Instant.now());
+        current = job;
+        clusters = null;
+        runner.execute(() -> run(job));
+        return copy(job);
+    }
+
+    public synchronized Optional<DeduplicationJob> status() {
+        return Optional.ofNullable(current).map(ContactDeduplicationService::copy);
+    }
+
+    /** A page of the last completed job's clusters, empty when no job has completed. */
+    public synchronized Optional<List<DuplicateCluster>> getClusters(int offset, int limit) {
+        if (offset < 0) {
+            throw new InvalidRequestException("offset must not be negative");
+        }
+        if (limit < 1 || limit > ContactService.MAX_PAGE_SIZE) {
+            throw new InvalidRequestException("limit must be between 1 and " + ContactService.MAX_PAGE_SIZE);
+        }
+        if (clusters == null) {
+            return Optional.empty();
+        }
+        return Optional.of(List.copyOf(clusters.subList(Math.min(offset, clusters.size()),
+                Math.min(offset + limit, clusters.size()))));
+    }
+
+    private void run(DeduplicationJob job) {
+        long start = System.nanoTime();
+        DuplicateFinder finder = new DuplicateFinder(minNameSimilarity, maxBlockSize);
+        try {
+            long[] scanned = {0};
+            contactService.streamAllContacts(contact -> {
+                finder.addKeys(contact.getId(), contact.getPhoneNumber(), contact.getEmail());
+                // Progress is published, and shutdown noticed, every CHECK_INTERVAL rows
+                if (++scanned[0] % CHECK_INTERVAL == 0) {
+                    checkInterrupted();
+                    publish(() -> job.setRowsScanned(scanned[0]));
+                }
+            });
+            publish(() -> job.setRowsScanned(scanned[0]));
+            int candidates = finder.selectCandidates(pool);
+            publish(() -> {
+                job.setCandidateRows(candidates);
+                job.setStatus(DeduplicationJob.Status.LOADING_CANDIDATES);
+            });
+            if (candidates > 0) {
+                long[] seen = {0};
+                contactService.streamAllContacts(contact -> {
+                    if (++seen[0] % CHECK_INTERVAL == 0) {
+                        checkInterrupted();
+                    }
+                    finder.addCandidate(contact);
+                });
+            }
+            publish(() -> job.setStatus(DeduplicationJob.Status.COMPARING));
+            List<DuplicateCluster> found = finder.clusters(pool);
+            publish(() -> {
+                job.setPairsCompared(finder.pairsCompared());
+                job.setSkippedBlocks(finder.skippedBlocks());
+                job.setClusters(found.size());
+                job.setStatus(DeduplicationJob.Status.COMPLETED);
+                job.setFinishedAt(Instant.now());
+                clusters = found;
+            });
+            logger.info("Deduplication job {} scanned {} contacts, compared {} pairs and found {} clusters in {} ms",
+                    job.getId(), job.getRowsScanned(), job.getPairsCompared(), found.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            logger.error("Deduplication job {} failed", job.getId(), e);
+            publish(() -> {
+                job.setStatus(DeduplicationJob.Status.FAILED);
+                job.setError(e.getMessage());
+                job.setFinishedAt(Instant.now());
+            });
+        }
+    }
+
+    private synchronized void publish(Runnable change) {
+        change.run();
+    }
+
+    private static void checkInterrupted() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Deduplication interrupted");
+        }
+    }
+
+    private static boolean isRunning(DeduplicationJob job) {
+        return job.getStatus() != DeduplicationJob.Status.COMPLETED && job.getStatus() != DeduplicationJob.Status.FAILED;
+    }
+
+    private static DeduplicationJob copy(DeduplicationJob job) {
+        return new DeduplicationJob(job.getId(), job.getStatus(), job.getStartedAt(), job.getFinishedAt(),
+                job.getRowsScanned(), job.getCandidateRows(), job.getPairsCompared(), job.getSkippedBlocks(),
+                job.getClusters(), job.getError());
+    }
+
+    @Override
+    public void destroy() {
+        runner.shutdownNow();
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.demo.phonebook.service;
+
+import com.example.demo.phonebook.model.BulkImportChunk;
+import com.example.demo.phonebook.model.BulkImportResult;
+import com.example.demo.phonebook.model.Contact;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Streams CSV or NDJSON rows into the contact table in chunked transactions.
+ * Rows are validated one by one with the Contact constraints; each chunk of
+ * chunkSize input rows is written with a single batched saveContacts call.
+ */
+@Profile("!reactive")
+@Service
+public class ContactImportService {
+    public enum Format { CSV, NDJSON }
+
+    public static final int MAX_ERRORS_PER_CHUNK = 20;
+
+    private final ContactService contactService;
+    private final Validator validator;
+    private final ObjectReader contactReader;
+    private final int chunkSize;
+
+    public ContactImportService(ContactService contactService, Validator validator, ObjectMapper objectMapper,
+                                @Value("${phonebook.bulk.chunk-size:1000}") int chunkSize) {
+        this.contactService = contactService;
+        this.validator = validator;
+        this.contactReader = objectMapper.readerFor(Contact.class);
+        this.chunkSize = chunkSize;
+    }
+
+    public BulkImportResult importContacts(InputStream in, Format format) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<BulkImportChunk> chunks = new ArrayList<>();
+        List<Contact> batch = new ArrayList<>(chunkSize);
+        List<String> errors = new ArrayList<>();
+        int rejected = 0;
+        long lineNumber = 0;
+        long totalAccepted = 0;
+        long totalRejected = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (lineNumber == 1 && format == Format.CSV && isCsvHeader(line))) {
+                continue;
+            }
+            String error = null;
+            try {
+                Contact contact = format == Format.CSV ? parseCsv(line) : parseJson(line);
+                error = validate(contact);
+                if (error == null) {
+                    batch.add(contact);
+                }
+            } catch (JsonProcessingException e) {
+                error = "malformed JSON";
+            } catch (IllegalArgumentException e) {
+                error = e.getMessage();
+            }
+            if (error != null) {
+                rejected++;
+                if (errors.size() < MAX_ERRORS_PER_CHUNK) {
+                    errors.add("line " + lineNumber + ": " + error);
+                }
+            }
+            if (batch.size() + rejected >= chunkSize) {
+                BulkImportChunk chunk = writeChunk(chunks.size() + 1, batch, rejected, errors);
+                chunks.add(chunk);
+                totalAccepted += chunk.getAccepted();
+                totalRejected += chunk.getRejected();
+                batch = new ArrayList<>(chunkSize);
+                errors = new ArrayList<>();
+                rejected = 0;
+            }
+        }
+        if (!batch.isEmpty() || rejected > 0) {
+            BulkImportChunk chunk = writeChunk(chunks.size() + 1, batch, rejected, errors);
+            chunks.add(chunk);
+            totalAccepted += chunk.getAccepted();
+            totalRejected += chunk.getRejected();
+        }
+        return new BulkImportResult(totalAccepted, totalRejected, chunks);
+    }
+
+    private BulkImportChunk writeChunk(int number, List<Contact> batch, int rejected, List<String> errors) {
+        if (batch.isEmpty()) {
+            return new BulkImportChunk(number, 0, rejected, errors);
+        }
+        try {
+            contactService.saveContacts(batch);
+            return new BulkImportChunk(number, batch.size(), rejected, errors);
+        } catch (DataAccessException e) {
+            // The chunk's transaction rolled back, so none of its rows were written
+            errors.add("chunk failed: " + e.getMostSpecificCause().getMessage());
+            return new BulkImportChunk(number, 0, rejected + batch.size(), errors);
+        }
+    }
+
+    private String validate(Contact contact) {
+        Set<ConstraintViolation<Contact>> violations = validator.validate(contact);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.iterator().next().getMessage();
+    }
+
+    private Contact parseJson(String line) throws JsonProcessingException {
+        Contact contact = contactReader.readValue(line);
+        // Ids always come from the sequence, never from the import file
+        contact.setId(null);
+        return contact;
+    }
+
+    public static boolean isCsvHeader(String line) {
+        return line.regionMatches(true, 0, "name,", 0, 5);
+    }
+
+    // Columns: name,phoneNumber[,email]; fields may be double-quoted with "" as an escaped quote
+    public static Contact parseCsv(String line) {
+        List<String> fields = new ArrayList<>(3);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        fields.add(field.toString());
+        if (fields.size() < 2 || fields.size() > 3) {
+            throw new IllegalArgumentException("expected name,phoneNumber[,email]");
+        }
+        String email = fields.size() == 3 && !fields.get(2).isEmpty() ? fields.get(2).trim() : null;
+        return new Contact(null, fields.get(0).trim(), fields.get(1).trim(), email);
+    }
+}
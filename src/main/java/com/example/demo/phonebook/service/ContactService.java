@@ -1,53 +1,509 @@
 package com.example.demo.phonebook.service;
 
+import com.example.demo.phonebook.cache.ContactLookupCache;
+import com.example.demo.phonebook.exception.ContactVersionConflictException;
+import com.example.demo.phonebook.exception.InvalidRequestException;
+import com.example.demo.phonebook.index.ContactIndex;
+import com.example.demo.phonebook.index.FuzzyNameIndex;
+import com.example.demo.phonebook.index.NameNgramIndex;
+import com.example.demo.phonebook.index.NamePrefixIndex;
+import com.example.demo.phonebook.index.PhoneNumberIndex;
 import com.example.demo.phonebook.model.Contact;
+import com.example.demo.phonebook.model.ContactBatchItem;
+import com.example.demo.phonebook.model.ContactChange;
+import com.example.demo.phonebook.model.ContactMatch;
+import com.example.demo.phonebook.model.ContactPage;
+import com.example.demo.phonebook.model.ContactPatch;
+import com.example.demo.phonebook.model.ContactSuggestion;
+import com.example.demo.phonebook.repository.ContactChangeRepository;
 import com.example.demo.phonebook.repository.ContactRepository;
+import com.example.demo.phonebook.writebehind.ContactWriteBuffer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+// JPA-backed; the reactive profile uses ReactiveContactService instead.
+// Read-only methods run in read-only transactions, which ReadWriteRoutingDataSource sends to a replica.
+// Writes record their ContactChange outbox rows in the same transaction and reach the indexes after commit.
+// With ContactWriteBuffer enabled, queueContact and queueUpdate group-commit creates and updates; id and
+// phone lookups and batch-get see the queued state
+@Profile("!reactive")
 @Service
 public class ContactService {
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int MAX_SUGGESTIONS = 20;
+    public static final int MAX_FUZZY_DISTANCE = 2;
+    // Upper bound on ids per IN (...) query when fetching index hits and batches
+    public static final int MULTI_GET_CHUNK_SIZE = 1000;
+
     private final ContactRepository contactRepository;
+    private final ContactChangeRepository contactChangeRepository;
+    private final List<ContactIndex> contactIndexes;
+    private final NameNgramIndex nameNgramIndex;
+    private final NamePrefixIndex namePrefixIndex;
+    private final FuzzyNameIndex fuzzyNameIndex;
+    private final ContactLookupCache contactLookupCache;
+    // Optional, only present with phonebook.phone-index.enabled=true
+    private final PhoneNumberIndex phoneNumberIndex;
+    // Optional, only present with phonebook.write-behind.enabled=true
+    private final ContactWriteBuffer writeBuffer;
+    private final int maxBatchSize;
 
-    public ContactService(ContactRepository contactRepository) {
+    public ContactService(ContactRepository contactRepository, ContactChangeRepository contactChangeRepository,
+                          List<ContactIndex> contactIndexes,
+                          NameNgramIndex nameNgramIndex, NamePrefixIndex namePrefixIndex,
+                          FuzzyNameIndex fuzzyNameIndex, ContactLookupCache contactLookupCache, @Nullable PhoneNumberIndex phoneNumberIndex,
+                          @Nullable ContactWriteBuffer writeBuffer,
+                          @Value("${phonebook.batch.max-size:1000}") int maxBatchSize) {
         this.contactRepository = contactRepository;
+        this.contactChangeRepository = contactChangeRepository;
+        this.contactIndexes = contactIndexes;
+        this.nameNgramIndex = nameNgramIndex;
+        this.namePrefixIndex = namePrefixIndex;
+        this.fuzzyNameIndex = fuzzyNameIndex;
+        this.contactLookupCache = contactLookupCache;
+        this.phoneNumberIndex = phoneNumberIndex;
+        this.writeBuffer = writeBuffer;
+        this.maxBatchSize = maxBatchSize;
+        if (writeBuffer != null) {
+            writeBuffer.bind(this::writeGroup);
+        }
     }
 
+    @Transactional
     public Contact saveContact(Contact contact) {
-        return contactRepository.save(contact);
+        // Always an insert: an id sent by the client would make persist fail on a detached entity,
+        // and a version would turn save into a merge over whatever row has that id
+        contact.setId(null);
+        contact.setVersion(null);
+        Contact saved = contactRepository.save(contact);
+        recordChange(ContactChange.Type.UPSERT, saved.getId(), saved.getVersion());
+        afterCommit(() -> indexContact(saved));
+        return saved;
+    }
+
+    @Transactional
+    public List<Contact> saveContacts(List<Contact> contacts) {
+        List<Contact> saved = contactRepository.saveAll(contacts);
+        Instant now = Contact.now();
+        contactChangeRepository.saveAll(saved.stream()
+                .map(contact -> new ContactChange(null, contact.getId(), ContactChange.Type.UPSERT,
+                        contact.getVersion(), now, null))
+                .toList());
+        afterCommit(() -> saved.forEach(this::indexContact));
+        return saved;
+    }
+
+    public boolean isWriteBehindEnabled() {
+        return writeBuffer != null;
+    }
+
+    /**
+     * Creates the contact in the write buffer's next group commit and returns it once committed.
+     * Not transactional: a queued write must not hold a connection while it waits for its group.
+     */
+    public Contact queueContact(Contact contact) {
+        return requireWriteBuffer().create(contact);
+    }
+
+    /** Updates the contact in the write buffer's next group commit; returns as ack says. */
+    public Contact queueUpdate(Long id, Contact updatedContact, ContactWriteBuffer.Ack ack) {
+        return requireWriteBuffer().update(id, updatedContact, ack);
+    }
+
+    private ContactWriteBuffer requireWriteBuffer() {
+        if (writeBuffer == null) {
+            throw new IllegalStateException("Write-behind is off; set phonebook.write-behind.enabled=true");
+        }
+        return writeBuffer;
+    }
+
+    /** Waits until the contacts' queued writes are committed, so a direct write of them lands after. */
+    public void awaitQueuedWrites(Collection<Long> ids) {
+        if (writeBuffer != null) {
+            ids.forEach(writeBuffer::awaitWritten);
+        }
     }
 
+    @Transactional(readOnly = true)
     public List<Contact> getAllContacts() {
         return contactRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public ContactPage getContactsPage(String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        long afterId = cursor == null || cursor.isEmpty() ? 0L : decodeCursor(cursor);
+        // Fetch one extra row so the last page doesn't hand out a cursor to an empty page
+        List<Contact> contacts = contactRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit + 1));
+        String next = null;
+        if (contacts.size() > limit) {
+            contacts = contacts.subList(0, limit);
+            next = encodeCursor(contacts.get(limit - 1).getId());
+        }
+        return new ContactPage(contacts, next);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAllContacts(Consumer<Contact> action) {
+        try (Stream<Contact> contacts = contactRepository.streamAllOrderById()) {
+            contacts.forEach(action);
+        }
+    }
+
+    @Transactional(readOnly = true)
     public Optional<Contact> getContactById(Long id) {
-        return contactRepository.findById(id);
+        Contact queued = writeBuffer != null ? writeBuffer.pending(id) : null;
+        if (queued != null) {
+            return Optional.of(queued);
+        }
+        return contactLookupCache.getById(id, contactRepository::findById);
     }
 
+    @Transactional(readOnly = true)
     public Contact getContactByPhoneNumber(String phoneNumber) {
-        return contactRepository.findByPhoneNumber(phoneNumber);
+        if (writeBuffer == null) {
+            return findByPhoneNumber(phoneNumber);
+        }
+        Contact queued = writeBuffer.pendingByPhone(phoneNumber);
+        if (queued != null) {
+            return queued;
+        }
+        Contact contact = findByPhoneNumber(phoneNumber);
+        // A queued update may be moving the contact off this number
+        if (contact != null && writeBuffer.pending(contact.getId()) != null) {
+            return null;
+        }
+        return contact;
     }
 
+    private Contact findByPhoneNumber(String phoneNumber) {
+        if (phoneNumberIndex != null) {
+            long stamp = phoneNumberIndex.stamp();
+            long id = phoneNumberIndex.findId(phoneNumber);
+            if (id == PhoneNumberIndex.ABSENT) {
+                return null;
+            }
+            if (id != PhoneNumberIndex.UNKNOWN) {
+                Contact contact = getContactById(id).orElse(null);
+                if (contact != null && phoneNumber.equals(contact.getPhoneNumber())) {
+                    return contact;
+                }
+                // The contact has left the number, or a write moved it between the two lookups
+                Contact owner = contactRepository.findByPhoneNumber(phoneNumber);
+                if (owner == null || owner.getId() != id) {
+                    phoneNumberIndex.evict(phoneNumber, id, stamp);
+                }
+                return owner;
+            }
+        }
+        return contactLookupCache.getByPhone(phoneNumber, contactRepository::findByPhoneNumber);
+    }
+
+    @Transactional(readOnly = true)
     public List<Contact> getContactsByName(String name) {
-        return contactRepository.findByNameContainingIgnoreCase(name);
+        long[] ids = nameNgramIndex.findIdsContaining(name);
+        if (ids == null) {
+            return contactRepository.findByNameContainingIgnoreCase(name);
+        }
+        // Re-check the match on the fetched rows in case a write landed between index lookup and fetch
+        String needle = NameNgramIndex.fold(name);
+        List<Contact> contacts = new ArrayList<>(ids.length);
+        for (int from = 0; from < ids.length; from += MULTI_GET_CHUNK_SIZE) {
+            List<Long> chunk = new ArrayList<>(Math.min(MULTI_GET_CHUNK_SIZE, ids.length - from));
+            for (int i = from; i < Math.min(from + MULTI_GET_CHUNK_SIZE, ids.length); i++) {
+                chunk.add(ids[i]);
+            }
+            for (Contact contact : contactRepository.findAllCachedById(chunk)) {
+                if (contact.getName() != null && NameNgramIndex.fold(contact.getName()).contains(needle)) {
+                    contacts.add(contact);
+                }
+            }
+        }
+        contacts.sort(Comparator.comparing(Contact::getId));
+        return contacts;
+    }
+
+    @Transactional(readOnly = true)
+    public List<ContactSuggestion> getSuggestions(String prefix, int limit) {
+        if (limit < 1) {
+            throw new InvalidRequestException("limit must be positive");
+        }
+        int capped = Math.min(limit, MAX_SUGGESTIONS);
+        if (!namePrefixIndex.isReady()) {
+            return contactRepository.findSuggestionsByNamePrefix(prefix, Limit.of(capped));
+        }
+        return namePrefixIndex.suggest(prefix, capped);
+    }
+
+    /**
+     * Contacts whose name is close to the query in spelling or sound, best first.
+     * Until the index has loaded only exact substring matches are found.
+     */
+    @Transactional(readOnly = true)
+    public List<ContactMatch> getFuzzyMatches(String query, int maxDistance, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new InvalidRequestException("q must not be blank");
+        }
+        if (maxDistance < 0 || maxDistance > MAX_FUZZY_DISTANCE) {
+            throw new InvalidRequestException("maxDistance must be between 0 and " + MAX_FUZZY_DISTANCE);
+        }
+        if (limit < 1) {
+            throw new InvalidRequestException("limit must be positive");
+        }
+        int capped = Math.min(limit, MAX_SUGGESTIONS);
+        List<FuzzyNameIndex.Match> matches = fuzzyNameIndex.search(query, maxDistance, capped);
+        if (matches == null) {
+            int tokens = FuzzyNameIndex.tokenize(query).size();
+            return contactRepository.findByNameContainingIgnoreCase(query).stream()
+                    .sorted(Comparator.comparing(Contact::getId))
+                    .limit(capped)
+                    .map(contact -> new ContactMatch(contact, tokens, 0))
+                    .toList();
+        }
+        List<Long> ids = matches.stream().map(FuzzyNameIndex.Match::id).toList();
+        Map<Long, Contact> found = new HashMap<>();
+        if (!ids.isEmpty()) {
+            contactRepository.findAllCachedById(ids).forEach(contact -> found.put(contact.getId(), contact));
+        }
+        List<ContactMatch> results = new ArrayList<>(matches.size());
+        for (FuzzyNameIndex.Match match : matches) {
+            // Deleted between the index lookup and the fetch
+            Contact contact = found.get(match.id());
+            if (contact != null) {
+                results.add(new ContactMatch(contact, match.matchedTokens(), match.distance()));
+            }
+        }
+        return results;
     }
 
+    @Transactional
     public Contact updateContact(Long id, Contact updatedContact) {
-        Optional<Contact> existing = contactRepository.findById(id);
-        if (existing.isPresent()) {
-            Contact contact = existing.get();
-            contact.setName(updatedContact.getName());
-            contact.setPhoneNumber(updatedContact.getPhoneNumber());
-            contact.setEmail(updatedContact.getEmail());
-            return contactRepository.save(contact);
+        Instant updatedAt = Contact.now();
+        int updated = contactRepository.updateById(id, updatedContact.getName(), updatedContact.getPhoneNumber(),
+                updatedContact.getEmail(), updatedContact.getVersion(), updatedAt);
+        return afterUpdate(id, updatedContact, updated, 1, updatedAt);
+    }
+
+    // Records an update of writes versions; the statement returned updated
+    private Contact afterUpdate(Long id, Contact updatedContact, int updated, int writes, Instant updatedAt) {
+        Long version = updatedContact.getVersion();
+        if (updated == 0) {
+            return rejectUpdate(id, version);
+        }
+        // With the version known, the statement alone determines the row; otherwise read back its new version
+        Contact saved = version != null
+                ? new Contact(id, updatedContact.getName(), updatedContact.getPhoneNumber(),
+                        updatedContact.getEmail(), version + writes, updatedAt)
+                : contactRepository.findWrittenById(id).orElse(null);
+        if (saved != null) {
+            recordChange(ContactChange.Type.UPSERT, id, saved.getVersion());
+            afterCommit(() -> indexContact(saved));
+        }
+        return saved;
+    }
+
+    @Transactional
+    public Contact patchContact(Long id, ContactPatch patch) {
+        int updated = contactRepository.patchById(id, patch.getName(), patch.getPhoneNumber(), patch.getEmail(),
+                patch.getVersion(), Contact.now());
+        if (updated == 0) {
+            return rejectUpdate(id, patch.getVersion());
+        }
+        // Fields left out of the patch are only known to the database
+        Contact saved = contactRepository.findWrittenById(id).orElse(null);
+        if (saved != null) {
+            recordChange(ContactChange.Type.UPSERT, id, saved.getVersion());
+            afterCommit(() -> indexContact(saved));
+        }
+        return saved;
+    }
+
+    // An update that matched no row: 404 unless a version was given and the row exists
+    private Contact rejectUpdate(Long id, Long version) {
+        if (version != null && contactRepository.existsById(id)) {
+            throw new ContactVersionConflictException(id, version);
         }
         return null;
     }
 
+    // Transactional itself: the call below does not go through the proxy, and the delete and its
+    // outbox row must commit together
+    @Transactional
     public void deleteContact(Long id) {
-        contactRepository.deleteById(id);
+        deleteContact(id, null);
+    }
+
+    /**
+     * Deletes the contact, only if it is still at the given version when one is given.
+     * Returns whether a row was deleted.
+     */
+    @Transactional
+    public boolean deleteContact(Long id, Long version) {
+        int deleted = version == null
+                ? contactRepository.deleteByIdIn(List.of(id))
+                : contactRepository.deleteByIdAndVersion(id, version);
+        if (deleted == 0) {
+            rejectUpdate(id, version);
+            return false;
+        }
+        recordChange(ContactChange.Type.DELETE, id, null);
+        afterCommit(() -> contactIndexes.forEach(index -> index.remove(id)));
+        return true;
+    }
+
+    @Transactional(readOnly = true)
+    public List<ContactBatchItem> getContactsByIds(List<Long> ids) {
+        List<Long> batch = checkBatch(ids, maxBatchSize);
+        Map<Long, Contact> found = new HashMap<>();
+        for (int from = 0; from < batch.size(); from += MULTI_GET_CHUNK_SIZE) {
+            List<Long> chunk = batch.subList(from, Math.min(from + MULTI_GET_CHUNK_SIZE, batch.size()));
+            for (Contact contact : contactRepository.findAllCachedById(chunk)) {
+                found.put(contact.getId(), contact);
+            }
+        }
+        List<ContactBatchItem> items = new ArrayList<>(batch.size());
+        for (Long id : batch) {
+            Contact queued = writeBuffer != null ? writeBuffer.pending(id) : null;
+            Contact contact = queued != null ? queued : found.get(id);
+            items.add(contact != null
+                    ? new ContactBatchItem(id, ContactBatchItem.Status.FOUND, contact)
+                    : new ContactBatchItem(id, ContactBatchItem.Status.NOT_FOUND, null));
+        }
+        return items;
+    }
+
+    @Transactional
+    public List<ContactBatchItem> deleteContacts(List<Long> ids) {
+        List<Long> batch = checkBatch(ids, maxBatchSize);
+        Set<Long> deleted = new HashSet<>();
+        for (int from = 0; from < batch.size(); from += MULTI_GET_CHUNK_SIZE) {
+            List<Long> chunk = batch.subList(from, Math.min(from + MULTI_GET_CHUNK_SIZE, batch.size()));
+            List<Long> existing = contactRepository.findExistingIds(chunk);
+            if (existing.isEmpty()) {
+                continue;
+            }
+            contactRepository.deleteByIdIn(existing);
+            deleted.addAll(existing);
+            Instant now = Contact.now();
+            contactChangeRepository.saveAll(existing.stream()
+                    .map(id -> new ContactChange(null, id, ContactChange.Type.DELETE, null, now, null))
+                    .toList());
+        }
+        afterCommit(() -> contactIndexes.forEach(index -> deleted.forEach(index::remove)));
+        List<ContactBatchItem> items = new ArrayList<>(batch.size());
+        for (Long id : batch) {
+            items.add(new ContactBatchItem(id, deleted.contains(id)
+                    ? ContactBatchItem.Status.DELETED : ContactBatchItem.Status.NOT_FOUND, null));
+        }
+        return items;
+    }
+
+    // One group of the write buffer, inside its transaction: updates in queue order, then the creates in one batch
+    private void writeGroup(List<ContactWriteBuffer.Entry> group) {
+        List<ContactWriteBuffer.Entry> creates = new ArrayList<>();
+        for (ContactWriteBuffer.Entry entry : group) {
+            if (entry.getId() == null) {
+                creates.add(entry);
+                continue;
+            }
+            Contact contact = entry.getContact();
+            Instant updatedAt = Contact.now();
+            int updated = contactRepository.updateMergedById(entry.getId(), contact.getName(),
+                    contact.getPhoneNumber(), contact.getEmail(), contact.getVersion(), entry.getWrites(), updatedAt);
+            try {
+                entry.written(afterUpdate(entry.getId(), contact, updated, entry.getWrites(), updatedAt));
+            } catch (ContactVersionConflictException e) {
+                entry.failed(e);
+            }
+        }
+        if (!creates.isEmpty()) {
+            // Fresh entities each time: a group that failed is written again entry by entry
+            List<Contact> saved = saveContacts(creates.stream()
+                    .map(entry -> new Contact(null, entry.getContact().getName(),
+                            entry.getContact().getPhoneNumber(), entry.getContact().getEmail()))
+                    .toList());
+            for (int i = 0; i < creates.size(); i++) {
+                creates.get(i).written(saved.get(i));
+            }
+        }
+    }
+
+    private void indexContact(Contact contact) {
+        for (ContactIndex index : contactIndexes) {
+            index.index(contact);
+        }
+    }
+
+    private void recordChange(ContactChange.Type type, Long contactId, Long version) {
+        contactChangeRepository.save(new ContactChange(null, contactId, type, version, Contact.now(), null));
+    }
+
+    // Indexes and caches must not see a write that can still roll back. Runs right away outside a transaction
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Distinct ids of a batch request in request order; rejects empty, oversized and null-bearing batches.
+     */
+    public static List<Long> checkBatch(List<Long> ids, int maxBatchSize) {
+        if (ids == null || ids.isEmpty()) {
+            throw new InvalidRequestException("ids must not be empty");
+        }
+        if (ids.size() > maxBatchSize) {
+            throw new InvalidRequestException("at most " + maxBatchSize + " ids per batch");
+        }
+        LinkedHashSet<Long> distinct = new LinkedHashSet<>(ids);
+        // Not ids.contains(null): immutable lists throw on a null query
+        if (distinct.contains(null)) {
+            throw new InvalidRequestException("ids must not contain null");
+        }
+        return new ArrayList<>(distinct);
+    }
+
+    public static String encodeCursor(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(lastId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static long decodeCursor(String cursor) {
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Invalid cursor: " + cursor);
+        }
     }
 }
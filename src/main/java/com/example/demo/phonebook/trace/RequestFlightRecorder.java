@@ -0,0 +1,62 @@
+package com.example.demo.phonebook.trace;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The last capacity traced requests, in a ring that writers claim slots of with one
+ * getAndIncrement and overwrite, oldest first. Recording never blocks or waits on readers;
+ * a reader copies the slots and may miss a request written meanwhile.
+ */
+@Profile("!reactive")
+@Component
+public class RequestFlightRecorder {
+    private final AtomicReferenceArray<TracedRequest> slots;
+    private final int mask;
+    private final AtomicLong next = new AtomicLong();
+
+    public RequestFlightRecorder(@Value("${phonebook.trace.capacity:1024}") int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    public void record(TracedRequest request) {
+        slots.lazySet((int) next.getAndIncrement() & mask, request);
+    }
+
+    /** The limit slowest of the recorded requests, slowest first. */
+    public List<TracedRequest> slowest(int limit) {
+        List<TracedRequest> recorded = new ArrayList<>(slots.length());
+        for (int i = 0; i < slots.length(); i++) {
+            TracedRequest request = slots.get(i);
+            if (request != null) {
+                recorded.add(request);
+            }
+        }
+        recorded.sort(Comparator.comparingLong(TracedRequest::totalNanos).reversed());
+        return recorded.size() > limit ? recorded.subList(0, limit) : recorded;
+    }
+
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, null);
+        }
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /** One finished request; phaseNanos is indexed by RequestPhase ordinal. */
+    public record TracedRequest(String method, String uri, String handler, int status, long startedAtMillis,
+                                long totalNanos, long[] phaseNanos) {
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.demo.phonebook.trace;
+
+/**
+ * Where a request's time goes. Phases nest, and each is charged only its own time, so the
+ * phases of a request add up to its total.
+ */
+public enum RequestPhase {
+    /** Filters, dispatch and everything not covered below. */
+    FRAMEWORK,
+    /** The controller method and argument binding. */
+    CONTROLLER,
+    /** Bean validation of @Valid arguments. */
+    VALIDATION,
+    /** Reading the request body and writing the response body. */
+    SERIALIZATION,
+    /** LoggingAspect around a service call, i.e. rendering and queueing log lines and timers. */
+    ASPECT,
+    /** Service methods, including time spent waiting, e.g. for a write-behind commit. */
+    SERVICE,
+    /** Spring Data repository calls: Hibernate, the second-level cache and the connection pool. */
+    REPOSITORY,
+    /** JDBC statement execution, measured by StatementStatisticsDataSource. */
+    DATABASE
+}
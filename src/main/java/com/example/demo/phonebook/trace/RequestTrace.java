@@ -0,0 +1,101 @@
+package com.example.demo.phonebook.trace;
+
+/**
+ * Phase timings of the request on the current thread. RequestTraceFilter begins and ends it;
+ * the hooks in between call enter and exit, which do nothing when no trace is active, e.g. on
+ * background threads. Entering a phase pauses the one it is nested in.
+ * <p>
+ * Only the request's thread touches a trace, so it needs no synchronization: a phase change
+ * is a ThreadLocal read, a nanoTime call and an array update.
+ */
+public final class RequestTrace {
+    private static final ThreadLocal<RequestTrace> current = new ThreadLocal<>();
+    private static final RequestPhase[] PHASES = RequestPhase.values();
+    private static final int MAX_DEPTH = 32;
+
+    private final long startNanos;
+    private final long[] phaseNanos = new long[PHASES.length];
+    // stack[depth] is the running phase, stack[0] is FRAMEWORK
+    private final RequestPhase[] stack = new RequestPhase[MAX_DEPTH];
+    private int depth;
+    // Phases entered beyond MAX_DEPTH; they are not timed, only their exits are matched
+    private int overflow;
+    private long switchedAt;
+
+    private RequestTrace(long startNanos) {
+        this.startNanos = startNanos;
+        this.switchedAt = startNanos;
+        this.stack[0] = RequestPhase.FRAMEWORK;
+    }
+
+    /** Starts a trace on the current thread, replacing any left over. */
+    public static RequestTrace begin() {
+        RequestTrace trace = new RequestTrace(System.nanoTime());
+        current.set(trace);
+        return trace;
+    }
+
+    public static void enter(RequestPhase phase) {
+        RequestTrace trace = current.get();
+        if (trace != null) {
+            trace.push(phase, System.nanoTime());
+        }
+    }
+
+    public static void exit() {
+        RequestTrace trace = current.get();
+        if (trace != null) {
+            trace.pop(System.nanoTime());
+        }
+    }
+
+    /** Leaves every open phase, for hooks that may not see their matching exit, e.g. after a failure. */
+    public static void unwind() {
+        RequestTrace trace = current.get();
+        if (trace != null) {
+            long now = System.nanoTime();
+            trace.overflow = 0;
+            while (trace.depth > 0) {
+                trace.pop(now);
+            }
+        }
+    }
+
+    /** Stops the trace and detaches it from the thread; returns its total time in nanos. */
+    public long end() {
+        long now = System.nanoTime();
+        phaseNanos[stack[depth].ordinal()] += now - switchedAt;
+        switchedAt = now;
+        if (current.get() == this) {
+            current.remove();
+        }
+        return now - startNanos;
+    }
+
+    /** Nanos charged to each phase, indexed by ordinal. */
+    public long[] getPhaseNanos() {
+        return phaseNanos;
+    }
+
+    private void push(RequestPhase phase, long now) {
+        if (depth == MAX_DEPTH - 1) {
+            overflow++;
+            return;
+        }
+        phaseNanos[stack[depth].ordinal()] += now - switchedAt;
+        stack[++depth] = phase;
+        switchedAt = now;
+    }
+
+    private void pop(long now) {
+        if (overflow > 0) {
+            overflow--;
+            return;
+        }
+        if (depth == 0) {
+            return;
+        }
+        phaseNanos[stack[depth--].ordinal()] += now - switchedAt;
+        switchedAt = now;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.demo.phonebook.trace;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.validation.Errors;
+import org.springframework.validation.SmartValidator;
+import org.springframework.validation.Validator;
+import org.springframework.web.bind.WebDataBinder;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.InitBinder;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Charges reading @RequestBody and writing @ResponseBody to SERIALIZATION, and @Valid checks
+ * to VALIDATION. A body that fails to parse leaves SERIALIZATION open; the interceptor in
+ * RequestTraceWebConfig closes it.
+ */
+@Profile("!reactive")
+@ControllerAdvice
+public class RequestTraceAdvice implements RequestBodyAdvice, ResponseBodyAdvice<Object> {
+
+    @InitBinder
+    public void traceValidation(WebDataBinder binder) {
+        List<Validator> validators = binder.getValidators();
+        if (!validators.isEmpty() && !(validators.get(0) instanceof TracedValidator)) {
+            binder.replaceValidators(validators.stream().map(TracedValidator::new).toArray(Validator[]::new));
+        }
+    }
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public HttpInputMessage beforeBodyRead(HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                           Class<? extends HttpMessageConverter<?>> converterType) {
+        RequestTrace.enter(RequestPhase.SERIALIZATION);
+        return inputMessage;
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                Class<? extends HttpMessageConverter<?>> converterType) {
+        RequestTrace.exit();
+        return body;
+    }
+
+    @Override
+    public Object handleEmptyBody(Object body, HttpInputMessage inputMessage, MethodParameter parameter,
+                                  Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return body;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        // Runs until the interceptor's afterCompletion, once the converter has written the body
+        RequestTrace.enter(RequestPhase.SERIALIZATION);
+        return body;
+    }
+
+    private record TracedValidator(Validator delegate) implements SmartValidator {
+        @Override
+        public boolean supports(Class<?> clazz) {
+            return delegate.supports(clazz);
+        }
+
+        @Override
+        public void validate(Object target, Errors errors) {
+            RequestTrace.enter(RequestPhase.VALIDATION);
+            try {
+                delegate.validate(target, errors);
+            } finally {
+                RequestTrace.exit();
+            }
+        }
+
+        @Override
+        public void validate(Object target, Errors errors, Object... validationHints) {
+            RequestTrace.enter(RequestPhase.VALIDATION);
+            try {
+                if (delegate instanceof SmartValidator smart) {
+                    smart.validate(target, errors, validationHints);
+                } else {
+                    delegate.validate(target, errors);
+                }
+            } finally {
+                RequestTrace.exit();
+            }
+        }
+
+        @Override
+        public void validateValue(Class<?> targetType, String fieldName, Object value, Errors errors,
+                                  Object... validationHints) {
+            if (delegate instanceof SmartValidator smart) {
+                smart.validateValue(targetType, fieldName, value, errors, validationHints);
+            }
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> type) {
+            return delegate instanceof SmartValidator smart ? smart.unwrap(type) : null;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.demo.phonebook.trace;
+
+import com.example.demo.phonebook.admission.AdmissionControlFilter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Traces every /api/phonebook request that passed admission control and hands it to
+ * RequestFlightRecorder. A streamed response is traced until its request thread lets go of it,
+ * not until the last element is written.
+ */
+@Profile("!reactive")
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+public class RequestTraceFilter extends OncePerRequestFilter {
+    private final boolean enabled;
+    private final RequestFlightRecorder recorder;
+
+    public RequestTraceFilter(@Value("${phonebook.trace.enabled:true}") boolean enabled,
+                              RequestFlightRecorder recorder) {
+        this.enabled = enabled;
+        this.recorder = recorder;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith(AdmissionControlFilter.BASE_PATH,
+                request.getContextPath().length());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long startedAt = System.currentTimeMillis();
+        RequestTrace trace = RequestTrace.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long total = trace.end();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            recorder.record(new RequestFlightRecorder.TracedRequest(request.getMethod(), request.getRequestURI(),
+                    pattern != null ? pattern.toString() : null, response.getStatus(), startedAt, total,
+                    trace.getPhaseNanos()));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.demo.phonebook.trace;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Charges handler execution to CONTROLLER. For @ResponseBody handlers the body is written
+ * before the handler returns, so SERIALIZATION is nested in it and left at afterCompletion.
+ */
+@Profile("!reactive")
+@Configuration
+public class RequestTraceWebConfig implements WebMvcConfigurer {
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ControllerPhaseInterceptor());
+    }
+
+    static final class ControllerPhaseInterceptor implements AsyncHandlerInterceptor {
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            RequestTrace.enter(RequestPhase.CONTROLLER);
+            return true;
+        }
+
+        @Override
+        public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                    Exception ex) {
+            RequestTrace.unwind();
+        }
+
+        @Override
+        public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                                   Object handler) {
+            RequestTrace.unwind();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.demo.phonebook.trace;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.context.annotation.Profile;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * /actuator/slowrequests?limit=: the slowest of the recently traced requests, with the
+ * milliseconds each phase took. DELETE empties the recorder.
+ */
+@Profile("!reactive")
+@Component
+@Endpoint(id = "slowrequests")
+public class SlowRequestsEndpoint {
+    private static final RequestPhase[] PHASES = RequestPhase.values();
+
+    private final RequestFlightRecorder recorder;
+    private final int defaultLimit;
+
+    public SlowRequestsEndpoint(RequestFlightRecorder recorder,
+                                @Value("${phonebook.trace.slowest:20}") int defaultLimit) {
+        this.recorder = recorder;
+        this.defaultLimit = defaultLimit;
+    }
+
+    @ReadOperation
+    public List<SlowRequest> slowRequests(@Nullable Integer limit) {
+        return recorder.slowest(limit != null ? limit : defaultLimit).stream()
+                .map(SlowRequestsEndpoint::summary)
+                .toList();
+    }
+
+    @DeleteOperation
+    public void clear() {
+        recorder.clear();
+    }
+
+    private static SlowRequest summary(RequestFlightRecorder.TracedRequest request) {
+        Map<String, Double> phases = new LinkedHashMap<>();
+        for (RequestPhase phase : PHASES) {
+            long nanos = request.phaseNanos()[phase.ordinal()];
+            if (nanos > 0) {
+                phases.put(phase.name(), millis(nanos));
+            }
+        }
+        return new SlowRequest(request.method(), request.uri(), request.handler(), request.status(),
+                Instant.ofEpochMilli(request.startedAtMillis()).toString(), millis(request.totalNanos()), phases);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    public record SlowRequest(String method, String uri, String handler, int status, String startedAt,
+                              double totalMillis, Map<String, Double> phasesMillis) {
+    }
+}
@@ -0,0 +1,385 @@
+package com.example.demo.phonebook.writebehind;
+
+import com.example.demo.phonebook.exception.ContactVersionConflictException;
+import com.example.demo.phonebook.model.Contact;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind buffer for contact creates and updates, on with phonebook.write-behind.enabled=true.
+ * <p>
+ * Writes wait in a bounded queue until max-batch of them are queued or the oldest is max-delay
+ * old; a flusher thread then commits the whole group in one transaction, so a burst of single
+ * contact requests costs one commit per group instead of one each. An update of a contact whose
+ * earlier update is still queued is merged into that entry. Callers either wait for their
+ * group's commit or return once the write is queued; a queued-only write that the database
+ * rejects is logged, as nobody is left to tell. A full queue blocks writers until the flusher
+ * catches up.
+ * <p>
+ * ContactService lays the queued state over id and phone lookups (pending, pendingByPhone) and
+ * waits for it before writing the same contact directly (awaitWritten).
+ */
+@Profile("!reactive")
+@ConditionalOnProperty(name = "phonebook.write-behind.enabled", havingValue = "true")
+@Component
+public class ContactWriteBuffer implements InitializingBean, DisposableBean {
+    /** When a buffered write returns to its caller. */
+    public enum Ack { ENQUEUE, COMMIT }
+
+    /** Writes a group inside the buffer's transaction and records each entry's outcome on it. */
+    @FunctionalInterface
+    public interface GroupWriter {
+        void write(List<Entry> group);
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(ContactWriteBuffer.class);
+
+    private final TransactionTemplate transactions;
+    private final int capacity;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition ready = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    // All guarded by lock. The maps hold the newest entry of a contact until it is written
+    private final ArrayDeque<Entry> queue = new ArrayDeque<>();
+    private final Map<Long, Entry> pendingById = new HashMap<>();
+    private final Map<String, Entry> pendingByPhone = new HashMap<>();
+    private boolean running;
+    private volatile GroupWriter writer;
+    private Thread flusher;
+
+    /** One queued write: a create when the id is null, otherwise one or more merged updates. */
+    public static final class Entry {
+        private final Long id;
+        private final long enqueuedAt = System.nanoTime();
+        private final CompletableFuture<Contact> committed = new CompletableFuture<>();
+        // Guarded by the buffer's lock
+        private Contact contact;
+        private int writes = 1;
+        private boolean inFlight;
+        private boolean acknowledged;
+        // Set by the GroupWriter
+        private Contact written;
+        private RuntimeException failure;
+
+        Entry(Long id, Contact contact) {
+            this.id = id;
+            this.contact = contact;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        /** Fields to write; the version is the one the first merged update expects, if any. */
+        public Contact getContact() {
+            return contact;
+        }
+
+        /** Updates merged into this entry; the version moves by this much. */
+        public int getWrites() {
+            return writes;
+        }
+
+        /** The contact as written, or null when an update found no row. */
+        public void written(Contact contact) {
+            this.written = contact;
+            this.failure = null;
+        }
+
+        public void failed(RuntimeException failure) {
+            this.written = null;
+            this.failure = failure;
+        }
+
+        // The version the contact has once this entry is written; null when no merged update named one
+        Long resultingVersion() {
+            return contact.getVersion() == null ? null : contact.getVersion() + writes;
+        }
+
+        Contact preview() {
+            return new Contact(id, contact.getName(), contact.getPhoneNumber(), contact.getEmail(),
+                    resultingVersion(), Contact.now());
+        }
+    }
+
+    public ContactWriteBuffer(PlatformTransactionManager transactionManager,
+                              @Value("${phonebook.write-behind.capacity:10000}") int capacity,
+                              @Value("${phonebook.write-behind.max-batch:500}") int maxBatch,
+                              @Value("${phonebook.write-behind.max-delay:20ms}") Duration maxDelay) {
+        if (capacity < 1 || maxBatch < 1) {
+            throw new IllegalArgumentException("phonebook.write-behind.capacity and max-batch must be positive");
+        }
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.capacity = capacity;
+        this.maxBatch = maxBatch;
+        this.maxDelayNanos = maxDelay.toNanos();
+    }
+
+    /** Sets what writes the groups; ContactService binds itself when it is created. */
+    public void bind(GroupWriter writer) {
+        this.writer = writer;
+    }
+
+    /** Queues a create and waits for its commit, since only the insert assigns the id. */
+    public Contact create(Contact contact) {
+        Entry entry = new Entry(null, copy(contact, null));
+        lock.lock();
+        try {
+            enqueue(entry);
+        } finally {
+            lock.unlock();
+        }
+        return await(entry);
+    }
+
+    /**
+     * Queues an update. ENQUEUE returns the contact as it will be written, its version null when
+     * it is not known yet; COMMIT returns it as written, or null when there is no such contact.
+     * A version that a queued update of the contact has already moved past fails right away.
+     */
+    public Contact update(Long id, Contact contact, Ack ack) {
+        Long version = contact.getVersion();
+        Entry entry;
+        lock.lock();
+        try {
+            Entry queued = pendingById.get(id);
+            Long queuedVersion = queued == null ? null : queued.resultingVersion();
+            if (queued != null && !queued.inFlight && (version == null || version.equals(queuedVersion))) {
+                unmapPhone(queued);
+                queued.contact = copy(contact, queued.contact.getVersion());
+                queued.writes++;
+                mapPhone(queued);
+                entry = queued;
+            } else {
+                if (version != null && queuedVersion != null && !version.equals(queuedVersion)) {
+                    throw new ContactVersionConflictException(id, version);
+                }
+                // Queued behind the earlier entry, so the version is checked once that one is written
+                entry = new Entry(id, copy(contact, version));
+                enqueue(entry);
+            }
+            if (ack == Ack.ENQUEUE) {
+                entry.acknowledged = true;
+                return entry.preview();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return await(entry);
+    }
+
+    /** The queued state of the contact, or null when none of its writes is waiting. */
+    public Contact pending(Long id) {
+        lock.lock();
+        try {
+            Entry entry = pendingById.get(id);
+            return entry == null ? null : entry.preview();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** The contact a queued update gives this phone number, or null. */
+    public Contact pendingByPhone(String phoneNumber) {
+        lock.lock();
+        try {
+            Entry entry = pendingByPhone.get(phoneNumber);
+            return entry == null ? null : entry.preview();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Blocks until the contact's queued writes are written, so a direct write lands after them. */
+    public void awaitWritten(Long id) {
+        Entry entry;
+        lock.lock();
+        try {
+            entry = pendingById.get(id);
+        } finally {
+            lock.unlock();
+        }
+        if (entry != null) {
+            entry.committed.handle((contact, failure) -> null).join();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        running = true;
+        flusher = new Thread(this::flushLoop, "contact-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    // Writes what is still queued before the context closes
+    @Override
+    public void destroy() throws InterruptedException {
+        lock.lock();
+        try {
+            running = false;
+            ready.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (flusher != null) {
+            flusher.join();
+        }
+    }
+
+    // Caller holds lock
+    private void enqueue(Entry entry) {
+        if (!running) {
+            throw new IllegalStateException("Contact write buffer is not running");
+        }
+        while (queue.size() >= capacity) {
+            notFull.awaitUninterruptibly();
+        }
+        queue.add(entry);
+        if (entry.id != null) {
+            Entry replaced = pendingById.put(entry.id, entry);
+            if (replaced != null) {
+                unmapPhone(replaced);
+            }
+            mapPhone(entry);
+        }
+        if (queue.size() == 1 || queue.size() >= maxBatch) {
+            ready.signal();
+        }
+    }
+
+    private void mapPhone(Entry entry) {
+        if (entry.contact.getPhoneNumber() != null) {
+            pendingByPhone.put(entry.contact.getPhoneNumber(), entry);
+        }
+    }
+
+    private void unmapPhone(Entry entry) {
+        if (entry.contact.getPhoneNumber() != null) {
+            pendingByPhone.remove(entry.contact.getPhoneNumber(), entry);
+        }
+    }
+
+    private void flushLoop() {
+        List<Entry> group;
+        while ((group = takeGroup()) != null) {
+            flush(group);
+        }
+    }
+
+    // Waits for a full group, or for the oldest entry to reach max-delay; null once stopped and empty
+    private List<Entry> takeGroup() {
+        lock.lock();
+        try {
+            while (true) {
+                if (queue.isEmpty()) {
+                    if (!running) {
+                        return null;
+                    }
+                    ready.awaitUninterruptibly();
+                    continue;
+                }
+                long waited = System.nanoTime() - queue.peek().enqueuedAt;
+                if (queue.size() >= maxBatch || waited >= maxDelayNanos || !running) {
+                    break;
+                }
+                ready.awaitNanos(maxDelayNanos - waited);
+            }
+            List<Entry> group = new ArrayList<>(Math.min(queue.size(), maxBatch));
+            while (group.size() < maxBatch && !queue.isEmpty()) {
+                Entry entry = queue.poll();
+                entry.inFlight = true;
+                group.add(entry);
+            }
+            notFull.signalAll();
+            return group;
+        } catch (InterruptedException e) {
+            // Not interrupted by anything of ours; keep going until destroy() stops the loop
+            return List.of();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flush(List<Entry> group) {
+        if (group.isEmpty()) {
+            return;
+        }
+        try {
+            transactions.executeWithoutResult(status -> writer.write(group));
+        } catch (RuntimeException e) {
+            if (group.size() > 1) {
+                // One bad row must not fail the rest of the group
+                logger.warn("Group of {} buffered contact writes failed, writing them one at a time", group.size(), e);
+                group.forEach(entry -> flush(List.of(entry)));
+                return;
+            }
+            group.get(0).failed(e);
+        }
+        group.forEach(this::complete);
+    }
+
+    private void complete(Entry entry) {
+        lock.lock();
+        try {
+            if (entry.id != null && pendingById.remove(entry.id, entry)) {
+                unmapPhone(entry);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (entry.failure == null) {
+            entry.committed.complete(entry.written);
+            return;
+        }
+        if (entry.acknowledged) {
+            logger.warn("Buffered write of contact {} was acknowledged but not written", entry.id, entry.failure);
+        }
+        entry.committed.completeExceptionally(entry.failure);
+    }
+
+    private static Contact await(Entry entry) {
+        try {
+            return entry.committed.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static Contact copy(Contact contact, Long version) {
+        return new Contact(null, contact.getName(), contact.getPhoneNumber(), contact.getEmail(), version);
+    }
+}
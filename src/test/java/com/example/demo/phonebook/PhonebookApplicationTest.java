@@ -0,0 +1,280 @@
+package com.example.demo.phonebook;
+
+import com.example.demo.phonebook.controller.ContactController;
+import com.example.demo.phonebook.datasource.SqlStatistics;
+import com.example.demo.phonebook.datasource.StatementStatisticsDataSource;
+import com.example.demo.phonebook.exception.ContactVersionConflictException;
+import com.example.demo.phonebook.index.NamePrefixIndex;
+import com.example.demo.phonebook.model.Contact;
+import com.example.demo.phonebook.model.ContactBatchItem;
+import com.example.demo.phonebook.model.ContactChange;
+import com.example.demo.phonebook.model.ContactPatch;
+import com.example.demo.phonebook.reactive.ReactiveContactController;
+import com.example.demo.phonebook.repository.ContactChangeRepository;
+import com.example.demo.phonebook.repository.ContactRepository;
+import com.example.demo.phonebook.service.ContactService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.PriorityOrdered;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+
+// Default (servlet + JPA) wiring on an embedded database; the reactive profile has its own test
+@SpringBootTest(properties = {
+        "spring.profiles.active=test",
+        "spring.datasource.url=jdbc:h2:mem:phonebook-context;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        // Keeps the change feed's dispatcher, which sequences the outbox every tick, out of the statement
+        // and checkout counts
+        "phonebook.changes.flush-interval=1h",
+        "debug=false"
+})
+class PhonebookApplicationTest {
+    // Connections checked out of the pool itself, under every wrapper the application adds
+    private static final AtomicInteger checkouts = new AtomicInteger();
+
+    @TestConfiguration
+    static class CheckoutCounting {
+        @Bean
+        static CheckoutCountingPostProcessor checkoutCountingPostProcessor() {
+            return new CheckoutCountingPostProcessor();
+        }
+    }
+
+    // PriorityOrdered runs ahead of the application's post processors, so it wraps the pool innermost.
+    // The factory method declares this type, as the ordering is read off the bean definition
+    static class CheckoutCountingPostProcessor implements BeanPostProcessor, PriorityOrdered {
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource pool)) {
+                return bean;
+            }
+            return new DelegatingDataSource(pool) {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    checkouts.incrementAndGet();
+                    return super.getConnection();
+                }
+            };
+        }
+
+        @Override
+        public int getOrder() {
+            return 0;
+        }
+    }
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private ContactService contactService;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @SpyBean
+    private ContactChangeRepository contactChangeRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void contextLoads_WithServletStackOnly() {
+        assertNotNull(context.getBean(ContactController.class));
+        assertEquals(0, context.getBeanNamesForType(ReactiveContactController.class).length);
+    }
+
+    @Test
+    void createContact_ShouldInsert_WhenTheBodyCarriesAnIdAndVersion() {
+        ContactController controller = context.getBean(ContactController.class);
+        Contact existing = contactService.saveContact(new Contact(null, "Existing", "999-000-0003", null));
+
+        ResponseEntity<Contact> created = controller.createContact(
+                new Contact(existing.getId(), "Posted", "999-000-0004", null, existing.getVersion()));
+
+        assertEquals(HttpStatus.CREATED, created.getStatusCode());
+        assertNotEquals(existing.getId(), created.getBody().getId());
+        assertEquals(0L, created.getBody().getVersion());
+        assertEquals(Optional.of(existing), contactService.getContactById(existing.getId()));
+    }
+
+    @Test
+    void cachedLookups_ShouldNotCheckOutAConnection() {
+        Contact created = contactService.saveContact(new Contact(null, "Pooled", "999-000-0001", null));
+        assertEquals(created, contactService.getContactById(created.getId()).orElseThrow());
+        assertEquals(created, contactService.getContactByPhoneNumber("999-000-0001"));
+
+        checkouts.set(0);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(created, contactService.getContactById(created.getId()).orElseThrow());
+            assertEquals(created, contactService.getContactByPhoneNumber("999-000-0001"));
+        }
+
+        assertEquals(0, checkouts.get());
+        // A lookup that runs a statement still gets its connection
+        assertTrue(contactService.getContactById(created.getId() + 1000).isEmpty());
+        assertEquals(1, checkouts.get());
+    }
+
+    @Test
+    void updateAndPatch_ShouldBumpVersion_AndRejectStaleOnes() {
+        Contact created = contactService.saveContact(new Contact(null, "Alice", "111-111-1111", null));
+        assertEquals(0L, created.getVersion());
+
+        Contact patched = contactService.patchContact(created.getId(), new ContactPatch(null, null, "a@example.com", 0L));
+        assertEquals(new Contact(created.getId(), "Alice", "111-111-1111", "a@example.com", 1L), patched);
+
+        Contact stale = new Contact(null, "Mallory", "999-999-9999", null, 0L);
+        assertThrows(ContactVersionConflictException.class, () -> contactService.updateContact(created.getId(), stale));
+
+        Contact replaced = contactService.updateContact(created.getId(), new Contact(null, "Alice B", "222-222-2222", null));
+        assertEquals(new Contact(created.getId(), "Alice B", "222-222-2222", null, 2L), replaced);
+        assertEquals(replaced, contactService.getContactByPhoneNumber("222-222-2222"));
+        assertNull(contactService.patchContact(created.getId() + 1000, new ContactPatch("Nobody", null, null, null)));
+    }
+
+    @Test
+    void deleteContacts_ShouldRemoveRows_AndEvictCachedLookups() {
+        Contact kept = contactService.saveContact(new Contact(null, "Kept", "333-333-3333", null));
+        Contact gone = contactService.saveContact(new Contact(null, "Gone", "444-444-4444", null));
+        assertEquals(gone, contactService.getContactByPhoneNumber("444-444-4444"));
+
+        contactService.deleteContacts(List.of(gone.getId(), gone.getId() + 1000));
+
+        assertNull(contactService.getContactByPhoneNumber("444-444-4444"));
+        assertEquals(List.of(
+                new ContactBatchItem(kept.getId(), ContactBatchItem.Status.FOUND, kept),
+                new ContactBatchItem(gone.getId(), ContactBatchItem.Status.NOT_FOUND, null)),
+                contactService.getContactsByIds(List.of(kept.getId(), gone.getId())));
+    }
+
+    @Test
+    void secondLevelCache_ShouldServeRepeatReads_AndNeverReturnRowsChangedByUpdateOrDelete() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Contact created = contactService.saveContact(new Contact(null, "Cached", "555-123-0001", null));
+        assertEquals(created, contactRepository.findByPhoneNumber("555-123-0001"));
+
+        long statements = statistics.getPrepareStatementCount();
+        assertEquals(created, contactRepository.findByPhoneNumber("555-123-0001"));
+        assertEquals(created, contactRepository.findById(created.getId()).orElseThrow());
+        assertEquals(List.of(created), contactRepository.findAllCachedById(List.of(created.getId())));
+        assertEquals(statements, statistics.getPrepareStatementCount());
+
+        Contact updated = contactService.updateContact(created.getId(),
+                new Contact(null, "Cached", "555-123-0002", null, 0L));
+        assertNull(contactRepository.findByPhoneNumber("555-123-0001"));
+        assertEquals(updated, contactRepository.findByPhoneNumber("555-123-0002"));
+        assertEquals(updated, contactRepository.findById(created.getId()).orElseThrow());
+
+        Contact patched = contactService.patchContact(created.getId(), new ContactPatch("Cached Too", null, null, null));
+        assertEquals(List.of(patched), contactRepository.findByNameContainingIgnoreCase("cached too"));
+        assertEquals(List.of(patched), contactRepository.findAllCachedById(List.of(created.getId())));
+
+        contactService.deleteContact(created.getId(), patched.getVersion());
+        assertTrue(contactRepository.findById(created.getId()).isEmpty());
+        assertNull(contactRepository.findByPhoneNumber("555-123-0002"));
+        assertTrue(contactRepository.findAllCachedById(List.of(created.getId())).isEmpty());
+    }
+
+    @Test
+    void suggestionFallback_ShouldOrderLikeThePrefixIndex() {
+        NamePrefixIndex index = new NamePrefixIndex();
+        List<String> names = List.of("zqb", "Zqa", "ZQC", "zq-x", "Zq Y", "Zqä");
+        for (int i = 0; i < names.size(); i++) {
+            index.load(contactService.saveContact(new Contact(null, names.get(i), "777-000-000" + i, null)));
+        }
+        index.loaded();
+
+        assertEquals(index.suggest("ZQ", 10), contactRepository.findSuggestionsByNamePrefix("zQ", Limit.of(10)));
+        assertEquals(index.suggest("zq", 3), contactRepository.findSuggestionsByNamePrefix("zq", Limit.of(3)));
+    }
+
+    @Test
+    void writes_ShouldRecordChangesInTheirTransaction_AndNotWhenRejected() {
+        Contact created = contactService.saveContact(new Contact(null, "Outbox", "666-666-6666", null));
+        contactService.patchContact(created.getId(), new ContactPatch("Outbox B", null, null, null));
+        assertThrows(ContactVersionConflictException.class, () -> contactService.updateContact(created.getId(),
+                new Contact(null, "Stale", "666-666-6666", null, 0L)));
+        contactService.deleteContact(created.getId());
+
+        List<ContactChange> changes = contactChangeRepository.findAll().stream()
+                .filter(change -> change.getContactId().equals(created.getId()))
+                .toList();
+        assertEquals(List.of(ContactChange.Type.UPSERT, ContactChange.Type.UPSERT, ContactChange.Type.DELETE),
+                changes.stream().map(ContactChange::getType).toList());
+        assertEquals(0L, changes.get(0).getVersion());
+        assertEquals(1L, changes.get(1).getVersion());
+        assertNull(changes.get(2).getVersion());
+    }
+
+    @Test
+    void collectionVersion_ShouldRiseByOnePerWrite_AndHoldThroughSequencingAndPruning() {
+        long before = contactChangeRepository.findCollectionVersion();
+        Contact created = contactService.saveContact(new Contact(null, "Versioned", "999-000-0002", null));
+        contactService.deleteContact(created.getId());
+        assertEquals(before + 2, contactChangeRepository.findCollectionVersion());
+
+        // What ContactChangeFeed does every tick
+        long next = contactChangeRepository.findMaxPosition();
+        for (ContactChange change : contactChangeRepository.findUnpositioned(Limit.of(1000))) {
+            contactChangeRepository.assignPosition(change.getSeq(), ++next);
+        }
+        assertEquals(before + 2, contactChangeRepository.findCollectionVersion());
+
+        // Even past the retention of every row, the newest sequenced one is kept
+        contactChangeRepository.deleteOlderThan(Instant.now().plusSeconds(60), next);
+        assertEquals(before + 2, contactChangeRepository.findCollectionVersion());
+        assertEquals(next, contactChangeRepository.findMaxPosition());
+    }
+
+    @Test
+    void statements_ShouldBeCountedThroughTheMeasuringDataSource() {
+        assertInstanceOf(StatementStatisticsDataSource.class, context.getBean(DataSource.class));
+        SqlStatistics statistics = context.getBean(SqlStatistics.class);
+        statistics.reset();
+
+        Contact created = contactService.saveContact(new Contact(null, "Counted", "777-777-7777", null));
+        contactService.deleteContact(created.getId());
+
+        assertTrue(statistics.report(50).statements().stream()
+                .anyMatch(statement -> statement.sql().startsWith("insert into contact") && statement.count() == 1
+                        && statement.rows() == 1));
+    }
+
+    @Test
+    void deleteWithoutVersion_ShouldRollBack_WhenTheOutboxInsertFails() {
+        Contact created = contactService.saveContact(new Contact(null, "Rollback", "888-888-8888", null));
+        doThrow(new IllegalStateException("outbox unavailable")).when(contactChangeRepository)
+                .save(argThat((ContactChange change) -> change.getType() == ContactChange.Type.DELETE));
+
+        assertThrows(IllegalStateException.class, () -> contactService.deleteContact(created.getId()));
+
+        assertTrue(contactRepository.existsById(created.getId()));
+    }
+}
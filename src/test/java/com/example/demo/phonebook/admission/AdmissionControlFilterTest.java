@@ -0,0 +1,133 @@
+package com.example.demo.phonebook.admission;
+
+import com.example.demo.phonebook.datasource.ReadYourWritesFilter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlFilterTest {
+
+    @Test
+    void doFilter_ShouldAnswer429WithRetryAfter_WhenTheClientIsOverItsRate() throws Exception {
+        AdmissionControlFilter filter = filter(1, 1, 10);
+        filter.doFilter(get("/api/phonebook/1", "client-a"), new MockHttpServletResponse(), new MockFilterChain());
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(get("/api/phonebook/1", "client-a"), rejected, chain);
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("1", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void doFilter_ShouldKeyTheRateLimitOnRemoteAddress_NotTheClientIdHeader() throws Exception {
+        AdmissionControlFilter filter = filter(1, 1, 10);
+        filter.doFilter(get("/api/phonebook/1", "client-a"), new MockHttpServletResponse(), new MockFilterChain());
+
+        // A fresh X-Client-Id does not buy a fresh bucket
+        MockHttpServletResponse renamed = new MockHttpServletResponse();
+        filter.doFilter(get("/api/phonebook/1", "client-b"), renamed, new MockFilterChain());
+        MockHttpServletRequest otherHost = get("/api/phonebook/1", "client-a");
+        otherHost.setRemoteAddr("10.0.0.2");
+        MockHttpServletResponse other = new MockHttpServletResponse();
+        filter.doFilter(otherHost, other, new MockFilterChain());
+
+        assertEquals(429, renamed.getStatus());
+        assertEquals(200, other.getStatus());
+    }
+
+    @Test
+    void doFilter_ShouldShedBulkCallsFirst_WhenTheLimitIsReached() throws Exception {
+        AdmissionControlFilter filter = filter(100, 100, 2);
+        MockHttpServletResponse list = new MockHttpServletResponse();
+        MockHttpServletResponse lookup = new MockHttpServletResponse();
+        // A second request arrives while the first is still in flight
+        FilterChain inFlight = (request, response) -> {
+            filter.doFilter(get("/api/phonebook", "client-b"), list, new MockFilterChain());
+            filter.doFilter(get("/api/phonebook/phone/555-123-4567", "client-b"), lookup, new MockFilterChain());
+        };
+
+        filter.doFilter(get("/api/phonebook/7", "client-a"), new MockHttpServletResponse(), inFlight);
+
+        assertEquals(503, list.getStatus());
+        assertEquals("1", list.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(200, lookup.getStatus());
+        assertEquals(0, filter.getInFlight());
+    }
+
+    @Test
+    void doFilter_ShouldNotCutTheLimit_WhenLongImportsListsOrStreamsFinish() throws Exception {
+        // Every request is slower than a 1 ns target
+        AdmissionControlFilter filter = new AdmissionControlFilter(true, 100, 100, 100, 10, 1, 10,
+                Duration.ofNanos(1), 0.5);
+        FilterChain ndjson = (request, response) -> response.setContentType("application/x-ndjson");
+
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/phonebook/bulk"), new MockHttpServletResponse(),
+                new MockFilterChain());
+        filter.doFilter(get("/api/phonebook", null), new MockHttpServletResponse(), new MockFilterChain());
+        filter.doFilter(get("/api/phonebook/search/name/jo", null), new MockHttpServletResponse(), ndjson);
+        assertEquals(10, filter.getLimit());
+
+        // A slow lookup still does, and so does a failed import
+        filter.doFilter(get("/api/phonebook/42", null), new MockHttpServletResponse(), new MockFilterChain());
+        assertEquals(5, filter.getLimit());
+        FilterChain failing = (request, response) -> ((HttpServletResponse) response).setStatus(500);
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/phonebook/bulk"), new MockHttpServletResponse(),
+                failing);
+        assertEquals(2, filter.getLimit());
+        assertEquals(0, filter.getInFlight());
+    }
+
+    @Test
+    void doFilter_ShouldLeaveTheChangeFeedAndOtherPathsAlone() throws Exception {
+        AdmissionControlFilter filter = filter(1, 1, 10);
+
+        for (String path : new String[]{"/api/phonebook/changes", "/actuator/health"}) {
+            for (int i = 0; i < 3; i++) {
+                MockHttpServletResponse response = new MockHttpServletResponse();
+                filter.doFilter(get(path, "client-a"), response, new MockFilterChain());
+                assertEquals(200, response.getStatus());
+            }
+        }
+    }
+
+    @Test
+    void priority_ShouldFavourPointLookupsOverBulkCalls() {
+        assertEquals(RequestPriority.HIGH, RequestPriority.of(get("/api/phonebook/42", null), "/api/phonebook"));
+        assertEquals(RequestPriority.HIGH,
+                RequestPriority.of(get("/api/phonebook/phone/555-123-4567", null), "/api/phonebook"));
+        assertEquals(RequestPriority.NORMAL,
+                RequestPriority.of(get("/api/phonebook/search/name/jo", null), "/api/phonebook"));
+        assertEquals(RequestPriority.NORMAL,
+                RequestPriority.of(new MockHttpServletRequest("PUT", "/api/phonebook/42"), "/api/phonebook"));
+        assertEquals(RequestPriority.NORMAL,
+                RequestPriority.of(new MockHttpServletRequest("POST", "/api/phonebook"), "/api/phonebook"));
+        assertEquals(RequestPriority.LOW, RequestPriority.of(get("/api/phonebook", null), "/api/phonebook"));
+        assertEquals(RequestPriority.LOW,
+                RequestPriority.of(new MockHttpServletRequest("POST", "/api/phonebook/bulk"), "/api/phonebook"));
+        assertEquals(RequestPriority.LOW,
+                RequestPriority.of(new MockHttpServletRequest("POST", "/api/phonebook/batch-get"), "/api/phonebook"));
+    }
+
+    private static AdmissionControlFilter filter(double rate, int burst, int limit) {
+        return new AdmissionControlFilter(true, rate, burst, 100, limit, 1, limit, Duration.ofSeconds(1), 0.9);
+    }
+
+    private static MockHttpServletRequest get(String path, String client) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        if (client != null) {
+            request.addHeader(ReadYourWritesFilter.CLIENT_HEADER, client);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.demo.phonebook.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AimdConcurrencyLimitTest {
+
+    private static final long TARGET = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void release_ShouldCutTheLimit_WhenRequestsAreSlowOrFail() {
+        AimdConcurrencyLimit limit = new AimdConcurrencyLimit(10, 2, 20, TARGET, 0.5);
+
+        limit.tryAcquire(RequestPriority.HIGH);
+        limit.release(2 * TARGET, false);
+        assertEquals(5, limit.getLimit());
+
+        limit.tryAcquire(RequestPriority.HIGH);
+        limit.release(1, true);
+        limit.tryAcquire(RequestPriority.HIGH);
+        limit.release(1, true);
+        assertEquals(2, limit.getLimit());
+        assertEquals(0, limit.getInFlight());
+    }
+
+    @Test
+    void release_ShouldRaiseTheLimit_OnlyWhileItIsUsed() {
+        AimdConcurrencyLimit limit = new AimdConcurrencyLimit(4, 1, 20, TARGET, 0.9);
+
+        limit.tryAcquire(RequestPriority.HIGH);
+        limit.release(1, false);
+        assertEquals(4, limit.getLimit());
+
+        limit.tryAcquire(RequestPriority.HIGH);
+        limit.tryAcquire(RequestPriority.HIGH);
+        limit.release(1, false);
+        assertEquals(5, limit.getLimit());
+    }
+
+    @Test
+    void tryAcquire_ShouldKeepHeadroomForHigherPriorities() {
+        AimdConcurrencyLimit limit = new AimdConcurrencyLimit(4, 1, 20, TARGET, 0.9);
+
+        assertTrue(limit.tryAcquire(RequestPriority.LOW));
+        assertTrue(limit.tryAcquire(RequestPriority.LOW));
+        assertFalse(limit.tryAcquire(RequestPriority.LOW));
+        assertTrue(limit.tryAcquire(RequestPriority.NORMAL));
+        assertFalse(limit.tryAcquire(RequestPriority.NORMAL));
+        assertTrue(limit.tryAcquire(RequestPriority.HIGH));
+        assertFalse(limit.tryAcquire(RequestPriority.HIGH));
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.demo.phonebook.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void tryAcquire_ShouldAllowTheBurst_ThenReportTheWaitForTheNextToken() {
+        ClientRateLimiter limiter = new ClientRateLimiter(10, 3, 100);
+
+        assertEquals(0, limiter.tryAcquire("a", 0));
+        assertEquals(0, limiter.tryAcquire("a", 0));
+        assertEquals(0, limiter.tryAcquire("a", 0));
+        assertEquals(SECOND / 10, limiter.tryAcquire("a", 0));
+        // Other clients have their own bucket
+        assertEquals(0, limiter.tryAcquire("b", 0));
+        assertEquals(0, limiter.tryAcquire("a", SECOND / 10));
+    }
+
+    @Test
+    void tryAcquire_ShouldGrantExactlyTheBurst_ToConcurrentCallers() throws Exception {
+        ClientRateLimiter limiter = new ClientRateLimiter(1, 50, 100);
+        AtomicInteger granted = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+
+        for (int t = 0; t < 8; t++) {
+            threads.add(Thread.ofVirtual().start(() -> {
+                for (int i = 0; i < 100; i++) {
+                    if (limiter.tryAcquire("shared", 0) == 0) {
+                        granted.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(50, granted.get());
+    }
+
+    @Test
+    void tryAcquire_ShouldKeepAtMostMaxClientsBuckets_HoweverManyClientsCome() {
+        ClientRateLimiter limiter = new ClientRateLimiter(1, 1, 100);
+
+        for (int i = 0; i < 1000; i++) {
+            limiter.tryAcquire("client-" + i, 0);
+            limiter.tryAcquire("busy", 0);
+        }
+
+        assertTrue(limiter.getClientCount() <= 100);
+        // The flood of one-off clients did not push out the one that keeps coming back
+        assertTrue(limiter.tryAcquire("busy", 0) > 0);
+    }
+}
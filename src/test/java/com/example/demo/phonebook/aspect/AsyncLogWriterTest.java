@@ -0,0 +1,57 @@
+package com.example.demo.phonebook.aspect;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncLogWriterTest {
+
+    private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+    private final PrintStream originalOut = System.out;
+
+    @BeforeEach
+    void setUp() {
+        System.setOut(new PrintStream(outContent, true));
+    }
+
+    @AfterEach
+    void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @Test
+    void writerThread_ShouldDrainBufferedLines_AndDestroyShouldFlushTheRest() throws Exception {
+        AsyncLogWriter writer = new AsyncLogWriter(new LoggingProperties(), new SimpleMeterRegistry());
+        writer.afterPropertiesSet();
+
+        writer.log("first");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!outContent.toString().contains("first") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        writer.log("second");
+        writer.destroy();
+
+        assertEquals("first\nsecond\n", outContent.toString());
+    }
+
+    @Test
+    void droppedLines_ShouldBeExposedAsCounter() {
+        LoggingProperties properties = new LoggingProperties();
+        properties.setBufferSize(2);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AsyncLogWriter writer = new AsyncLogWriter(properties, meterRegistry);
+
+        for (int i = 0; i < 5; i++) {
+            writer.log("line" + i);
+        }
+
+        assertEquals(3.0, meterRegistry.get("phonebook.logging.dropped").functionCounter().count());
+    }
+}
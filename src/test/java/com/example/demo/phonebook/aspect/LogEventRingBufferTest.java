@@ -0,0 +1,57 @@
+package com.example.demo.phonebook.aspect;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogEventRingBufferTest {
+
+    @Test
+    void offer_ShouldFailWhenFull_AndPollShouldKeepFifoOrder() {
+        LogEventRingBuffer buffer = new LogEventRingBuffer(3);
+
+        assertEquals(4, buffer.capacity());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer("line" + i));
+        }
+        assertFalse(buffer.offer("overflow"));
+        assertEquals("line0", buffer.poll());
+        assertTrue(buffer.offer("line4"));
+        for (int i = 1; i <= 4; i++) {
+            assertEquals("line" + i, buffer.poll());
+        }
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    void offer_ShouldNotLoseLines_UnderConcurrentProducers() throws Exception {
+        LogEventRingBuffer buffer = new LogEventRingBuffer(1 << 16);
+        ExecutorService producers = Executors.newFixedThreadPool(4);
+        CountDownLatch done = new CountDownLatch(4);
+        for (int p = 0; p < 4; p++) {
+            int producer = p;
+            producers.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    buffer.offer(producer + ":" + i);
+                }
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        producers.shutdown();
+
+        Set<String> seen = new HashSet<>();
+        String line;
+        while ((line = buffer.poll()) != null) {
+            seen.add(line);
+        }
+        assertEquals(40_000, seen.size());
+    }
+}
@@ -1,18 +1,19 @@
 package com.example.demo.phonebook.aspect;
 
-import org.aspectj.lang.JoinPoint;
+import com.example.demo.phonebook.service.ContactService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.util.Collections;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -20,16 +21,18 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class LoggingAspectTest {
 
-    @Mock
-    private JoinPoint joinPoint;
-
     @Mock
     private ProceedingJoinPoint proceedingJoinPoint;
 
     @Mock
     private MethodSignature methodSignature;
 
-    @InjectMocks
+    private LoggingProperties properties;
+
+    private AsyncLogWriter logWriter;
+
+    private SimpleMeterRegistry meterRegistry;
+
     private LoggingAspect loggingAspect;
 
     private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
@@ -39,6 +42,12 @@ class LoggingAspectTest {
     void setUp() {
         // Redirect System.out to capture logs
         System.setOut(new PrintStream(outContent));
+        properties = new LoggingProperties();
+        // The writer thread is not started here; flush() drains on the test thread
+        meterRegistry = new SimpleMeterRegistry();
+        logWriter = new AsyncLogWriter(properties, meterRegistry);
+        loggingAspect = new LoggingAspect(logWriter, properties, new ServiceMetrics(meterRegistry));
+        lenient().when(methodSignature.getDeclaringType()).thenReturn(ContactService.class);
     }
 
     @AfterEach
@@ -49,151 +58,168 @@ class LoggingAspectTest {
     }
 
     @Test
-    void logBefore_ShouldLogMethodEntry_WithValidArguments() {
+    void logAround_ShouldNotWriteOnCallingThread() throws Throwable {
         // Arrange
-        when(joinPoint.getSignature()).thenReturn(methodSignature);
+        when(proceedingJoinPoint.getSignature()).thenReturn(methodSignature);
         when(methodSignature.getName()).thenReturn("testMethod");
-        Object[] args = new Object[]{"arg1", 123};
-        when(joinPoint.getArgs()).thenReturn(args);
+        when(proceedingJoinPoint.getArgs()).thenReturn(new Object[]{"arg1", 123});
+        when(proceedingJoinPoint.proceed()).thenReturn("methodResult");
 
         // Act
-        loggingAspect.logBefore(joinPoint);
+        loggingAspect.logAround(proceedingJoinPoint);
 
         // Assert
-        String expectedLog = "Entering testMethod with args: [arg1, 123]\n";
-        assertEquals(expectedLog, outContent.toString());
+        assertEquals("", outContent.toString());
     }
 
     @Test
-    void logBefore_ShouldLogMethodEntry_WithNullArguments() {
+    void logAround_ShouldLogEntryExitAndExecutionTime_WhenMethodSucceeds() throws Throwable {
         // Arrange
-        when(joinPoint.getSignature()).thenReturn(methodSignature);
+        when(proceedingJoinPoint.getSignature()).thenReturn(methodSignature);
         when(methodSignature.getName()).thenReturn("testMethod");
-        Object[] args = new Object[]{null, null};
-        when(joinPoint.getArgs()).thenReturn(args);
+        when(proceedingJoinPoint.getArgs()).thenReturn(new Object[]{"arg1", 123});
+        Object result = "methodResult";
+        when(proceedingJoinPoint.proceed()).thenReturn(result);
 
         // Act
-        loggingAspect.logBefore(joinPoint);
+        Object actualResult = loggingAspect.logAround(proceedingJoinPoint);
+        logWriter.flush();
 
         // Assert
-        String expectedLog = "Entering testMethod with args: [null, null]\n";
-        assertEquals(expectedLog, outContent.toString());
+        assertEquals(result, actualResult);
+        String[] lines = outContent.toString().split("\n");
+        assertEquals("Entering testMethod with args: [arg1, 123]", lines[0]);
+        assertEquals("Exiting testMethod with result: methodResult", lines[1]);
+        assertTrue(lines[2].startsWith("testMethod executed in"));
+        assertTrue(lines[2].endsWith("ns"));
+        verify(proceedingJoinPoint, times(1)).proceed();
     }
 
     @Test
-    void logAfterReturning_ShouldLogMethodExit_WithNonNullResult() {
+    void logAround_ShouldRecordLatencyBySuccessAndFailure() throws Throwable {
         // Arrange
-        when(joinPoint.getSignature()).thenReturn(methodSignature);
+        properties.setDefaultSampleRate(0.0);
+        when(proceedingJoinPoint.getSignature()).thenReturn(methodSignature);
         when(methodSignature.getName()).thenReturn("testMethod");
-        Object result = "successResult";
+        when(proceedingJoinPoint.proceed()).thenReturn("ok").thenThrow(new RuntimeException("boom"));
 
         // Act
-        loggingAspect.logAfterReturning(joinPoint, result);
+        loggingAspect.logAround(proceedingJoinPoint);
+        assertThrows(RuntimeException.class, () -> loggingAspect.logAround(proceedingJoinPoint));
 
         // Assert
-        String expectedLog = "Exiting testMethod with result: successResult\n";
-        assertEquals(expectedLog, outContent.toString());
+        assertEquals(1, meterRegistry.get(ServiceMetrics.TIMER_NAME)
+                .tags("class", "ContactService", "method", "testMethod", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get(ServiceMetrics.TIMER_NAME)
+                .tags("class", "ContactService", "method", "testMethod", "outcome", "failure").timer().count());
     }
 
     @Test
-    void logAfterReturning_ShouldLogMethodExit_WithNullResult() {
+    void logAround_ShouldLogNullArgumentsAndResult() throws Throwable {
         // Arrange
-        when(joinPoint.getSignature()).thenReturn(methodSignature);
+        when(proceedingJoinPoint.getSignature()).thenReturn(methodSignature);
         when(methodSignature.getName()).thenReturn("testMethod");
-        Object result = null;
+        when(proceedingJoinPoint.getArgs()).thenReturn(new Object[]{null, null});
+        when(proceedingJoinPoint.proceed()).thenReturn(null);
 
         // Act
-        loggingAspect.logAfterReturning(joinPoint, result);
+        loggingAspect.logAround(proceedingJoinPoint);
+        logWriter.flush();
 
         // Assert
-        String expectedLog = "Exiting testMethod with result: null\n";
-        assertEquals(expectedLog, outContent.toString());
+        String logOutput = outContent.toString();
+        assertTrue(logOutput.contains("Entering testMethod with args: [null, null]\n"));
+        assertTrue(logOutput.contains("Exiting testMethod with result: null\n"));
     }
 
     @Test
-    void logAfterThrowing_ShouldLogExceptionMessage_WithRuntimeException() {
+    void logAround_ShouldLogFailureAndThrowException_WhenMethodThrowsRuntimeException() throws Throwable {
         // Arrange
-        when(joinPoint.getSignature()).thenReturn(methodSignature);
+        when(proceedingJoinPoint.getSignature()).thenReturn(methodSignature);
         when(methodSignature.getName()).thenReturn("testMethod");
         Throwable exception = new RuntimeException("Test runtime exception");
+        when(proceedingJoinPoint.proceed()).thenThrow(exception);
 
-        // Act
-        loggingAspect.logAfterThrowing(joinPoint, exception);
-
-        // Assert
-        String expectedLog = "testMethod threw exception: Test runtime exception\n";
-        assertEquals(expectedLog, outContent.toString());
+        // Act & Assert
+        Throwable thrown = assertThrows(RuntimeException.class, () -> {
+            loggingAspect.logAround(proceedingJoinPoint);
+        });
+        logWriter.flush();
+        assertEquals(exception, thrown);
+        String logOutput = outContent.toString();
+        assertTrue(logOutput.contains("testMethod threw exception: Test runtime exception\n"));
+        assertTrue(logOutput.contains("testMethod failed in"));
+        assertTrue(logOutput.contains("ns\n"));
+        verify(proceedingJoinPoint, times(1)).proceed();
     }
 
     @Test
-    void logAfterThrowing_ShouldLogExceptionMessage_WithNullMessage() {
+    void logAround_ShouldLogFailureAndThrowException_WhenMethodThrowsCheckedException() throws Throwable {
         // Arrange
-        when(joinPoint.getSignature()).thenReturn(methodSignature);
+        when(proceedingJoinPoint.getSignature()).thenReturn(methodSignature);
         when(methodSignature.getName()).thenReturn("testMethod");
-        Throwable exception = new RuntimeException();
-
-        // Act
-        loggingAspect.logAfterThrowing(joinPoint, exception);
+        Throwable exception = new Exception();
+        when(proceedingJoinPoint.proceed()).thenThrow(exception);
 
-        // Assert
-        String expectedLog = "testMethod threw exception: null\n";
-        assertEquals(expectedLog, outContent.toString());
+        // Act & Assert
+        Throwable thrown = assertThrows(Exception.class, () -> {
+            loggingAspect.logAround(proceedingJoinPoint);
+        });
+        logWriter.flush();
+        assertEquals(exception, thrown);
+        assertTrue(outContent.toString().contains("testMethod threw exception: null\n"));
     }
 
     @Test
-    void logAround_ShouldLogExecutionTimeAndReturnResult_WhenMethodSucceeds() throws Throwable {
+    void logAround_ShouldCapRenderedResult() throws Throwable {
         // Arrange
+        properties.setMaxRenderLength(20);
         when(proceedingJoinPoint.getSignature()).thenReturn(methodSignature);
-        when(methodSignature.getName()).thenReturn("testMethod");
-        Object result = "methodResult";
-        when(proceedingJoinPoint.proceed()).thenReturn(result);
+        when(methodSignature.getName()).thenReturn("getAllContacts");
+        when(proceedingJoinPoint.proceed()).thenReturn(Collections.nCopies(100_000, "contact"));
 
         // Act
-        Object actualResult = loggingAspect.logAround(proceedingJoinPoint);
+        loggingAspect.logAround(proceedingJoinPoint);
+        logWriter.flush();
 
         // Assert
-        assertEquals(result, actualResult);
-        String logOutput = outContent.toString();
-        assertTrue(logOutput.contains("testMethod executed in"));
-        assertTrue(logOutput.contains("ns\n"));
-        verify(proceedingJoinPoint, times(1)).proceed();
+        assertTrue(outContent.toString().contains("Exiting getAllContacts with result: [contact, contact, c"
+                + LogRenderer.TRUNCATED + "\n"));
     }
 
     @Test
-    void logAround_ShouldLogFailureTimeAndThrowException_WhenMethodThrowsRuntimeException() throws Throwable {
+    void logAround_ShouldSkipLogging_WhenMethodSampledOut() throws Throwable {
         // Arrange
+        properties.getSampleRates().put("testMethod", 0.0);
         when(proceedingJoinPoint.getSignature()).thenReturn(methodSignature);
         when(methodSignature.getName()).thenReturn("testMethod");
-        Throwable exception = new RuntimeException("Test runtime exception");
-        when(proceedingJoinPoint.proceed()).thenThrow(exception);
+        when(proceedingJoinPoint.proceed()).thenReturn("methodResult");
 
-        // Act & Assert
-        Throwable thrown = assertThrows(RuntimeException.class, () -> {
-            loggingAspect.logAround(proceedingJoinPoint);
-        });
-        assertEquals(exception, thrown);
-        String logOutput = outContent.toString();
-        assertTrue(logOutput.contains("testMethod failed in"));
-        assertTrue(logOutput.contains("ns\n"));
-        verify(proceedingJoinPoint, times(1)).proceed();
+        // Act
+        Object actualResult = loggingAspect.logAround(proceedingJoinPoint);
+        logWriter.flush();
+
+        // Assert
+        assertEquals("methodResult", actualResult);
+        assertEquals("", outContent.toString());
+        verify(proceedingJoinPoint, never()).getArgs();
     }
 
     @Test
-    void logAround_ShouldLogFailureTimeAndThrowException_WhenMethodThrowsCheckedException() throws Throwable {
+    void logAround_ShouldDropAndCount_WhenBufferFull() throws Throwable {
         // Arrange
+        properties.setBufferSize(2);
+        logWriter = new AsyncLogWriter(properties, meterRegistry);
+        loggingAspect = new LoggingAspect(logWriter, properties, new ServiceMetrics(meterRegistry));
         when(proceedingJoinPoint.getSignature()).thenReturn(methodSignature);
         when(methodSignature.getName()).thenReturn("testMethod");
-        Throwable exception = new Exception("Test checked exception");
-        when(proceedingJoinPoint.proceed()).thenThrow(exception);
+        when(proceedingJoinPoint.proceed()).thenReturn("methodResult");
 
-        // Act & Assert
-        Throwable thrown = assertThrows(Exception.class, () -> {
-            loggingAspect.logAround(proceedingJoinPoint);
-        });
-        assertEquals(exception, thrown);
-        String logOutput = outContent.toString();
-        assertTrue(logOutput.contains("testMethod failed in"));
-        assertTrue(logOutput.contains("ns\n"));
-        verify(proceedingJoinPoint, times(1)).proceed();
+        // Act
+        loggingAspect.logAround(proceedingJoinPoint);
+        loggingAspect.logAround(proceedingJoinPoint);
+
+        // Assert
+        assertEquals(2, logWriter.getDroppedCount());
     }
-}
\ No newline at end of file
+}
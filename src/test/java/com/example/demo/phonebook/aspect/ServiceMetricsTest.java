@@ -0,0 +1,51 @@
+package com.example.demo.phonebook.aspect;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServiceMetricsTest {
+
+    @Test
+    void record_ShouldPublishPercentilesAndPrometheusBuckets() {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        ServiceMetrics serviceMetrics = new ServiceMetrics(registry);
+
+        for (int i = 1; i <= 100; i++) {
+            serviceMetrics.record("ContactService", "getContactById", true, TimeUnit.MILLISECONDS.toNanos(i));
+        }
+
+        Timer timer = registry.get(ServiceMetrics.TIMER_NAME)
+                .tags("class", "ContactService", "method", "getContactById", "outcome", "success").timer();
+        assertEquals(100, timer.count());
+        assertEquals(100.0, timer.max(TimeUnit.MILLISECONDS), 0.001);
+        ValueAtPercentile[] percentiles = timer.takeSnapshot().percentileValues();
+        assertEquals(3, percentiles.length);
+        assertEquals(0.99, percentiles[2].percentile());
+        String scrape = registry.scrape();
+        assertTrue(scrape.contains("phonebook_service_calls_seconds_bucket{class=\"ContactService\","
+                + "method=\"getContactById\",outcome=\"success\""));
+        assertTrue(scrape.contains("quantile=\"0.99\""));
+    }
+
+    @Test
+    void record_ShouldKeepServicesWithTheSameMethodNameApart() {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        ServiceMetrics serviceMetrics = new ServiceMetrics(registry);
+
+        serviceMetrics.record("ContactService", "start", true, TimeUnit.MILLISECONDS.toNanos(1));
+        serviceMetrics.record("ContactDeduplicationService", "start", true, TimeUnit.MILLISECONDS.toNanos(2));
+        serviceMetrics.record("ContactDeduplicationService", "start", true, TimeUnit.MILLISECONDS.toNanos(3));
+
+        assertEquals(1, registry.get(ServiceMetrics.TIMER_NAME)
+                .tags("class", "ContactService", "method", "start", "outcome", "success").timer().count());
+        assertEquals(2, registry.get(ServiceMetrics.TIMER_NAME)
+                .tags("class", "ContactDeduplicationService", "method", "start", "outcome", "success").timer().count());
+    }
+}
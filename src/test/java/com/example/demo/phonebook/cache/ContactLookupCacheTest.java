@@ -0,0 +1,114 @@
+package com.example.demo.phonebook.cache;
+
+import com.example.demo.phonebook.model.Contact;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContactLookupCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ContactLookupCache cache;
+
+    private final Contact contact = new Contact(1L, "John Doe", "123-456-7890", "john.doe@example.com");
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ContactLookupCache(meterRegistry, 100, Duration.ofMinutes(10), Duration.ofSeconds(30));
+    }
+
+    @Test
+    void getById_ShouldLoadOnce_AndCacheMisses() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.getById(1L, id -> { loads.incrementAndGet(); return Optional.of(contact); });
+        Optional<Contact> hit = cache.getById(1L, id -> { loads.incrementAndGet(); return Optional.empty(); });
+        cache.getById(2L, id -> { loads.incrementAndGet(); return Optional.empty(); });
+        Optional<Contact> miss = cache.getById(2L, id -> { loads.incrementAndGet(); return Optional.of(contact); });
+
+        assertEquals(Optional.of(contact), hit);
+        assertTrue(miss.isEmpty());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void index_ShouldEvictIdAndBothPhoneKeys() {
+        cache.getById(1L, id -> Optional.of(contact));
+        cache.getByPhone("123-456-7890", phone -> contact);
+        cache.getByPhone("555-555-5555", phone -> null);
+
+        cache.index(new Contact(1L, "John Doe", "555-555-5555", null));
+
+        assertTrue(cache.getById(1L, id -> Optional.empty()).isEmpty());
+        assertNull(cache.getByPhone("123-456-7890", phone -> null));
+        assertNotNull(cache.getByPhone("555-555-5555", phone -> contact));
+    }
+
+    @Test
+    void remove_ShouldEvictIdAndPhoneKey() {
+        cache.getById(1L, id -> Optional.of(contact));
+        cache.getByPhone("123-456-7890", phone -> contact);
+
+        cache.remove(1L);
+
+        assertTrue(cache.getById(1L, id -> Optional.empty()).isEmpty());
+        assertNull(cache.getByPhone("123-456-7890", phone -> null));
+    }
+
+    @Test
+    void metrics_ShouldCountHitsAndMisses() {
+        cache.getByPhone("123-456-7890", phone -> contact);
+        cache.getByPhone("123-456-7890", phone -> contact);
+
+        assertEquals(1.0, meterRegistry.get("cache.gets").tags("cache", "contacts.byPhone", "result", "hit")
+                .functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tags("cache", "contacts.byPhone", "result", "miss")
+                .functionCounter().count());
+    }
+
+    @Test
+    void invalidation_ShouldNotWaitForInFlightLoad_NorCacheItsResult() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Optional<Contact>> slowLoad = CompletableFuture.supplyAsync(() ->
+                cache.getById(1L, id -> {
+                    loading.countDown();
+                    awaitQuietly(release);
+                    return Optional.of(contact);
+                }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        cache.remove(1L);
+        release.countDown();
+
+        assertEquals(Optional.of(contact), slowLoad.get(5, TimeUnit.SECONDS));
+        assertTrue(cache.getById(1L, id -> Optional.empty()).isEmpty());
+    }
+
+    @Test
+    void failedLoad_ShouldPropagate_AndNotBeCached() {
+        assertThrows(IllegalStateException.class,
+                () -> cache.getById(1L, id -> { throw new IllegalStateException("db down"); }));
+
+        assertEquals(Optional.of(contact), cache.getById(1L, id -> Optional.of(contact)));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.demo.phonebook.changes;
+
+import com.example.demo.phonebook.exception.InvalidRequestException;
+import com.example.demo.phonebook.exception.ServiceUnavailableException;
+import com.example.demo.phonebook.model.ContactChange;
+import com.example.demo.phonebook.repository.ContactChangeRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ContactChangeFeedTest {
+
+    private static final Instant T0 = Instant.now();
+
+    @Mock
+    private ContactChangeRepository changeRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ContactChangeFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        // The dispatcher thread is not started; the tests tick by hand
+        feed = new ContactChangeFeed(changeRepository, transactionManager, new ObjectMapper().findAndRegisterModules(),
+                Duration.ofMillis(100), Duration.ofDays(7), 2, 1000, 4);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        feed.destroy();
+    }
+
+    @Test
+    void subscribe_ShouldReplayStoredChangesAsSse_ThenGoLive() throws Exception {
+        // The SSE id is the feed position, not seq
+        when(changeRepository.findByPosition(10L)).thenReturn(Optional.of(change(40L, 1L, 10L)));
+        when(changeRepository.findAfter(eq(10L), any(Limit.class))).thenReturn(List.of(change(30L, 2L, 11L)));
+        CapturingEmitter emitter = new CapturingEmitter();
+
+        feed.subscribe(10L, ContactChangeFeed.Format.SSE, emitter);
+        awaitSubscribers(1);
+
+        assertEquals(1, emitter.chunks.size());
+        assertTrue(emitter.chunks.get(0).startsWith("id:11\nevent:change\ndata:{\"seq\":30,\"contactId\":2,"));
+        assertTrue(emitter.chunks.get(0).endsWith("}\n\n"));
+    }
+
+    @Test
+    void subscribe_ShouldRejectUnknownPosition() {
+        when(changeRepository.findByPosition(5L)).thenReturn(Optional.empty());
+
+        assertThrows(InvalidRequestException.class,
+                () -> feed.subscribe(5L, ContactChangeFeed.Format.SSE, new CapturingEmitter()));
+    }
+
+    @Test
+    void dispatch_ShouldCoalescePerContact_AndFlushOnce() throws Exception {
+        CapturingEmitter emitter = new CapturingEmitter();
+        feed.subscribe(null, ContactChangeFeed.Format.NDJSON, emitter);
+        when(changeRepository.findAfter(anyLong(), any(Limit.class)))
+                .thenReturn(List.of(change(1L, 7L, 1), change(2L, 8L, 2), change(3L, 7L, 3)));
+
+        feed.dispatch();
+
+        String chunk = awaitChunk(emitter);
+        String[] lines = chunk.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"seq\":2,\"contactId\":8,"));
+        assertTrue(lines[1].startsWith("{\"seq\":3,\"contactId\":7,"));
+    }
+
+    @Test
+    void dispatch_ShouldSequence_WhileNobodySubscribes() {
+        when(changeRepository.findUnpositioned(any(Limit.class))).thenReturn(List.of());
+
+        feed.dispatch();
+
+        verify(changeRepository).findUnpositioned(Limit.of(1000));
+        verify(changeRepository, never()).findAfter(anyLong(), any(Limit.class));
+    }
+
+    @Test
+    void dispatch_ShouldReadAndHandOutTheBacklogInPages() throws Exception {
+        ContactChangeFeed paged = new ContactChangeFeed(changeRepository, transactionManager,
+                new ObjectMapper().findAndRegisterModules(), Duration.ofMillis(100), Duration.ofDays(7), 10, 2, 4);
+        try {
+            CapturingEmitter emitter = new CapturingEmitter();
+            paged.subscribe(null, ContactChangeFeed.Format.NDJSON, emitter);
+            when(changeRepository.findAfter(0L, Limit.of(2))).thenReturn(List.of(change(1L, 7L, 1), change(2L, 8L, 2)));
+            when(changeRepository.findAfter(2L, Limit.of(2))).thenReturn(List.of(change(3L, 7L, 3)));
+
+            paged.dispatch();
+
+            verify(changeRepository, times(2)).findAfter(anyLong(), eq(Limit.of(2)));
+            // Coalescing stops at the page: contact 7 is sent for both pages
+            for (int i = 0; i < 100 && String.join("", emitter.chunks).split("\n").length < 3; i++) {
+                Thread.sleep(10);
+            }
+            assertEquals(3, String.join("", emitter.chunks).split("\n").length);
+        } finally {
+            paged.destroy();
+        }
+    }
+
+    @Test
+    void dispatch_ShouldDisconnectSubscriber_WhenItsBufferOverflows() throws Exception {
+        CapturingEmitter emitter = new CapturingEmitter();
+        feed.subscribe(null, ContactChangeFeed.Format.NDJSON, emitter);
+        when(changeRepository.findAfter(anyLong(), any(Limit.class)))
+                .thenReturn(List.of(change(1L, 1L, 1), change(2L, 2L, 2), change(3L, 3L, 3)));
+
+        feed.dispatch();
+
+        // The two that fit are still delivered before the stream ends; the client resumes after position 2
+        String chunk = awaitChunk(emitter);
+        assertEquals(2, chunk.split("\n").length);
+        for (int i = 0; i < 100 && !emitter.completed; i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(emitter.completed);
+        assertEquals(0, feed.getSubscriberCount());
+    }
+
+    @Test
+    void subscribe_ShouldRejectSubscribersPastTheLimit_AndFreeTheSlotsOfFailedOnes() throws InterruptedException {
+        ContactChangeFeed full = new ContactChangeFeed(changeRepository, transactionManager, new ObjectMapper(),
+                Duration.ofMillis(100), Duration.ofDays(7), 2, 1000, 1);
+        try {
+            when(changeRepository.findByPosition(5L)).thenReturn(Optional.empty());
+            assertThrows(InvalidRequestException.class,
+                    () -> full.subscribe(5L, ContactChangeFeed.Format.SSE, new CapturingEmitter()));
+
+            full.subscribe(null, ContactChangeFeed.Format.SSE, new CapturingEmitter());
+
+            ServiceUnavailableException rejected = assertThrows(ServiceUnavailableException.class,
+                    () -> full.subscribe(null, ContactChangeFeed.Format.SSE, new CapturingEmitter()));
+            assertTrue(rejected.getRetryAfter().toSeconds() > 0);
+            assertEquals(1, full.getSubscriberCount());
+        } finally {
+            full.destroy();
+        }
+    }
+
+    @Test
+    void sequence_ShouldPositionCommittedRowsAfterTheLastPosition_WhateverTheirSeqOrTime() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        // Written first with a lower seq, but committed after rows that already have positions up to 7
+        ContactChange late = new ContactChange(3L, 1L, ContactChange.Type.UPSERT, 0L, T0.minusSeconds(60), null);
+        ContactChange next = new ContactChange(150L, 2L, ContactChange.Type.UPSERT, 0L, T0, null);
+        when(changeRepository.findUnpositioned(any(Limit.class))).thenReturn(List.of(late, next));
+        when(changeRepository.findMaxPosition()).thenReturn(7L);
+        when(changeRepository.assignPosition(anyLong(), anyLong())).thenReturn(1);
+
+        assertEquals(9L, feed.sequence());
+
+        InOrder inOrder = inOrder(changeRepository);
+        inOrder.verify(changeRepository).assignPosition(3L, 8L);
+        inOrder.verify(changeRepository).assignPosition(150L, 9L);
+    }
+
+    @Test
+    void sequence_ShouldRollBack_WhenAnotherSequencerPositionedARowFirst() {
+        SimpleTransactionStatus status = new SimpleTransactionStatus();
+        when(transactionManager.getTransaction(any())).thenReturn(status);
+        when(changeRepository.findUnpositioned(any(Limit.class))).thenReturn(List.of(
+                new ContactChange(3L, 1L, ContactChange.Type.UPSERT, 0L, T0, null),
+                new ContactChange(4L, 2L, ContactChange.Type.UPSERT, 0L, T0, null)));
+        when(changeRepository.findMaxPosition()).thenReturn(7L);
+        when(changeRepository.assignPosition(3L, 8L)).thenReturn(0);
+
+        assertEquals(-1L, feed.sequence());
+
+        assertTrue(status.isRollbackOnly());
+        verify(changeRepository, never()).assignPosition(eq(4L), anyLong());
+    }
+
+    private static ContactChange change(long seq, long contactId, long position) {
+        return new ContactChange(seq, contactId, ContactChange.Type.UPSERT, 0L, T0, position);
+    }
+
+    private void awaitSubscribers(int count) throws InterruptedException {
+        for (int i = 0; i < 100 && feed.getSubscriberCount() != count; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, feed.getSubscriberCount());
+    }
+
+    private static String awaitChunk(CapturingEmitter emitter) throws InterruptedException {
+        for (int i = 0; i < 100 && emitter.chunks.isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, emitter.chunks.size());
+        return emitter.chunks.get(0);
+    }
+
+    private static final class CapturingEmitter extends ResponseBodyEmitter {
+        private final List<String> chunks = new CopyOnWriteArrayList<>();
+        private volatile boolean completed;
+
+        @Override
+        public void send(Object object, MediaType mediaType) {
+            chunks.add((String) object);
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
@@ -1,25 +1,61 @@
 package com.example.demo.phonebook.controller;
 
+import com.example.demo.phonebook.changes.ContactChangeFeed;
+import com.example.demo.phonebook.changes.ContactCollectionVersion;
+import com.example.demo.phonebook.datasource.SqlStatistics;
+import com.example.demo.phonebook.exception.ContactVersionConflictException;
+import com.example.demo.phonebook.exception.InvalidRequestException;
+import com.example.demo.phonebook.model.BulkImportChunk;
+import com.example.demo.phonebook.model.BulkImportResult;
 import com.example.demo.phonebook.model.Contact;
+import com.example.demo.phonebook.model.ContactBatchItem;
+import com.example.demo.phonebook.model.ContactMatch;
+import com.example.demo.phonebook.model.ContactPage;
+import com.example.demo.phonebook.model.ContactPatch;
+import com.example.demo.phonebook.model.ContactSuggestion;
+import com.example.demo.phonebook.model.DeduplicationJob;
+import com.example.demo.phonebook.model.DuplicateCluster;
+import com.example.demo.phonebook.repository.ContactChangeRepository;
+import com.example.demo.phonebook.service.ContactDeduplicationService;
+import com.example.demo.phonebook.service.ContactImportService;
 import com.example.demo.phonebook.service.ContactService;
+import com.example.demo.phonebook.trace.RequestFlightRecorder;
+import com.example.demo.phonebook.writebehind.ContactWriteBuffer;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.time.Instant;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(ContactController.class)
+@Import({ContactCollectionVersion.class, ContactMessageConverterConfig.class, SqlStatistics.class,
+        RequestFlightRecorder.class})
 class ContactControllerTest {
 
     @Autowired
@@ -28,9 +64,29 @@ class ContactControllerTest {
     @MockBean
     private ContactService contactService;
 
+    @MockBean
+    private ContactImportService contactImportService;
+
+    @MockBean
+    private ContactDeduplicationService contactDeduplicationService;
+
+    @MockBean
+    private ContactChangeFeed contactChangeFeed;
+
+    @MockBean
+    private ContactChangeRepository contactChangeRepository;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private ContactCollectionVersion collectionVersion;
+
+    @BeforeEach
+    void setUp() {
+        when(contactChangeRepository.findCollectionVersion()).thenReturn(7L);
+    }
+
     @Test
     void createContact_shouldReturnCreatedContact() throws Exception {
         Contact contact = new Contact(1L,"Alice", "123-456-7890", "alice@email.com");
@@ -45,15 +101,99 @@ class ContactControllerTest {
     }
 
     @Test
-    void getAllContacts_shouldReturnList() throws Exception {
+    void importContacts_shouldReturnChunkCounts_forCsv() throws Exception {
+        BulkImportResult result = new BulkImportResult(2, 1,
+                List.of(new BulkImportChunk(1, 2, 1, List.of("line 3: Phone number must be in format XXX-XXX-XXXX"))));
+
+        when(contactImportService.importContacts(any(), Mockito.eq(ContactImportService.Format.CSV))).thenReturn(result);
+
+        mockMvc.perform(post("/api/phonebook/bulk")
+                        .contentType(ContactController.TEXT_CSV_VALUE)
+                        .content("Alice,123-456-7890\nBob,987-654-3210\nEve,bad\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(2))
+                .andExpect(jsonPath("$.chunks[0].rejected").value(1));
+    }
+
+    @Test
+    void importContacts_shouldPickNdjsonFormat() throws Exception {
+        when(contactImportService.importContacts(any(), Mockito.eq(ContactImportService.Format.NDJSON)))
+                .thenReturn(new BulkImportResult(1, 0, List.of(new BulkImportChunk(1, 1, 0, List.of()))));
+
+        mockMvc.perform(post("/api/phonebook/bulk")
+                        .contentType(ContactController.APPLICATION_NDJSON_VALUE)
+                        .content("{\"name\":\"Alice\",\"phoneNumber\":\"123-456-7890\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(1));
+    }
+
+    @Test
+    void getAllContacts_shouldReturnFirstPage() throws Exception {
         Contact contact1 = new Contact(1L, "Alice", "123-456-7890","alice@email.com");
         Contact contact2 = new Contact(2L, "Bob", "987-654-3210","bob@email.com");
 
-        when(contactService.getAllContacts()).thenReturn(Arrays.asList(contact1, contact2));
+        when(contactService.getContactsPage(null, 100))
+                .thenReturn(new ContactPage(Arrays.asList(contact1, contact2), "Mg"));
 
         mockMvc.perform(get("/api/phonebook"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()").value(2));
+                .andExpect(jsonPath("$.contacts.length()").value(2))
+                .andExpect(jsonPath("$.next").value("Mg"));
+    }
+
+    @Test
+    void getAllContacts_shouldPassCursorAndLimit() throws Exception {
+        Contact contact = new Contact(3L, "Carol", "555-555-5555","carol@email.com");
+
+        when(contactService.getContactsPage("Mg", 1)).thenReturn(new ContactPage(List.of(contact), null));
+
+        mockMvc.perform(get("/api/phonebook").param("cursor", "Mg").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.contacts[0].name").value("Carol"))
+                .andExpect(jsonPath("$.next").doesNotExist());
+    }
+
+    @Test
+    void getAllContacts_shouldReturnBadRequest_whenCursorInvalid() throws Exception {
+        when(contactService.getContactsPage("bogus", 100)).thenThrow(new InvalidRequestException("Invalid cursor: bogus"));
+
+        mockMvc.perform(get("/api/phonebook").param("cursor", "bogus"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getAllContacts_shouldReturnServerError_forAnIllegalArgumentThatIsNotTheClients() throws Exception {
+        when(contactService.getContactsPage(null, 100)).thenThrow(new IllegalArgumentException("negative key -1"));
+
+        mockMvc.perform(get("/api/phonebook"))
+                .andExpect(status().isInternalServerError());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void streamAllContacts_shouldWriteOneJsonObjectPerLine() throws Exception {
+        Contact contact1 = new Contact(1L, "Alice", "123-456-7890","alice@email.com");
+        Contact contact2 = new Contact(2L, "Bob", "987-654-3210","bob@email.com");
+
+        doAnswer(invocation -> {
+            Consumer<Contact> action = invocation.getArgument(0);
+            action.accept(contact1);
+            action.accept(contact2);
+            return null;
+        }).when(contactService).streamAllContacts(any(Consumer.class));
+
+        MvcResult result = mockMvc.perform(get("/api/phonebook").accept(ContactController.APPLICATION_NDJSON_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(ContactController.APPLICATION_NDJSON_VALUE))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("Alice", objectMapper.readValue(lines[0], Contact.class).getName());
+        assertEquals("Bob", objectMapper.readValue(lines[1], Contact.class).getName());
     }
 
     @Test
@@ -105,6 +245,30 @@ class ContactControllerTest {
                 .andExpect(jsonPath("$.length()").value(1));
     }
 
+    @Test
+    void suggest_shouldReturnIdNameProjections() throws Exception {
+        when(contactService.getSuggestions("al", 5)).thenReturn(List.of(new ContactSuggestion(1L, "Alice")));
+
+        mockMvc.perform(get("/api/phonebook/suggest").param("prefix", "al").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].name").value("Alice"))
+                .andExpect(jsonPath("$[0].phoneNumber").doesNotExist());
+    }
+
+    @Test
+    void searchFuzzy_shouldReturnRankedMatches() throws Exception {
+        Contact john = new Contact(1L, "John Smith", "123-456-7890", null);
+        when(contactService.getFuzzyMatches("Jonh Smtih", 1, 10)).thenReturn(List.of(new ContactMatch(john, 2, 2)));
+
+        mockMvc.perform(get("/api/phonebook/search/fuzzy").param("q", "Jonh Smtih").param("maxDistance", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$[0].contact.name").value("John Smith"))
+                .andExpect(jsonPath("$[0].matchedTokens").value(2))
+                .andExpect(jsonPath("$[0].distance").value(2));
+    }
+
     @Test
     void updateContact_shouldReturnUpdatedContact_whenFound() throws Exception {
         Contact contact = new Contact(1L, "Alice", "123-456-7890","alice@email.com");
@@ -130,9 +294,293 @@ class ContactControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void updateContact_shouldReturnConflict_whenVersionIsStale() throws Exception {
+        Contact contact = new Contact(1L, "Alice", "123-456-7890", "alice@email.com", 2L);
+
+        when(contactService.updateContact(Mockito.eq(1L), any(Contact.class)))
+                .thenThrow(new ContactVersionConflictException(1L, 2L));
+
+        mockMvc.perform(put("/api/phonebook/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(contact)))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void updateContact_shouldAcknowledgeOnceQueued_WhenWriteBehindAndRespondAsyncPreferred() throws Exception {
+        Contact contact = new Contact(1L, "Alice", "123-456-7890", "alice@email.com");
+        when(contactService.isWriteBehindEnabled()).thenReturn(true);
+        when(contactService.queueUpdate(Mockito.eq(1L), any(Contact.class), Mockito.eq(ContactWriteBuffer.Ack.ENQUEUE)))
+                .thenReturn(contact);
+
+        mockMvc.perform(put("/api/phonebook/1")
+                        .header(ContactController.PREFER, ContactController.RESPOND_ASYNC)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(contact)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(ContactController.PREFERENCE_APPLIED, ContactController.RESPOND_ASYNC))
+                .andExpect(jsonPath("$.name").value("Alice"));
+
+        verify(contactService, never()).updateContact(any(), any());
+    }
+
+    @Test
+    void patchContact_shouldReturnPatchedContact_whenFound() throws Exception {
+        Contact contact = new Contact(1L, "Alice", "123-456-7890", "new@email.com", 4L);
+
+        when(contactService.patchContact(1L, new ContactPatch(null, null, "new@email.com", 3L))).thenReturn(contact);
+
+        mockMvc.perform(patch("/api/phonebook/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"new@email.com\",\"version\":3}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value("new@email.com"))
+                .andExpect(jsonPath("$.version").value(4));
+    }
+
+    @Test
+    void patchContact_shouldRejectInvalidPhoneNumber() throws Exception {
+        mockMvc.perform(patch("/api/phonebook/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"phoneNumber\":\"1234567890\"}"))
+                .andExpect(status().is5xxServerError());
+
+        verify(contactService, never()).patchContact(any(), any());
+    }
+
+    @Test
+    void patchContact_shouldReturnNotFound_whenNotFound() throws Exception {
+        when(contactService.patchContact(Mockito.eq(1L), any(ContactPatch.class))).thenReturn(null);
+
+        mockMvc.perform(patch("/api/phonebook/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Alice\"}"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void deleteContact_shouldReturnNoContent() throws Exception {
         mockMvc.perform(delete("/api/phonebook/1"))
                 .andExpect(status().isNoContent());
     }
+
+    @Test
+    void batchGet_shouldReturnPerIdStatus() throws Exception {
+        Contact contact = new Contact(1L, "Alice", "123-456-7890", null);
+        when(contactService.getContactsByIds(List.of(1L, 2L))).thenReturn(List.of(
+                new ContactBatchItem(1L, ContactBatchItem.Status.FOUND, contact),
+                new ContactBatchItem(2L, ContactBatchItem.Status.NOT_FOUND, null)));
+
+        mockMvc.perform(post("/api/phonebook/batch-get")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1,2]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("FOUND"))
+                .andExpect(jsonPath("$[0].contact.name").value("Alice"))
+                .andExpect(jsonPath("$[1].status").value("NOT_FOUND"))
+                .andExpect(jsonPath("$[1].contact").doesNotExist());
+    }
+
+    @Test
+    void batchDelete_shouldReturnBadRequest_whenBatchTooLarge() throws Exception {
+        when(contactService.deleteContacts(any())).thenThrow(new InvalidRequestException("at most 1000 ids per batch"));
+
+        mockMvc.perform(post("/api/phonebook/batch-delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getContactById_shouldSendValidators_andAnswer304WhenUnchanged() throws Exception {
+        Instant updatedAt = Instant.parse("2026-01-02T03:04:05Z");
+        Contact contact = new Contact(1L, "Alice", "123-456-7890", null, 2L, updatedAt);
+        when(contactService.getContactById(1L)).thenReturn(Optional.of(contact));
+
+        mockMvc.perform(get("/api/phonebook/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-2\""))
+                .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, updatedAt.toEpochMilli()));
+        mockMvc.perform(get("/api/phonebook/1").header(HttpHeaders.IF_NONE_MATCH, "\"1-2\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/phonebook/1").header(HttpHeaders.IF_MODIFIED_SINCE, "Fri, 02 Jan 2026 03:04:05 GMT"))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/phonebook/1").header(HttpHeaders.IF_NONE_MATCH, "\"1-1\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void getContactById_shouldNotAnswer304_forAQueuedUpdateWithoutVersion() throws Exception {
+        Contact preview = new Contact(1L, "Alice", "123-456-7890", null, null, Instant.now());
+        when(contactService.getContactById(1L)).thenReturn(Optional.of(preview));
+
+        mockMvc.perform(get("/api/phonebook/1").header(HttpHeaders.IF_NONE_MATCH, "\"1-0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED))
+                .andExpect(jsonPath("$.name").value("Alice"));
+    }
+
+    @Test
+    void searchByName_shouldUseCollectionVersionAsETag() throws Exception {
+        when(contactService.getContactsByName("Al")).thenReturn(List.of());
+
+        String etag = mockMvc.perform(get("/api/phonebook/search/name/Al"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/phonebook/search/name/Al").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+        // The 304 was answered without running the search
+        verify(contactService, times(1)).getContactsByName("Al");
+
+        // A write by any instance adds an outbox row
+        when(contactChangeRepository.findCollectionVersion()).thenReturn(8L);
+        mockMvc.perform(get("/api/phonebook/search/name/Al").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void collectionGets_shouldAnswer304WithoutQuerying_whenTheCollectionIsUnchanged() throws Exception {
+        String version = collectionVersion.current();
+
+        mockMvc.perform(get("/api/phonebook").header(HttpHeaders.IF_NONE_MATCH, "\"page-" + version + "\""))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/phonebook/search/fuzzy").param("q", "Jonh")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"fuzzy-" + version + "\""))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/phonebook/suggest").param("prefix", "Jo")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"suggest-" + version + "\""))
+                .andExpect(status().isNotModified());
+
+        verifyNoInteractions(contactService);
+    }
+
+    @Test
+    void updateContact_shouldTakeVersionFromIfMatch_andAnswer412WhenStale() throws Exception {
+        Contact contact = new Contact(null, "Alice", "123-456-7890", null);
+        when(contactService.updateContact(Mockito.eq(1L), any(Contact.class)))
+                .thenThrow(new ContactVersionConflictException(1L, 2L));
+
+        mockMvc.perform(put("/api/phonebook/1")
+                        .header(HttpHeaders.IF_MATCH, "\"1-2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(contact)))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(contactService).updateContact(Mockito.eq(1L),
+                Mockito.argThat(sent -> Long.valueOf(2L).equals(sent.getVersion())));
+    }
+
+    @Test
+    void deleteContact_shouldAnswer412_whenIfMatchNamesAnotherContact() throws Exception {
+        mockMvc.perform(delete("/api/phonebook/1").header(HttpHeaders.IF_MATCH, "\"7-2\""))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(contactService, never()).deleteContact(any());
+        verify(contactService, never()).deleteContact(any(), any());
+    }
+
+    @Test
+    void deleteContact_shouldDeleteAtIfMatchVersion() throws Exception {
+        when(contactService.deleteContact(1L, 2L)).thenReturn(true);
+
+        mockMvc.perform(delete("/api/phonebook/1").header(HttpHeaders.IF_MATCH, "\"1-2\""))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void getAllContacts_shouldNegotiateCbor_withItsOwnETag() throws Exception {
+        Contact contact = new Contact(1L, "Alice", "123-456-7890", null);
+        when(contactService.getContactsPage(null, 100)).thenReturn(new ContactPage(List.of(contact), null));
+
+        MvcResult result = mockMvc.perform(get("/api/phonebook").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andReturn();
+
+        ContactPage page = new ObjectMapper(new CBORFactory())
+                .readValue(result.getResponse().getContentAsByteArray(), ContactPage.class);
+        assertEquals(List.of(contact), page.getContacts());
+        assertTrue(result.getResponse().getHeader(HttpHeaders.ETAG).endsWith("-cbor\""));
+    }
+
+    @Test
+    void searchByName_shouldNegotiateProtobuf_withContentLength() throws Exception {
+        List<Contact> contacts = List.of(new Contact(1L, "Alice", "123-456-7890", null));
+        when(contactService.getContactsByName("Al")).thenReturn(contacts);
+
+        MvcResult result = mockMvc.perform(get("/api/phonebook/search/name/Al")
+                        .accept(ContactProtobuf.APPLICATION_PROTOBUF))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(ContactProtobuf.APPLICATION_PROTOBUF))
+                .andReturn();
+
+        assertEquals(ContactProtobuf.size(contacts, null), result.getResponse().getContentLength());
+    }
+
+    @Test
+    void getContactById_shouldKeepJson_forWildcardAccept() throws Exception {
+        when(contactService.getContactById(1L))
+                .thenReturn(Optional.of(new Contact(1L, "Alice", "123-456-7890", null, 0L, null)));
+
+        mockMvc.perform(get("/api/phonebook/1").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-0\""));
+    }
+
+    @Test
+    void startDeduplication_shouldReturnAcceptedJob() throws Exception {
+        DeduplicationJob job = new DeduplicationJob();
+        job.setId(1);
+        job.setStatus(DeduplicationJob.Status.SCANNING_KEYS);
+        when(contactDeduplicationService.start()).thenReturn(job);
+
+        mockMvc.perform(post("/api/phonebook/dedup"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, "/api/phonebook/dedup"))
+                .andExpect(jsonPath("$.status").value("SCANNING_KEYS"));
+    }
+
+    @Test
+    void deduplicationStatus_shouldReturnNotFound_beforeAnyRun() throws Exception {
+        when(contactDeduplicationService.status()).thenReturn(Optional.empty());
+        when(contactDeduplicationService.getClusters(0, 100)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/phonebook/dedup")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/phonebook/dedup/clusters")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void duplicateClusters_shouldReturnPage() throws Exception {
+        when(contactDeduplicationService.getClusters(10, 5))
+                .thenReturn(Optional.of(List.of(new DuplicateCluster(List.of(1L, 2L), List.of("phone")))));
+
+        mockMvc.perform(get("/api/phonebook/dedup/clusters").param("offset", "10").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].contactIds[1]").value(2))
+                .andExpect(jsonPath("$[0].matchedOn[0]").value("phone"));
+    }
+
+    @Test
+    void streamChanges_shouldResumeFromLastEventId_AsSse() throws Exception {
+        mockMvc.perform(get("/api/phonebook/changes").header(ContactController.LAST_EVENT_ID, "41"))
+                .andExpect(request().asyncStarted());
+
+        verify(contactChangeFeed).subscribe(Mockito.eq(41L), Mockito.eq(ContactChangeFeed.Format.SSE), any());
+    }
+
+    @Test
+    void streamChanges_shouldStreamNdjson_WhenAsked() throws Exception {
+        mockMvc.perform(get("/api/phonebook/changes").param("since", "0")
+                        .accept(ContactController.APPLICATION_NDJSON_VALUE))
+                .andExpect(request().asyncStarted());
+
+        verify(contactChangeFeed).subscribe(Mockito.eq(0L), Mockito.eq(ContactChangeFeed.Format.NDJSON), any());
+    }
 }
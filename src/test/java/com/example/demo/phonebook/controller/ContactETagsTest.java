@@ -0,0 +1,55 @@
+package com.example.demo.phonebook.controller;
+
+import com.example.demo.phonebook.exception.PreconditionFailedException;
+import com.example.demo.phonebook.model.Contact;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContactETagsTest {
+
+    private final Contact contact = new Contact(1L, "Alice", "123-456-7890", null, 2L);
+
+    @Test
+    void of_ShouldTagEachRepresentationSeparately() {
+        assertEquals("\"1-2\"", ContactETags.of(contact));
+        assertEquals("\"1-2\"", ContactETags.of(contact, "*/*"));
+        assertEquals("\"1-2\"", ContactETags.of(contact, "application/json, application/cbor"));
+        assertEquals("\"1-2-cbor\"", ContactETags.of(contact, "*/*, application/cbor"));
+        assertEquals("\"1-2-pb\"", ContactETags.of(contact, "application/json;q=0.5, application/x-protobuf"));
+        assertEquals("\"1-2-smile\"", ContactETags.of(contact, "application/x-jackson-smile"));
+        assertEquals("\"1-2\"", ContactETags.of(contact, "not a media type"));
+    }
+
+    @Test
+    void ofCollection_ShouldTagJsonAndNdjsonSeparately() {
+        assertEquals("\"search-7\"", ContactETags.ofCollection("search", "7", "application/json"));
+        assertEquals("\"search-7-ndjson\"", ContactETags.ofCollection("search", "7", "application/x-ndjson"));
+        assertEquals("\"search-7\"", ContactETags.ofCollection("search", "7", "*/*"));
+    }
+
+    @Test
+    void ok_ShouldSendNoValidators_ForAContactWithoutVersion() {
+        // What a write-behind preview of an update that named no version looks like
+        Contact preview = new Contact(1L, "Alice", "123-456-7890", null, null, Instant.now());
+
+        ResponseEntity<Contact> response = ContactETags.ok(preview, "application/json");
+
+        assertNull(response.getHeaders().getETag());
+        assertEquals(-1, response.getHeaders().getLastModified());
+        assertSame(preview, response.getBody());
+    }
+
+    @Test
+    void ifMatchVersion_ShouldAcceptAnyRepresentationOfTheContact() {
+        assertEquals(2L, ContactETags.ifMatchVersion(1L, "\"1-2\""));
+        assertEquals(2L, ContactETags.ifMatchVersion(1L, "\"1-2-cbor\""));
+        assertNull(ContactETags.ifMatchVersion(1L, "*"));
+        assertThrows(PreconditionFailedException.class, () -> ContactETags.ifMatchVersion(1L, "\"11-2\""));
+        assertThrows(PreconditionFailedException.class, () -> ContactETags.ifMatchVersion(1L, "W/\"1-2\""));
+        assertThrows(PreconditionFailedException.class, () -> ContactETags.ifMatchVersion(1L, "\"1-\""));
+    }
+}
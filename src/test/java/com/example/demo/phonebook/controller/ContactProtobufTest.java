@@ -0,0 +1,54 @@
+package com.example.demo.phonebook.controller;
+
+import com.example.demo.phonebook.model.Contact;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnknownFieldSet;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContactProtobufTest {
+
+    private static UnknownFieldSet parse(ByteArrayOutputStream out) throws IOException {
+        return UnknownFieldSet.parseFrom(out.toByteArray());
+    }
+
+    @Test
+    void write_ShouldFollowContactProtoFieldNumbers_AndSkipUnsetFields() throws IOException {
+        Contact contact = new Contact(7L, "Alice", "123-456-7890", null, 2L, Instant.ofEpochMilli(1234));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        ContactProtobuf.write(contact, out);
+
+        UnknownFieldSet fields = parse(out);
+        assertEquals(List.of(7L), fields.getField(1).getVarintList());
+        assertEquals(List.of(ByteString.copyFromUtf8("Alice")), fields.getField(2).getLengthDelimitedList());
+        assertEquals(List.of(ByteString.copyFromUtf8("123-456-7890")), fields.getField(3).getLengthDelimitedList());
+        assertFalse(fields.hasField(4));
+        assertEquals(List.of(2L), fields.getField(5).getVarintList());
+        assertEquals(List.of(1234L), fields.getField(6).getVarintList());
+        assertEquals(out.size(), ContactProtobuf.size(contact));
+    }
+
+    @Test
+    void writeList_ShouldNestContacts_AndAppendCursor() throws IOException {
+        List<Contact> contacts = List.of(new Contact(1L, "Alice", "111-111-1111", null),
+                new Contact(2L, "Bob", "222-222-2222", "bob@example.com"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        ContactProtobuf.write(contacts, "Mg", out);
+
+        UnknownFieldSet page = parse(out);
+        List<ByteString> nested = page.getField(1).getLengthDelimitedList();
+        assertEquals(2, nested.size());
+        assertEquals(List.of(ByteString.copyFromUtf8("bob@example.com")),
+                UnknownFieldSet.parseFrom(nested.get(1)).getField(4).getLengthDelimitedList());
+        assertEquals(List.of(ByteString.copyFromUtf8("Mg")), page.getField(2).getLengthDelimitedList());
+        assertEquals(out.size(), ContactProtobuf.size(contacts, "Mg"));
+    }
+}
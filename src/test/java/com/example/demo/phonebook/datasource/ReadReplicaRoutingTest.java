@@ -0,0 +1,100 @@
+package com.example.demo.phonebook.datasource;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Separate embedded databases stand in for the primary and two replicas that never receive its writes
+@SpringBootTest(properties = {
+        "spring.profiles.active=test",
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        // The second-level cache would answer reads of the new row before any replica is asked
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+        "phonebook.datasource.routing.replicas[0].url=jdbc:h2:mem:routing-replica-0;DB_CLOSE_DELAY=-1;"
+                + "INIT=RUNSCRIPT FROM 'classpath:reactive-schema-h2.sql'",
+        "phonebook.datasource.routing.replicas[0].username=sa",
+        "phonebook.datasource.routing.replicas[1].url=jdbc:h2:mem:routing-replica-1;DB_CLOSE_DELAY=-1;"
+                + "INIT=RUNSCRIPT FROM 'classpath:reactive-schema-h2.sql'",
+        "phonebook.datasource.routing.replicas[1].username=sa",
+        "phonebook.datasource.routing.replica-lag=500ms",
+        // The change feed's dispatcher sequences the outbox every tick. This context stays cached for the
+        // rest of the run, and its SQL logging would land in the output other tests capture
+        "phonebook.changes.flush-interval=1h",
+        "debug=false"
+})
+@AutoConfigureMockMvc
+class ReadReplicaRoutingTest {
+    private static final long REPLICA_LAG_MILLIS = 500;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void writerReadsItsWrite_FromPrimary_WhileOtherClientsReadReplicas() throws Exception {
+        mockMvc.perform(post("/api/phonebook")
+                        .header(ReadYourWritesFilter.CLIENT_HEADER, "writer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Routed\",\"phoneNumber\":\"555-000-0001\"}"))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/phonebook/search/name/Routed").header(ReadYourWritesFilter.CLIENT_HEADER, "writer"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+        // The replicas have the schema but none of the primary's rows
+        Thread.sleep(REPLICA_LAG_MILLIS + 100);
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/api/phonebook/search/name/Routed").header(ReadYourWritesFilter.CLIENT_HEADER, "reader"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(0));
+        }
+    }
+
+    // The replicas never catch up, so they stand in for replicas lagging behind every write
+    @Test
+    void readsRightAfterAWrite_ShouldFillSharedCachesFromPrimary_ForEveryClient() throws Exception {
+        String created = mockMvc.perform(post("/api/phonebook")
+                        .header(ReadYourWritesFilter.CLIENT_HEADER, "writer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Lagged\",\"phoneNumber\":\"555-000-0002\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        Number id = JsonPath.read(created, "$.id");
+
+        // Another client misses the lookup cache while the replicas may still lag: it is filled from the primary
+        mockMvc.perform(get("/api/phonebook/" + id).header(ReadYourWritesFilter.CLIENT_HEADER, "reader"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Lagged"));
+
+        Thread.sleep(REPLICA_LAG_MILLIS + 100);
+        // Past the lag the read would go to a replica, but the cache filled from the primary answers it
+        mockMvc.perform(get("/api/phonebook/" + id).header(ReadYourWritesFilter.CLIENT_HEADER, "other"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Lagged"));
+    }
+
+    @Test
+    void otherClients_ShouldReadPrimary_WithinReplicaLagOfAWrite() throws Exception {
+        mockMvc.perform(post("/api/phonebook")
+                        .header(ReadYourWritesFilter.CLIENT_HEADER, "writer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Windowed\",\"phoneNumber\":\"555-000-0003\"}"))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/phonebook/search/name/Windowed").header(ReadYourWritesFilter.CLIENT_HEADER, "reader"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.demo.phonebook.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReadWriteRoutingDataSourceTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private DataSource primary;
+
+    private DataSource replica1;
+
+    private DataSource replica2;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = mockDataSource();
+        replica1 = mockDataSource();
+        replica2 = mockDataSource();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clear();
+        ReadWriteRoutingDataSource.clearCurrentClient();
+    }
+
+    @Test
+    void readOnlyTransactions_ShouldRoundRobinOverReplicas_AndWritesGoToPrimary() throws SQLException {
+        ReadWriteRoutingDataSource routing = routing(ReadWriteRoutingProperties.Selection.ROUND_ROBIN);
+
+        readOnly();
+        routing.getConnection();
+        routing.getConnection();
+        routing.getConnection();
+        readWrite();
+        routing.getConnection();
+
+        verify(replica1, times(2)).getConnection();
+        verify(replica2, times(1)).getConnection();
+        verify(primary, times(1)).getConnection();
+    }
+
+    @Test
+    void leastPending_ShouldPickReplicaWithFewestOpenConnections() throws SQLException {
+        ReadWriteRoutingDataSource routing = routing(ReadWriteRoutingProperties.Selection.LEAST_PENDING);
+        readOnly();
+
+        routing.getConnection();
+        Connection second = routing.getConnection();
+        assertArrayEquals(new int[]{1, 1}, routing.getPendingPerReplica());
+
+        second.close();
+        second.close();
+        // Round robin would be back at the first replica, which still holds a connection
+        routing.getConnection();
+
+        assertArrayEquals(new int[]{1, 1}, routing.getPendingPerReplica());
+    }
+
+    @Test
+    void readsAfterWrite_ShouldStayOnPrimaryForStickyWindow_ForThatClientOnly() throws SQLException {
+        ReadWriteRoutingDataSource routing = routing(ReadWriteRoutingProperties.Selection.ROUND_ROBIN);
+        ReadWriteRoutingDataSource.setCurrentClient("writer");
+        readWrite();
+        routing.getConnection();
+
+        readOnly();
+        routing.getConnection();
+        verify(primary, times(2)).getConnection();
+
+        ReadWriteRoutingDataSource.setCurrentClient("reader");
+        routing.getConnection();
+        verify(replica1).getConnection();
+
+        ReadWriteRoutingDataSource.setCurrentClient("writer");
+        nanos.addAndGet(Duration.ofSeconds(6).toNanos());
+        routing.getConnection();
+        verify(replica2).getConnection();
+        verify(primary, times(2)).getConnection();
+    }
+
+    @Test
+    void connectionsOutsideTransactions_ShouldUsePrimaryWithoutPinningTheClient() throws SQLException {
+        ReadWriteRoutingDataSource routing = routing(ReadWriteRoutingProperties.Selection.ROUND_ROBIN);
+        ReadWriteRoutingDataSource.setCurrentClient("client");
+
+        routing.getConnection();
+        readOnly();
+        routing.getConnection();
+
+        verify(primary).getConnection();
+        verify(replica1).getConnection();
+    }
+
+    @Test
+    void readsAfterAnyWrite_ShouldUsePrimaryForEveryClient_UntilReplicaLagAfterTheWriteCompleted()
+            throws SQLException {
+        ReadWriteRoutingDataSource routing = routing(ReadWriteRoutingProperties.Selection.ROUND_ROBIN,
+                Duration.ofSeconds(1));
+        TransactionSynchronizationManager.initSynchronization();
+        ReadWriteRoutingDataSource.setCurrentClient("writer");
+        readWrite();
+        routing.getConnection();
+        nanos.addAndGet(Duration.ofSeconds(3).toNanos());
+        // The window starts over when the write commits, however long the transaction ran
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        ReadWriteRoutingDataSource.setCurrentClient("reader");
+        readOnly();
+        nanos.addAndGet(Duration.ofMillis(900).toNanos());
+        routing.getConnection();
+        verify(primary, times(2)).getConnection();
+        verifyNoInteractions(replica1);
+
+        nanos.addAndGet(Duration.ofMillis(200).toNanos());
+        routing.getConnection();
+        verify(replica1).getConnection();
+    }
+
+    private ReadWriteRoutingDataSource routing(ReadWriteRoutingProperties.Selection selection) {
+        return routing(selection, Duration.ZERO);
+    }
+
+    private ReadWriteRoutingDataSource routing(ReadWriteRoutingProperties.Selection selection, Duration replicaLag) {
+        return new ReadWriteRoutingDataSource(primary, List.of(replica1, replica2), selection,
+                Duration.ofSeconds(5), 100, replicaLag, nanos::get);
+    }
+
+    private static void readOnly() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    }
+
+    private static void readWrite() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    private static DataSource mockDataSource() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        return dataSource;
+    }
+}
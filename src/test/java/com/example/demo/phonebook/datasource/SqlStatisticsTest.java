@@ -0,0 +1,55 @@
+package com.example.demo.phonebook.datasource;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlStatisticsTest {
+
+    private final SqlStatistics statistics = new SqlStatistics(3, 3);
+
+    @Test
+    void normalize_ShouldReplaceLiteralsAndCollapseInLists() {
+        assertEquals("select c1_0.id from contact c1_0 where c1_0.id in (?...) and c1_0.name=?",
+                SqlStatistics.normalize("select c1_0.id\n    from contact c1_0 where c1_0.id in (?, ?,?) and c1_0.name='O''Brien'"));
+        assertEquals("select * from contact limit ?", SqlStatistics.normalize("select * from contact limit 20"));
+    }
+
+    @Test
+    void statistic_ShouldCountStatementsTogether_WhenOnlyTheirInListsDiffer() {
+        assertSame(statistics.statistic("delete from contact where id in (?,?)"),
+                statistics.statistic("delete from contact where id in (?,?,?)"));
+
+        statistics.statistic("select 1 from a");
+        statistics.statistic("select 1 from b");
+
+        assertEquals(SqlStatistics.OTHER, statistics.statistic("select 1 from c").getSql());
+    }
+
+    @Test
+    void endRequest_ShouldReportNPlusOne_WhenAStatementRepeatsWithinOneRequest() {
+        SqlStatistics.Statistic list = statistics.statistic("select * from contact");
+        SqlStatistics.Statistic byId = statistics.statistic("select * from contact where id=?");
+
+        statistics.beginRequest();
+        statistics.record(list, 1_000, false, 0);
+        for (int i = 0; i < 3; i++) {
+            statistics.record(byId, 2_000_000, false, 1);
+        }
+        statistics.endRequest("GET /api/phonebook");
+        // Outside a request: counted per statement only
+        statistics.record(list, 1_000, true, 0);
+
+        SqlStatistics.Report report = statistics.report(10);
+        assertEquals("select * from contact where id=?", report.statements().get(0).sql());
+        assertEquals(3, report.statements().get(0).rows());
+        assertEquals(3, report.statements().get(0).latency().get("10ms"));
+        assertEquals(1, report.statements().get(1).errors());
+        assertEquals(new SqlStatistics.EndpointSummary("GET /api/phonebook", 1, 4, 4.0, 4), report.endpoints().get(0));
+        assertEquals(1, report.nPlusOneSuspects().size());
+        assertEquals(3, report.nPlusOneSuspects().get(0).maxRepeats());
+
+        statistics.reset();
+        assertTrue(statistics.report(10).statements().isEmpty());
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.demo.phonebook.datasource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class StatementStatisticsDataSourceTest {
+
+    private static final String SELECT = "select * from contact where phone_number=?";
+
+    private final SqlStatistics statistics = new SqlStatistics(100, 10);
+    private Connection target;
+    private StatementStatisticsDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        DataSource pool = mock(DataSource.class);
+        target = mock(Connection.class);
+        when(pool.getConnection()).thenReturn(target);
+        dataSource = new StatementStatisticsDataSource(pool, statistics);
+    }
+
+    @Test
+    void executeQuery_ShouldCountTheStatementAndTheRowsRead() throws SQLException {
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(target.prepareStatement(SELECT)).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, true, false);
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement prepared = connection.prepareStatement(SELECT);
+             ResultSet rows = prepared.executeQuery()) {
+            while (rows.next()) {
+                rows.getString(1);
+            }
+            assertSame(connection, prepared.getConnection());
+        }
+
+        SqlStatistics.StatementSummary summary = statistics.report(10).statements().get(0);
+        assertEquals(SELECT, summary.sql());
+        assertEquals(1, summary.count());
+        assertEquals(2, summary.rows());
+        verify(resultSet, times(3)).next();
+        verify(resultSet, times(2)).getString(1);
+        verify(target).close();
+    }
+
+    @Test
+    void executeBatch_ShouldCountUpdatedRows_AndFailures() throws SQLException {
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(target.prepareStatement("update contact set name=? where id=?")).thenReturn(statement);
+        when(statement.executeBatch()).thenReturn(new int[]{1, 1, PreparedStatement.SUCCESS_NO_INFO});
+        when(statement.executeUpdate()).thenThrow(new SQLException("deadlock"));
+
+        PreparedStatement prepared = dataSource.getConnection().prepareStatement("update contact set name=? where id=?");
+        prepared.addBatch();
+        prepared.executeBatch();
+        assertThrows(SQLException.class, prepared::executeUpdate);
+
+        SqlStatistics.StatementSummary summary = statistics.report(10).statements().get(0);
+        assertEquals(2, summary.count());
+        assertEquals(1, summary.errors());
+        assertEquals(2, summary.rows());
+    }
+}
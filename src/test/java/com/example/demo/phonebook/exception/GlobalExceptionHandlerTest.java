@@ -2,9 +2,12 @@ package com.example.demo.phonebook.exception;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.time.Duration;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class GlobalExceptionHandlerTest {
@@ -41,4 +44,45 @@ class GlobalExceptionHandlerTest {
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
         assertEquals("An error occurred: null", response.getBody());
     }
-}
\ No newline at end of file
+
+    @Test
+    void handleInvalidRequest_ShouldReturnBadRequest() {
+        // Arrange
+        InvalidRequestException exception = new InvalidRequestException("Invalid cursor: abc");
+
+        // Act
+        ResponseEntity<String> response = globalExceptionHandler.handleInvalidRequest(exception);
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Invalid request: Invalid cursor: abc", response.getBody());
+    }
+
+    @Test
+    void handleVersionConflict_ShouldReturnConflict() {
+        // Arrange
+        ContactVersionConflictException exception = new ContactVersionConflictException(1L, 2L);
+
+        // Act
+        ResponseEntity<String> response = globalExceptionHandler.handleVersionConflict(exception);
+
+        // Assert
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals("Conflict: Contact 1 is no longer at version 2", response.getBody());
+    }
+
+    @Test
+    void handleServiceUnavailable_ShouldReturnServiceUnavailable_WithRetryAfter() {
+        // Arrange
+        ServiceUnavailableException exception = new ServiceUnavailableException("Too many subscribers",
+                Duration.ofSeconds(30));
+
+        // Act
+        ResponseEntity<String> response = globalExceptionHandler.handleServiceUnavailable(exception);
+
+        // Assert
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("30", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals("Service unavailable: Too many subscribers", response.getBody());
+    }
+}
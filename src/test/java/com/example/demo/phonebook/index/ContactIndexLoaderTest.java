@@ -0,0 +1,51 @@
+package com.example.demo.phonebook.index;
+
+import com.example.demo.phonebook.model.Contact;
+import com.example.demo.phonebook.service.ContactService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ContactIndexLoaderTest {
+
+    @Mock
+    private ContactService contactService;
+
+    @Mock
+    private ContactIndex contactIndex;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void loadIndexes_ShouldFeedEveryRowThenMarkLoaded() {
+        Contact contact = new Contact(1L, "John Doe", "123-456-7890", null);
+        doAnswer(invocation -> {
+            Consumer<Contact> action = invocation.getArgument(0);
+            action.accept(contact);
+            return null;
+        }).when(contactService).streamAllContacts(any(Consumer.class));
+
+        new ContactIndexLoader(contactService, List.of(contactIndex)).loadIndexes();
+
+        verify(contactIndex).load(contact);
+        verify(contactIndex).loaded();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void loadIndexes_ShouldLeaveIndexesUnloaded_WhenScanFails() {
+        doThrow(new IllegalStateException("db down")).when(contactService).streamAllContacts(any(Consumer.class));
+
+        new ContactIndexLoader(contactService, List.of(contactIndex)).loadIndexes();
+
+        verify(contactIndex, never()).loaded();
+        verify(contactIndex).loadFailed();
+    }
+}
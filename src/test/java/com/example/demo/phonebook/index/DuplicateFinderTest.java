@@ -0,0 +1,107 @@
+package com.example.demo.phonebook.index;
+
+import com.example.demo.phonebook.model.Contact;
+import com.example.demo.phonebook.model.DuplicateCluster;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DuplicateFinderTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void keys_ShouldIgnoreFormattingCaseAndWordOrder() {
+        assertEquals("5551234567", DuplicateFinder.phoneKey("(555) 123-4567"));
+        assertNull(DuplicateFinder.phoneKey("n/a"));
+        assertEquals("jo@example.com", DuplicateFinder.emailKey("  Jo@Example.COM "));
+        assertNull(DuplicateFinder.emailKey(" "));
+        assertEquals("john smith", DuplicateFinder.nameKey("SMITH,  John"));
+        assertEquals(1.0, DuplicateFinder.nameSimilarity("john smith", "john smith"));
+        assertEquals(0.9, DuplicateFinder.nameSimilarity("john smith", "jonh smith"), 1e-9);
+    }
+
+    @Test
+    void clusters_ShouldLinkSimilarNamesSharingAPhoneOrEmail() {
+        List<Contact> contacts = List.of(
+                new Contact(1L, "John Smith", "555-123-4567", "john@example.com"),
+                new Contact(2L, "john  smith", "555-123-4567", null),
+                // Same email as 1 with a typo in the name, so it joins through the email block
+                new Contact(3L, "Jonh Smith", "555-999-0000", "JOHN@example.com"),
+                // Shares 1's phone but is someone else
+                new Contact(4L, "Mary Smith", "555-123-4567", null),
+                new Contact(5L, "Alice Jones", "555-222-3333", "alice@example.com"),
+                new Contact(6L, "Alice Jones", "555-444-5555", "alice@example.org"));
+
+        List<DuplicateCluster> clusters = find(contacts, 0.8, 1000);
+
+        assertEquals(1, clusters.size());
+        assertEquals(List.of(1L, 2L, 3L), clusters.get(0).getContactIds());
+        assertEquals(List.of(DuplicateFinder.PHONE, DuplicateFinder.EMAIL), clusters.get(0).getMatchedOn());
+    }
+
+    @Test
+    void clusters_ShouldSkipBlocksAboveTheLimit() {
+        List<Contact> contacts = List.of(
+                new Contact(1L, "Front Desk", "555-000-0000", null),
+                new Contact(2L, "Front Desk", "555-000-0000", null),
+                new Contact(3L, "Front Desk", "555-000-0000", null));
+        DuplicateFinder finder = new DuplicateFinder(0.8, 2);
+        contacts.forEach(contact -> finder.addKeys(contact.getId(), contact.getPhoneNumber(), contact.getEmail()));
+        assertEquals(3, finder.selectCandidates(pool));
+        contacts.forEach(finder::addCandidate);
+
+        assertTrue(finder.clusters(pool).isEmpty());
+        assertEquals(1, finder.skippedBlocks());
+        assertEquals(0, finder.pairsCompared());
+    }
+
+    @Test
+    void clusters_ShouldMatchExhaustivePairwiseComparison() {
+        // Enough blocks for the comparison to fork; names repeat with small variations
+        String[] names = {"Ann Lee", "Anne Lee", "Bob Stone", "Rob Stone", "Carl Moss"};
+        List<Contact> contacts = new ArrayList<>();
+        for (long id = 1; id <= 2000; id++) {
+            String phone = String.format("555-%03d-%04d", id % 300, id % 300);
+            contacts.add(new Contact(id, names[(int) (id % names.length)], phone, null));
+        }
+
+        List<DuplicateCluster> clusters = find(contacts, 0.8, 1000);
+
+        // Rows 300 apart share a phone; they are duplicates exactly when their names are similar
+        int expectedDuplicates = 0;
+        Set<Long> clustered = new HashSet<>();
+        clusters.forEach(cluster -> clustered.addAll(cluster.getContactIds()));
+        for (Contact a : contacts) {
+            boolean hasTwin = contacts.stream().anyMatch(b -> b != a
+                    && b.getPhoneNumber().equals(a.getPhoneNumber())
+                    && DuplicateFinder.nameSimilarity(DuplicateFinder.nameKey(a.getName()),
+                    DuplicateFinder.nameKey(b.getName())) >= 0.8);
+            if (hasTwin) {
+                expectedDuplicates++;
+                assertTrue(clustered.contains(a.getId()), "missing " + a);
+            }
+        }
+        assertEquals(expectedDuplicates, clustered.size());
+    }
+
+    private List<DuplicateCluster> find(List<Contact> contacts, double minSimilarity, int maxBlockSize) {
+        DuplicateFinder finder = new DuplicateFinder(minSimilarity, maxBlockSize);
+        contacts.forEach(contact -> finder.addKeys(contact.getId(), contact.getPhoneNumber(), contact.getEmail()));
+        finder.selectCandidates(pool);
+        contacts.forEach(finder::addCandidate);
+        return finder.clusters(pool);
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.demo.phonebook.index;
+
+import com.example.demo.phonebook.model.Contact;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FuzzyNameIndexTest {
+
+    private FuzzyNameIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FuzzyNameIndex();
+        index.load(new Contact(1L, "John Smith", "123-456-7890", null));
+        index.load(new Contact(2L, "Jon Smyth", "987-654-3210", null));
+        index.load(new Contact(3L, "Catherine Jones", "555-555-5555", null));
+        index.load(new Contact(4L, "Joan Smithers", "555-555-0000", null));
+        index.loaded();
+    }
+
+    @Test
+    void search_ShouldReturnNull_WhileLoading() {
+        FuzzyNameIndex loading = new FuzzyNameIndex();
+        loading.load(new Contact(1L, "John Smith", "123-456-7890", null));
+
+        assertNull(loading.search("John", 2, 10));
+    }
+
+    @Test
+    void search_ShouldRankTyposByMatchedTokensThenEdits() {
+        List<FuzzyNameIndex.Match> matches = index.search("Jonh Smtih", 2, 10);
+
+        // Transpositions count as one edit each; "jon"/"smyth" are one edit and a sound-alike away
+        assertEquals(new FuzzyNameIndex.Match(1L, 2, 2), matches.get(0));
+        assertEquals(2L, matches.get(1).id());
+        assertEquals(2, matches.get(1).matchedTokens());
+        assertTrue(matches.stream().noneMatch(match -> match.id() == 3L));
+    }
+
+    @Test
+    void search_ShouldFindSoundAlikes_BeyondTheEditBudget() {
+        List<FuzzyNameIndex.Match> matches = index.search("Kathryn", 2, 10);
+
+        assertEquals(List.of(new FuzzyNameIndex.Match(3L, 1, 3)), matches);
+    }
+
+    @Test
+    void search_ShouldHonourLimitAndMaxDistance() {
+        assertEquals(1, index.search("smith", 2, 1).size());
+        assertEquals(List.of(1L), index.search("smith", 0, 10).stream()
+                .filter(match -> match.distance() == 0).map(FuzzyNameIndex.Match::id).toList());
+    }
+
+    @Test
+    void writes_ShouldKeepTheIndexCurrent() {
+        index.index(new Contact(1L, "Jonathan Smith", "123-456-7890", null));
+        index.remove(2L);
+
+        List<Long> ids = index.search("jon", 0, 10).stream().map(FuzzyNameIndex.Match::id).toList();
+        assertFalse(ids.contains(2L));
+        assertEquals(List.of(1L), index.search("jonathon", 1, 10).stream().map(FuzzyNameIndex.Match::id).toList());
+    }
+
+    @Test
+    void load_ShouldNotOverrideWritesMadeDuringTheScan() {
+        FuzzyNameIndex loading = new FuzzyNameIndex();
+        loading.index(new Contact(1L, "New Name", "123-456-7890", null));
+        loading.load(new Contact(1L, "Old Name", "123-456-7890", null));
+        loading.loaded();
+
+        assertTrue(loading.search("old", 0, 10).isEmpty());
+        assertEquals(1, loading.search("new", 0, 10).size());
+    }
+
+    @Test
+    void tokenize_ShouldSplitOnNonAlphanumerics() {
+        assertEquals(List.of("mary", "jane", "o", "neil"), FuzzyNameIndex.tokenize("Mary-Jane O'Neil  mary"));
+    }
+
+    @Test
+    void distance_ShouldCountAdjacentTranspositionsAsOneEdit() {
+        assertEquals(0, BkTree.distance("smith", "smith"));
+        assertEquals(1, BkTree.distance("smtih", "smith"));
+        assertEquals(2, BkTree.distance("ca", "abc"));
+        assertEquals(3, BkTree.distance("kitten", "sitting"));
+        assertEquals(4, BkTree.distance("", "abcd"));
+    }
+
+    @Test
+    void bkTree_ShouldReturnExactlyTheTermsWithinRadius() {
+        BkTree tree = new BkTree();
+        List<String> terms = List.of("book", "books", "cake", "boo", "cape", "cart", "boon", "cook", "smith");
+        terms.forEach(tree::add);
+        tree.add("book");
+
+        for (String query : List.of("bo", "coke", "smyth", "bk")) {
+            for (int radius = 0; radius <= 2; radius++) {
+                int r = radius;
+                List<String> expected = terms.stream().filter(t -> BkTree.distance(query, t) <= r).sorted().toList();
+                List<String> found = new ArrayList<>();
+                tree.search(query, radius, (term, distance) -> found.add(term));
+                assertEquals(expected, found.stream().sorted().toList(), query + " within " + radius);
+            }
+        }
+        assertEquals(terms.size(), tree.size());
+    }
+}
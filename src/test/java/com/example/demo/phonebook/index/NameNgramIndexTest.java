@@ -0,0 +1,142 @@
+package com.example.demo.phonebook.index;
+
+import com.example.demo.phonebook.model.Contact;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NameNgramIndexTest {
+
+    private NameNgramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new NameNgramIndex();
+        index.load(new Contact(1L, "John Doe", "123-456-7890", null));
+        index.load(new Contact(2L, "Johnny Cash", "987-654-3210", null));
+        index.load(new Contact(3L, "Jane Roe", "555-555-5555", null));
+        index.loaded();
+    }
+
+    @Test
+    void findIdsContaining_ShouldReturnNull_WhileLoading() {
+        NameNgramIndex loading = new NameNgramIndex();
+        loading.load(new Contact(1L, "John Doe", "123-456-7890", null));
+
+        assertNull(loading.findIdsContaining("John"));
+    }
+
+    @Test
+    void findIdsContaining_ShouldMatchSubstringsIgnoringCase() {
+        assertArrayEquals(new long[]{1L, 2L}, index.findIdsContaining("JOHN"));
+        assertArrayEquals(new long[]{1L, 3L}, index.findIdsContaining("oe"));
+        assertArrayEquals(new long[]{2L}, index.findIdsContaining("ny c"));
+        assertArrayEquals(new long[]{}, index.findIdsContaining("xyz"));
+        assertArrayEquals(new long[]{1L, 2L, 3L}, index.findIdsContaining(""));
+    }
+
+    @Test
+    void findIdsContaining_ShouldIgnoreAccents_LikeTheDatabaseCollation() {
+        index.index(new Contact(4L, "José Álvarez", "444-444-4444", null));
+
+        assertArrayEquals(new long[]{4L}, index.findIdsContaining("jose"));
+        assertArrayEquals(new long[]{4L}, index.findIdsContaining("JOSÉ"));
+        assertArrayEquals(new long[]{4L}, index.findIdsContaining("alv"));
+        assertArrayEquals(new long[]{4L}, index.findIdsContaining("é a"));
+        assertEquals("jose alvarez", NameNgramIndex.fold("José Álvarez"));
+    }
+
+    @Test
+    void index_ShouldReplaceRenamedContact_AndRemoveShouldDropIt() {
+        index.index(new Contact(1L, "Alice Doe", "123-456-7890", null));
+
+        assertArrayEquals(new long[]{2L}, index.findIdsContaining("john"));
+        assertArrayEquals(new long[]{1L}, index.findIdsContaining("alice"));
+
+        index.remove(1L);
+
+        assertArrayEquals(new long[]{}, index.findIdsContaining("alice"));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void findIdsContaining_ShouldStayCorrect_AcrossCompaction() {
+        for (int i = 0; i < 50; i++) {
+            index.index(new Contact(3L, "Jane Roe " + i, "555-555-5555", null));
+        }
+
+        assertArrayEquals(new long[]{3L}, index.findIdsContaining("roe 49"));
+        assertArrayEquals(new long[]{}, index.findIdsContaining("roe 48"));
+        assertArrayEquals(new long[]{1L, 3L}, index.findIdsContaining("oe"));
+    }
+
+    @Test
+    void load_ShouldNotOverrideWritesMadeDuringTheScan() {
+        NameNgramIndex loading = new NameNgramIndex();
+        loading.index(new Contact(1L, "New Name", "123-456-7890", null));
+        loading.remove(2L);
+
+        loading.load(new Contact(1L, "Old Name", "123-456-7890", null));
+        loading.load(new Contact(2L, "Deleted", "987-654-3210", null));
+        loading.loaded();
+
+        assertArrayEquals(new long[]{1L}, loading.findIdsContaining("new"));
+        assertArrayEquals(new long[]{}, loading.findIdsContaining("old"));
+        assertArrayEquals(new long[]{}, loading.findIdsContaining("deleted"));
+    }
+
+    @Test
+    void findIdsContaining_ShouldMatchOneAndTwoCharQueries_AnywhereInTheName() {
+        assertArrayEquals(new long[]{1L, 3L}, index.findIdsContaining("E"));
+        assertArrayEquals(new long[]{2L}, index.findIdsContaining("sh"));
+        assertArrayEquals(new long[]{1L, 2L}, index.findIdsContaining("oh"));
+        assertArrayEquals(new long[]{}, index.findIdsContaining("q"));
+
+        index.index(new Contact(3L, "Jan Ry", "555-555-5555", null));
+
+        assertArrayEquals(new long[]{2L, 3L}, index.findIdsContaining("y"));
+        assertArrayEquals(new long[]{1L}, index.findIdsContaining("e"));
+    }
+
+    @Test
+    void compaction_ShouldKeepWritesMadeWhileItRebuilds() {
+        List<Runnable> compactions = new ArrayList<>();
+        NameNgramIndex compacting = new NameNgramIndex(compactions::add);
+        compacting.load(new Contact(1L, "John Doe", "123-456-7890", null));
+        compacting.load(new Contact(2L, "Jane Roe", "555-555-5555", null));
+        compacting.loaded();
+        for (int i = 0; compactions.isEmpty(); i++) {
+            compacting.index(new Contact(1L, "Alice Doe " + i, "123-456-7890", null));
+        }
+
+        // Written after the snapshot was taken, before the rebuilt postings are swapped in
+        compacting.index(new Contact(1L, "Bob Doe", "123-456-7890", null));
+        compacting.remove(2L);
+        compacting.index(new Contact(3L, "Carol Poe", "987-654-3210", null));
+        compactions.get(0).run();
+
+        assertArrayEquals(new long[]{1L}, compacting.findIdsContaining("bob"));
+        assertArrayEquals(new long[]{}, compacting.findIdsContaining("alice"));
+        assertArrayEquals(new long[]{}, compacting.findIdsContaining("jane"));
+        assertArrayEquals(new long[]{3L}, compacting.findIdsContaining("carol"));
+        assertArrayEquals(new long[]{1L, 3L}, compacting.findIdsContaining("oe"));
+    }
+
+    @Test
+    void loadFailed_ShouldDropEntries_AndStopTrackingWrites() {
+        NameNgramIndex failing = new NameNgramIndex();
+        failing.load(new Contact(1L, "John Doe", "123-456-7890", null));
+        failing.index(new Contact(2L, "Jane Roe", "555-555-5555", null));
+
+        failing.loadFailed();
+        failing.index(new Contact(3L, "Carol Poe", "987-654-3210", null));
+        failing.remove(1L);
+
+        assertEquals(0, failing.size());
+        assertNull(failing.findIdsContaining("doe"));
+    }
+}
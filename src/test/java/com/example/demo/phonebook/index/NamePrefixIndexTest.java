@@ -0,0 +1,103 @@
+package com.example.demo.phonebook.index;
+
+import com.example.demo.phonebook.model.Contact;
+import com.example.demo.phonebook.model.ContactSuggestion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NamePrefixIndexTest {
+
+    private NamePrefixIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new NamePrefixIndex();
+        index.load(new Contact(3L, "johnny Cash", "987-654-3210", null));
+        index.load(new Contact(1L, "John Doe", "123-456-7890", null));
+        index.load(new Contact(2L, "John Doe", "555-555-5555", null));
+        index.load(new Contact(4L, "Jane Roe", "111-222-3333", null));
+        index.loaded();
+    }
+
+    @Test
+    void suggest_ShouldReturnPrefixMatchesInNameThenIdOrder() {
+        List<ContactSuggestion> result = index.suggest("JOHN", 10);
+
+        assertEquals(List.of(new ContactSuggestion(1L, "John Doe"), new ContactSuggestion(2L, "John Doe"),
+                new ContactSuggestion(3L, "johnny Cash")), result);
+    }
+
+    @Test
+    void suggest_ShouldStopAtLimit() {
+        assertEquals(1, index.suggest("j", 1).size());
+        assertTrue(index.suggest("x", 10).isEmpty());
+    }
+
+    @Test
+    void index_ShouldMoveRenamedContact_AndRemoveShouldDropIt() {
+        index.index(new Contact(4L, "Johanna Roe", "111-222-3333", null));
+
+        assertEquals(new ContactSuggestion(4L, "Johanna Roe"), index.suggest("joha", 10).get(0));
+        assertTrue(index.suggest("jane", 10).isEmpty());
+
+        index.remove(4L);
+
+        assertTrue(index.suggest("joha", 10).isEmpty());
+    }
+
+    @Test
+    void load_ShouldNotOverrideWritesMadeDuringTheScan() {
+        NamePrefixIndex loading = new NamePrefixIndex();
+        assertFalse(loading.isReady());
+        loading.index(new Contact(1L, "New Name", "123-456-7890", null));
+        loading.load(new Contact(1L, "Old Name", "123-456-7890", null));
+        loading.loaded();
+
+        assertTrue(loading.suggest("old", 10).isEmpty());
+        assertEquals(1, loading.suggest("new", 10).size());
+    }
+
+    @Test
+    void merge_ShouldFoldTheDeltaIntoTheBase_AndKeepWritesMadeWhileItRuns() {
+        List<Runnable> merges = new ArrayList<>();
+        NamePrefixIndex merging = new NamePrefixIndex(merges::add, 2);
+        merging.load(new Contact(1L, "John Doe", "123-456-7890", null));
+        merging.load(new Contact(2L, "Jane Roe", "555-555-5555", null));
+        merging.loaded();
+        merging.index(new Contact(3L, "Jack Poe", "987-654-3210", null));
+        merging.index(new Contact(1L, "Jon Doe", "123-456-7890", null));
+        assertEquals(1, merges.size());
+
+        // Land in the fresh delta while the frozen one is merged
+        merging.index(new Contact(3L, "Jake Poe", "987-654-3210", null));
+        merging.remove(2L);
+        assertEquals(List.of(new ContactSuggestion(3L, "Jake Poe"), new ContactSuggestion(1L, "Jon Doe")),
+                merging.suggest("j", 10));
+
+        merges.get(0).run();
+
+        assertEquals(List.of(new ContactSuggestion(3L, "Jake Poe"), new ContactSuggestion(1L, "Jon Doe")),
+                merging.suggest("J", 10));
+        assertEquals(List.of(new ContactSuggestion(3L, "Jake Poe")), merging.suggest("j", 1));
+        assertTrue(merging.suggest("john", 10).isEmpty());
+    }
+
+    @Test
+    void loadFailed_ShouldDropEntries_AndIgnoreLaterWrites() {
+        NamePrefixIndex failing = new NamePrefixIndex();
+        failing.index(new Contact(1L, "New Name", "123-456-7890", null));
+        failing.load(new Contact(2L, "Old Name", "555-555-5555", null));
+
+        failing.loadFailed();
+        failing.index(new Contact(3L, "Next Name", "987-654-3210", null));
+
+        assertFalse(failing.isReady());
+        assertTrue(failing.suggest("n", 10).isEmpty());
+        assertTrue(failing.suggest("o", 10).isEmpty());
+    }
+}
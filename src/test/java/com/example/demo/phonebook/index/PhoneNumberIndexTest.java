@@ -0,0 +1,91 @@
+package com.example.demo.phonebook.index;
+
+import com.example.demo.phonebook.model.Contact;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhoneNumberIndexTest {
+
+    private PhoneNumberIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new PhoneNumberIndex(4);
+        index.load(new Contact(1L, "John Doe", "123-456-7890", null));
+        index.load(new Contact(2L, "Jane Roe", "987-654-3210", null));
+        index.loaded();
+    }
+
+    @Test
+    void pack_ShouldReadTenDigits_AndRejectOtherFormats() {
+        assertEquals(1234567890L, PhoneNumberIndex.pack("123-456-7890"));
+        assertEquals(1L, PhoneNumberIndex.pack("000-000-0001"));
+        assertEquals(-1L, PhoneNumberIndex.pack("1234567890"));
+        assertEquals(-1L, PhoneNumberIndex.pack("123-45a-7890"));
+        assertEquals(-1L, PhoneNumberIndex.pack(null));
+    }
+
+    @Test
+    void findId_ShouldAnswerHitsAndMisses() {
+        assertEquals(1L, index.findId("123-456-7890"));
+        assertEquals(PhoneNumberIndex.ABSENT, index.findId("555-555-5555"));
+        assertEquals(PhoneNumberIndex.UNKNOWN, index.findId("5555555555"));
+    }
+
+    @Test
+    void findId_ShouldBeUnknown_WhileLoading() {
+        assertEquals(PhoneNumberIndex.UNKNOWN, new PhoneNumberIndex(4).findId("123-456-7890"));
+    }
+
+    @Test
+    void index_ShouldAddTheNewNumber_AndKeepTheOldOneUntilEvicted() {
+        long stamp = index.stamp();
+        index.index(new Contact(1L, "John Doe", "555-555-5555", null));
+
+        assertEquals(1L, index.findId("555-555-5555"));
+        assertEquals(1L, index.findId("123-456-7890"));
+
+        // Taken before the write above, so the entry may be newer than what the caller saw
+        index.evict("123-456-7890", 1L, stamp);
+        assertEquals(1L, index.findId("123-456-7890"));
+
+        index.evict("123-456-7890", 1L, index.stamp());
+        assertEquals(PhoneNumberIndex.ABSENT, index.findId("123-456-7890"));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void evict_ShouldKeepAnEntryThatNowPointsElsewhere() {
+        index.evict("123-456-7890", 2L, index.stamp());
+
+        assertEquals(1L, index.findId("123-456-7890"));
+    }
+
+    @Test
+    void sharedNumber_ShouldBeLeftToTheDatabase() {
+        index.index(new Contact(3L, "John Again", "123-456-7890", null));
+
+        assertEquals(PhoneNumberIndex.UNKNOWN, index.findId("123-456-7890"));
+
+        index.remove(3L);
+
+        assertEquals(PhoneNumberIndex.UNKNOWN, index.findId("123-456-7890"));
+    }
+
+    @Test
+    void manyEntries_ShouldSurviveResizeAndBackwardShiftDeletes() {
+        for (long id = 10; id < 5000; id++) {
+            index.index(new Contact(id, "n", String.format("555-%03d-%04d", id / 1000, id % 1000), null));
+        }
+        for (long id = 10; id < 5000; id += 2) {
+            index.evict(String.format("555-%03d-%04d", id / 1000, id % 1000), id, index.stamp());
+        }
+
+        for (long id = 10; id < 5000; id++) {
+            long expected = id % 2 == 0 ? PhoneNumberIndex.ABSENT : id;
+            assertEquals(expected, index.findId(String.format("555-%03d-%04d", id / 1000, id % 1000)));
+        }
+    }
+}
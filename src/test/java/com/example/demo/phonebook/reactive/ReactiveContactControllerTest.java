@@ -0,0 +1,385 @@
+package com.example.demo.phonebook.reactive;
+
+import com.example.demo.phonebook.model.BulkImportResult;
+import com.example.demo.phonebook.model.Contact;
+import com.example.demo.phonebook.model.ContactBatchItem;
+import com.example.demo.phonebook.model.ContactPage;
+import com.example.demo.phonebook.model.ContactPatch;
+import com.example.demo.phonebook.model.ContactSuggestion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactive-contacts;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "spring.r2dbc.password=",
+        "spring.sql.init.mode=always",
+        "spring.sql.init.schema-locations=classpath:reactive-schema-h2.sql",
+        "debug=false"
+})
+@ActiveProfiles("reactive")
+class ReactiveContactControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ReactiveContactRepository contactRepository;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @BeforeEach
+    void setUp() {
+        contactRepository.deleteAll().block();
+        databaseClient.sql("delete from contact_change").then().block();
+    }
+
+    private Contact create(String name, String phoneNumber) {
+        return webTestClient.post().uri("/api/phonebook")
+                .bodyValue(new Contact(null, name, phoneNumber, null))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Contact.class)
+                .returnResult().getResponseBody();
+    }
+
+    @Test
+    void createContact_ShouldAssignId_AndBeReadableByIdAndPhone() {
+        Contact created = create("Alice", "123-456-7890");
+
+        assertNotNull(created.getId());
+        webTestClient.get().uri("/api/phonebook/{id}", created.getId()).exchange()
+                .expectStatus().isOk()
+                .expectBody(Contact.class).isEqualTo(created);
+        webTestClient.get().uri("/api/phonebook/phone/123-456-7890").exchange()
+                .expectStatus().isOk()
+                .expectBody(Contact.class).isEqualTo(created);
+        webTestClient.get().uri("/api/phonebook/{id}", created.getId() + 1000).exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void createContact_ShouldInsert_WhenTheBodyCarriesAnId() {
+        Contact existing = create("Alice", "111-111-1111");
+
+        Contact posted = webTestClient.post().uri("/api/phonebook")
+                .bodyValue(new Contact(existing.getId(), "Bob", "222-222-2222", null, 5L))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Contact.class)
+                .returnResult().getResponseBody();
+
+        assertNotEquals(existing.getId(), posted.getId());
+        assertEquals(0L, posted.getVersion());
+        webTestClient.get().uri("/api/phonebook/{id}", existing.getId()).exchange()
+                .expectStatus().isOk()
+                .expectBody(Contact.class).isEqualTo(existing);
+    }
+
+    @Test
+    void createContact_ShouldRejectInvalidPhoneNumber() {
+        webTestClient.post().uri("/api/phonebook")
+                .bodyValue(new Contact(null, "Alice", "1234567890", null))
+                .exchange()
+                .expectStatus().is5xxServerError();
+
+        StepVerifier.create(contactRepository.count()).expectNext(0L).verifyComplete();
+    }
+
+    @Test
+    void getAllContacts_ShouldPageWithCursor() {
+        Contact first = create("Alice", "111-111-1111");
+        Contact second = create("Bob", "222-222-2222");
+        Contact third = create("Carol", "333-333-3333");
+
+        ContactPage page = webTestClient.get().uri("/api/phonebook?limit=2")
+                .accept(MediaType.APPLICATION_JSON).exchange()
+                .expectStatus().isOk()
+                .expectBody(ContactPage.class).returnResult().getResponseBody();
+        assertEquals(List.of(first, second), page.getContacts());
+        ContactPage last = webTestClient.get().uri("/api/phonebook?limit=2&cursor={cursor}", page.getNext())
+                .accept(MediaType.APPLICATION_JSON).exchange()
+                .expectStatus().isOk()
+                .expectBody(ContactPage.class).returnResult().getResponseBody();
+        assertEquals(List.of(third), last.getContacts());
+        assertNull(last.getNext());
+
+        webTestClient.get().uri("/api/phonebook?limit=0").accept(MediaType.APPLICATION_JSON).exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void streamAllContacts_ShouldEmitNdjsonInIdOrder() {
+        Contact first = create("Alice", "111-111-1111");
+        Contact second = create("Bob", "222-222-2222");
+
+        Flux<Contact> body = webTestClient.get().uri("/api/phonebook")
+                .accept(MediaType.APPLICATION_NDJSON).exchange()
+                .expectStatus().isOk()
+                .returnResult(Contact.class).getResponseBody();
+
+        StepVerifier.create(body).expectNext(first, second).verifyComplete();
+    }
+
+    @Test
+    void searchAndSuggest_ShouldMatchLikeTheServletApi() {
+        Contact alice = create("Alice Smith", "111-111-1111");
+        create("Bob Jones", "222-222-2222");
+        Contact alina = create("Alina Smithers", "333-333-3333");
+
+        webTestClient.get().uri("/api/phonebook/search/name/smith").exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Contact.class).isEqualTo(List.of(alice, alina));
+        webTestClient.get().uri("/api/phonebook/suggest?prefix=al&limit=1").exchange()
+                .expectStatus().isOk()
+                .expectBodyList(ContactSuggestion.class)
+                .isEqualTo(List.of(new ContactSuggestion(alice.getId(), "Alice Smith")));
+        webTestClient.get().uri("/api/phonebook/suggest?prefix=%25").exchange()
+                .expectStatus().isOk()
+                .expectBodyList(ContactSuggestion.class).hasSize(0);
+    }
+
+    @Test
+    void updateAndDelete_ShouldChangeTheRow() {
+        Contact created = create("Alice", "111-111-1111");
+
+        webTestClient.put().uri("/api/phonebook/{id}", created.getId())
+                .bodyValue(new Contact(null, "Alice B", "999-999-9999", "alice@example.com"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Contact.class)
+                .isEqualTo(new Contact(created.getId(), "Alice B", "999-999-9999", "alice@example.com", 1L));
+        webTestClient.put().uri("/api/phonebook/{id}", created.getId() + 1000)
+                .bodyValue(new Contact(null, "Nobody", "999-999-9999", null))
+                .exchange()
+                .expectStatus().isNotFound();
+
+        webTestClient.delete().uri("/api/phonebook/{id}", created.getId()).exchange()
+                .expectStatus().isNoContent();
+        webTestClient.get().uri("/api/phonebook/{id}", created.getId()).exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void patch_ShouldWriteOnlyGivenFields_AndRejectStaleVersion() {
+        Contact created = create("Alice", "111-111-1111");
+        assertEquals(0L, created.getVersion());
+
+        webTestClient.patch().uri("/api/phonebook/{id}", created.getId())
+                .bodyValue(new ContactPatch(null, null, "alice@example.com", 0L))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Contact.class)
+                .isEqualTo(new Contact(created.getId(), "Alice", "111-111-1111", "alice@example.com", 1L));
+        webTestClient.patch().uri("/api/phonebook/{id}", created.getId())
+                .bodyValue(new ContactPatch("Mallory", null, null, 0L))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT);
+        webTestClient.put().uri("/api/phonebook/{id}", created.getId())
+                .bodyValue(new Contact(null, "Mallory", "111-111-1111", null, 0L))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT);
+        webTestClient.patch().uri("/api/phonebook/{id}", created.getId() + 1000)
+                .bodyValue(new ContactPatch("Nobody", null, null, 0L))
+                .exchange()
+                .expectStatus().isNotFound();
+
+        StepVerifier.create(contactRepository.findById(created.getId()).map(Contact::getName))
+                .expectNext("Alice").verifyComplete();
+    }
+
+    @Test
+    void conditionalRequests_ShouldUseContactVersionAndCollectionVersion() {
+        Contact created = create("Alice", "111-111-1111");
+        String etag = "\"" + created.getId() + "-0\"";
+
+        webTestClient.get().uri("/api/phonebook/{id}", created.getId()).exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, etag)
+                .expectHeader().exists(HttpHeaders.LAST_MODIFIED);
+        webTestClient.get().uri("/api/phonebook/{id}", created.getId()).header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+        String searchTag = webTestClient.get().uri("/api/phonebook/search/name/ali").exchange()
+                .expectStatus().isOk()
+                .returnResult(Contact.class).getResponseHeaders().getETag();
+        String pageTag = webTestClient.get().uri("/api/phonebook").exchange()
+                .expectStatus().isOk()
+                .returnResult(ContactPage.class).getResponseHeaders().getETag();
+        webTestClient.get().uri("/api/phonebook").header(HttpHeaders.IF_NONE_MATCH, pageTag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+
+        webTestClient.put().uri("/api/phonebook/{id}", created.getId())
+                .header(HttpHeaders.IF_MATCH, etag)
+                .bodyValue(new Contact(null, "Alicia", "111-111-1111", null))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"" + created.getId() + "-1\"");
+        webTestClient.delete().uri("/api/phonebook/{id}", created.getId())
+                .header(HttpHeaders.IF_MATCH, etag)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        webTestClient.get().uri("/api/phonebook/search/name/ali").header(HttpHeaders.IF_NONE_MATCH, searchTag)
+                .exchange()
+                .expectStatus().isOk();
+        webTestClient.delete().uri("/api/phonebook/{id}", created.getId())
+                .header(HttpHeaders.IF_MATCH, "\"" + created.getId() + "-1\"")
+                .exchange()
+                .expectStatus().isNoContent();
+        webTestClient.delete().uri("/api/phonebook/{id}", created.getId())
+                .header(HttpHeaders.IF_MATCH, "*")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @Test
+    void writes_ShouldRecordOutboxRows_AndNotWhenRejected() {
+        Contact alice = create("Alice", "111-111-1111");
+        Contact bob = create("Bob", "222-222-2222");
+        webTestClient.patch().uri("/api/phonebook/{id}", alice.getId())
+                .bodyValue(new ContactPatch("Alice B", null, null, 0L))
+                .exchange()
+                .expectStatus().isOk();
+        webTestClient.put().uri("/api/phonebook/{id}", alice.getId())
+                .bodyValue(new Contact(null, "Stale", "111-111-1111", null, 0L))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT);
+        webTestClient.delete().uri("/api/phonebook/{id}", alice.getId()).exchange()
+                .expectStatus().isNoContent();
+        webTestClient.delete().uri("/api/phonebook/{id}", alice.getId()).exchange()
+                .expectStatus().isNoContent();
+        webTestClient.post().uri("/api/phonebook/batch-delete")
+                .bodyValue(List.of(bob.getId(), bob.getId() + 1000))
+                .exchange()
+                .expectStatus().isOk();
+
+        StepVerifier.create(databaseClient.sql("select contact_id, change_type, version from contact_change order by seq")
+                        .map(row -> row.get("contact_id", Long.class) + " " + row.get("change_type", String.class)
+                                + " " + row.get("version", Long.class))
+                        .all())
+                .expectNext(alice.getId() + " UPSERT 0", bob.getId() + " UPSERT 0", alice.getId() + " UPSERT 1",
+                        alice.getId() + " DELETE null", bob.getId() + " DELETE null")
+                .verifyComplete();
+    }
+
+    @Test
+    void collectionTag_ShouldMoveWithWritesOfAnyInstance_AndNotWithMisses() {
+        Contact alice = create("Alice", "111-111-1111");
+        String pageTag = webTestClient.get().uri("/api/phonebook").exchange()
+                .expectStatus().isOk()
+                .returnResult(ContactPage.class).getResponseHeaders().getETag();
+
+        // Deleting a contact that is not there changes nothing
+        webTestClient.delete().uri("/api/phonebook/{id}", alice.getId() + 1000).exchange()
+                .expectStatus().isNoContent();
+        webTestClient.get().uri("/api/phonebook").header(HttpHeaders.IF_NONE_MATCH, pageTag).exchange()
+                .expectStatus().isNotModified();
+
+        // Another instance's write shows up as its outbox row
+        databaseClient.sql("insert into contact_change (seq, contact_id, change_type, version, occurred_at)"
+                        + " values (1000000, :id, 'UPSERT', 1, current_timestamp)")
+                .bind("id", alice.getId())
+                .then().block();
+        webTestClient.get().uri("/api/phonebook").header(HttpHeaders.IF_NONE_MATCH, pageTag).exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void collectionTags_ShouldDependOnTheAcceptedFormat() {
+        create("Alice", "111-111-1111");
+
+        String json = webTestClient.get().uri("/api/phonebook/search/name/ali").accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .returnResult(Contact.class).getResponseHeaders().getETag();
+        String ndjson = webTestClient.get().uri("/api/phonebook/search/name/ali").accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Contact.class).getResponseHeaders().getETag();
+
+        assertNotNull(json);
+        assertEquals(json.replace("\"", "") + "-ndjson", ndjson.replace("\"", ""));
+    }
+
+    @Test
+    void endpointsNotMirrored_ShouldAnswerNotImplemented() {
+        webTestClient.get().uri("/api/phonebook/search/fuzzy?q=alice").exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_IMPLEMENTED);
+        webTestClient.post().uri("/api/phonebook/dedup").exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_IMPLEMENTED);
+        webTestClient.get().uri("/api/phonebook/dedup/clusters").exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_IMPLEMENTED);
+        webTestClient.get().uri("/api/phonebook/changes").exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_IMPLEMENTED);
+    }
+
+    @Test
+    void batchGetAndDelete_ShouldReportPerIdStatus() {
+        Contact alice = create("Alice", "111-111-1111");
+        Contact bob = create("Bob", "222-222-2222");
+        long missing = bob.getId() + 1000;
+
+        webTestClient.post().uri("/api/phonebook/batch-get")
+                .bodyValue(List.of(bob.getId(), missing, alice.getId()))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(ContactBatchItem.class).isEqualTo(List.of(
+                        new ContactBatchItem(bob.getId(), ContactBatchItem.Status.FOUND, bob),
+                        new ContactBatchItem(missing, ContactBatchItem.Status.NOT_FOUND, null),
+                        new ContactBatchItem(alice.getId(), ContactBatchItem.Status.FOUND, alice)));
+        webTestClient.post().uri("/api/phonebook/batch-delete")
+                .bodyValue(List.of(alice.getId(), missing))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(ContactBatchItem.class).isEqualTo(List.of(
+                        new ContactBatchItem(alice.getId(), ContactBatchItem.Status.DELETED, null),
+                        new ContactBatchItem(missing, ContactBatchItem.Status.NOT_FOUND, null)));
+        webTestClient.post().uri("/api/phonebook/batch-get")
+                .bodyValue(List.of())
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        StepVerifier.create(contactRepository.count()).expectNext(1L).verifyComplete();
+    }
+
+    @Test
+    void importContacts_ShouldWriteValidCsvRows_AndReportRejectedOnes() {
+        String csv = "name,phoneNumber,email\n"
+                + "Alice,111-111-1111,alice@example.com\n"
+                + "\"Smith, Bob\",222-222-2222,\n"
+                + "Carol,not-a-number\n";
+
+        BulkImportResult result = webTestClient.post().uri("/api/phonebook/bulk")
+                .contentType(MediaType.parseMediaType("text/csv"))
+                .bodyValue(csv)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(BulkImportResult.class).returnResult().getResponseBody();
+
+        assertEquals(2, result.getAccepted());
+        assertEquals(1, result.getRejected());
+        assertEquals(List.of("line 4: Phone number must be in format XXX-XXX-XXXX"),
+                result.getChunks().get(0).getErrors());
+        StepVerifier.create(contactRepository.findFirstByPhoneNumber("222-222-2222").map(Contact::getName))
+                .expectNext("Smith, Bob").verifyComplete();
+    }
+}
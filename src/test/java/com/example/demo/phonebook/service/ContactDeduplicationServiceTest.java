@@ -0,0 +1,97 @@
+package com.example.demo.phonebook.service;
+
+import com.example.demo.phonebook.exception.InvalidRequestException;
+import com.example.demo.phonebook.model.Contact;
+import com.example.demo.phonebook.model.DeduplicationJob;
+import com.example.demo.phonebook.model.DuplicateCluster;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ContactDeduplicationServiceTest {
+
+    @Mock
+    private ContactService contactService;
+
+    private ContactDeduplicationService deduplicationService;
+
+    @AfterEach
+    void tearDown() {
+        if (deduplicationService != null) {
+            deduplicationService.destroy();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void start_ShouldStreamTwiceAndPublishClusters() throws Exception {
+        List<Contact> contacts = List.of(
+                new Contact(1L, "John Smith", "555-123-4567", null),
+                new Contact(2L, "JOHN SMITH", "5551234567", null),
+                new Contact(3L, "Mary Jones", "555-765-4321", null));
+        doAnswer(invocation -> {
+            Consumer<Contact> action = invocation.getArgument(0);
+            contacts.forEach(action);
+            return null;
+        }).when(contactService).streamAllContacts(any(Consumer.class));
+        deduplicationService = new ContactDeduplicationService(contactService, 0.8, 1000, 2);
+
+        assertTrue(deduplicationService.getClusters(0, 10).isEmpty());
+        DeduplicationJob started = deduplicationService.start();
+        DeduplicationJob job = awaitFinished();
+
+        assertEquals(started.getId(), job.getId());
+        assertEquals(DeduplicationJob.Status.COMPLETED, job.getStatus());
+        assertEquals(3, job.getRowsScanned());
+        assertEquals(2, job.getCandidateRows());
+        assertEquals(1, job.getPairsCompared());
+        assertEquals(1, job.getClusters());
+        assertEquals(List.of(new DuplicateCluster(List.of(1L, 2L), List.of("phone"))),
+                deduplicationService.getClusters(0, 10).orElseThrow());
+        assertEquals(List.of(), deduplicationService.getClusters(1, 10).orElseThrow());
+        verify(contactService, times(2)).streamAllContacts(any(Consumer.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void start_ShouldReportFailure_WhenScanFails() throws Exception {
+        doThrow(new IllegalStateException("db down")).when(contactService).streamAllContacts(any(Consumer.class));
+        deduplicationService = new ContactDeduplicationService(contactService, 0.8, 1000, 2);
+
+        deduplicationService.start();
+        DeduplicationJob job = awaitFinished();
+
+        assertEquals(DeduplicationJob.Status.FAILED, job.getStatus());
+        assertEquals("db down", job.getError());
+        assertTrue(deduplicationService.getClusters(0, 10).isEmpty());
+    }
+
+    @Test
+    void getClusters_ShouldRejectInvalidPaging() {
+        deduplicationService = new ContactDeduplicationService(contactService, 0.8, 1000, 2);
+
+        assertThrows(InvalidRequestException.class, () -> deduplicationService.getClusters(-1, 10));
+        assertThrows(InvalidRequestException.class, () -> deduplicationService.getClusters(0, 0));
+    }
+
+    private DeduplicationJob awaitFinished() throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            DeduplicationJob job = deduplicationService.status().orElseThrow();
+            if (job.getFinishedAt() != null) {
+                return job;
+            }
+            Thread.sleep(10);
+        }
+        return fail("job did not finish");
+    }
+}
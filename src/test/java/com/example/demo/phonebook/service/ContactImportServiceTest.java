@@ -0,0 +1,110 @@
+package com.example.demo.phonebook.service;
+
+import com.example.demo.phonebook.model.BulkImportResult;
+import com.example.demo.phonebook.model.Contact;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ContactImportServiceTest {
+
+    @Mock
+    private ContactService contactService;
+
+    private ValidatorFactory validatorFactory;
+
+    private ContactImportService contactImportService;
+
+    @BeforeEach
+    void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        Validator validator = validatorFactory.getValidator();
+        contactImportService = new ContactImportService(contactService, validator, new ObjectMapper(), 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        validatorFactory.close();
+    }
+
+    private static InputStream input(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importContacts_ShouldWriteCsvInChunks_AndSkipHeader() throws Exception {
+        String csv = "name,phoneNumber,email\n"
+                + "Alice,123-456-7890,alice@email.com\n"
+                + "\"Doe, John\",987-654-3210,\n"
+                + "Bob,555-555-5555,bob@email.com\n";
+
+        BulkImportResult result = contactImportService.importContacts(input(csv), ContactImportService.Format.CSV);
+
+        assertEquals(3, result.getAccepted());
+        assertEquals(0, result.getRejected());
+        assertEquals(2, result.getChunks().size());
+        ArgumentCaptor<List<Contact>> captor = ArgumentCaptor.forClass(List.class);
+        verify(contactService, times(2)).saveContacts(captor.capture());
+        Contact doe = captor.getAllValues().get(0).get(1);
+        assertEquals("Doe, John", doe.getName());
+        assertNull(doe.getEmail());
+    }
+
+    @Test
+    void importContacts_ShouldRejectInvalidRows_WithLineNumbers() throws Exception {
+        String ndjson = "{\"id\":42,\"name\":\"Alice\",\"phoneNumber\":\"123-456-7890\"}\n"
+                + "{\"name\":\"Bob\",\"phoneNumber\":\"5555555555\"}\n"
+                + "{not json\n";
+
+        BulkImportResult result = contactImportService.importContacts(input(ndjson), ContactImportService.Format.NDJSON);
+
+        assertEquals(1, result.getAccepted());
+        assertEquals(2, result.getRejected());
+        assertEquals(List.of("line 2: Phone number must be in format XXX-XXX-XXXX"),
+                result.getChunks().get(0).getErrors());
+        assertEquals(List.of("line 3: malformed JSON"), result.getChunks().get(1).getErrors());
+        verify(contactService, times(1)).saveContacts(argThat(batch -> batch.get(0).getId() == null));
+    }
+
+    @Test
+    void importContacts_ShouldRejectWholeChunk_WhenWriteFails() throws Exception {
+        when(contactService.saveContacts(anyList())).thenThrow(new DataIntegrityViolationException("duplicate"));
+
+        BulkImportResult result = contactImportService.importContacts(
+                input("Alice,123-456-7890\nBob,987-654-3210\n"), ContactImportService.Format.CSV);
+
+        assertEquals(0, result.getAccepted());
+        assertEquals(2, result.getRejected());
+        assertEquals(List.of("chunk failed: duplicate"), result.getChunks().get(0).getErrors());
+    }
+
+    @Test
+    void parseCsv_ShouldHandleQuotesAndRejectBadColumnCounts() {
+        Contact contact = ContactImportService.parseCsv("\"Say \"\"Hi\"\"\",123-456-7890,hi@email.com");
+
+        assertEquals("Say \"Hi\"", contact.getName());
+        assertEquals("hi@email.com", contact.getEmail());
+        assertThrows(IllegalArgumentException.class, () -> ContactImportService.parseCsv("only-one-column"));
+        assertThrows(IllegalArgumentException.class, () -> ContactImportService.parseCsv("\"open,123-456-7890"));
+    }
+}
@@ -1,20 +1,43 @@
 package com.example.demo.phonebook.service;
 
+import com.example.demo.phonebook.cache.ContactLookupCache;
+import com.example.demo.phonebook.exception.ContactVersionConflictException;
+import com.example.demo.phonebook.exception.InvalidRequestException;
+import com.example.demo.phonebook.index.FuzzyNameIndex;
+import com.example.demo.phonebook.index.NameNgramIndex;
+import com.example.demo.phonebook.index.NamePrefixIndex;
+import com.example.demo.phonebook.index.PhoneNumberIndex;
 import com.example.demo.phonebook.model.Contact;
+import com.example.demo.phonebook.model.ContactBatchItem;
+import com.example.demo.phonebook.model.ContactChange;
+import com.example.demo.phonebook.model.ContactMatch;
+import com.example.demo.phonebook.model.ContactPage;
+import com.example.demo.phonebook.model.ContactPatch;
+import com.example.demo.phonebook.model.ContactSuggestion;
+import com.example.demo.phonebook.repository.ContactChangeRepository;
 import com.example.demo.phonebook.repository.ContactRepository;
+import com.example.demo.phonebook.writebehind.ContactWriteBuffer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -23,13 +46,31 @@ class ContactServiceTest {
     @Mock
     private ContactRepository contactRepository;
 
-    @InjectMocks
+    @Mock
+    private ContactChangeRepository contactChangeRepository;
+
+    @Mock
+    private NameNgramIndex nameNgramIndex;
+
+    @Mock
+    private NamePrefixIndex namePrefixIndex;
+
+    @Mock
+    private FuzzyNameIndex fuzzyNameIndex;
+
+    private ContactLookupCache contactLookupCache;
+
     private ContactService contactService;
 
     private Contact contact;
 
     @BeforeEach
     void setUp() {
+        contactLookupCache = new ContactLookupCache(new SimpleMeterRegistry(), 100,
+                Duration.ofMinutes(1), Duration.ofMinutes(1));
+        contactService = new ContactService(contactRepository, contactChangeRepository,
+                List.of(nameNgramIndex, namePrefixIndex, contactLookupCache),
+                nameNgramIndex, namePrefixIndex, fuzzyNameIndex, contactLookupCache, null, null, 3);
         contact = new Contact();
         contact.setId(1L);
         contact.setName("John Doe");
@@ -41,11 +82,26 @@ class ContactServiceTest {
     void saveContact_ShouldReturnSavedContact() {
         when(contactRepository.save(any(Contact.class))).thenReturn(contact);
 
-        Contact savedContact = contactService.saveContact(contact);
+        Contact savedContact = contactService.saveContact(new Contact(7L, "John Doe", "1234567890", null, 3L));
 
         assertNotNull(savedContact);
         assertEquals("John Doe", savedContact.getName());
-        verify(contactRepository, times(1)).save(contact);
+        // The id and version of the request are dropped, the insert assigns both
+        verify(contactRepository, times(1)).save(new Contact(null, "John Doe", "1234567890", null, null));
+        verify(contactChangeRepository).save(argThat(change ->
+                change.getType() == ContactChange.Type.UPSERT && change.getContactId().equals(1L)));
+        verify(nameNgramIndex, times(1)).index(contact);
+    }
+
+    @Test
+    void saveContacts_ShouldSaveAllInOneCall() {
+        List<Contact> contacts = Arrays.asList(contact);
+        when(contactRepository.saveAll(contacts)).thenReturn(contacts);
+
+        List<Contact> saved = contactService.saveContacts(contacts);
+
+        assertEquals(1, saved.size());
+        verify(contactRepository, times(1)).saveAll(contacts);
     }
 
     @Test
@@ -60,6 +116,53 @@ class ContactServiceTest {
         verify(contactRepository, times(1)).findAll();
     }
 
+    @Test
+    void getContactsPage_ShouldReturnCursor_WhenMoreRowsRemain() {
+        Contact second = new Contact(2L, "Jane Doe", "0987654321", "jane.doe@example.com");
+        when(contactRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(2)))
+                .thenReturn(new ArrayList<>(Arrays.asList(contact, second)));
+
+        ContactPage page = contactService.getContactsPage(null, 1);
+
+        assertEquals(1, page.getContacts().size());
+        assertEquals("John Doe", page.getContacts().get(0).getName());
+        assertEquals(1L, ContactService.decodeCursor(page.getNext()));
+    }
+
+    @Test
+    void getContactsPage_ShouldContinueAfterCursor_AndEndWithoutCursor() {
+        String cursor = ContactService.encodeCursor(1L);
+        Contact second = new Contact(2L, "Jane Doe", "0987654321", "jane.doe@example.com");
+        when(contactRepository.findByIdGreaterThanOrderByIdAsc(1L, Limit.of(11)))
+                .thenReturn(List.of(second));
+
+        ContactPage page = contactService.getContactsPage(cursor, 10);
+
+        assertEquals(1, page.getContacts().size());
+        assertEquals(2L, page.getContacts().get(0).getId());
+        assertNull(page.getNext());
+    }
+
+    @Test
+    void getContactsPage_ShouldRejectInvalidCursorAndLimit() {
+        assertThrows(InvalidRequestException.class, () -> contactService.getContactsPage("not-a-cursor!", 10));
+        assertThrows(InvalidRequestException.class, () -> contactService.getContactsPage(null, 0));
+        assertThrows(InvalidRequestException.class,
+                () -> contactService.getContactsPage(null, ContactService.MAX_PAGE_SIZE + 1));
+        verify(contactRepository, never()).findByIdGreaterThanOrderByIdAsc(any(), any());
+    }
+
+    @Test
+    void streamAllContacts_ShouldPassEveryRowToAction() {
+        Contact second = new Contact(2L, "Jane Doe", "0987654321", "jane.doe@example.com");
+        when(contactRepository.streamAllOrderById()).thenReturn(Stream.of(contact, second));
+
+        List<String> names = new ArrayList<>();
+        contactService.streamAllContacts(c -> names.add(c.getName()));
+
+        assertEquals(List.of("John Doe", "Jane Doe"), names);
+    }
+
     @Test
     void getContactById_ShouldReturnContact_WhenContactExists() {
         when(contactRepository.findById(1L)).thenReturn(Optional.of(contact));
@@ -81,6 +184,51 @@ class ContactServiceTest {
         verify(contactRepository, times(1)).findById(1L);
     }
 
+    @Test
+    void writeBehind_ShouldServeQueuedUpdates_ToIdAndPhoneLookups() {
+        ContactWriteBuffer writeBuffer = mock(ContactWriteBuffer.class);
+        ContactService buffered = new ContactService(contactRepository, contactChangeRepository, List.of(),
+                nameNgramIndex, namePrefixIndex, fuzzyNameIndex, contactLookupCache, null, writeBuffer, 3);
+        Contact queued = new Contact(1L, "John Doe", "555-000-0000", null, 2L);
+        when(writeBuffer.pending(1L)).thenReturn(queued);
+        when(writeBuffer.pendingByPhone("555-000-0000")).thenReturn(queued);
+        when(contactRepository.findByPhoneNumber("1234567890")).thenReturn(contact);
+
+        assertEquals(Optional.of(queued), buffered.getContactById(1L));
+        assertEquals(queued, buffered.getContactByPhoneNumber("555-000-0000"));
+        // The queued update moves the contact off its stored number
+        assertNull(buffered.getContactByPhoneNumber("1234567890"));
+        assertEquals(queued, buffered.getContactsByIds(List.of(1L)).get(0).getContact());
+        verify(contactRepository, never()).findById(any());
+    }
+
+    @Test
+    void writeBehind_ShouldMergeQueuedUpdates_AndWriteThemInOneGroup() throws Exception {
+        // The flusher only runs once destroy() drains the queue
+        ContactWriteBuffer writeBuffer = new ContactWriteBuffer(mock(PlatformTransactionManager.class),
+                100, 100, Duration.ofHours(1));
+        writeBuffer.afterPropertiesSet();
+        ContactService buffered = new ContactService(contactRepository, contactChangeRepository,
+                List.of(nameNgramIndex), nameNgramIndex, namePrefixIndex, fuzzyNameIndex, contactLookupCache,
+                null, writeBuffer, 3);
+        when(contactRepository.updateMergedById(eq(1L), eq("John Smith"), eq("1234567890"), isNull(), eq(2L), eq(2),
+                any(Instant.class))).thenReturn(1);
+
+        Contact first = buffered.queueUpdate(1L, new Contact(null, "John Doe", "1234567890", null, 2L),
+                ContactWriteBuffer.Ack.ENQUEUE);
+        Contact second = buffered.queueUpdate(1L, new Contact(null, "John Smith", "1234567890", null, 3L),
+                ContactWriteBuffer.Ack.ENQUEUE);
+        assertEquals(3L, first.getVersion());
+        assertEquals(4L, second.getVersion());
+        assertEquals("John Smith", buffered.getContactById(1L).orElseThrow().getName());
+        writeBuffer.destroy();
+
+        verify(contactRepository, never()).updateById(any(), any(), any(), any(), any(), any());
+        verify(contactChangeRepository).save(argThat(change -> change.getVersion() == 4L));
+        verify(nameNgramIndex).index(new Contact(1L, "John Smith", "1234567890", null, 4L));
+        assertNull(writeBuffer.pending(1L));
+    }
+
     @Test
     void getContactByPhoneNumber_ShouldReturnContact_WhenContactExists() {
         when(contactRepository.findByPhoneNumber("1234567890")).thenReturn(contact);
@@ -92,6 +240,63 @@ class ContactServiceTest {
         verify(contactRepository, times(1)).findByPhoneNumber("1234567890");
     }
 
+    @Test
+    void getContactByPhoneNumber_ShouldServeRepeatLookupsFromCache() {
+        when(contactRepository.findByPhoneNumber("1234567890")).thenReturn(contact);
+
+        contactService.getContactByPhoneNumber("1234567890");
+        Contact result = contactService.getContactByPhoneNumber("1234567890");
+
+        assertEquals("John Doe", result.getName());
+        verify(contactRepository, times(1)).findByPhoneNumber("1234567890");
+    }
+
+    @Test
+    void updateContact_ShouldEvictOldPhoneKey_WhenNumberChanges() {
+        Contact moved = new Contact(1L, "John Doe", "0987654321", "john.doe@example.com");
+        when(contactRepository.findByPhoneNumber("1234567890")).thenReturn(contact, (Contact) null);
+        when(contactRepository.updateById(eq(1L), eq("John Doe"), eq("0987654321"), eq("john.doe@example.com"),
+                isNull(), any(Instant.class))).thenReturn(1);
+        when(contactRepository.findWrittenById(1L)).thenReturn(Optional.of(moved));
+
+        assertNotNull(contactService.getContactByPhoneNumber("1234567890"));
+        contactService.updateContact(1L, moved);
+
+        assertNull(contactService.getContactByPhoneNumber("1234567890"));
+        verify(contactRepository, times(2)).findByPhoneNumber("1234567890");
+    }
+
+    @Test
+    void getContactByPhoneNumber_ShouldResolveThroughPhoneIndex_WhenEnabled() {
+        PhoneNumberIndex phoneNumberIndex = new PhoneNumberIndex(16);
+        phoneNumberIndex.load(new Contact(1L, "John Doe", "123-456-7890", null));
+        phoneNumberIndex.loaded();
+        ContactService indexed = new ContactService(contactRepository, contactChangeRepository, List.of(phoneNumberIndex),
+                nameNgramIndex, namePrefixIndex, fuzzyNameIndex, contactLookupCache, phoneNumberIndex, null, 3);
+        contact.setPhoneNumber("123-456-7890");
+        when(contactRepository.findById(1L)).thenReturn(Optional.of(contact));
+
+        assertEquals(contact, indexed.getContactByPhoneNumber("123-456-7890"));
+        assertNull(indexed.getContactByPhoneNumber("999-999-9999"));
+        verify(contactRepository, never()).findByPhoneNumber(any());
+    }
+
+    @Test
+    void getContactByPhoneNumber_ShouldEvictAStaleIndexEntry_OnceTheDatabaseAgrees() {
+        PhoneNumberIndex phoneNumberIndex = new PhoneNumberIndex(16);
+        phoneNumberIndex.load(new Contact(1L, "John Doe", "123-456-7890", null));
+        phoneNumberIndex.loaded();
+        ContactService indexed = new ContactService(contactRepository, contactChangeRepository, List.of(phoneNumberIndex),
+                nameNgramIndex, namePrefixIndex, fuzzyNameIndex, contactLookupCache, phoneNumberIndex, null, 3);
+        contact.setPhoneNumber("555-555-5555");
+        when(contactRepository.findById(1L)).thenReturn(Optional.of(contact));
+
+        assertNull(indexed.getContactByPhoneNumber("123-456-7890"));
+        assertNull(indexed.getContactByPhoneNumber("123-456-7890"));
+        verify(contactRepository, times(1)).findByPhoneNumber("123-456-7890");
+        assertEquals(PhoneNumberIndex.ABSENT, phoneNumberIndex.findId("123-456-7890"));
+    }
+
     @Test
     void getContactsByName_ShouldReturnMatchingContacts() {
         List<Contact> contacts = Arrays.asList(contact);
@@ -104,44 +309,213 @@ class ContactServiceTest {
         verify(contactRepository, times(1)).findByNameContainingIgnoreCase("John");
     }
 
+    @Test
+    void getContactsByName_ShouldFetchIndexHitsById_WhenIndexReady() {
+        Contact renamed = new Contact(2L, "Someone Else", "0987654321", null);
+        when(nameNgramIndex.findIdsContaining("JOHN")).thenReturn(new long[]{1L, 2L});
+        when(contactRepository.findAllCachedById(List.of(1L, 2L))).thenReturn(Arrays.asList(renamed, contact));
+
+        List<Contact> result = contactService.getContactsByName("JOHN");
+
+        // Contact 2 was renamed after the index lookup and must not be returned
+        assertEquals(List.of(contact), result);
+        verify(contactRepository, never()).findByNameContainingIgnoreCase(any());
+    }
+
+    @Test
+    void getSuggestions_ShouldCapLimit_AndUseIndex_WhenReady() {
+        when(namePrefixIndex.isReady()).thenReturn(true);
+        when(namePrefixIndex.suggest("jo", ContactService.MAX_SUGGESTIONS))
+                .thenReturn(List.of(new ContactSuggestion(1L, "John Doe")));
+
+        List<ContactSuggestion> result = contactService.getSuggestions("jo", 500);
+
+        assertEquals("John Doe", result.get(0).getName());
+        verify(contactRepository, never()).findSuggestionsByNamePrefix(any(), any());
+    }
+
+    @Test
+    void getSuggestions_ShouldFallBackToRepository_WhileIndexLoads() {
+        when(contactRepository.findSuggestionsByNamePrefix("jo", Limit.of(5)))
+                .thenReturn(List.of(new ContactSuggestion(1L, "John Doe")));
+
+        List<ContactSuggestion> result = contactService.getSuggestions("jo", 5);
+
+        assertEquals(1, result.size());
+        assertThrows(InvalidRequestException.class, () -> contactService.getSuggestions("jo", 0));
+    }
+
+    @Test
+    void getFuzzyMatches_ShouldKeepIndexOrder_AndSkipContactsDeletedSinceLookup() {
+        Contact second = new Contact(2L, "Jon Smyth", "987-654-3210", null);
+        when(fuzzyNameIndex.search("jonh smtih", 2, ContactService.MAX_SUGGESTIONS)).thenReturn(List.of(
+                new FuzzyNameIndex.Match(1L, 2, 2), new FuzzyNameIndex.Match(2L, 2, 4)));
+        when(contactRepository.findAllCachedById(List.of(1L, 2L))).thenReturn(List.of(second));
+
+        List<ContactMatch> result = contactService.getFuzzyMatches("jonh smtih", 2, 100);
+
+        assertEquals(List.of(new ContactMatch(second, 2, 4)), result);
+    }
+
+    @Test
+    void getFuzzyMatches_ShouldFallBackToSubstringSearch_WhileIndexLoads_AndValidate() {
+        when(fuzzyNameIndex.search("John", 2, 10)).thenReturn(null);
+        when(contactRepository.findByNameContainingIgnoreCase("John")).thenReturn(List.of(contact));
+
+        assertEquals(List.of(new ContactMatch(contact, 1, 0)), contactService.getFuzzyMatches("John", 2, 10));
+        assertThrows(InvalidRequestException.class, () -> contactService.getFuzzyMatches(" ", 2, 10));
+        assertThrows(InvalidRequestException.class, () -> contactService.getFuzzyMatches("John", 3, 10));
+        assertThrows(InvalidRequestException.class, () -> contactService.getFuzzyMatches("John", 2, 0));
+    }
+
     @Test
     void updateContact_ShouldUpdateAndReturnContact_WhenContactExists() {
         Contact updatedContact = new Contact();
         updatedContact.setName("Jane Doe");
         updatedContact.setPhoneNumber("0987654321");
         updatedContact.setEmail("jane.doe@example.com");
+        Contact stored = new Contact(1L, "Jane Doe", "0987654321", "jane.doe@example.com", 3L);
 
-        when(contactRepository.findById(1L)).thenReturn(Optional.of(contact));
-        when(contactRepository.save(any(Contact.class))).thenReturn(contact);
+        when(contactRepository.updateById(eq(1L), eq("Jane Doe"), eq("0987654321"), eq("jane.doe@example.com"),
+                isNull(), any(Instant.class))).thenReturn(1);
+        when(contactRepository.findWrittenById(1L)).thenReturn(Optional.of(stored));
 
         Contact result = contactService.updateContact(1L, updatedContact);
 
-        assertNotNull(result);
-        assertEquals("Jane Doe", result.getName());
-        assertEquals("0987654321", result.getPhoneNumber());
-        assertEquals("jane.doe@example.com", result.getEmail());
-        verify(contactRepository, times(1)).findById(1L);
-        verify(contactRepository, times(1)).save(any(Contact.class));
+        assertEquals(stored, result);
+        verify(contactRepository, never()).save(any(Contact.class));
+        verify(nameNgramIndex, times(1)).index(stored);
+    }
+
+    @Test
+    void updateContact_ShouldSkipReadBack_WhenVersionGiven() {
+        Contact updatedContact = new Contact(null, "Jane Doe", "0987654321", null, 2L);
+        when(contactRepository.updateById(eq(1L), eq("Jane Doe"), eq("0987654321"), isNull(), eq(2L),
+                any(Instant.class))).thenReturn(1);
+
+        Contact result = contactService.updateContact(1L, updatedContact);
+
+        assertEquals(new Contact(1L, "Jane Doe", "0987654321", null, 3L), result);
+        verify(contactRepository, never()).findWrittenById(any());
+        verify(nameNgramIndex, times(1)).index(result);
     }
 
     @Test
     void updateContact_ShouldReturnNull_WhenContactDoesNotExist() {
         Contact updatedContact = new Contact();
-        when(contactRepository.findById(1L)).thenReturn(Optional.empty());
+        when(contactRepository.updateById(eq(1L), isNull(), isNull(), isNull(), isNull(), any(Instant.class)))
+                .thenReturn(0);
 
         Contact result = contactService.updateContact(1L, updatedContact);
 
         assertNull(result);
-        verify(contactRepository, times(1)).findById(1L);
         verify(contactRepository, never()).save(any(Contact.class));
+        verify(nameNgramIndex, never()).index(any());
     }
 
     @Test
-    void deleteContact_ShouldCallDeleteById() {
-        doNothing().when(contactRepository).deleteById(1L);
+    void updateContact_ShouldThrowConflict_WhenVersionIsStale() {
+        Contact updatedContact = new Contact(null, "Jane Doe", "0987654321", null, 2L);
+        when(contactRepository.updateById(eq(1L), eq("Jane Doe"), eq("0987654321"), isNull(), eq(2L),
+                any(Instant.class))).thenReturn(0);
+        when(contactRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(ContactVersionConflictException.class, () -> contactService.updateContact(1L, updatedContact));
+        verify(nameNgramIndex, never()).index(any());
+    }
+
+    @Test
+    void patchContact_ShouldWriteOnlyGivenFields_AndIndexStoredRow() {
+        ContactPatch patch = new ContactPatch(null, null, "new@example.com", null);
+        Contact stored = new Contact(1L, "John Doe", "1234567890", "new@example.com", 1L);
+        when(contactRepository.patchById(eq(1L), isNull(), isNull(), eq("new@example.com"), isNull(),
+                any(Instant.class))).thenReturn(1);
+        when(contactRepository.findWrittenById(1L)).thenReturn(Optional.of(stored));
+
+        Contact result = contactService.patchContact(1L, patch);
+
+        assertEquals(stored, result);
+        verify(nameNgramIndex, times(1)).index(stored);
+    }
+
+    @Test
+    void patchContact_ShouldReturnNull_WhenVersionGivenButContactMissing() {
+        when(contactRepository.patchById(eq(1L), eq("Jane"), isNull(), isNull(), eq(4L), any(Instant.class)))
+                .thenReturn(0);
+        when(contactRepository.existsById(1L)).thenReturn(false);
+
+        assertNull(contactService.patchContact(1L, new ContactPatch("Jane", null, null, 4L)));
+    }
+
+    @Test
+    void deleteContact_ShouldDeleteWithoutLoading() {
+        when(contactRepository.deleteByIdIn(List.of(1L))).thenReturn(1);
 
         contactService.deleteContact(1L);
 
-        verify(contactRepository, times(1)).deleteById(1L);
+        verify(contactRepository, times(1)).deleteByIdIn(List.of(1L));
+        verify(contactRepository, never()).deleteById(any());
+        verify(nameNgramIndex, times(1)).remove(1L);
+        verify(contactChangeRepository).save(argThat(change ->
+                change.getType() == ContactChange.Type.DELETE && change.getContactId().equals(1L)));
+    }
+
+    @Test
+    void deleteContact_ShouldThrowConflict_WhenVersionIsStale() {
+        when(contactRepository.deleteByIdAndVersion(1L, 2L)).thenReturn(0);
+        when(contactRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(ContactVersionConflictException.class, () -> contactService.deleteContact(1L, 2L));
+        verify(nameNgramIndex, never()).remove(any());
+        verifyNoInteractions(contactChangeRepository);
+    }
+
+    @Test
+    void deleteContact_ShouldReturnFalse_WhenVersionGivenButContactMissing() {
+        when(contactRepository.deleteByIdAndVersion(1L, 2L)).thenReturn(0);
+        when(contactRepository.existsById(1L)).thenReturn(false);
+
+        assertFalse(contactService.deleteContact(1L, 2L));
+    }
+
+    @Test
+    void getContactsByIds_ShouldReportEachDistinctIdInRequestOrder() {
+        when(contactRepository.findAllCachedById(List.of(2L, 1L))).thenReturn(List.of(contact));
+
+        List<ContactBatchItem> result = contactService.getContactsByIds(List.of(2L, 1L, 2L));
+
+        assertEquals(List.of(
+                new ContactBatchItem(2L, ContactBatchItem.Status.NOT_FOUND, null),
+                new ContactBatchItem(1L, ContactBatchItem.Status.FOUND, contact)), result);
+    }
+
+    @Test
+    void getContactsByIds_ShouldRejectOversizedOrEmptyBatch() {
+        assertThrows(InvalidRequestException.class, () -> contactService.getContactsByIds(List.of(1L, 2L, 3L, 4L)));
+        assertThrows(InvalidRequestException.class, () -> contactService.getContactsByIds(List.of()));
+        verifyNoInteractions(contactRepository);
+    }
+
+    @Test
+    void deleteContacts_ShouldDeleteOnlyExistingIds_AndUnindexThem() {
+        when(contactRepository.findExistingIds(List.of(1L, 5L))).thenReturn(List.of(1L));
+
+        List<ContactBatchItem> result = contactService.deleteContacts(List.of(1L, 5L));
+
+        assertEquals(List.of(
+                new ContactBatchItem(1L, ContactBatchItem.Status.DELETED, null),
+                new ContactBatchItem(5L, ContactBatchItem.Status.NOT_FOUND, null)), result);
+        verify(contactRepository, times(1)).deleteByIdIn(List.of(1L));
+        verify(nameNgramIndex, times(1)).remove(1L);
+        verify(nameNgramIndex, never()).remove(5L);
+    }
+
+    @Test
+    void deleteContacts_ShouldSkipDelete_WhenNothingExists() {
+        when(contactRepository.findExistingIds(List.of(7L))).thenReturn(List.of());
+
+        contactService.deleteContacts(List.of(7L));
+
+        verify(contactRepository, never()).deleteByIdIn(any());
     }
 }
\ No newline at end of file
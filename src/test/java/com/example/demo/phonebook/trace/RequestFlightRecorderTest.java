@@ -0,0 +1,32 @@
+package com.example.demo.phonebook.trace;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestFlightRecorderTest {
+
+    @Test
+    void slowest_ShouldOnlyConsiderTheLastCapacityRequests_SlowestFirst() {
+        RequestFlightRecorder recorder = new RequestFlightRecorder(3);
+        assertEquals(4, recorder.capacity());
+        for (long total : new long[]{900, 100, 300, 200, 500}) {
+            recorder.record(request(total));
+        }
+
+        // 900 was overwritten by 500
+        assertEquals(List.of(500L, 300L), recorder.slowest(2).stream()
+                .map(RequestFlightRecorder.TracedRequest::totalNanos).toList());
+        assertEquals(4, recorder.slowest(10).size());
+
+        recorder.clear();
+        assertTrue(recorder.slowest(10).isEmpty());
+    }
+
+    private static RequestFlightRecorder.TracedRequest request(long totalNanos) {
+        return new RequestFlightRecorder.TracedRequest("GET", "/api/phonebook/search/name/alice",
+                "/api/phonebook/search/name/{name}", 200, 0, totalNanos, new long[RequestPhase.values().length]);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.demo.phonebook.trace;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestTraceTest {
+
+    @AfterEach
+    void tearDown() {
+        RequestTrace.begin().end();
+    }
+
+    @Test
+    void end_ShouldChargeEachPhaseOnlyItsOwnTime_SoThePhasesAddUpToTheTotal() {
+        RequestTrace trace = RequestTrace.begin();
+        RequestTrace.enter(RequestPhase.SERVICE);
+        RequestTrace.enter(RequestPhase.REPOSITORY);
+        sleep(20);
+        RequestTrace.exit();
+        sleep(5);
+        RequestTrace.exit();
+
+        long total = trace.end();
+
+        long[] phases = trace.getPhaseNanos();
+        assertEquals(total, Arrays.stream(phases).sum());
+        assertTrue(phases[RequestPhase.REPOSITORY.ordinal()] >= TimeUnit.MILLISECONDS.toNanos(20));
+        assertTrue(phases[RequestPhase.SERVICE.ordinal()] >= TimeUnit.MILLISECONDS.toNanos(5));
+        assertTrue(phases[RequestPhase.SERVICE.ordinal()] < phases[RequestPhase.REPOSITORY.ordinal()]);
+        assertEquals(0, phases[RequestPhase.DATABASE.ordinal()]);
+    }
+
+    @Test
+    void unwind_ShouldCloseOpenPhases_AndExitsWithoutATraceDoNothing() {
+        RequestTrace.exit();
+        RequestTrace trace = RequestTrace.begin();
+        RequestTrace.enter(RequestPhase.CONTROLLER);
+        RequestTrace.enter(RequestPhase.SERIALIZATION);
+        RequestTrace.unwind();
+        RequestTrace.exit();
+        sleep(5);
+
+        trace.end();
+        RequestTrace.enter(RequestPhase.SERVICE);
+
+        assertTrue(trace.getPhaseNanos()[RequestPhase.FRAMEWORK.ordinal()] >= TimeUnit.MILLISECONDS.toNanos(5));
+        assertEquals(0, trace.getPhaseNanos()[RequestPhase.SERVICE.ordinal()]);
+    }
+
+    private static void sleep(long millis) {
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}
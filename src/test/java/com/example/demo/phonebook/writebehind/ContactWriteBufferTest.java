@@ -0,0 +1,81 @@
+package com.example.demo.phonebook.writebehind;
+
+import com.example.demo.phonebook.exception.ContactVersionConflictException;
+import com.example.demo.phonebook.model.Contact;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ContactWriteBufferTest {
+
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final List<Integer> groupSizes = new CopyOnWriteArrayList<>();
+    private ContactWriteBuffer buffer;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        buffer.destroy();
+    }
+
+    @Test
+    void update_ShouldReturnTheWrittenContact_WhenAcknowledgedOnCommit() {
+        start(Duration.ofMillis(1), group -> group.forEach(entry -> entry.written(
+                new Contact(entry.getId(), entry.getContact().getName(), entry.getContact().getPhoneNumber(), null, 7L))));
+
+        Contact written = buffer.update(1L, new Contact(null, "Alice", "123-456-7890", null),
+                ContactWriteBuffer.Ack.COMMIT);
+
+        assertEquals(new Contact(1L, "Alice", "123-456-7890", null, 7L), written);
+        assertNull(buffer.pending(1L));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void update_ShouldFailRightAway_WhenAQueuedUpdateMovedPastTheVersion() {
+        start(Duration.ofHours(1), group -> group.forEach(entry -> entry.written(entry.getContact())));
+
+        Contact queued = buffer.update(1L, new Contact(null, "Alice", "123-456-7890", null, 3L),
+                ContactWriteBuffer.Ack.ENQUEUE);
+
+        assertEquals(4L, queued.getVersion());
+        assertEquals(queued.getName(), buffer.pendingByPhone("123-456-7890").getName());
+        assertThrows(ContactVersionConflictException.class, () -> buffer.update(1L,
+                new Contact(null, "Bob", "123-456-7890", null, 3L), ContactWriteBuffer.Ack.ENQUEUE));
+        assertEquals(1, buffer.size());
+    }
+
+    @Test
+    void flush_ShouldWriteEntriesOneByOne_WhenTheirGroupFails() throws InterruptedException {
+        start(Duration.ofHours(1), group -> {
+            if (group.size() > 1) {
+                throw new IllegalStateException("one row is bad");
+            }
+            group.forEach(entry -> entry.written(entry.getContact()));
+        });
+        buffer.update(1L, new Contact(null, "Alice", "123-456-7890", null), ContactWriteBuffer.Ack.ENQUEUE);
+        buffer.update(2L, new Contact(null, "Bob", "123-456-7891", null), ContactWriteBuffer.Ack.ENQUEUE);
+
+        // Drains the queue
+        buffer.destroy();
+
+        assertEquals(List.of(2, 1, 1), groupSizes);
+        assertEquals(0, buffer.size());
+        assertNull(buffer.pending(2L));
+    }
+
+    private void start(Duration maxDelay, ContactWriteBuffer.GroupWriter writer) {
+        buffer = new ContactWriteBuffer(transactionManager, 10, 10, maxDelay);
+        buffer.bind(group -> {
+            groupSizes.add(group.size());
+            writer.write(group);
+        });
+        buffer.afterPropertiesSet();
+    }
+}
@@ -0,0 +1,20 @@
+-- Same shape Hibernate generates for Contact on H2 (ddl-auto), for the reactive profile tests
+create sequence if not exists contact_seq start with 1 increment by 100;
+create table if not exists contact (
+    id bigint not null primary key,
+    name varchar(255),
+    phone_number varchar(255),
+    email varchar(255),
+    updated_at timestamp(6) with time zone,
+    version bigint
+);
+-- ContactChange, the outbox the reactive writes fill for the servlet instances' change feed
+create sequence if not exists contact_change_seq start with 1 increment by 100;
+create table if not exists contact_change (
+    seq bigint not null primary key,
+    contact_id bigint,
+    change_type varchar(255),
+    version bigint,
+    occurred_at timestamp(6) with time zone,
+    feed_position bigint unique
+);